@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+#
+# Measures the time to ready of the service in three modes: the plain jar, the AOT-processed
+# context with the fast-startup profile (lazy initialization) and the same with an AppCDS archive. The archive is produced by a
+# training run that stops right after the context refresh.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# The service needs the same infrastructure as a normal start (config server, Mongo, Kafka);
+# extra JVM options, e.g. -Dspring.data.mongodb.uri=..., are taken from JAVA_OPTS.
+set -euo pipefail
+
+RUNS="${1:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET="$ROOT/target"
+EXTRACTED="$TARGET/extracted"
+ARCHIVE="$EXTRACTED/application.jsa"
+REPORT="$TARGET/startup-benchmark.txt"
+JAVA_OPTS="${JAVA_OPTS:-}"
+
+cd "$ROOT"
+sh ./mvnw -q -B -Pfast-startup -DskipTests package
+JAR="$(ls "$TARGET"/account-service-*.jar | grep -v original | head -n 1)"
+
+rm -rf "$EXTRACTED"
+java -Djarmode=tools -jar "$JAR" extract --destination "$EXTRACTED"
+APP="$EXTRACTED/$(basename "$JAR")"
+
+echo "Training the AppCDS archive..."
+# shellcheck disable=SC2086
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=fast-startup -Dspring.context.exit=onRefresh $JAVA_OPTS -jar "$APP" \
+  > "$TARGET/cds-training.log" 2>&1
+
+# Starts the service once and prints its time to ready in milliseconds.
+time_to_ready() {
+  local log="$TARGET/startup-run.log"
+  # shellcheck disable=SC2086
+  java "$@" $JAVA_OPTS -jar "$APP" > "$log" 2>&1 &
+  local pid=$!
+  local ready=""
+  for _ in $(seq 1 600); do
+    ready="$(grep -o 'Time to ready: [0-9]*' "$log" | grep -o '[0-9]*$' || true)"
+    if [[ -n "$ready" ]] || ! kill -0 "$pid" 2> /dev/null; then
+      break
+    fi
+    sleep 0.1
+  done
+  kill "$pid" 2> /dev/null || true
+  wait "$pid" 2> /dev/null || true
+  echo "${ready:-failed}"
+}
+
+benchmark() {
+  local mode="$1"
+  shift
+  local times=()
+  for _ in $(seq 1 "$RUNS"); do
+    times+=("$(time_to_ready "$@")")
+  done
+  printf '%s\n' "${times[@]}" | awk -v mode="$mode" '
+    /^[0-9]+$/ { n++; sum += $1; if (min == "" || $1 < min) min = $1; if ($1 > max) max = $1 }
+    END { if (n) printf "%-10s runs=%d mean=%.0fms min=%dms max=%dms\n", mode, n, sum / n, min, max;
+          else printf "%-10s failed\n", mode }'
+}
+
+{
+  benchmark "jar"
+  benchmark "aot" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup
+  benchmark "aot+cds" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup \
+    -XX:SharedArchiveFile="$ARCHIVE"
+} | tee "$REPORT"
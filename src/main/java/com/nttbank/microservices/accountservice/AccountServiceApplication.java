@@ -2,6 +2,7 @@ package com.nttbank.microservices.accountservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import reactivefeign.spring.config.EnableReactiveFeignClients;
 
 /**
@@ -19,10 +20,13 @@ import reactivefeign.spring.config.EnableReactiveFeignClients;
  *   - Marks this as a Spring Boot application.</li>
  *   <li>{@link reactivefeign.spring.config.EnableReactiveFeignClients}
  *   - Enables the use of reactive Feign clients.</li>
+ *   <li>{@link org.springframework.scheduling.annotation.EnableScheduling}
+ *   - Enables the scheduled jobs, such as the archival of old transactions.</li>
  * </ul>
  */
 @SpringBootApplication
 @EnableReactiveFeignClients
+@EnableScheduling
 public class AccountServiceApplication {
 
   public static void main(String[] args) {
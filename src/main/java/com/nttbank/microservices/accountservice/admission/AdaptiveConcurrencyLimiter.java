@@ -0,0 +1,277 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Limit of the concurrent operations of one {@link OperationClass}, learned from their latency in
+ * the style of TCP Vegas: the limit grows while the latency stays close to the lowest one seen and
+ * shrinks as it rises, and timeouts cut it by a tenth. Operations over the limit wait briefly in a
+ * bounded queue and are then rejected. The slot of a running operation is in its context, so that
+ * work waiting on another resource can hand it back early (see {@link #releasingSlot(Mono)}).
+ */
+final class AdaptiveConcurrencyLimiter {
+
+  private static final double DROP_FACTOR = 0.9;
+  private static final Object SLOT_KEY = AdaptiveConcurrencyLimiter.class;
+
+  private final Settings settings;
+  private final Supplier<Throwable> rejection;
+  private final LongSupplier nanoClock;
+  private final Scheduler timer;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock sampleLock = new ReentrantLock();
+
+  private volatile int limit;
+  private double estimatedLimit;
+  private long noLoadRttNanos = Long.MAX_VALUE;
+  private long samplesSinceProbe;
+
+  /**
+   * Settings shared by the limiters of every operation class.
+   *
+   * @param initialLimit    the limit used until latency samples arrive.
+   * @param minLimit        the lowest limit.
+   * @param maxLimit        the highest limit.
+   * @param maxQueue        the operations allowed to wait for a slot.
+   * @param maxWait         how long an operation waits for a slot before it is rejected.
+   * @param probeMultiplier the samples, as a multiple of the limit, between two measures of the
+   *                        latency without queueing.
+   */
+  record Settings(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+                  int probeMultiplier) {
+
+  }
+
+  AdaptiveConcurrencyLimiter(Settings settings, Supplier<Throwable> rejection) {
+    this(settings, rejection, System::nanoTime, Schedulers.parallel());
+  }
+
+  /**
+   * Creates a limiter measuring the latency with the given clock and timing out the queued
+   * operations on the given scheduler.
+   */
+  AdaptiveConcurrencyLimiter(Settings settings, Supplier<Throwable> rejection,
+      LongSupplier nanoClock, Scheduler timer) {
+    this.settings = settings;
+    this.rejection = rejection;
+    this.nanoClock = nanoClock;
+    this.timer = timer;
+    this.limit = settings.initialLimit();
+    this.estimatedLimit = settings.initialLimit();
+  }
+
+  int getLimit() {
+    return limit;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  int getQueued() {
+    return queued.get();
+  }
+
+  /**
+   * Runs an operation once a slot is free.
+   *
+   * @param operation the operation, subscribed once it holds a slot.
+   * @param <T>       the type emitted by the operation.
+   * @return the operation, or an error from the rejection supplier when no slot is free in time.
+   */
+  <T> Mono<T> run(Supplier<Mono<T>> operation) {
+    return Mono.defer(() -> tryAcquire()
+        ? execute(operation)
+        : awaitSlot().then(Mono.defer(() -> execute(operation))));
+  }
+
+  private <T> Mono<T> execute(Supplier<Mono<T>> operation) {
+    Permit permit = new Permit(nanoClock.getAsLong());
+    return Mono.defer(operation)
+        .contextWrite(Context.of(SLOT_KEY, permit))
+        .doOnSuccess(value -> permit.release(true, false))
+        .doOnError(e -> permit.release(false, e instanceof TimeoutException))
+        .doOnCancel(() -> permit.release(false, false));
+  }
+
+  /**
+   * Runs work of a limited operation that no longer needs its slot, such as a call to another
+   * service, after releasing the slot. The time held until then is sampled as the latency of the
+   * operation.
+   *
+   * @param work the work.
+   * @param <T>  the type emitted by the work.
+   * @return the work, run as is outside a limited operation.
+   */
+  static <T> Mono<T> releasingSlot(Mono<T> work) {
+    return Mono.deferContextual(context -> {
+      context.<Permit>getOrEmpty(SLOT_KEY).ifPresent(permit -> permit.release(true, false));
+      return work;
+    });
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Waits in the queue until {@link #drain()} hands over a slot, which the caller then holds.
+   */
+  private Mono<Void> awaitSlot() {
+    if (queued.incrementAndGet() > settings.maxQueue()) {
+      queued.decrementAndGet();
+      return Mono.error(rejection.get());
+    }
+    return Mono.create(sink -> {
+      Waiter waiter = new Waiter(sink);
+      Disposable timeout = timer.schedule(() -> {
+        if (waiter.cancel()) {
+          sink.error(rejection.get());
+        }
+      }, settings.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+      sink.onDispose(timeout);
+      sink.onCancel(() -> {
+        if (!waiter.cancel() && waiter.isAdmitted()) {
+          // The slot was handed over while the caller went away.
+          inFlight.decrementAndGet();
+          drain();
+        }
+      });
+      waiters.add(waiter);
+      drain();
+    });
+  }
+
+  /**
+   * Hands the free slots over to the waiting operations, in arrival order.
+   */
+  private void drain() {
+    while (!waiters.isEmpty() && tryAcquire()) {
+      Waiter waiter = waiters.poll();
+      if (waiter != null && waiter.admit()) {
+        waiter.sink.success();
+      } else {
+        inFlight.decrementAndGet();
+      }
+    }
+  }
+
+  private void onSample(long rttNanos, boolean dropped) {
+    if (!sampleLock.tryLock()) {
+      return;
+    }
+    try {
+      if (dropped) {
+        estimatedLimit = estimatedLimit * DROP_FACTOR;
+      } else if (++samplesSinceProbe >= (long) limit * settings.probeMultiplier()) {
+        samplesSinceProbe = 0;
+        noLoadRttNanos = rttNanos;
+        return;
+      } else if (rttNanos < noLoadRttNanos) {
+        noLoadRttNanos = rttNanos;
+        return;
+      } else {
+        double step = Math.max(1, Math.log10(estimatedLimit));
+        double queue = estimatedLimit * (1 - (double) noLoadRttNanos / rttNanos);
+        if (queue <= 3 * step && inFlight.get() * 2 >= estimatedLimit) {
+          estimatedLimit += step;
+        } else if (queue >= 6 * step) {
+          estimatedLimit -= step;
+        }
+      }
+      estimatedLimit = Math.max(settings.minLimit(),
+          Math.min(settings.maxLimit(), estimatedLimit));
+      limit = (int) estimatedLimit;
+    } finally {
+      sampleLock.unlock();
+    }
+  }
+
+  /**
+   * Slot held by a running operation, released once, when the operation ends or hands it back.
+   */
+  private final class Permit {
+
+    private final long startNanos;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    Permit(long startNanos) {
+      this.startNanos = startNanos;
+    }
+
+    void release(boolean succeeded, boolean dropped) {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+      inFlight.decrementAndGet();
+      if (succeeded || dropped) {
+        onSample(nanoClock.getAsLong() - startNanos, dropped);
+      }
+      drain();
+    }
+  }
+
+  /**
+   * Operation waiting for a slot. It is either admitted by {@link #drain()} or cancelled, by its
+   * timeout or by its caller, whichever comes first.
+   */
+  private final class Waiter {
+
+    private static final int WAITING = 0;
+    private static final int ADMITTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final MonoSink<Void> sink;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    Waiter(MonoSink<Void> sink) {
+      this.sink = sink;
+    }
+
+    boolean admit() {
+      if (state.compareAndSet(WAITING, ADMITTED)) {
+        queued.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    boolean cancel() {
+      if (state.compareAndSet(WAITING, CANCELLED)) {
+        queued.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    boolean isAdmitted() {
+      return state.get() == ADMITTED;
+    }
+  }
+}
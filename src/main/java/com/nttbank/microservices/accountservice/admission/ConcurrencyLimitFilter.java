@@ -0,0 +1,56 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts the account requests under the {@link ConcurrencyLimits}: reads under the
+ * {@link OperationClass#MONGO_READ} limit and writes under the {@link OperationClass#MONGO_WRITE}
+ * one. Reports are reads whatever their method, since some take their criteria in a body. Streams
+ * are left out, since they stay open as long as the client listens and their duration
+ * says nothing about the load of the database. The slot is handed back as soon as the request calls
+ * the gateway or forwards a movement to another node, so that a slow gateway or owner does not hold
+ * the slots of the database.
+ */
+@Component
+@Order(MovementRateLimitFilter.ORDER + 1)
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements WebFilter {
+
+  private static final PathPattern LIMITED_PATHS =
+      PathPatternParser.defaultInstance.parse("/accounts/**");
+  private static final PathPattern REPORT_PATHS =
+      PathPatternParser.defaultInstance.parse("/accounts/reports/**");
+  private static final List<PathPattern> STREAM_PATHS = Stream.of(
+          "/accounts/{account_id}/balance/stream",
+          "/accounts/transactions/export")
+      .map(PathPatternParser.defaultInstance::parse)
+      .toList();
+
+  private final ConcurrencyLimits concurrencyLimits;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+    if (!LIMITED_PATHS.matches(path) || STREAM_PATHS.stream().anyMatch(p -> p.matches(path))) {
+      return chain.filter(exchange);
+    }
+    HttpMethod method = exchange.getRequest().getMethod();
+    OperationClass operationClass = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+        || REPORT_PATHS.matches(path)
+        ? OperationClass.MONGO_READ
+        : OperationClass.MONGO_WRITE;
+    return concurrencyLimits.limit(operationClass, () -> chain.filter(exchange));
+  }
+}
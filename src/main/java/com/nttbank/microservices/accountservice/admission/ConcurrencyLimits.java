@@ -0,0 +1,115 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import com.nttbank.microservices.accountservice.exception.AdmissionRejectedException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adaptive concurrency limits of the service, one {@link AdaptiveConcurrencyLimiter} per
+ * {@link OperationClass}. An operation finding its class saturated waits briefly for a slot and is
+ * then rejected with {@code 503 Service Unavailable}, so that a slow database or gateway makes the
+ * service shed load instead of piling up work it cannot finish in time. An operation holds one slot
+ * at a time: one entering another class, or waiting on work outside the service, hands back the
+ * slot of the operation it runs in. The learned limit, the operations in flight and the queued ones
+ * are published per class under {@code account.concurrency.*}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimits {
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<OperationClass, AdaptiveConcurrencyLimiter> limiters =
+      new EnumMap<>(OperationClass.class);
+
+  @Value("${account.nttbank.concurrency.enabled:true}")
+  private boolean enabled;
+  @Value("${account.nttbank.concurrency.initial-limit:20}")
+  private int initialLimit;
+  @Value("${account.nttbank.concurrency.min-limit:4}")
+  private int minLimit;
+  @Value("${account.nttbank.concurrency.max-limit:500}")
+  private int maxLimit;
+  @Value("${account.nttbank.concurrency.max-queue:100}")
+  private int maxQueue;
+  @Value("${account.nttbank.concurrency.max-wait-ms:50}")
+  private long maxWaitMs;
+  @Value("${account.nttbank.concurrency.probe-multiplier:30}")
+  private int probeMultiplier;
+  @Value("${account.nttbank.concurrency.retry-after-ms:1000}")
+  private long retryAfterMs;
+
+  /**
+   * Creates the limiter of every operation class and registers its gauges.
+   */
+  @PostConstruct
+  public void init() {
+    AdaptiveConcurrencyLimiter.Settings settings = new AdaptiveConcurrencyLimiter.Settings(
+        initialLimit, minLimit, maxLimit, maxQueue, Duration.ofMillis(maxWaitMs),
+        probeMultiplier);
+    for (OperationClass operationClass : OperationClass.values()) {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings,
+          () -> rejection(operationClass));
+      limiters.put(operationClass, limiter);
+      Gauge.builder("account.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+          .description("Learned limit of concurrent operations")
+          .tag("operation", operationClass.tag())
+          .register(meterRegistry);
+      Gauge.builder("account.concurrency.in-flight", limiter,
+              AdaptiveConcurrencyLimiter::getInFlight)
+          .description("Operations running")
+          .tag("operation", operationClass.tag())
+          .register(meterRegistry);
+      Gauge.builder("account.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+          .description("Operations waiting for a slot")
+          .tag("operation", operationClass.tag())
+          .register(meterRegistry);
+    }
+    log.info("Adaptive concurrency limits {}.", enabled ? "enabled" : "disabled");
+  }
+
+  /**
+   * Runs an operation under the concurrency limit of its class.
+   *
+   * @param operationClass the class of the operation.
+   * @param operation      the operation, subscribed once it holds a slot.
+   * @param <T>            the type emitted by the operation.
+   * @return the operation, or an {@link AdmissionRejectedException} when the class is saturated.
+   */
+  public <T> Mono<T> limit(OperationClass operationClass, Supplier<Mono<T>> operation) {
+    return enabled
+        ? releasingSlot(limiters.get(operationClass).run(operation))
+        : Mono.defer(operation);
+  }
+
+  /**
+   * Runs work that waits on something else than the resource of the enclosing operation, such as
+   * another node, after handing back the slot of that operation.
+   *
+   * @param work the work.
+   * @param <T>  the type emitted by the work.
+   * @return the work.
+   */
+  public static <T> Mono<T> releasingSlot(Mono<T> work) {
+    return AdaptiveConcurrencyLimiter.releasingSlot(work);
+  }
+
+  private Throwable rejection(OperationClass operationClass) {
+    meterRegistry.counter("account.concurrency.rejected", "operation", operationClass.tag())
+        .increment();
+    return new AdmissionRejectedException(ErrorCode.SERVICE_OVERLOADED,
+        Duration.ofMillis(retryAfterMs));
+  }
+}
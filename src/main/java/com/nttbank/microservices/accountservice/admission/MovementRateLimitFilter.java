@@ -0,0 +1,200 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.exception.AdmissionRejectedException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.service.BankAccountService;
+import com.nttbank.microservices.accountservice.service.CustomerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Admission control of the money movements debiting an account (withdraw and transfer), applied
+ * before the request reaches the controller. Each movement takes a token from the bucket of the
+ * account it debits and then from the bucket of the customer owning that account, whose size depends on the
+ * {@link RateLimitTier} of the customer. A request finding either bucket empty is rejected with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} telling when a token will be available.
+ *
+ * <p>Deposits are not limited: they are keyed by the account they credit, so a burst of payments
+ * from many payers would be rejected on behalf of the payee, and the service does not know who the
+ * caller of a deposit is.
+ *
+ * <p>The owner of the account is read through the near cache and the tier of a customer is looked
+ * up once and cached, so an admitted request rarely adds a read and a rejected one by its account
+ * never does.
+ */
+@Slf4j
+@Component
+@Order(MovementRateLimitFilter.ORDER)
+@RequiredArgsConstructor
+public class MovementRateLimitFilter implements WebFilter {
+
+  public static final int ORDER = 0;
+
+  private static final String ACCOUNT_ID = "account_id";
+  private static final String ACCOUNT_SCOPE = "account";
+  private static final String CUSTOMER_SCOPE = "customer";
+
+  private static final List<PathPattern> MOVEMENT_PATHS = Stream.of(
+          "/accounts/{account_id}/withdraw",
+          "/accounts/{account_id}/{to_account_id}/transfer")
+      .map(PathPatternParser.defaultInstance::parse)
+      .toList();
+
+  private final BankAccountService bankAccountService;
+  private final CustomerService customerService;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<RateLimitTier, RateLimit> customerLimits =
+      new EnumMap<>(RateLimitTier.class);
+  private RateLimit accountLimit;
+  private Cache<String, TokenBucket> accountBuckets;
+  private Cache<String, TokenBucket> customerBuckets;
+  private AsyncCache<String, RateLimitTier> customerTiers;
+
+  @Value("${account.nttbank.rate-limit.enabled:true}")
+  private boolean enabled;
+  @Value("${account.nttbank.rate-limit.max-buckets:1000000}")
+  private long maxBuckets;
+  @Value("${account.nttbank.rate-limit.idle-bucket-ttl-ms:600000}")
+  private long idleBucketTtlMs;
+  @Value("${account.nttbank.rate-limit.tier-ttl-ms:900000}")
+  private long tierTtlMs;
+  @Value("${account.nttbank.rate-limit.account.rate:5}")
+  private double accountRate;
+  @Value("${account.nttbank.rate-limit.account.burst:10}")
+  private int accountBurst;
+  @Value("${account.nttbank.rate-limit.customer.personal.rate:10}")
+  private double personalRate;
+  @Value("${account.nttbank.rate-limit.customer.personal.burst:20}")
+  private int personalBurst;
+  @Value("${account.nttbank.rate-limit.customer.business.rate:50}")
+  private double businessRate;
+  @Value("${account.nttbank.rate-limit.customer.business.burst:100}")
+  private int businessBurst;
+  @Value("${account.nttbank.rate-limit.customer.vip.rate:20}")
+  private double vipRate;
+  @Value("${account.nttbank.rate-limit.customer.vip.burst:40}")
+  private int vipBurst;
+  @Value("${account.nttbank.rate-limit.customer.pyme.rate:100}")
+  private double pymeRate;
+  @Value("${account.nttbank.rate-limit.customer.pyme.burst:200}")
+  private int pymeBurst;
+
+  /**
+   * Builds the limits of every tier and the bounded maps of buckets. Idle buckets are dropped; by
+   * then they have refilled, so dropping one is the same as keeping it full.
+   */
+  @PostConstruct
+  public void init() {
+    accountLimit = new RateLimit(accountRate, accountBurst);
+    customerLimits.put(RateLimitTier.PERSONAL, new RateLimit(personalRate, personalBurst));
+    customerLimits.put(RateLimitTier.BUSINESS, new RateLimit(businessRate, businessBurst));
+    customerLimits.put(RateLimitTier.VIP, new RateLimit(vipRate, vipBurst));
+    customerLimits.put(RateLimitTier.PYME, new RateLimit(pymeRate, pymeBurst));
+
+    accountBuckets = buckets();
+    customerBuckets = buckets();
+    customerTiers = Caffeine.newBuilder()
+        .maximumSize(maxBuckets)
+        .expireAfterWrite(Duration.ofMillis(tierTtlMs))
+        .buildAsync();
+    log.info("Movement rate limit {}, {} per second by account.",
+        enabled ? "enabled" : "disabled", accountRate);
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String accountId = enabled && HttpMethod.POST.equals(exchange.getRequest().getMethod())
+        ? movementAccountId(exchange.getRequest().getPath().pathWithinApplication())
+        : null;
+    if (accountId == null) {
+      return chain.filter(exchange);
+    }
+
+    long accountWait = accountBuckets.get(accountId, id -> new TokenBucket(accountLimit,
+        System.nanoTime())).tryAcquire(System.nanoTime());
+    if (accountWait > 0) {
+      return reject(ACCOUNT_SCOPE, ACCOUNT_SCOPE, accountWait);
+    }
+
+    return bankAccountService.findById(accountId)
+        .map(BankAccount::getCustomerId)
+        .flatMap(this::acquireCustomerToken)
+        .onErrorResume(e -> {
+          log.debug("Unable to apply the customer rate limit to account {}: {}", accountId,
+              e.getMessage());
+          return Mono.empty();
+        })
+        .flatMap(customer -> customer.waitNanos() > 0
+            ? reject(CUSTOMER_SCOPE, customer.tier().tag(), customer.waitNanos())
+            : Mono.<Void>empty())
+        .then(Mono.defer(() -> {
+          meterRegistry.counter("account.rate-limit.admitted").increment();
+          return chain.filter(exchange);
+        }));
+  }
+
+  /**
+   * Takes a token from the bucket of the customer, sized by the tier of the customer.
+   */
+  private Mono<CustomerToken> acquireCustomerToken(String customerId) {
+    return Mono.fromFuture(customerTiers.get(customerId, (id, executor) -> customerService
+            .findCustomerById(id)
+            .map(RateLimitTier::of)
+            .defaultIfEmpty(RateLimitTier.PERSONAL)
+            .toFuture()), true)
+        .map(tier -> new CustomerToken(tier, customerBuckets
+            .get(customerId, id -> new TokenBucket(customerLimits.get(tier), System.nanoTime()))
+            .tryAcquire(System.nanoTime())));
+  }
+
+  private Mono<Void> reject(String scope, String tier, long waitNanos) {
+    meterRegistry.counter("account.rate-limit.rejected", "scope", scope, "tier", tier)
+        .increment();
+    return Mono.error(new AdmissionRejectedException(ErrorCode.RATE_LIMITED,
+        Duration.ofNanos(waitNanos)));
+  }
+
+  private String movementAccountId(PathContainer path) {
+    for (PathPattern pattern : MOVEMENT_PATHS) {
+      PathPattern.PathMatchInfo match = pattern.matchAndExtract(path);
+      if (match != null) {
+        return match.getUriVariables().get(ACCOUNT_ID);
+      }
+    }
+    return null;
+  }
+
+  private record CustomerToken(RateLimitTier tier, long waitNanos) {
+
+  }
+
+  private Cache<String, TokenBucket> buckets() {
+    return Caffeine.newBuilder()
+        .maximumSize(maxBuckets)
+        .expireAfterAccess(Duration.ofMillis(idleBucketTtlMs))
+        .build();
+  }
+}
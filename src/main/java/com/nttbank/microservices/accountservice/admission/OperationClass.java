@@ -0,0 +1,17 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import java.util.Locale;
+
+/**
+ * Classes of operations whose concurrency is limited separately, since each one waits on a
+ * different resource and reaches its best throughput at a different number of operations.
+ */
+public enum OperationClass {
+  MONGO_READ,
+  MONGO_WRITE,
+  GATEWAY;
+
+  String tag() {
+    return name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+}
@@ -0,0 +1,17 @@
+package com.nttbank.microservices.accountservice.admission;
+
+/**
+ * Sustained rate and burst allowed by a {@link TokenBucket}.
+ *
+ * @param ratePerSecond the tokens added per second.
+ * @param burst         the tokens the bucket holds when full.
+ */
+record RateLimit(double ratePerSecond, int burst) {
+
+  RateLimit {
+    if (ratePerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException(
+          "A rate limit needs a positive rate and burst: " + ratePerSecond + "/" + burst);
+    }
+  }
+}
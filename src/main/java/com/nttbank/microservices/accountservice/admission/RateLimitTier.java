@@ -0,0 +1,30 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
+import java.util.Locale;
+
+/**
+ * Tiers of the per-customer rate limit, taken from the profile of the customer when it is VIP or
+ * PYME and from its type otherwise.
+ */
+enum RateLimitTier {
+  PERSONAL,
+  BUSINESS,
+  VIP,
+  PYME;
+
+  static RateLimitTier of(CustomerResponse customer) {
+    String profile = String.valueOf(customer.getProfile()).toLowerCase(Locale.ROOT);
+    if ("vip".equals(profile)) {
+      return VIP;
+    }
+    if ("pyme".equals(profile)) {
+      return PYME;
+    }
+    return "business".equalsIgnoreCase(customer.getType()) ? BUSINESS : PERSONAL;
+  }
+
+  String tag() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,43 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code burst} tokens and refilled at a steady rate. It is
+ * kept in the form of the generic cell rate algorithm: a single theoretical arrival time, advanced
+ * by one emission interval per admitted request, replaces the token count and the refill clock,
+ * so a compare-and-set on one long admits or rejects a request.
+ */
+final class TokenBucket {
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final AtomicLong theoreticalArrival;
+
+  TokenBucket(RateLimit limit, long nowNanos) {
+    this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.ratePerSecond());
+    this.burstToleranceNanos = emissionIntervalNanos * (limit.burst() - 1);
+    this.theoreticalArrival = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes one token.
+   *
+   * @param nowNanos the current {@link System#nanoTime()}.
+   * @return zero when a token was taken, otherwise the nanoseconds until one is available.
+   */
+  long tryAcquire(long nowNanos) {
+    while (true) {
+      long current = theoreticalArrival.get();
+      long arrival = Math.max(current, nowNanos);
+      long wait = arrival - burstToleranceNanos - nowNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.nttbank.microservices.accountservice.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Change of the totals of one type and status: accounts opened or closed, the movement of their
+ * balance and the fees charged to them.
+ */
+record PositionDelta(long count, BigDecimal balance, BigDecimal fees) {
+
+  static final PositionDelta ZERO = new PositionDelta(0, BigDecimal.ZERO, BigDecimal.ZERO);
+
+  PositionDelta plus(PositionDelta other) {
+    return new PositionDelta(count + other.count, balance.add(other.balance),
+        fees.add(other.fees));
+  }
+
+  boolean isZero() {
+    return count == 0 && balance.signum() == 0 && fees.signum() == 0;
+  }
+}
@@ -0,0 +1,21 @@
+package com.nttbank.microservices.accountservice.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Changes of the totals made by one operation, added up by type and status until the operation
+ * succeeds.
+ */
+final class PositionDeltas {
+
+  private final Map<PositionKey, PositionDelta> deltas = new HashMap<>();
+
+  synchronized void add(PositionKey key, PositionDelta delta) {
+    deltas.merge(key, delta, PositionDelta::plus);
+  }
+
+  synchronized Map<PositionKey, PositionDelta> snapshot() {
+    return Map.copyOf(deltas);
+  }
+}
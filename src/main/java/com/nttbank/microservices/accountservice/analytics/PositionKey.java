@@ -0,0 +1,17 @@
+package com.nttbank.microservices.accountservice.analytics;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import java.util.Optional;
+
+/**
+ * Type and status the totals of the accounts are kept by. Accounts stored without a status count
+ * as active, their default.
+ */
+record PositionKey(String accountType, String status) {
+
+  static PositionKey of(BankAccount account) {
+    return new PositionKey(account.getAccountType(),
+        Optional.ofNullable(account.getStatus()).orElse(AccountStatus.active).name());
+  }
+}
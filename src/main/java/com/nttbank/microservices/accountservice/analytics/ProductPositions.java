@@ -0,0 +1,393 @@
+package com.nttbank.microservices.accountservice.analytics;
+
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.entity.PositionSlot;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import com.nttbank.microservices.accountservice.model.response.PositionsReportResponse;
+import com.nttbank.microservices.accountservice.model.response.ProductPositionResponse;
+import com.nttbank.microservices.accountservice.repo.IBankAccountCustomRepoImpl;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Totals of the accounts by type and status, kept up to date as accounts are opened and closed and
+ * as movements and fees are written, so reading them does not scan the accounts. The totals of a
+ * type and status are spread over {@code account.nttbank.positions.slots} {@link PositionSlot}
+ * documents, each change being an {@code $inc} of a random one.
+ *
+ * <p>The changes made by an operation wrapped in {@link #tracked(Mono)} are added up and applied
+ * once it succeeds, after its transaction committed; the slots are shared by every account, so
+ * updating them inside the transactions of the movements would make those conflict with each
+ * other. A change that cannot be applied is logged and left to the recompute.
+ *
+ * <p>The recompute rebuilds the totals from the accounts and the fees of the month in the ledger.
+ * It runs on {@code account.nttbank.positions.recompute-cron}, and at startup when there are no
+ * totals yet, and scans the accounts in {@code account.nttbank.positions.scan-segments} ranges of
+ * ids read in parallel. Changes applied while it scans may be counted twice or missed until the
+ * next run, and so may the edits of an account through {@code PUT} and {@code PATCH}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductPositions implements ApplicationRunner {
+
+  private static final String ACCOUNTS_COLLECTION = "accounts";
+  private static final String ACCOUNT_TYPE_FIELD = "accountType";
+  private static final String STATUS_FIELD = "status";
+  private static final String SLOT_FIELD = "slot";
+  private static final String COUNT_FIELD = "count";
+  private static final String BALANCE_FIELD = "balance";
+  private static final String FEES_FIELD = "fees";
+  private static final int OBJECT_ID_TYPE = 7;
+  private static final int STATUS_LOOKUP_BATCH = 1000;
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionalOperator transactionalOperator;
+  private final TransactionLedger transactionLedger;
+  private final StripedBalances stripedBalances;
+
+  private final AtomicBoolean recomputing = new AtomicBoolean();
+
+  @Value("${account.nttbank.positions.slots:8}")
+  private int slots;
+  @Value("${account.nttbank.positions.scan-segments:8}")
+  private int scanSegments;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    mongoTemplate.exists(new Query(), PositionSlot.class)
+        .filter(exists -> !exists)
+        .flatMap(missing -> recompute())
+        .subscribe(
+            count -> log.info("Computed the product positions of {} accounts.", count),
+            e -> log.error("Product positions computation failed: {}", e.getMessage(), e));
+  }
+
+  @Scheduled(cron = "${account.nttbank.positions.recompute-cron:0 15 3 * * *}")
+  public void scheduledRecompute() {
+    recompute().subscribe(
+        count -> log.info("Recomputed the product positions of {} accounts.", count),
+        e -> log.error("Product positions recompute failed: {}", e.getMessage(), e));
+  }
+
+  /**
+   * Runs an operation collecting the changes of the totals it makes, and applies them once it
+   * succeeds. They are dropped when it fails.
+   */
+  public <T> Mono<T> tracked(Mono<T> operation) {
+    return Mono.defer(() -> {
+      PositionDeltas deltas = new PositionDeltas();
+      return operation
+          .contextWrite(Context.of(PositionDeltas.class, deltas))
+          .flatMap(result -> apply(deltas.snapshot()).thenReturn(result))
+          .switchIfEmpty(Mono.defer(() -> apply(deltas.snapshot()).then(Mono.empty())));
+    });
+  }
+
+  public Mono<Void> opened(BankAccount account) {
+    return record(PositionKey.of(account), new PositionDelta(1, balanceOf(account),
+        BigDecimal.ZERO));
+  }
+
+  public Mono<Void> closed(BankAccount account) {
+    return record(PositionKey.of(account), new PositionDelta(-1, balanceOf(account).negate(),
+        BigDecimal.ZERO));
+  }
+
+  /**
+   * Moves the balance of the type and status of the account by the movements written on it, and
+   * adds the fees among them to the fees of the month.
+   */
+  public Mono<Void> moved(BankAccount account, Collection<AccountTransactions> movements) {
+    PositionDelta delta = movements.stream()
+        .map(movement -> {
+          BigDecimal amount = Optional.ofNullable(movement.getAmount()).orElse(BigDecimal.ZERO);
+          return movement.getType() == TransactionType.deposit
+              ? new PositionDelta(0, amount, BigDecimal.ZERO)
+              : new PositionDelta(0, amount.negate(),
+                  movement.getType() == TransactionType.fee ? amount : BigDecimal.ZERO);
+        })
+        .reduce(PositionDelta.ZERO, PositionDelta::plus);
+    return record(PositionKey.of(account), delta);
+  }
+
+  /**
+   * Reads the totals by type and status, adding up their slots.
+   */
+  public Mono<PositionsReportResponse> report() {
+    String month = YearMonth.now().toString();
+    Aggregation aggregation = Aggregation.newAggregation(
+        context -> new Document("$group", new Document(IBankAccountCustomRepoImpl.ID_FIELD,
+            new Document(ACCOUNT_TYPE_FIELD, "$" + ACCOUNT_TYPE_FIELD)
+                .append(STATUS_FIELD, "$" + STATUS_FIELD))
+            .append(COUNT_FIELD, new Document("$sum", "$" + COUNT_FIELD))
+            .append(BALANCE_FIELD, new Document("$sum", "$" + BALANCE_FIELD))
+            .append("feesThisMonth", new Document("$sum", "$" + FEES_FIELD + "." + month))),
+        context -> new Document("$project", new Document(IBankAccountCustomRepoImpl.ID_FIELD, 0)
+            .append(ACCOUNT_TYPE_FIELD, "$_id." + ACCOUNT_TYPE_FIELD)
+            .append(STATUS_FIELD, "$_id." + STATUS_FIELD)
+            .append(COUNT_FIELD, 1)
+            .append(BALANCE_FIELD, 1)
+            .append("feesThisMonth", 1)),
+        context -> new Document("$sort", new Document(ACCOUNT_TYPE_FIELD, 1)
+            .append(STATUS_FIELD, 1)));
+    return mongoTemplate.aggregate(aggregation, PositionSlot.class, ProductPositionResponse.class)
+        .collectList()
+        .map(positions -> PositionsReportResponse.builder()
+            .month(month)
+            .positions(positions)
+            .generatedAt(LocalDateTime.now())
+            .build());
+  }
+
+  /**
+   * Rebuilds the totals from the accounts and the fees of the month.
+   *
+   * @return the number of accounts counted.
+   */
+  public Mono<Long> recompute() {
+    if (!recomputing.compareAndSet(false, true)) {
+      log.warn("The product positions recompute is already running.");
+      return Mono.just(0L);
+    }
+    YearMonth month = YearMonth.now();
+    PositionDeltas totals = new PositionDeltas();
+    return segments()
+        .flatMapMany(segments -> Flux.fromIterable(segments)
+            .flatMap(segment -> scanSegment(segment, totals), Math.max(1, segments.size())))
+        .then(addStripedBalances(totals))
+        .then(Mono.defer(() -> addFees(totals, month)))
+        .then(Mono.defer(() -> replace(totals.snapshot(), month)))
+        .doFinally(signal -> recomputing.set(false));
+  }
+
+  /**
+   * Splits the accounts into ranges of ids of the same length of time, between the oldest and the
+   * newest id, plus the ids that are not object ids. With other ids the accounts are scanned as a
+   * whole.
+   */
+  private Mono<List<Criteria>> segments() {
+    return Mono.zip(boundaryId(Sort.Direction.ASC), boundaryId(Sort.Direction.DESC))
+        .map(ids -> ids.getT1() instanceof ObjectId first && ids.getT2() instanceof ObjectId last
+            ? splitById(first, last)
+            : List.of(new Criteria()))
+        .defaultIfEmpty(List.of());
+  }
+
+  private Mono<Object> boundaryId(Sort.Direction direction) {
+    Query query = new Query().with(Sort.by(direction, IBankAccountCustomRepoImpl.ID_FIELD))
+        .limit(1);
+    query.fields().include(IBankAccountCustomRepoImpl.ID_FIELD);
+    return mongoTemplate.findOne(query, Document.class, ACCOUNTS_COLLECTION)
+        .mapNotNull(account -> account.get(IBankAccountCustomRepoImpl.ID_FIELD));
+  }
+
+  private List<Criteria> splitById(ObjectId first, ObjectId last) {
+    long from = Integer.toUnsignedLong(first.getTimestamp());
+    long to = Integer.toUnsignedLong(last.getTimestamp()) + 1;
+    int count = (int) Math.max(1, Math.min(scanSegments, to - from));
+    List<Criteria> segments = new ArrayList<>();
+    segments.add(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD).not().type(OBJECT_ID_TYPE));
+    for (int i = 0; i < count; i++) {
+      Criteria segment = Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD);
+      if (i > 0) {
+        segment.gte(objectIdAt(from + (to - from) * i / count));
+      }
+      if (i < count - 1) {
+        segment.lt(objectIdAt(from + (to - from) * (i + 1) / count));
+      }
+      if (count == 1) {
+        segment.type(OBJECT_ID_TYPE);
+      }
+      segments.add(segment);
+    }
+    return segments;
+  }
+
+  /**
+   * Lowest object id of a second.
+   */
+  private static ObjectId objectIdAt(long epochSecond) {
+    return new ObjectId(String.format("%08x%016x", epochSecond, 0));
+  }
+
+  private Mono<Void> scanSegment(Criteria segment, PositionDeltas totals) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(segment),
+        context -> new Document("$group", new Document(IBankAccountCustomRepoImpl.ID_FIELD,
+            new Document(ACCOUNT_TYPE_FIELD, "$" + ACCOUNT_TYPE_FIELD)
+                .append(STATUS_FIELD, new Document("$ifNull",
+                    List.of("$" + STATUS_FIELD, AccountStatus.active.name()))))
+            .append(COUNT_FIELD, new Document("$sum", 1L))
+            .append(BALANCE_FIELD, new Document("$sum", new Document("$toDecimal",
+                new Document("$ifNull",
+                    List.of("$" + BALANCE_FIELD, Decimal128.POSITIVE_ZERO)))))));
+    return mongoTemplate.aggregate(aggregation, ACCOUNTS_COLLECTION, Document.class)
+        .doOnNext(group -> {
+          Document key = group.get(IBankAccountCustomRepoImpl.ID_FIELD, Document.class);
+          totals.add(new PositionKey(key.getString(ACCOUNT_TYPE_FIELD),
+                  key.getString(STATUS_FIELD)),
+              new PositionDelta(group.get(COUNT_FIELD, Number.class).longValue(),
+                  toBigDecimal(group.get(BALANCE_FIELD)), BigDecimal.ZERO));
+        })
+        .then();
+  }
+
+  /**
+   * The balance stored on a striped account is not kept up to date, so the sum of its slots is
+   * added instead.
+   */
+  private Mono<Void> addStripedBalances(PositionDeltas totals) {
+    return Flux.fromIterable(stripedBalances.getStripedAccounts())
+        .concatMap(accountId -> mongoTemplate.findById(accountId, BankAccount.class)
+            .flatMap(account -> stripedBalances.totals(accountId)
+                .doOnNext(slots -> totals.add(PositionKey.of(account), new PositionDelta(0,
+                    slots.balance().subtract(balanceOf(account)), BigDecimal.ZERO)))))
+        .then();
+  }
+
+  /**
+   * Adds the fees of the month charged to each account to its type and current status. The fees
+   * of the accounts closed since are kept with their product, as closed.
+   */
+  private Mono<Void> addFees(PositionDeltas totals, YearMonth month) {
+    LocalDateTime from = month.atDay(1).atStartOfDay();
+    LocalDateTime to = LocalDateTime.now();
+    return Flux.fromIterable(totals.snapshot().keySet())
+        .map(PositionKey::accountType)
+        .distinct()
+        .flatMap(product -> transactionLedger.findByProductNameAndTypeAndCreatedAtBetween(
+            product, TransactionType.fee.name(), from, to))
+        .collectMultimap(AccountTransactions::getAccountId)
+        .flatMapMany(fees -> Flux.fromIterable(fees.keySet())
+            .buffer(STATUS_LOOKUP_BATCH)
+            .concatMap(accountIds -> findTypeAndStatus(accountIds)
+                .collectMap(BankAccount::getId)
+                .doOnNext(accounts -> accountIds.forEach(accountId -> {
+                  Collection<AccountTransactions> charged = fees.get(accountId);
+                  PositionKey key = Optional.ofNullable(accounts.get(accountId))
+                      .map(PositionKey::of)
+                      .orElseGet(() -> new PositionKey(
+                          charged.iterator().next().getProductName(),
+                          AccountStatus.close.name()));
+                  BigDecimal total = charged.stream()
+                      .map(fee -> Optional.ofNullable(fee.getAmount()).orElse(BigDecimal.ZERO))
+                      .reduce(BigDecimal.ZERO, BigDecimal::add);
+                  totals.add(key, new PositionDelta(0, BigDecimal.ZERO, total));
+                }))))
+        .then();
+  }
+
+  private Flux<BankAccount> findTypeAndStatus(List<String> accountIds) {
+    Query query = Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD).in(accountIds));
+    query.fields().include(ACCOUNT_TYPE_FIELD, STATUS_FIELD);
+    return mongoTemplate.find(query, BankAccount.class);
+  }
+
+  /**
+   * Replaces every slot with the recomputed totals, kept on the first slot of each type and
+   * status.
+   */
+  private Mono<Long> replace(Map<PositionKey, PositionDelta> totals, YearMonth month) {
+    return mongoTemplate.remove(new Query(), PositionSlot.class)
+        .thenMany(Flux.fromIterable(totals.entrySet())
+            .concatMap(entry -> mongoTemplate.upsert(bySlot(entry.getKey(), 0), new Update()
+                .set(ACCOUNT_TYPE_FIELD, entry.getKey().accountType())
+                .set(STATUS_FIELD, entry.getKey().status())
+                .set(SLOT_FIELD, 0)
+                .set(COUNT_FIELD, entry.getValue().count())
+                .set(BALANCE_FIELD, new Decimal128(entry.getValue().balance()))
+                .set(FEES_FIELD, new Document(month.toString(),
+                    new Decimal128(entry.getValue().fees()))), PositionSlot.class)))
+        .then(Mono.fromSupplier(() -> totals.values().stream()
+            .mapToLong(PositionDelta::count)
+            .sum()))
+        .as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Adds a change to the operation being tracked, or applies it right away outside of one.
+   */
+  private Mono<Void> record(PositionKey key, PositionDelta delta) {
+    return Mono.deferContextual(context -> context.<PositionDeltas>getOrEmpty(
+            PositionDeltas.class)
+        .map(deltas -> {
+          deltas.add(key, delta);
+          return Mono.<Void>empty();
+        })
+        .orElseGet(() -> apply(Map.of(key, delta))));
+  }
+
+  private Mono<Void> apply(Map<PositionKey, PositionDelta> deltas) {
+    String monthFees = FEES_FIELD + "." + YearMonth.now();
+    return Flux.fromIterable(deltas.entrySet())
+        .filter(entry -> !entry.getValue().isZero())
+        .concatMap(entry -> {
+          int slot = ThreadLocalRandom.current().nextInt(slots);
+          PositionDelta delta = entry.getValue();
+          Update update = new Update()
+              .inc(COUNT_FIELD, delta.count())
+              .inc(BALANCE_FIELD, new Decimal128(delta.balance()))
+              .setOnInsert(ACCOUNT_TYPE_FIELD, entry.getKey().accountType())
+              .setOnInsert(STATUS_FIELD, entry.getKey().status())
+              .setOnInsert(SLOT_FIELD, slot);
+          if (delta.fees().signum() != 0) {
+            update.inc(monthFees, new Decimal128(delta.fees()));
+          }
+          return mongoTemplate.upsert(bySlot(entry.getKey(), slot), update, PositionSlot.class);
+        })
+        .then()
+        .onErrorResume(e -> {
+          log.warn("Unable to update the product positions: {}", e.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  private static Query bySlot(PositionKey key, int slot) {
+    return Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD)
+        .is(PositionSlot.idOf(key.accountType(), key.status(), slot)));
+  }
+
+  private static BigDecimal balanceOf(BankAccount account) {
+    return Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO);
+  }
+
+  private static BigDecimal toBigDecimal(Object value) {
+    if (value instanceof Decimal128 decimal) {
+      return decimal.bigDecimalValue();
+    }
+    return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+  }
+}
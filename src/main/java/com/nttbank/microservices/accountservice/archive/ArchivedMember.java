@@ -0,0 +1,16 @@
+package com.nttbank.microservices.accountservice.archive;
+
+import java.time.YearMonth;
+
+/**
+ * A gzip member appended to the segment file of a month, holding archived transactions of that
+ * month in creation order.
+ *
+ * @param id      the sequential id of the member.
+ * @param month   the month of the transactions, which is also the segment file.
+ * @param offset  the position of the member in the segment file.
+ * @param length  the compressed length of the member.
+ * @param count   the number of transactions in the member.
+ */
+public record ArchivedMember(long id, YearMonth month, long offset, long length, int count) {
+}
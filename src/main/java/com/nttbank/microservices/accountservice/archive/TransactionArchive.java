@@ -0,0 +1,413 @@
+package com.nttbank.microservices.accountservice.archive;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.export.TransactionExportFormat;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cold tier of the account transactions. Archived transactions are kept in a directory shared by
+ * every node, in one append-only segment file per month, made of gzip members holding the raw BSON documents as they
+ * were stored in Mongo, in creation order. The {@link TransactionArchiveIndex} tells which
+ * members hold the transactions of an account in a given month, so reading the archived history
+ * of an account only decompresses the members that contain it.
+ *
+ * <p>
+ * Transactions of a member that is not confirmed yet may still be in Mongo too. Readers get the
+ * ids of those transactions in {@code pendingIds}, to skip them when reading the hot tier.
+ * </p>
+ *
+ * <p>
+ * The id of the last member written is also recorded in Mongo. At startup every node checks that
+ * its archive directory holds that member and every member before it, and refuses to start
+ * otherwise, so a node never serves a history missing its archived part. Decoded members are kept
+ * in a cache bounded by their size, as members are never rewritten.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionArchive {
+
+  private static final String SEGMENTS_DIRECTORY = "segments";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String INDEX_FILE = "index.tsv";
+  private static final String ACCOUNT_ID_FIELD = "accountId";
+  private static final String PRODUCT_NAME_FIELD = "productName";
+  private static final String STATE_COLLECTION = "transaction_archive";
+  private static final String STATE_ID = "index";
+  private static final String LAST_MEMBER_FIELD = "lastMemberId";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final MeterRegistry meterRegistry;
+
+  private final DocumentCodec documentCodec = new DocumentCodec();
+
+  private Path segments;
+  private TransactionArchiveIndex index;
+  private Cache<Long, List<RawBsonDocument>> decodedMembers;
+
+  @Value("${account.nttbank.archive.dir:archive}")
+  private String directory;
+  @Value("${account.nttbank.archive.verify-on-startup:true}")
+  private boolean verifyOnStartup;
+  @Value("${account.nttbank.archive.startup-timeout-ms:30000}")
+  private long startupTimeoutMs;
+  @Value("${account.nttbank.archive.cache-bytes:67108864}")
+  private long cacheBytes;
+
+  @PostConstruct
+  public void init() throws IOException {
+    Path root = Path.of(directory);
+    segments = root.resolve(SEGMENTS_DIRECTORY);
+    index = new TransactionArchiveIndex(root.resolve(INDEX_FILE));
+    index.refresh();
+    decodedMembers = Caffeine.newBuilder()
+        .maximumWeight(cacheBytes)
+        .<Long, List<RawBsonDocument>>weigher((id, transactions) -> Math.max(1,
+            transactions.stream().mapToInt(t -> t.getByteBuffer().remaining()).sum()))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, decodedMembers, "archivedMembers");
+    if (verifyOnStartup) {
+      verifyMembersPresent().block(Duration.ofMillis(startupTimeoutMs));
+    }
+  }
+
+  /**
+   * Reads the archived transactions of an account, oldest month first.
+   *
+   * @param accountId  the id of the account.
+   * @param pendingIds collects the ids read from members not confirmed yet.
+   * @return the archived transactions of the account.
+   */
+  public Flux<AccountTransactions> findByAccountId(String accountId, Set<String> pendingIds) {
+    return Mono.fromCallable(() -> {
+          index.refresh();
+          return index.membersOf(accountId);
+        })
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapMany(Flux::fromIterable)
+        .concatMap(member -> read(member,
+            transaction -> accountId.equals(text(transaction.get(ACCOUNT_ID_FIELD))),
+            pendingIds))
+        .map(this::toTransaction);
+  }
+
+  /**
+   * Reads the archived transactions of an account created in a month, in creation order. The
+   * {@link Flux} is empty when nothing of that month was archived.
+   *
+   * @param accountId  the id of the account.
+   * @param month      the month of the transactions.
+   * @param pendingIds collects the ids read from members not confirmed yet.
+   * @return the archived transactions of the account in the month.
+   */
+  public Flux<AccountTransactions> findByAccountIdAndMonth(String accountId, YearMonth month,
+      Set<String> pendingIds) {
+    return Mono.fromCallable(() -> {
+          index.refresh();
+          return index.membersOf(accountId, month);
+        })
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapMany(Flux::fromIterable)
+        .concatMap(member -> read(member,
+            transaction -> accountId.equals(text(transaction.get(ACCOUNT_ID_FIELD))),
+            pendingIds))
+        .map(this::toTransaction);
+  }
+
+  /**
+   * Tells whether transactions of an account created in a month were archived.
+   *
+   * @param accountId the id of the account.
+   * @param month     the month of the transactions.
+   * @return {@code true} when the archive holds some of them.
+   */
+  public Mono<Boolean> holds(String accountId, YearMonth month) {
+    return Mono.fromCallable(() -> {
+          index.refresh();
+          return !index.membersOf(accountId, month).isEmpty();
+        })
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /**
+   * Reads the archived transactions created in {@code [from, to)} in creation order, starting
+   * right after the given cursor.
+   *
+   * @param from        the start of the period.
+   * @param to          the end of the period, exclusive.
+   * @param productName the product of the transactions, all of them when {@code null}.
+   * @param after       the cursor to resume from, or {@code null}.
+   * @param pendingIds  collects the ids read from members not confirmed yet.
+   * @return the archived transactions as stored.
+   */
+  public Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to,
+      String productName, TransactionExportCursor after, Set<String> pendingIds) {
+    long fromMillis = toMillis(from);
+    long toMillis = toMillis(to);
+    Predicate<RawBsonDocument> filter = transaction -> {
+      long createdAt = transaction.getDateTime(TransactionExportFormat.CREATED_AT_FIELD)
+          .getValue();
+      return createdAt >= fromMillis && createdAt < toMillis
+          && (productName == null
+              || productName.equals(text(transaction.get(PRODUCT_NAME_FIELD))))
+          && (after == null || after.precedes(transaction));
+    };
+    return Mono.fromCallable(() -> {
+          index.refresh();
+          return index.membersBetween(YearMonth.from(from), YearMonth.from(to));
+        })
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapMany(Flux::fromIterable)
+        .concatMap(member -> read(member, filter, pendingIds));
+  }
+
+  /**
+   * Appends transactions to the segments of their months and registers the new members in the
+   * index. The transactions must be in creation order.
+   *
+   * @param transactions the raw transactions read from Mongo.
+   * @return the new members, one per month.
+   * @throws IOException if the segments or the index cannot be written.
+   */
+  public synchronized List<ArchivedMember> append(List<RawBsonDocument> transactions)
+      throws IOException {
+    Map<YearMonth, List<RawBsonDocument>> byMonth = new LinkedHashMap<>();
+    transactions.forEach(transaction -> byMonth.computeIfAbsent(monthOf(transaction),
+        month -> new ArrayList<>()).add(transaction));
+
+    Files.createDirectories(segments);
+    List<ArchivedMember> members = new ArrayList<>();
+    for (Map.Entry<YearMonth, List<RawBsonDocument>> entry : byMonth.entrySet()) {
+      byte[] member = compress(entry.getValue());
+      long offset;
+      try (FileChannel channel = FileChannel.open(segmentOf(entry.getKey()),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+        offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(member);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(false);
+      }
+      Set<String> accountIds = new LinkedHashSet<>();
+      entry.getValue().forEach(t -> accountIds.add(text(t.get(ACCOUNT_ID_FIELD))));
+      ArchivedMember archived = index.register(entry.getKey(), offset, member.length,
+          entry.getValue().size(), accountIds);
+      log.debug("Archived {} transactions of {} in member {}", archived.count(), archived.month(),
+          archived.id());
+      members.add(archived);
+    }
+    return members;
+  }
+
+  /**
+   * Reads a member back from disk and checks it holds as many transactions as registered.
+   *
+   * @param memberId the id of the member.
+   * @return the ids of the transactions of the member.
+   * @throws IOException if the member cannot be read.
+   */
+  public List<BsonValue> verify(long memberId) throws IOException {
+    ArchivedMember member = index.member(memberId)
+        .orElseThrow(() -> new IllegalStateException("Unknown archive member " + memberId));
+    List<RawBsonDocument> transactions = readMember(member);
+    if (transactions.size() != member.count()) {
+      throw new IllegalStateException("Archive member " + memberId + " holds "
+          + transactions.size() + " transactions instead of " + member.count());
+    }
+    return transactions.stream()
+        .map(transaction -> transaction.get(TransactionExportFormat.ID_FIELD))
+        .toList();
+  }
+
+  /**
+   * Marks a member as confirmed once its transactions were deleted from Mongo.
+   *
+   * @param memberId the id of the member.
+   * @throws IOException if the index cannot be written.
+   */
+  public void confirm(long memberId) throws IOException {
+    index.confirm(memberId);
+  }
+
+  /**
+   * Records in Mongo that the given members were written, so that nodes whose archive directory
+   * lacks them refuse to start. Must complete before the transactions are deleted from Mongo.
+   *
+   * @param members the members written to the archive.
+   * @return completes once recorded.
+   */
+  public Mono<Void> publish(List<ArchivedMember> members) {
+    if (members.isEmpty()) {
+      return Mono.empty();
+    }
+    long lastMemberId = members.stream().mapToLong(ArchivedMember::id).max().getAsLong();
+    return mongoTemplate.upsert(Query.query(Criteria.where("_id").is(STATE_ID)),
+            new Update().max(LAST_MEMBER_FIELD, lastMemberId), STATE_COLLECTION)
+        .then();
+  }
+
+  public List<ArchivedMember> pendingMembers() throws IOException {
+    index.refresh();
+    return index.pendingMembers();
+  }
+
+  private Flux<RawBsonDocument> read(ArchivedMember member, Predicate<RawBsonDocument> filter,
+      Set<String> pendingIds) {
+    boolean pending = !index.isConfirmed(member.id());
+    return Mono.fromCallable(() -> decodedMembers.get(member.id(), id -> {
+          try {
+            return readMember(member);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapIterable(transactions -> transactions.stream().filter(filter).toList())
+        .doOnNext(transaction -> {
+          if (pending) {
+            pendingIds.add(TransactionExportCursor.idText(
+                transaction.get(TransactionExportFormat.ID_FIELD)));
+          }
+        });
+  }
+
+  /**
+   * Fails when Mongo records a member that the archive directory does not hold, which means the
+   * directory is not the shared one the archiver writes to.
+   */
+  private Mono<Void> verifyMembersPresent() {
+    return mongoTemplate.findById(STATE_ID, Document.class, STATE_COLLECTION)
+        .map(state -> ((Number) state.get(LAST_MEMBER_FIELD)).longValue())
+        .defaultIfEmpty(0L)
+        .flatMap(lastMemberId -> Mono.fromCallable(() -> {
+          if (index.lastMemberId() < lastMemberId) {
+            throw new IllegalStateException("The archive in " + directory
+                + " holds members up to " + index.lastMemberId() + " but member " + lastMemberId
+                + " was archived; account.nttbank.archive.dir must be shared by every node.");
+          }
+          for (ArchivedMember member : index.members()) {
+            Path segment = segmentOf(member.month());
+            if (!Files.exists(segment)
+                || Files.size(segment) < member.offset() + member.length()) {
+              throw new IllegalStateException("Archive member " + member.id()
+                  + " is missing from " + segment);
+            }
+          }
+          log.info("The transaction archive in {} holds all {} archived members.", directory,
+              lastMemberId);
+          return lastMemberId;
+        }).subscribeOn(Schedulers.boundedElastic()))
+        .then();
+  }
+
+  private List<RawBsonDocument> readMember(ArchivedMember member) throws IOException {
+    ByteBuffer compressed = ByteBuffer.allocate((int) member.length());
+    try (FileChannel channel = FileChannel.open(segmentOf(member.month()),
+        StandardOpenOption.READ)) {
+      while (compressed.hasRemaining()
+          && channel.read(compressed, member.offset() + compressed.position()) >= 0) {
+        // Reads until the whole member is loaded.
+      }
+    }
+    byte[] bytes;
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.array()))) {
+      bytes = in.readAllBytes();
+    }
+    List<RawBsonDocument> transactions = new ArrayList<>(member.count());
+    ByteBuffer view = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    int position = 0;
+    while (position < bytes.length) {
+      int size = view.getInt(position);
+      transactions.add(new RawBsonDocument(bytes, position, size));
+      position += size;
+    }
+    return transactions;
+  }
+
+  private static byte[] compress(List<RawBsonDocument> transactions) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      for (RawBsonDocument transaction : transactions) {
+        ByteBuffer bytes = transaction.getByteBuffer().asNIO();
+        byte[] document = new byte[bytes.remaining()];
+        bytes.get(document);
+        gzip.write(document);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private AccountTransactions toTransaction(RawBsonDocument transaction) {
+    return mongoTemplate.getConverter()
+        .read(AccountTransactions.class, transaction.decode(documentCodec));
+  }
+
+  private Path segmentOf(YearMonth month) {
+    return segments.resolve(month + SEGMENT_SUFFIX);
+  }
+
+  private static YearMonth monthOf(BsonDocument transaction) {
+    return YearMonth.from(Instant.ofEpochMilli(
+            transaction.getDateTime(TransactionExportFormat.CREATED_AT_FIELD).getValue())
+        .atZone(ZoneId.systemDefault()));
+  }
+
+  private static long toMillis(LocalDateTime dateTime) {
+    return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static String text(BsonValue value) {
+    return value != null && value.isString() ? value.asString().getValue() : null;
+  }
+}
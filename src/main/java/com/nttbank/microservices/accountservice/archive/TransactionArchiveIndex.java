@@ -0,0 +1,193 @@
+package com.nttbank.microservices.accountservice.archive;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only index of the transaction archive, kept in a tab-separated file next to the segments
+ * and mirrored in memory. It records every member written to the segments, the accounts found in
+ * each member by month, and which members are confirmed, meaning that their transactions were
+ * deleted from Mongo. The file is only appended to, so other nodes reading the same archive pick
+ * up the new lines by reading from where they stopped.
+ */
+class TransactionArchiveIndex {
+
+  private static final String MEMBER = "M";
+  private static final String ACCOUNT = "A";
+  private static final String CONFIRMED = "C";
+  private static final String SEPARATOR = "\t";
+
+  private final Path file;
+
+  private final Map<Long, ArchivedMember> members = new ConcurrentHashMap<>();
+  private final Map<String, NavigableMap<YearMonth, List<Long>>> accounts =
+      new ConcurrentHashMap<>();
+  private final NavigableMap<YearMonth, List<Long>> months = new ConcurrentSkipListMap<>();
+  private final Set<Long> confirmed = ConcurrentHashMap.newKeySet();
+
+  private long loadedBytes;
+  private long nextMemberId = 1;
+
+  TransactionArchiveIndex(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Loads the lines appended to the index file since the last call.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  synchronized void refresh() throws IOException {
+    if (!Files.exists(file) || Files.size(file) <= loadedBytes) {
+      return;
+    }
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      in.skipNBytes(loadedBytes);
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int b;
+      while ((b = in.read()) != -1) {
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+        apply(line.toString(StandardCharsets.UTF_8));
+        loadedBytes += line.size() + 1;
+        line.reset();
+      }
+      // A line still being written by another node is left for the next refresh.
+    }
+  }
+
+  /**
+   * Records a new member and the accounts it holds.
+   *
+   * @return the member with its assigned id.
+   */
+  synchronized ArchivedMember register(YearMonth month, long offset, long length, int count,
+      Collection<String> accountIds) throws IOException {
+    refresh();
+    ArchivedMember member = new ArchivedMember(nextMemberId, month, offset, length, count);
+    StringBuilder lines = new StringBuilder()
+        .append(String.join(SEPARATOR, MEMBER, String.valueOf(member.id()), month.toString(),
+            String.valueOf(offset), String.valueOf(length), String.valueOf(count)))
+        .append('\n');
+    accountIds.forEach(accountId -> lines
+        .append(String.join(SEPARATOR, ACCOUNT, String.valueOf(member.id()), accountId))
+        .append('\n'));
+    write(lines.toString());
+    return member;
+  }
+
+  synchronized void confirm(long memberId) throws IOException {
+    refresh();
+    write(String.join(SEPARATOR, CONFIRMED, String.valueOf(memberId)) + "\n");
+  }
+
+  Optional<ArchivedMember> member(long memberId) {
+    return Optional.ofNullable(members.get(memberId));
+  }
+
+  boolean isConfirmed(long memberId) {
+    return confirmed.contains(memberId);
+  }
+
+  synchronized long lastMemberId() {
+    return nextMemberId - 1;
+  }
+
+  Collection<ArchivedMember> members() {
+    return members.values();
+  }
+
+  List<ArchivedMember> pendingMembers() {
+    return members.values().stream()
+        .filter(member -> !confirmed.contains(member.id()))
+        .sorted((a, b) -> Long.compare(a.id(), b.id()))
+        .toList();
+  }
+
+  /**
+   * Members holding transactions of the account, oldest month first.
+   */
+  List<ArchivedMember> membersOf(String accountId) {
+    return Optional.ofNullable(accounts.get(accountId))
+        .map(byMonth -> toMembers(byMonth.values()))
+        .orElse(List.of());
+  }
+
+  /**
+   * Members holding transactions of the account in the given month.
+   */
+  List<ArchivedMember> membersOf(String accountId, YearMonth month) {
+    return Optional.ofNullable(accounts.get(accountId))
+        .map(byMonth -> byMonth.get(month))
+        .map(memberIds -> toMembers(List.of(memberIds)))
+        .orElse(List.of());
+  }
+
+  /**
+   * Members of the months between both given months, inclusive, in creation order.
+   */
+  List<ArchivedMember> membersBetween(YearMonth from, YearMonth to) {
+    return toMembers(months.subMap(from, true, to, true).values());
+  }
+
+  private List<ArchivedMember> toMembers(Collection<List<Long>> memberIds) {
+    return memberIds.stream()
+        .flatMap(List::stream)
+        .map(members::get)
+        .toList();
+  }
+
+  private void write(String lines) throws IOException {
+    Files.createDirectories(file.getParent());
+    byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+    lines.lines().forEach(this::apply);
+    loadedBytes += bytes.length;
+  }
+
+  private void apply(String line) {
+    String[] fields = line.split(SEPARATOR);
+    long memberId = Long.parseLong(fields[1]);
+    switch (fields[0]) {
+      case MEMBER -> {
+        YearMonth month = YearMonth.parse(fields[2]);
+        members.put(memberId, new ArchivedMember(memberId, month, Long.parseLong(fields[3]),
+            Long.parseLong(fields[4]), Integer.parseInt(fields[5])));
+        months.computeIfAbsent(month, m -> new CopyOnWriteArrayList<>()).add(memberId);
+        nextMemberId = Math.max(nextMemberId, memberId + 1);
+      }
+      case ACCOUNT -> accounts.computeIfAbsent(fields[2], a -> new ConcurrentSkipListMap<>())
+          .computeIfAbsent(members.get(memberId).month(), m -> new CopyOnWriteArrayList<>())
+          .add(memberId);
+      case CONFIRMED -> confirmed.add(memberId);
+      default -> throw new IllegalStateException("Invalid archive index line " + line);
+    }
+  }
+}
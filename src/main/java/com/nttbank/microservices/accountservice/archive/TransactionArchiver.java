@@ -0,0 +1,127 @@
+package com.nttbank.microservices.accountservice.archive;
+
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
+import com.nttbank.microservices.accountservice.lease.MongoLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduled job moving the transactions older than a configurable age from Mongo to the
+ * {@link TransactionArchive}. Transactions are archived in batches in creation order; a batch is
+ * only deleted from Mongo once its members have been written, synced to disk and read back, and
+ * the members are confirmed in the index after the delete. Members left unconfirmed by a crash are
+ * confirmed at the start of the next run, before anything else is archived.
+ *
+ * <p>
+ * The archive directory is shared by every node, while the lock of the segments and the counter of
+ * the member ids only live in one JVM. Each run therefore holds the {@code transaction-archiver}
+ * {@link MongoLease}, and a run started while another node holds it fails at once without writing
+ * anything. The members of a batch are recorded in Mongo before the batch is deleted, so that
+ * nodes whose archive directory lacks them refuse to start. It is disabled by default.
+ * </p>
+ *
+ * <p>
+ * Only the transactions kept one per document are archived; when the ledger runs in bucket mode
+ * the movements already held in buckets stay in Mongo.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionArchiver {
+
+  private final IAccountTransactionRepo transactionRepo;
+  private final TransactionArchive transactionArchive;
+  private final MeterRegistry meterRegistry;
+  private final MongoLease mongoLease;
+
+  static final String LEASE = "transaction-archiver";
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  @Value("${account.nttbank.archive.enabled:false}")
+  private boolean enabled;
+  @Value("${account.nttbank.archive.min-age-days:365}")
+  private long minAgeDays;
+  @Value("${account.nttbank.archive.batch-size:5000}")
+  private int batchSize;
+  @Value("${account.nttbank.archive.lease-ttl-ms:60000}")
+  private long leaseTtlMs;
+
+  @Scheduled(cron = "${account.nttbank.archive.cron:0 30 2 * * *}")
+  public void scheduledArchive() {
+    if (!enabled) {
+      return;
+    }
+    archive().subscribe(
+        count -> log.info("Archived {} transactions older than {} days.", count, minAgeDays),
+        e -> log.error("Transactions archival failed: {}", e.getMessage(), e));
+  }
+
+  /**
+   * Archives every transaction older than the configured age.
+   *
+   * @return the number of transactions archived by this run.
+   */
+  public Mono<Long> archive() {
+    if (!running.compareAndSet(false, true)) {
+      log.warn("The transactions archival is already running.");
+      return Mono.just(0L);
+    }
+    LocalDateTime cutoff = LocalDate.now().minusDays(minAgeDays).atStartOfDay();
+    return mongoLease.holding(LEASE, Duration.ofMillis(leaseTtlMs), recoverPending()
+            .then(Mono.defer(() -> archiveBatch(cutoff))
+                .repeat()
+                .takeUntil(count -> count < batchSize)
+                .reduce(0L, Long::sum)))
+        .doFinally(signal -> running.set(false));
+  }
+
+  private Mono<Void> recoverPending() {
+    return Mono.fromCallable(transactionArchive::pendingMembers)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(members -> transactionArchive.publish(members).thenReturn(members))
+        .flatMapMany(Flux::fromIterable)
+        .doOnNext(member -> log.warn("Confirming archive member {} left pending.", member.id()))
+        .concatMap(this::confirm)
+        .then();
+  }
+
+  private Mono<Long> archiveBatch(LocalDateTime cutoff) {
+    return transactionRepo.findArchivable(cutoff, batchSize)
+        .collectList()
+        .flatMap(batch -> batch.isEmpty()
+            ? Mono.just(0L)
+            : Mono.fromCallable(() -> transactionArchive.append(batch))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(members -> transactionArchive.publish(members).thenReturn(members))
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(this::confirm)
+                .then(Mono.fromCallable(() -> {
+                  meterRegistry.counter("account.transaction.archived").increment(batch.size());
+                  return (long) batch.size();
+                })));
+  }
+
+  private Mono<Void> confirm(ArchivedMember member) {
+    return Mono.fromCallable(() -> transactionArchive.verify(member.id()))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(transactionRepo::deleteByIds)
+        .flatMap(deleted -> Mono.fromCallable(() -> {
+          transactionArchive.confirm(member.id());
+          return deleted;
+        }).subscribeOn(Schedulers.boundedElastic()))
+        .then();
+  }
+}
@@ -0,0 +1,14 @@
+package com.nttbank.microservices.accountservice.balance;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the slots of a striped account.
+ *
+ * @param balance      the balance of the account.
+ * @param transactions the movements of the current month.
+ * @param changes      the writes to the slots since the account was striped.
+ */
+public record SlotTotals(BigDecimal balance, int transactions, long changes) {
+
+}
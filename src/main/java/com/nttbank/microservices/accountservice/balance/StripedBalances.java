@@ -0,0 +1,361 @@
+package com.nttbank.microservices.accountservice.balance;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.exception.InsufficientFundsException;
+import com.nttbank.microservices.accountservice.lease.LeaseHeldException;
+import com.nttbank.microservices.accountservice.lease.MongoLease;
+import com.nttbank.microservices.accountservice.model.entity.BalanceSlot;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionSummary;
+import com.nttbank.microservices.accountservice.repo.IBankAccountCustomRepoImpl;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Balance of the hot accounts listed in {@code account.nttbank.striped-balance.accounts}, split
+ * across {@code account.nttbank.striped-balance.slots} {@link BalanceSlot} documents so that
+ * concurrent movements do not all update the same document. A credit goes to a random slot. A
+ * debit is taken from the first slot holding the whole amount, starting from a random one; when
+ * none does, the other slots are swept into one in a transaction and the debit is taken from it.
+ *
+ * <p>The movements of the month are counted on the slots as well, so the fee of the movements
+ * over {@code maxMonthlyTrans} is decided on their sum. The sums read after a movement are exact;
+ * reads of the account go through a cache of the sums kept for
+ * {@code account.nttbank.striped-balance.cache-ttl-ms}. Every write to a slot also bumps its
+ * {@code changes} counter, whose sum tells readers such as the entity tag of the account that the
+ * balance moved although the account document did not.
+ *
+ * <p>The listed accounts are striped at startup: their balance and the count of the month move to
+ * the first slot and the balance of the account document is set to zero, which is no longer read.
+ * Nodes starting together take turns on the {@code striped-balances} {@link MongoLease}, so that
+ * only one of them writes the slots and the others find them in place; slots found already
+ * inserted mean the account was striped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StripedBalances implements ApplicationRunner {
+
+  public static final String SLOTS_COLLECTION = "account_balance_slots";
+  public static final String ACCOUNT_ID_FIELD = "accountId";
+  public static final String SLOT_FIELD = "slot";
+  public static final String BALANCE_FIELD = "balance";
+  public static final String TRANSACTIONS_FIELD = "transactions";
+  public static final String CHANGES_FIELD = "changes";
+
+  private static final String LEASE = "striped-balances";
+  private static final Duration LEASE_POLL_INTERVAL = Duration.ofSeconds(1);
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionalOperator transactionalOperator;
+  private final MongoLease mongoLease;
+
+  private AsyncCache<String, SlotTotals> cachedTotals;
+
+  @Value("${account.nttbank.striped-balance.accounts:}")
+  private Set<String> stripedAccounts;
+  @Value("${account.nttbank.striped-balance.slots:16}")
+  private int slots;
+  @Value("${account.nttbank.striped-balance.cache-ttl-ms:250}")
+  private long cacheTtlMs;
+  @Value("${account.nttbank.striped-balance.lease-ttl-ms:30000}")
+  private long leaseTtlMs;
+
+  @PostConstruct
+  public void init() {
+    cachedTotals = Caffeine.newBuilder()
+        .maximumSize(Math.max(1, stripedAccounts.size()))
+        .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+        .buildAsync();
+  }
+
+  /**
+   * Stripes the listed accounts, waiting for the node holding the lease to finish first.
+   */
+  @Override
+  public void run(ApplicationArguments args) {
+    if (stripedAccounts.isEmpty()) {
+      return;
+    }
+    mongoLease.holding(LEASE, Duration.ofMillis(leaseTtlMs), Flux.fromIterable(stripedAccounts)
+            .concatMap(this::stripe)
+            .then())
+        .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, LEASE_POLL_INTERVAL)
+            .filter(LeaseHeldException.class::isInstance)
+            .doBeforeRetry(signal -> log.info("Waiting for another node to stripe the balances.")))
+        .block();
+  }
+
+  public boolean isStriped(String accountId) {
+    return stripedAccounts.contains(accountId);
+  }
+
+  public Set<String> getStripedAccounts() {
+    return Set.copyOf(stripedAccounts);
+  }
+
+  /**
+   * Sets the balance and the monthly summary of a striped account from the cached sums of its
+   * slots.
+   *
+   * @param account the account as stored.
+   * @return a copy of the account with its balance, or the account itself when it has no slots.
+   */
+  public Mono<BankAccount> withBalance(BankAccount account) {
+    return cachedTotals(account.getId())
+        .map(totals -> applyTotals(account, totals))
+        .defaultIfEmpty(account);
+  }
+
+  /**
+   * Returns the cached sum of the slots of a striped account.
+   *
+   * @return the balance, or an empty {@link Mono} when the account has no slots.
+   */
+  public Mono<BigDecimal> balance(String accountId) {
+    return cachedTotals(accountId).map(SlotTotals::balance);
+  }
+
+  /**
+   * Returns the cached count of the writes to the slots of a striped account.
+   *
+   * @return the count, or an empty {@link Mono} when the account has no slots.
+   */
+  public Mono<Long> changes(String accountId) {
+    return cachedTotals(accountId).map(SlotTotals::changes);
+  }
+
+  /**
+   * Same as {@link #withBalance(BankAccount)} with sums read from the slots, for the movements
+   * validated against the balance.
+   */
+  public Mono<BankAccount> withExactBalance(BankAccount account) {
+    return totals(account.getId())
+        .doOnNext(totals -> cacheTotals(account.getId(), totals))
+        .map(totals -> applyTotals(account, totals))
+        .defaultIfEmpty(account);
+  }
+
+  /**
+   * Credits a random slot of the account and counts the movement.
+   *
+   * @return the sums of the slots after the credit.
+   */
+  public Mono<SlotTotals> credit(String accountId, BigDecimal amount) {
+    return Mono.defer(() -> {
+      int slot = ThreadLocalRandom.current().nextInt(slots);
+      Update update = new Update()
+          .inc(BALANCE_FIELD, new Decimal128(amount))
+          .inc(monthField(), 1)
+          .inc(CHANGES_FIELD, 1)
+          .setOnInsert(ACCOUNT_ID_FIELD, accountId)
+          .setOnInsert(SLOT_FIELD, slot);
+      return mongoTemplate.upsert(bySlot(accountId, slot), update, BalanceSlot.class)
+          .then(refreshTotals(accountId));
+    });
+  }
+
+  /**
+   * Debits the account, from a single slot when one holds the amount and otherwise after sweeping
+   * the balance into one slot.
+   *
+   * @param counted whether the debit counts as a movement of the month, which a fee does not.
+   * @return the sums of the slots after the debit.
+   */
+  public Mono<SlotTotals> debit(String accountId, BigDecimal amount, boolean counted) {
+    return Mono.defer(() -> {
+      Update update = new Update()
+          .inc(BALANCE_FIELD, new Decimal128(amount.negate()))
+          .inc(CHANGES_FIELD, 1);
+      if (counted) {
+        update.inc(monthField(), 1);
+      }
+      int first = ThreadLocalRandom.current().nextInt(slots);
+      return Flux.range(0, slots)
+          .concatMap(offset -> debitSlot(accountId, (first + offset) % slots, amount, update))
+          .filter(Boolean::booleanValue)
+          .next()
+          .switchIfEmpty(Mono.defer(() -> sweepAndDebit(accountId, first, amount, update)))
+          .then(refreshTotals(accountId));
+    });
+  }
+
+  private Mono<Boolean> debitSlot(String accountId, int slot, BigDecimal amount, Update update) {
+    Query query = Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD)
+        .is(BalanceSlot.idOf(accountId, slot))
+        .and(BALANCE_FIELD).gte(new Decimal128(amount)));
+    return mongoTemplate.updateFirst(query, update, BalanceSlot.class)
+        .map(result -> result.getModifiedCount() > 0);
+  }
+
+  /**
+   * Moves the balance of every other slot into the target one and debits it, in one transaction
+   * so that no movement sees the balance while it is being moved.
+   */
+  private Mono<Boolean> sweepAndDebit(String accountId, int target, BigDecimal amount,
+      Update update) {
+    Query others = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+        .and(SLOT_FIELD).ne(target));
+    return mongoTemplate.find(others, BalanceSlot.class)
+        .concatMap(slot -> mongoTemplate.findAndModify(
+            Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD).is(slot.getId())),
+            Update.update(BALANCE_FIELD, Decimal128.POSITIVE_ZERO).inc(CHANGES_FIELD, 1),
+            BalanceSlot.class))
+        .mapNotNull(BalanceSlot::getBalance)
+        .reduce(BigDecimal.ZERO, BigDecimal::add)
+        .flatMap(swept -> mongoTemplate.upsert(bySlot(accountId, target), new Update()
+            .inc(BALANCE_FIELD, new Decimal128(swept))
+            .inc(CHANGES_FIELD, 1)
+            .setOnInsert(ACCOUNT_ID_FIELD, accountId)
+            .setOnInsert(SLOT_FIELD, target), BalanceSlot.class))
+        .then(debitSlot(accountId, target, amount, update))
+        .flatMap(debited -> Boolean.TRUE.equals(debited)
+            ? Mono.just(true)
+            : Mono.<Boolean>error(new InsufficientFundsException()))
+        .as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Sums the slots of the account.
+   *
+   * @return the sums, or an empty {@link Mono} when the account has no slots.
+   */
+  public Mono<SlotTotals> totals(String accountId) {
+    String month = monthField();
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)),
+        Aggregation.group(ACCOUNT_ID_FIELD)
+            .sum(BALANCE_FIELD).as(BALANCE_FIELD)
+            .sum(month).as(TRANSACTIONS_FIELD)
+            .sum(CHANGES_FIELD).as(CHANGES_FIELD));
+    return mongoTemplate.aggregate(aggregation, SLOTS_COLLECTION, Document.class)
+        .next()
+        .map(sums -> new SlotTotals(toBigDecimal(sums.get(BALANCE_FIELD)),
+            Optional.ofNullable(sums.get(TRANSACTIONS_FIELD, Number.class))
+                .map(Number::intValue)
+                .orElse(0),
+            Optional.ofNullable(sums.get(CHANGES_FIELD, Number.class))
+                .map(Number::longValue)
+                .orElse(0L)));
+  }
+
+  private Mono<SlotTotals> cachedTotals(String accountId) {
+    return Mono.fromFuture(cachedTotals.get(accountId,
+        (id, executor) -> totals(id).toFuture()), true);
+  }
+
+  private Mono<SlotTotals> refreshTotals(String accountId) {
+    return totals(accountId).doOnNext(totals -> cacheTotals(accountId, totals));
+  }
+
+  private void cacheTotals(String accountId, SlotTotals totals) {
+    cachedTotals.put(accountId, CompletableFuture.completedFuture(totals));
+  }
+
+  /**
+   * Splits the balance of an account into slots unless it already has them.
+   */
+  private Mono<Void> stripe(String accountId) {
+    return mongoTemplate.exists(Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)),
+            BalanceSlot.class)
+        .filter(exists -> !exists)
+        .flatMap(missing -> mongoTemplate.findById(accountId, BankAccount.class))
+        .flatMap(account -> mongoTemplate.insertAll(IntStream.range(0, slots)
+                .mapToObj(slot -> initialSlot(account, slot))
+                .collect(Collectors.toList()))
+            .then(mongoTemplate.updateFirst(
+                Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD).is(accountId)),
+                new Update()
+                    .set(BALANCE_FIELD, BigDecimal.ZERO)
+                    .set(IBankAccountCustomRepoImpl.UPDATED_AT_FIELD, LocalDateTime.now())
+                    .inc(IBankAccountCustomRepoImpl.VERSION_FIELD, 1),
+                BankAccount.class)))
+        .as(transactionalOperator::transactional)
+        .doOnNext(result -> log.info("Striped the balance of account {} across {} slots.",
+            accountId, slots))
+        .onErrorResume(DuplicateKeyException.class, e -> {
+          log.info("The balance of account {} is already striped.", accountId);
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  private static BalanceSlot initialSlot(BankAccount account, int slot) {
+    BalanceSlot balanceSlot = BalanceSlot.builder()
+        .id(BalanceSlot.idOf(account.getId(), slot))
+        .accountId(account.getId())
+        .slot(slot)
+        .balance(BigDecimal.ZERO)
+        .transactions(Map.of())
+        .changes(0L)
+        .build();
+    if (slot == 0) {
+      YearMonth now = YearMonth.now();
+      balanceSlot.setBalance(Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO));
+      Optional.ofNullable(account.getMonthlyTransactionSummary())
+          .filter(summary -> now.getMonthValue() == summary.getMonth()
+              && now.getYear() == summary.getYear())
+          .ifPresent(summary -> balanceSlot.setTransactions(
+              Map.of(now.toString(), summary.getNumberOfTransactions())));
+    }
+    return balanceSlot;
+  }
+
+  private static BankAccount applyTotals(BankAccount account, SlotTotals totals) {
+    YearMonth now = YearMonth.now();
+    return account.toBuilder()
+        .balance(totals.balance())
+        .balanceChanges(totals.changes())
+        .monthlyTransactionSummary(MonthlyTransactionSummary.builder()
+            .month(now.getMonthValue())
+            .year(now.getYear())
+            .numberOfTransactions(totals.transactions())
+            .build())
+        .build();
+  }
+
+  private static Query bySlot(String accountId, int slot) {
+    return Query.query(Criteria.where(IBankAccountCustomRepoImpl.ID_FIELD)
+        .is(BalanceSlot.idOf(accountId, slot)));
+  }
+
+  private static String monthField() {
+    return TRANSACTIONS_FIELD + "." + YearMonth.now();
+  }
+
+  private static BigDecimal toBigDecimal(Object value) {
+    if (value instanceof Decimal128 decimal) {
+      return decimal.bigDecimalValue();
+    }
+    return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+  }
+}
@@ -0,0 +1,166 @@
+package com.nttbank.microservices.accountservice.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces the writes submitted for the same key into batches written together. A batch is
+ * written once it holds {@code maxSize} requests or {@code window} after its first request,
+ * whichever comes first, and the batches of one key are written one after the other, so a batch
+ * filling up while the previous one is written goes as soon as that write ends.
+ *
+ * <p>The writer gets the requests of a batch in arrival order and returns one signal per request,
+ * in the same order: a value, an empty completion or an error of that request alone. An error of
+ * the whole write fails every request of the batch.
+ *
+ * @param <R> the type of the requests.
+ * @param <T> the type of the results.
+ */
+public final class GroupCommit<R, T> {
+
+  private final Duration window;
+  private final int maxSize;
+  private final BiFunction<String, List<R>, Mono<List<Signal<T>>>> writer;
+  private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the group commit.
+   *
+   * @param window  the longest a request waits for its batch to be written.
+   * @param maxSize the largest batch.
+   * @param writer  the write of a batch, given its key and its requests.
+   */
+  public GroupCommit(Duration window, int maxSize,
+      BiFunction<String, List<R>, Mono<List<Signal<T>>>> writer) {
+    this.window = window;
+    this.maxSize = maxSize;
+    this.writer = writer;
+  }
+
+  /**
+   * Adds a request to the open batch of its key.
+   *
+   * @return the result of the request once its batch is written.
+   */
+  public Mono<T> submit(String key, R request) {
+    return Mono.create(sink -> {
+      Lane lane = lanes.compute(key, (k, current) -> {
+        Lane added = current == null ? new Lane(key) : current;
+        added.add(new Pending<>(request, sink));
+        return added;
+      });
+      lane.flushIfDue();
+    });
+  }
+
+  /**
+   * Requests of one key: the open batch, and whether a batch is being written.
+   */
+  private final class Lane {
+
+    private final String key;
+    private List<Pending<R, T>> open = new ArrayList<>();
+    private long generation;
+    private boolean due;
+    private boolean writing;
+
+    Lane(String key) {
+      this.key = key;
+    }
+
+    synchronized void add(Pending<R, T> pending) {
+      open.add(pending);
+      if (open.size() == 1) {
+        long batch = generation;
+        Schedulers.parallel().schedule(() -> onWindowEnd(batch), window.toNanos(),
+            TimeUnit.NANOSECONDS);
+      }
+      if (open.size() >= maxSize) {
+        due = true;
+      }
+    }
+
+    void onWindowEnd(long batch) {
+      synchronized (this) {
+        if (batch != generation) {
+          return;
+        }
+        due = true;
+      }
+      flushIfDue();
+    }
+
+    void flushIfDue() {
+      List<Pending<R, T>> batch;
+      synchronized (this) {
+        if (writing || !due || open.isEmpty()) {
+          return;
+        }
+        batch = open;
+        open = new ArrayList<>();
+        generation++;
+        due = false;
+        writing = true;
+      }
+      write(batch);
+    }
+
+    private void write(List<Pending<R, T>> batch) {
+      Mono.defer(() -> writer.apply(key, batch.stream().map(Pending::request).toList()))
+          .defaultIfEmpty(List.of())
+          .subscribe(
+              signals -> {
+                for (int i = 0; i < batch.size(); i++) {
+                  batch.get(i).complete(i < signals.size()
+                      ? signals.get(i)
+                      : Signal.<T>error(new IllegalStateException("No result for the request")));
+                }
+              },
+              error -> {
+                batch.forEach(pending -> pending.sink().error(error));
+                onWritten();
+              },
+              this::onWritten);
+    }
+
+    /**
+     * Starts the next batch if it became due during the write, or drops the lane once idle.
+     */
+    private void onWritten() {
+      synchronized (this) {
+        writing = false;
+        if (open.size() >= maxSize) {
+          due = true;
+        }
+      }
+      flushIfDue();
+      lanes.computeIfPresent(key, (k, lane) -> lane.isIdle() ? null : lane);
+    }
+
+    synchronized boolean isIdle() {
+      return !writing && open.isEmpty();
+    }
+  }
+
+  private record Pending<R, T>(R request, MonoSink<T> sink) {
+
+    void complete(Signal<T> signal) {
+      if (signal.isOnError()) {
+        sink.error(signal.getThrowable());
+      } else if (signal.hasValue()) {
+        sink.success(signal.get());
+      } else {
+        sink.success();
+      }
+    }
+  }
+}
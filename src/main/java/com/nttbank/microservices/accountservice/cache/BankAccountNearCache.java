@@ -0,0 +1,148 @@
+package com.nttbank.microservices.accountservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.stream.AccountChange;
+import com.nttbank.microservices.accountservice.stream.AccountChangeStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process near cache of {@link BankAccount} keyed by account id. Entries are bounded in size
+ * and time, and are invalidated from the {@link AccountChangeStream} so that every service node
+ * drops an account as soon as any node changes it. The whole cache is cleared when the stream
+ * reports that changes may have been missed, and every load started before is then dropped
+ * rather than cached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BankAccountNearCache {
+
+  private final AccountChangeStream accountChangeStream;
+  private final MeterRegistry meterRegistry;
+
+  private Cache<String, BankAccount> accounts;
+  private Cache<String, Long> recentInvalidations;
+  private Disposable invalidations;
+  private final AtomicLong generation = new AtomicLong();
+
+  @Value("${account.nttbank.cache.enabled:true}")
+  private boolean enabled;
+  @Value("${account.nttbank.cache.max-size:500000}")
+  private long maxSize;
+  @Value("${account.nttbank.cache.ttl-ms:60000}")
+  private long ttlMs;
+
+  /**
+   * Builds the cache and starts listening for account changes once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      log.info("The bank account near cache is disabled.");
+      return;
+    }
+    accounts = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build();
+    // Remembers the keys invalidated while a load may still be in flight, so that the load does
+    // not put back the value read before the change.
+    recentInvalidations = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, accounts, "bankAccounts");
+
+    invalidations = accountChangeStream.changes().subscribe(this::onChange);
+    log.info("The bank account near cache is listening for account changes.");
+  }
+
+  @PreDestroy
+  public void stop() {
+    Optional.ofNullable(invalidations).ifPresent(Disposable::dispose);
+  }
+
+  /**
+   * Returns the cached account or loads it with the given loader and caches the result. Callers
+   * get their own copy, so mutating it never changes the cached value.
+   *
+   * @param accountId the id of the account.
+   * @param loader    the read used on a miss.
+   * @return the account, or an empty {@link Mono} when it does not exist.
+   */
+  public Mono<BankAccount> get(String accountId, Function<String, Mono<BankAccount>> loader) {
+    if (accounts == null) {
+      return loader.apply(accountId);
+    }
+    return Mono.defer(() -> {
+      BankAccount cached = accounts.getIfPresent(accountId);
+      if (cached != null) {
+        return Mono.just(cached.toBuilder().build());
+      }
+      long loadStartedAt = System.nanoTime();
+      long loadGeneration = generation.get();
+      return loader.apply(accountId)
+          .doOnNext(account -> {
+            if (isCurrent(accountId, loadStartedAt, loadGeneration)) {
+              accounts.put(accountId, account.toBuilder().build());
+              // An invalidation between the check and the put may have missed the new entry.
+              if (!isCurrent(accountId, loadStartedAt, loadGeneration)) {
+                accounts.invalidate(accountId);
+              }
+            }
+          });
+    });
+  }
+
+  /**
+   * Tells whether neither the account nor the whole cache was invalidated since a load started.
+   */
+  private boolean isCurrent(String accountId, long loadStartedAt, long loadGeneration) {
+    Long invalidatedAt = recentInvalidations.getIfPresent(accountId);
+    return generation.get() == loadGeneration
+        && (invalidatedAt == null || invalidatedAt < loadStartedAt);
+  }
+
+  /**
+   * Drops an account from the local cache, used right after a local write so the node reads its
+   * own writes without waiting for the change stream.
+   *
+   * @param accountId the id of the account.
+   */
+  public void evict(String accountId) {
+    if (accounts != null && accountId != null) {
+      recentInvalidations.put(accountId, System.nanoTime());
+      accounts.invalidate(accountId);
+    }
+  }
+
+  private void onChange(AccountChange change) {
+    if (change.type() == AccountChange.Type.RESET) {
+      invalidateAll();
+    } else if (change.type() != AccountChange.Type.BALANCE) {
+      evict(change.accountId());
+    }
+  }
+
+  private void invalidateAll() {
+    generation.incrementAndGet();
+    accounts.invalidateAll();
+  }
+}
@@ -0,0 +1,162 @@
+package com.nttbank.microservices.accountservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache of the fees charged by product and day for the commissions report. The fees of a day do
+ * not change once the day is over, so a requested period is split into days and those already
+ * closed are read from the ledger once and then served from the cache; only the days still open
+ * are read on every request. A day counts as closed
+ * {@code account.nttbank.commissions-cache.closing-delay-ms} after its end, leaving time for the
+ * fees charged at its very end to be written.
+ *
+ * <p>Consecutive days missing from the cache are read with a single query. The cache is bounded
+ * by the number of fees it holds, and only the fields shown by the report are kept.
+ */
+@Component
+@RequiredArgsConstructor
+public class CommissionsReportCache {
+
+  private final TransactionLedger transactionLedger;
+  private final MeterRegistry meterRegistry;
+
+  private Cache<DayKey, List<AccountTransactions>> closedDays;
+
+  @Value("${account.nttbank.commissions-cache.max-fees:1000000}")
+  private long maxFees;
+  @Value("${account.nttbank.commissions-cache.ttl-ms:86400000}")
+  private long ttlMs;
+  @Value("${account.nttbank.commissions-cache.closing-delay-ms:300000}")
+  private long closingDelayMs;
+
+  @PostConstruct
+  public void init() {
+    closedDays = Caffeine.newBuilder()
+        .maximumWeight(maxFees)
+        .<DayKey, List<AccountTransactions>>weigher((key, fees) -> Math.max(1, fees.size()))
+        .expireAfterAccess(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, closedDays, "commissionsReportDays");
+  }
+
+  /**
+   * Returns the fees charged to the accounts of a product over a period, day after day.
+   *
+   * @param productName the product of the accounts.
+   * @param startDate   the first day of the period.
+   * @param endDate     the last day of the period, included.
+   * @return the fees of the period.
+   */
+  public Mono<List<AccountTransactions>> findFees(String productName, LocalDate startDate,
+      LocalDate endDate) {
+    return Mono.defer(() -> {
+      LocalDateTime now = LocalDateTime.now();
+      Map<LocalDate, List<AccountTransactions>> days = new HashMap<>();
+      List<DayRange> missing = new ArrayList<>();
+      DayRange range = null;
+      for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+        boolean closed = isClosed(day, now);
+        List<AccountTransactions> cached = closed
+            ? closedDays.getIfPresent(new DayKey(productName, day))
+            : null;
+        if (cached != null) {
+          days.put(day, cached);
+          range = null;
+        } else if (range != null && range.closed() == closed) {
+          range = new DayRange(range.first(), day, closed);
+          missing.set(missing.size() - 1, range);
+        } else {
+          range = new DayRange(day, day, closed);
+          missing.add(range);
+        }
+      }
+      return Flux.fromIterable(missing)
+          .concatMap(missingRange -> read(productName, missingRange))
+          .doOnNext(days::putAll)
+          .then(Mono.fromSupplier(() -> startDate.datesUntil(endDate.plusDays(1))
+              .flatMap(day -> days.getOrDefault(day, List.of()).stream())
+              .toList()));
+    });
+  }
+
+  /**
+   * Reads the fees of consecutive days with one query, and caches them by day when the days are
+   * closed, including the days without fees.
+   */
+  private Mono<Map<LocalDate, List<AccountTransactions>>> read(String productName,
+      DayRange range) {
+    return transactionLedger.findByProductNameAndTypeAndCreatedAtBetween(productName,
+            TransactionType.fee.name(), range.first().atStartOfDay(),
+            range.last().atTime(LocalTime.MAX))
+        .map(CommissionsReportCache::reportLine)
+        .collectList()
+        .map(fees -> {
+          Map<LocalDate, List<AccountTransactions>> byDay = new HashMap<>();
+          fees.forEach(fee -> byDay.computeIfAbsent(Optional.ofNullable(fee.getCreatedAt())
+              .map(LocalDateTime::toLocalDate)
+              .orElse(range.first()), day -> new ArrayList<>()).add(fee));
+          if (range.closed()) {
+            range.first().datesUntil(range.last().plusDays(1))
+                .forEach(day -> closedDays.put(new DayKey(productName, day),
+                    List.copyOf(byDay.getOrDefault(day, List.of()))));
+          }
+          return byDay;
+        });
+  }
+
+  /**
+   * Tells whether the fees of a day can no longer change, by the same rule that decides whether
+   * the day is cached.
+   *
+   * @param day the day.
+   * @return {@code true} once {@code closing-delay-ms} have passed since the end of the day.
+   */
+  public boolean isClosed(LocalDate day) {
+    return isClosed(day, LocalDateTime.now());
+  }
+
+  private boolean isClosed(LocalDate day, LocalDateTime now) {
+    return !now.isBefore(day.plusDays(1).atStartOfDay().plus(Duration.ofMillis(closingDelayMs)));
+  }
+
+  private static AccountTransactions reportLine(AccountTransactions fee) {
+    return AccountTransactions.builder()
+        .accountId(fee.getAccountId())
+        .productName(fee.getProductName())
+        .type(fee.getType())
+        .createdAt(fee.getCreatedAt())
+        .amount(fee.getAmount())
+        .balanceAfterMovement(fee.getBalanceAfterMovement())
+        .build();
+  }
+
+  private record DayKey(String productName, LocalDate day) {
+
+  }
+
+  private record DayRange(LocalDate first, LocalDate last, boolean closed) {
+
+  }
+}
@@ -0,0 +1,88 @@
+package com.nttbank.microservices.accountservice.config;
+
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactivefeign.webclient.WebClientFeignCustomizer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Configuration class for the HTTP client used by the reactive Feign client
+ * {@link com.nttbank.microservices.accountservice.proxy.openfeign.CloudGatewayFeign}. The gateway
+ * calls get a dedicated Reactor Netty connection pool instead of the shared default one, so its
+ * limits can be tuned independently and its gauges (active, idle, pending connections and pending
+ * acquire time under {@code reactor.netty.connection.provider.*}) tell apart a saturated pool from
+ * a slow remote.
+ */
+@Slf4j
+@Configuration
+public class GatewayHttpClientConfig {
+
+  public static final String GATEWAY_POOL_NAME = "cloud-gateway";
+
+  @Value("${gateway.nttbank.pool.max-connections:200}")
+  private int maxConnections;
+  @Value("${gateway.nttbank.pool.pending-acquire-max-count:1000}")
+  private int pendingAcquireMaxCount;
+  @Value("${gateway.nttbank.pool.pending-acquire-timeout-ms:2000}")
+  private long pendingAcquireTimeoutMs;
+  @Value("${gateway.nttbank.pool.max-idle-time-ms:30000}")
+  private long maxIdleTimeMs;
+  @Value("${gateway.nttbank.pool.max-life-time-ms:300000}")
+  private long maxLifeTimeMs;
+  @Value("${gateway.nttbank.pool.evict-interval-ms:15000}")
+  private long evictIntervalMs;
+  @Value("${gateway.nttbank.pool.connect-timeout-ms:1000}")
+  private int connectTimeoutMs;
+  @Value("${gateway.nttbank.pool.http2:false}")
+  private boolean http2;
+  @Value("${gateway.nttbank.pool.compression:true}")
+  private boolean compression;
+
+  /**
+   * Connection pool reserved for the cloud gateway calls. Idle and expired connections are evicted
+   * in the background and pool metrics are published to Micrometer.
+   *
+   * @return the dedicated {@link ConnectionProvider}.
+   */
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider gatewayConnectionProvider() {
+    log.info("Creating the {} connection pool with {} max connections.", GATEWAY_POOL_NAME,
+        maxConnections);
+    return ConnectionProvider.builder(GATEWAY_POOL_NAME)
+        .maxConnections(maxConnections)
+        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+        .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+        .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+        .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+        .evictInBackground(Duration.ofMillis(evictIntervalMs))
+        .metrics(true)
+        .build();
+  }
+
+  /**
+   * Plugs the dedicated pool into the WebClient built by reactive Feign, enabling keep-alive,
+   * response compression and, when configured, HTTP/2 over cleartext with HTTP/1.1 fallback.
+   *
+   * @param gatewayConnectionProvider the pool reserved for the gateway.
+   * @return the customizer applied to the Feign {@code WebClient.Builder}.
+   */
+  @Bean
+  public WebClientFeignCustomizer gatewayWebClientCustomizer(
+      ConnectionProvider gatewayConnectionProvider) {
+    HttpClient httpClient = HttpClient.create(gatewayConnectionProvider)
+        .keepAlive(true)
+        .compress(compression)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+        .protocol(http2
+            ? new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11}
+            : new HttpProtocol[]{HttpProtocol.HTTP11});
+    return builder -> builder.clientConnector(new ReactorClientHttpConnector(httpClient));
+  }
+}
@@ -0,0 +1,90 @@
+package com.nttbank.microservices.accountservice.config;
+
+import com.nttbank.microservices.accountservice.proxy.openfeign.GatewayCallGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the circuit breakers that protect the calls made through
+ * {@link com.nttbank.microservices.accountservice.proxy.openfeign.CloudGatewayFeign}. Each gateway
+ * operation gets its own breaker whose time limiter acts as the per-method deadline.
+ */
+@Configuration
+public class GatewayResilienceConfig {
+
+  @Value("${gateway.nttbank.customer.timeout-ms:1500}")
+  private long customerTimeoutMs;
+  @Value("${gateway.nttbank.credit-card.timeout-ms:1500}")
+  private long creditCardTimeoutMs;
+  @Value("${gateway.nttbank.default.timeout-ms:2000}")
+  private long defaultTimeoutMs;
+
+  @Value("${gateway.nttbank.circuit-breaker.failure-rate-threshold:50}")
+  private float failureRateThreshold;
+  @Value("${gateway.nttbank.circuit-breaker.slow-call-threshold-ms:1000}")
+  private long slowCallThresholdMs;
+  @Value("${gateway.nttbank.circuit-breaker.slow-call-rate-threshold:80}")
+  private float slowCallRateThreshold;
+  @Value("${gateway.nttbank.circuit-breaker.sliding-window-size:50}")
+  private int slidingWindowSize;
+  @Value("${gateway.nttbank.circuit-breaker.minimum-number-of-calls:20}")
+  private int minimumNumberOfCalls;
+  @Value("${gateway.nttbank.circuit-breaker.wait-in-open-state-ms:10000}")
+  private long waitInOpenStateMs;
+  @Value("${gateway.nttbank.circuit-breaker.half-open-calls:5}")
+  private int permittedCallsInHalfOpenState;
+
+  /**
+   * Registers the default and per-operation breaker settings on the reactive Resilience4J factory.
+   *
+   * @return the customizer applied by Spring Cloud Circuit Breaker at startup.
+   */
+  @Bean
+  public Customizer<ReactiveResilience4JCircuitBreakerFactory> gatewayCircuitBreakerCustomizer() {
+    return factory -> {
+      factory.configureDefault(id -> configuration(id, defaultTimeoutMs));
+      factory.configure(builder -> builder
+              .circuitBreakerConfig(circuitBreakerConfig())
+              .timeLimiterConfig(timeLimiterConfig(customerTimeoutMs)),
+          GatewayCallGuard.CUSTOMER_OPERATION);
+      factory.configure(builder -> builder
+              .circuitBreakerConfig(circuitBreakerConfig())
+              .timeLimiterConfig(timeLimiterConfig(creditCardTimeoutMs)),
+          GatewayCallGuard.CREDIT_CARD_OPERATION);
+    };
+  }
+
+  private Resilience4JConfigBuilder.Resilience4JCircuitBreakerConfiguration configuration(
+      String id, long timeoutMs) {
+    return new Resilience4JConfigBuilder(id)
+        .circuitBreakerConfig(circuitBreakerConfig())
+        .timeLimiterConfig(timeLimiterConfig(timeoutMs))
+        .build();
+  }
+
+  private CircuitBreakerConfig circuitBreakerConfig() {
+    return CircuitBreakerConfig.custom()
+        .failureRateThreshold(failureRateThreshold)
+        .slowCallDurationThreshold(Duration.ofMillis(slowCallThresholdMs))
+        .slowCallRateThreshold(slowCallRateThreshold)
+        .slidingWindowSize(slidingWindowSize)
+        .minimumNumberOfCalls(minimumNumberOfCalls)
+        .waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMs))
+        .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+        .build();
+  }
+
+  private TimeLimiterConfig timeLimiterConfig(long timeoutMs) {
+    return TimeLimiterConfig.custom()
+        .timeoutDuration(Duration.ofMillis(timeoutMs))
+        .cancelRunningFuture(true)
+        .build();
+  }
+}
@@ -1,9 +1,13 @@
 package com.nttbank.microservices.accountservice.config;
 
 
+import com.nttbank.microservices.accountservice.analytics.ProductPositions;
+import com.nttbank.microservices.accountservice.event.CompactEventDeserializer;
+import com.nttbank.microservices.accountservice.event.EventSchemaRegistry;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.ownership.AccountCommand;
+import com.nttbank.microservices.accountservice.ownership.AccountCommandRouter;
 import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
-import com.nttbank.microservices.accountservice.service.BankAccountService;
 import com.nttbank.microservices.accountservice.util.KafkaUtil;
 import com.nttbank.microservices.commonlibrary.event.CreateBankAccountEvent;
 import com.nttbank.microservices.commonlibrary.event.CreateWalletEvent;
@@ -34,8 +38,10 @@ import org.springframework.kafka.support.serializer.JsonDeserializer;
 public class KafkaConsumerConfig {
 
   private final IBankAccountRepo bankAccountRepo;
-  private final BankAccountService bankAccountService;
+  private final AccountCommandRouter accountCommandRouter;
+  private final ProductPositions productPositions;
   private final KafkaUtil kafkaUtil;
+  private final EventSchemaRegistry eventSchemaRegistry;
 
   @Value("${kafka.nttbank.server:127.0.0.1}")
   private String kafkaServer;
@@ -44,6 +50,10 @@ public class KafkaConsumerConfig {
   @Value("${kafka.nttbank.topic.consumer:nttbank}")
   private String topicName;
 
+  /**
+   * Values are read by a {@link CompactEventDeserializer}, which decodes the compact binary events
+   * and hands the JSON ones to the {@link JsonDeserializer}, configured from the properties below.
+   */
   @Bean
   public ConsumerFactory<String, GenericEvent<? extends GenericEvent>> consumerFactory() {
     Map<String, Object> kafkaProperties = new HashMap<>();
@@ -52,16 +62,13 @@ public class KafkaConsumerConfig {
 
     kafkaProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
         ErrorHandlingDeserializer.class);
-    kafkaProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-        ErrorHandlingDeserializer.class);
 
     kafkaProperties.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, JsonDeserializer.class);
-    kafkaProperties.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
-        JsonDeserializer.class.getName());
 
     kafkaProperties.put(JsonDeserializer.TRUSTED_PACKAGES, "com.nttbank.microservices.*");
 
-    return new DefaultKafkaConsumerFactory<>(kafkaProperties);
+    return new DefaultKafkaConsumerFactory<>(kafkaProperties, null,
+        new ErrorHandlingDeserializer<>(new CompactEventDeserializer(eventSchemaRegistry)));
   }
 
 
@@ -86,6 +93,7 @@ public class KafkaConsumerConfig {
               .maxMonthlyTrans(5000)
               .transactionFee(BigDecimal.ONE)
               .build())
+          .flatMap(wallet -> productPositions.opened(wallet).thenReturn(wallet))
           .doOnSuccess(wallet -> kafkaUtil.sendMessage(CreateWalletEvent.builder()
               .accountId(wallet.getId())
               .documentId(bankAccountEvent.getUsername())
@@ -99,8 +107,8 @@ public class KafkaConsumerConfig {
 
     if (obj instanceof WalletTransferEvent transfer) {
       log.info("Executing the transfer between wallets");
-      bankAccountService.transfer(transfer.getSenderAccountId(), transfer.getReceiverAccountId(),
-              transfer.getAmount())
+      accountCommandRouter.execute(AccountCommand.transfer(transfer.getSenderAccountId(),
+              transfer.getReceiverAccountId(), transfer.getAmount()))
           .subscribe(
               response -> {
                 log.info(" Yanki Wallet Transfer succeeded");
@@ -1,8 +1,11 @@
 package com.nttbank.microservices.accountservice.config;
 
+import com.nttbank.microservices.accountservice.event.CompactEventSerializer;
+import com.nttbank.microservices.accountservice.event.EventSchemaRegistry;
 import com.nttbank.microservices.commonlibrary.event.GenericEvent;
 import java.util.HashMap;
 import java.util.Map;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -13,20 +16,31 @@ import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 @Configuration
+@RequiredArgsConstructor
 public class KafkaProducerConfig {
 
+  private final EventSchemaRegistry eventSchemaRegistry;
+
   @Value("${kafka.nttbank.server:127.0.0.1}")
   private String kafkaServer;
 
   @Value("${kafka.nttbank.port:}")
   private String kafkaPort;
 
+  @Value("${kafka.nttbank.binary-events.enabled:false}")
+  private boolean binaryEventsEnabled;
+
+  /**
+   * Events with a schema in the {@link EventSchemaRegistry} are written in the compact binary
+   * format once {@code kafka.nttbank.binary-events.enabled} is set, which must wait until every
+   * consumer of the topics reads it; the other events, and all of them until then, are JSON.
+   */
   public ProducerFactory<String, GenericEvent> producerFactory() {
     Map<String, Object> kafkaProperties = new HashMap<>();
     kafkaProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServer + ":" + kafkaPort);
     kafkaProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-    kafkaProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-    return new DefaultKafkaProducerFactory<>(kafkaProperties);
+    return new DefaultKafkaProducerFactory<>(kafkaProperties, null,
+        new CompactEventSerializer(eventSchemaRegistry, binaryEventsEnabled));
   }
 
   @Bean
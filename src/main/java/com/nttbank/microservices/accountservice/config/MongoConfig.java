@@ -1,28 +1,53 @@
 package com.nttbank.microservices.accountservice.config;
 
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.BalanceSlot;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.entity.PositionSlot;
+import com.nttbank.microservices.accountservice.model.entity.TransactionBucket;
+import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
 import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.index.IndexResolver;
 import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 
 /**
  * Configuration class for MongoDB. This configuration is responsible for customizing the MongoDB
  * converter by removing the default MongoDB type mapper, which adds a `_class` field to each
  * document.
  */
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class MongoConfig implements InitializingBean {
 
+  /**
+   * Entities whose {@code @Indexed} and {@code @CompoundIndex} declarations are created at startup.
+   */
+  private static final List<Class<?>> INDEXED_ENTITIES = List.of(BankAccount.class,
+      AccountTransactions.class, TransactionBucket.class, BalanceSlot.class, PositionSlot.class);
+
   @Lazy
   private final MappingMongoConverter converter;
 
+  @Value("${account.nttbank.mongo.ensure-indexes:true}")
+  private boolean ensureIndexes;
+
   @Override
   public void afterPropertiesSet() throws Exception {
     converter.setTypeMapper(new DefaultMongoTypeMapper(null));
@@ -32,6 +57,44 @@ public class MongoConfig implements InitializingBean {
     return new ReactiveMongoTransactionManager(factory);
   }
 
+  /**
+   * Creates the indexes declared on the entities, which Spring Data does not do on its own since
+   * {@code spring.data.mongodb.auto-index-creation} is off by default. Indexes that already exist
+   * are left as they are, and startup fails if one cannot be built, for instance a unique index
+   * over duplicated documents, rather than running every lookup as a collection scan.
+   */
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public ApplicationRunner mongoIndexInitializer(ReactiveMongoTemplate mongoTemplate) {
+    IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+    return args -> {
+      if (!ensureIndexes) {
+        return;
+      }
+      Flux.fromIterable(INDEXED_ENTITIES)
+          .concatMap(type -> Flux.fromIterable(resolver.resolveIndexFor(type))
+              .concatMap(index -> mongoTemplate.indexOps(type).ensureIndex(index))
+              .doOnNext(name -> log.info("Ensured index {} of {}.", name,
+                  mongoTemplate.getCollectionName(type))))
+          .then()
+          .block();
+    };
+  }
+
+  /**
+   * Sets the initial version on accounts created before optimistic locking was enabled on
+   * {@code BankAccount}; without it {@code save} would try to insert them again. It runs in the
+   * background and only writes when some account still lacks a version, so it costs a single
+   * probe on every startup after the first one.
+   */
+  @Bean
+  public ApplicationRunner bankAccountVersionInitializer(IBankAccountRepo accountRepo) {
+    return args -> accountRepo.initMissingVersions()
+        .filter(total -> total > 0)
+        .subscribe(total -> log.info("Initialized the version of {} accounts.", total),
+            e -> log.error("Could not initialize the account versions: {}", e.getMessage(), e));
+  }
+
   @Bean
   public TransactionalOperator transactionalOperator(
       ReactiveMongoTransactionManager transactionManager) {
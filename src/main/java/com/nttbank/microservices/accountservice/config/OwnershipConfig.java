@@ -0,0 +1,82 @@
+package com.nttbank.microservices.accountservice.config;
+
+import com.nttbank.microservices.accountservice.ownership.AccountOwnership;
+import com.nttbank.microservices.accountservice.service.BankAccountService;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the ownership of the accounts among the nodes of the service. It is
+ * enabled with {@code account.nttbank.ownership.enabled}; the number of partitions must be the
+ * same on every node and can only change with every node stopped.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.nttbank.ownership.enabled", havingValue = "true")
+public class OwnershipConfig {
+
+  @Value("${kafka.nttbank.server:127.0.0.1}")
+  private String kafkaServer;
+
+  @Value("${kafka.nttbank.port:}")
+  private String kafkaPort;
+
+  @Value("${account.nttbank.ownership.commands-topic:account-commands}")
+  private String commandsTopic;
+
+  @Value("${account.nttbank.ownership.replies-topic:account-command-replies}")
+  private String repliesTopic;
+
+  @Value("${account.nttbank.ownership.group-id:account-service-ownership}")
+  private String groupId;
+
+  /**
+   * Also names the consumer group of the replies of the node, so it must stay the same across
+   * restarts of the instance. Defaults to the host name and port of the node.
+   */
+  @Value("${account.nttbank.ownership.node-id:}")
+  private String nodeId;
+
+  @Value("${server.port:8080}")
+  private int serverPort;
+
+  @Value("${account.nttbank.ownership.partitions:32}")
+  private int partitions;
+
+  @Value("${account.nttbank.ownership.replication-factor:1}")
+  private short replicationFactor;
+
+  @Value("${account.nttbank.ownership.consumers:4}")
+  private int consumers;
+
+  @Value("${account.nttbank.ownership.reply-timeout-ms:5000}")
+  private long replyTimeoutMs;
+
+  /**
+   * Joins the ownership group at startup and leaves it on shutdown, so the partitions of a node
+   * stopping are handed over at once rather than after the session timeout.
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  public AccountOwnership accountOwnership(BankAccountService bankAccountService) {
+    return new AccountOwnership(new AccountOwnership.Settings(kafkaServer + ":" + kafkaPort,
+        commandsTopic, repliesTopic, groupId, nodeId(), partitions, replicationFactor, consumers,
+        Duration.ofMillis(replyTimeoutMs)),
+        command -> command.executeOn(bankAccountService));
+  }
+
+  private String nodeId() {
+    if (!nodeId.isBlank()) {
+      return nodeId;
+    }
+    try {
+      return InetAddress.getLocalHost().getHostName() + "-" + serverPort;
+    } catch (UnknownHostException e) {
+      throw new IllegalStateException("Set account.nttbank.ownership.node-id, the host name of "
+          + "this node is unknown", e);
+    }
+  }
+}
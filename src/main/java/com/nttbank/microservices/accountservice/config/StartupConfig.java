@@ -0,0 +1,51 @@
+package com.nttbank.microservices.accountservice.config;
+
+import com.nttbank.microservices.accountservice.archive.TransactionArchiver;
+import com.nttbank.microservices.accountservice.cache.BankAccountNearCache;
+import com.nttbank.microservices.accountservice.ownership.AccountOwnership;
+import com.nttbank.microservices.accountservice.stream.AccountBalanceFanout;
+import com.nttbank.microservices.accountservice.stream.AccountChangeStream;
+import java.lang.management.ManagementFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Configuration class for the startup of the service. With the {@code fast-startup} profile the
+ * beans are created lazily, on their first use; the ones listed here only work once created, since
+ * they listen to Kafka, to the change stream or to the scheduler, so they are always created at
+ * startup. The time to ready is logged on every start, which is what the startup benchmark reads.
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+  public static final String TIME_TO_READY_LOG = "Time to ready: {} ms";
+
+  /**
+   * Beans kept eager when lazy initialization is enabled.
+   *
+   * @return the filter excluding them from lazy initialization.
+   */
+  @Bean
+  public static LazyInitializationExcludeFilter eagerBeansExcludeFilter() {
+    return LazyInitializationExcludeFilter.forBeanTypes(KafkaConsumerConfig.class,
+        AccountChangeStream.class, AccountBalanceFanout.class, BankAccountNearCache.class,
+        TransactionArchiver.class, AccountOwnership.class);
+  }
+
+  /**
+   * Logs the time from the start of the JVM until the application is ready to serve requests.
+   *
+   * @param event the ready event.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void logTimeToReady(ApplicationReadyEvent event) {
+    log.info(TIME_TO_READY_LOG, ManagementFactory.getRuntimeMXBean().getUptime());
+    log.debug("Context ready {} ms after the start of the application.",
+        event.getTimeTaken().toMillis());
+  }
+}
@@ -0,0 +1,74 @@
+package com.nttbank.microservices.accountservice.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.std.NumberSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Configuration class for the HTTP codecs. Besides JSON, every endpoint can read and write Smile,
+ * the binary form of JSON, selected with the {@code Accept} and {@code Content-Type} headers
+ * ({@code application/x-jackson-smile}); it is smaller and cheaper to encode and decode, and is
+ * meant for the internal callers. Both formats share the same Jackson settings: property accessors
+ * generated at runtime instead of reflection, and the serializers of the hot types registered up
+ * front.
+ */
+@Configuration
+public class WebCodecsConfig {
+
+  /**
+   * Replaces reflective property access with generated accessors in every Jackson mapper built by
+   * Spring Boot.
+   *
+   * @return the Blackbird module.
+   */
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule();
+  }
+
+  /**
+   * Registers the serializers of {@link BigDecimal} and {@link LocalDateTime} as shared instances
+   * with a prebuilt formatter, so they are not resolved per mapper, and keeps the output compact.
+   *
+   * @return the customizer applied to the Boot {@link Jackson2ObjectMapperBuilder}.
+   */
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer hotTypesCustomizer() {
+    DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    return builder -> builder
+        .indentOutput(false)
+        .serializerByType(BigDecimal.class, new NumberSerializer(BigDecimal.class))
+        .serializerByType(LocalDateTime.class, new LocalDateTimeSerializer(formatter))
+        .deserializerByType(LocalDateTime.class, new LocalDateTimeDeserializer(formatter));
+  }
+
+  /**
+   * Plugs the Smile codecs built from the Boot mapper settings into the server and the
+   * {@code WebClient} codecs.
+   *
+   * @param builder the Boot {@link Jackson2ObjectMapperBuilder}.
+   * @return the codec customizer.
+   */
+  @Bean
+  public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+    ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+    return configurer -> {
+      configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+      configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+    };
+  }
+}
@@ -1,11 +1,24 @@
 package com.nttbank.microservices.accountservice.controller;
 
+import com.nttbank.microservices.accountservice.cache.CommissionsReportCache;
+import com.nttbank.microservices.accountservice.dto.AccountMembersDTO;
 import com.nttbank.microservices.accountservice.dto.BankAccountDTO;
+import com.nttbank.microservices.accountservice.dto.BankAccountPatchDTO;
+import com.nttbank.microservices.accountservice.dto.TransactionExportRequest;
+import com.nttbank.microservices.accountservice.export.TransactionExportFormat;
 import com.nttbank.microservices.accountservice.mapper.BankAccountMapper;
+import com.nttbank.microservices.accountservice.model.entity.AccountStatement;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.response.AccountBalanceResponse;
 import com.nttbank.microservices.accountservice.model.response.CommissionsReportResponse;
+import com.nttbank.microservices.accountservice.ownership.AccountCommand;
+import com.nttbank.microservices.accountservice.ownership.AccountCommandRouter;
+import com.nttbank.microservices.accountservice.service.AccountBalanceStreamService;
+import com.nttbank.microservices.accountservice.service.AccountStatementService;
 import com.nttbank.microservices.accountservice.service.BankAccountService;
+import com.nttbank.microservices.accountservice.service.TransactionExportService;
+import com.nttbank.microservices.accountservice.util.EntityTagUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,20 +29,32 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -53,6 +78,11 @@ public class BankAccountController {
 
   private final BankAccountService bankAccountService;
   private final BankAccountMapper bankAccountMapper;
+  private final AccountBalanceStreamService accountBalanceStreamService;
+  private final AccountStatementService accountStatementService;
+  private final TransactionExportService transactionExportService;
+  private final AccountCommandRouter accountCommandRouter;
+  private final CommissionsReportCache commissionsReportCache;
 
   /**
    * Retrieves all bank accounts.
@@ -122,24 +152,44 @@ public class BankAccountController {
   }
 
   /**
-   * Retrieves a bank account by its ID.
+   * Retrieves a bank account by its ID. The response carries a strong ETag built from the account
+   * version and, for a striped account, the writes to its balance slots; a matching
+   * {@code If-None-Match} is answered with 304 after reading only the version of the account.
    *
-   * @param id the unique identifier of the bank account.
-   * @return a {@link Mono} containing a {@link ResponseEntity} with the {@link BankAccount}, or a
-   * 404 if not found.
+   * @param id          the unique identifier of the bank account.
+   * @param ifNoneMatch the entity tags already held by the client, if any.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the {@link BankAccount}, a 304
+   * if it did not change, or a 404 if not found.
    */
   @Operation(summary = "Retrieve a bank account by ID",
       description = "Fetches a bank account using its unique ID.")
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "Account found",
           content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "304", description = "Account not modified"),
       @ApiResponse(responseCode = "404", description = "Account not found")
   })
   @GetMapping("/{account_id}")
-  public Mono<ResponseEntity<BankAccount>> findById(@Valid @PathVariable("account_id") String id) {
-    return bankAccountService.findById(id)
-        .map(c -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(c))
+  public Mono<ResponseEntity<BankAccount>> findById(@Valid @PathVariable("account_id") String id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Mono<ResponseEntity<BankAccount>> account = Mono.defer(() -> bankAccountService.findById(id))
+        .map(c -> {
+          ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+              .contentType(MediaType.APPLICATION_JSON)
+              .cacheControl(CacheControl.noCache());
+          Optional.ofNullable(c.getVersion())
+              .map(version -> EntityTagUtils.toAccountTag(version, c.getBalanceChanges()))
+              .ifPresent(builder::eTag);
+          return builder.body(c);
+        })
         .defaultIfEmpty(ResponseEntity.notFound().build());
+    if (ifNoneMatch == null) {
+      return account;
+    }
+    return bankAccountService.findEntityTag(id)
+        .filter(tag -> EntityTagUtils.matches(ifNoneMatch, tag))
+        .map(tag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).<BankAccount>build())
+        .switchIfEmpty(account);
   }
 
   /**
@@ -184,6 +234,37 @@ public class BankAccountController {
         .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
+  /**
+   * Partially updates an existing bank account.
+   *
+   * @param id       the ID of the account to update.
+   * @param ifMatch  the ETag of the version the change is based on; takes precedence over the
+   *                 version in the body.
+   * @param patchDTO the fields to change and the version they are based on, required when the
+   *                 balance or the monthly transaction summary change.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the updated
+   * {@link BankAccount}.
+   */
+  @Operation(summary = "Partially update a bank account",
+      description = "Updates only the provided fields of an existing bank account.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Account updated",
+          content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "404", description = "Account not found"),
+      @ApiResponse(responseCode = "409", description = "Account modified concurrently"),
+      @ApiResponse(responseCode = "428",
+          description = "Version required to change the balance or the transaction summary")
+  })
+  @PatchMapping("/{account_id}")
+  public Mono<ResponseEntity<BankAccount>> patch(@Valid @PathVariable("account_id") String id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @Valid @RequestBody BankAccountPatchDTO patchDTO) {
+    Optional.ofNullable(EntityTagUtils.parseVersion(ifMatch)).ifPresent(patchDTO::setVersion);
+    return bankAccountService.patch(id, patchDTO)
+        .map(e -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(e))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
   /**
    * Deposits an amount into a bank account.
    *
@@ -205,7 +286,7 @@ public class BankAccountController {
       @RequestParam("amount")
       @NotNull @Positive(message = "Deposit amount must be greater than zero") BigDecimal amount) {
 
-    return bankAccountService.deposit(accountId, amount)
+    return accountCommandRouter.execute(AccountCommand.deposit(accountId, amount))
         .map(e -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(e))
         .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
   }
@@ -232,7 +313,7 @@ public class BankAccountController {
       @NotNull
       @Positive(message = "Withdrawal amount must be greater than zero") BigDecimal amount) {
 
-    return bankAccountService.withdraw(accountId, amount)
+    return accountCommandRouter.execute(AccountCommand.withdraw(accountId, amount))
         .map(e -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(e))
         .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
   }
@@ -259,15 +340,19 @@ public class BankAccountController {
       @RequestParam("amount")
       @NotNull @Positive(message = "Transfer amount must be greater than zero") BigDecimal amount) {
 
-    return bankAccountService.transfer(fromAccountId, toAccountId, amount)
+    return accountCommandRouter.execute(
+        AccountCommand.transfer(fromAccountId, toAccountId, amount))
         .map(e -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(e))
         .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
   }
 
   /**
-   * Retrieve movements for an account.
+   * Retrieve movements for an account. The response carries a strong ETag built from the id of the
+   * newest movement, and a matching {@code If-None-Match} is answered with 304 without reading the
+   * history.
    *
-   * @param accountId the ID of the account to retrieve movements for.
+   * @param accountId   the ID of the account to retrieve movements for.
+   * @param ifNoneMatch the entity tags already held by the client, if any.
    * @return a {@link Mono} containing a {@link ResponseEntity} with the movements for the account.
    */
   @Operation(summary = "Retrieve movements for an account",
@@ -275,14 +360,140 @@ public class BankAccountController {
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "Movements found",
           content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "304", description = "Movements not modified"),
       @ApiResponse(responseCode = "404", description = "Account not found")
   })
   @GetMapping("/{account_id}/transactions")
   public Mono<ResponseEntity<Flux<AccountTransactions>>> findMovements(
-      @Valid @PathVariable("account_id") String accountId) {
+      @Valid @PathVariable("account_id") String accountId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Flux<AccountTransactions> movements = bankAccountService.findAccountTransactions(accountId);
-    return Mono.just(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(movements))
-        .defaultIfEmpty(ResponseEntity.noContent().build());
+    return bankAccountService.findLatestTransactionId(accountId)
+        .map(EntityTagUtils::toEntityTag)
+        .map(tag -> EntityTagUtils.matches(ifNoneMatch, tag)
+            ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag)
+                .<Flux<AccountTransactions>>build()
+            : ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache()).eTag(tag)
+                .body(movements))
+        .defaultIfEmpty(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .body(movements));
+  }
+
+  /**
+   * Exports the transactions of a period as CSV or NDJSON. The request is checked and an export
+   * permit taken before the response is committed, so a rejected export is answered with its
+   * status rather than with a broken stream.
+   *
+   * @param startDate      the first day of the period.
+   * @param endDate        the last day of the period.
+   * @param productName    the product of the transactions, all of them when not set.
+   * @param format         the format of the export, {@code csv} or {@code ndjson}.
+   * @param after          the cursor of the last row received, to resume an export.
+   * @param acceptEncoding the encodings accepted by the client.
+   * @param response       the response the export is written to.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the streamed export.
+   */
+  @Operation(summary = "Export transactions",
+      description = "Streams the transactions of a period as CSV or NDJSON, gzip-compressed when "
+          + "accepted by the client. Every row carries a cursor to resume the export.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Export started",
+          content = {@Content(mediaType = "text/csv"),
+              @Content(mediaType = "application/x-ndjson")}),
+      @ApiResponse(responseCode = "400", description = "Invalid period, format or cursor"),
+      @ApiResponse(responseCode = "429", description = "Too many exports running")
+  })
+  @GetMapping("/transactions/export")
+  public Mono<ResponseEntity<Flux<DataBuffer>>> exportTransactions(
+      @RequestParam("startDate")
+      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+      @RequestParam("endDate")
+      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+      @RequestParam(value = "productName", required = false) String productName,
+      @RequestParam(value = "format", defaultValue = "csv") String format,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      final ServerHttpResponse response) {
+    return Mono.fromCallable(() -> TransactionExportFormat.valueOf(
+            format.toUpperCase(Locale.ROOT)))
+        .flatMap(exportFormat -> {
+          boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+          TransactionExportRequest request = TransactionExportRequest.builder()
+              .format(exportFormat)
+              .startDate(startDate)
+              .endDate(endDate)
+              .productName(productName)
+              .after(after)
+              .gzip(gzip)
+              .build();
+          ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+              .contentType(exportFormat.getMediaType())
+              .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+              .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                  .filename("transactions-" + startDate + "-" + endDate + "."
+                      + exportFormat.name().toLowerCase(Locale.ROOT))
+                  .build().toString());
+          if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+          }
+          return transactionExportService.export(request, response.bufferFactory())
+              .map(builder::body);
+        });
+  }
+
+  /**
+   * Streams the balance of an account as Server-Sent Events.
+   *
+   * @param accountId the ID of the account to watch.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the balance events.
+   */
+  @Operation(summary = "Stream the balance of an account",
+      description = "Pushes the current balance of the account and every later change.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Balance stream opened",
+          content = @Content(mediaType = "text/event-stream")),
+      @ApiResponse(responseCode = "404", description = "Account not found")
+  })
+  @GetMapping(value = "/{account_id}/balance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Mono<ResponseEntity<Flux<ServerSentEvent<AccountBalanceResponse>>>> streamBalance(
+      @Valid @PathVariable("account_id") String accountId) {
+    return bankAccountService.findById(accountId)
+        .map(account -> ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+            .cacheControl(CacheControl.noStore())
+            .body(accountBalanceStreamService.streamBalance(accountId)))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Retrieve the statement of an account for a month. Statements of closed months do not change,
+   * so clients may keep them.
+   *
+   * @param accountId the ID of the account.
+   * @param month     the month of the statement, as {@code yyyy-MM}.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the {@link AccountStatement}.
+   */
+  @Operation(summary = "Retrieve the statement of an account for a month",
+      description = "Returns the movements of the month with the opening and closing balances and "
+          + "the totals of deposits, withdrawals and fees.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Statement found",
+          content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "400", description = "Invalid or future month"),
+      @ApiResponse(responseCode = "404", description = "Account not found")
+  })
+  @GetMapping("/{account_id}/statements/{month}")
+  public Mono<ResponseEntity<AccountStatement>> findStatement(
+      @Valid @PathVariable("account_id") String accountId,
+      @PathVariable("month") @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+    CacheControl cacheControl = month.isBefore(YearMonth.now())
+        ? CacheControl.maxAge(Duration.ofDays(1)).cachePrivate()
+        : CacheControl.noCache();
+    return accountStatementService.findStatement(accountId, month)
+        .map(statement -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(cacheControl)
+            .body(statement))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
   /**
@@ -381,6 +592,41 @@ public class BankAccountController {
         .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
+  /**
+   * Adds and removes holders and signers of an account in one call.
+   *
+   * @param accountId the ID of the account to update.
+   * @param members   the holders and signers to add or remove.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the updated
+   * {@link BankAccount}.
+   */
+  @Operation(summary = "Bulk update holders and signers of an account",
+      description = "Adds and removes many holders and signers of the specified account.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Holders and signers updated",
+          content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "404", description = "Account not found")
+  })
+  @PatchMapping("/{account_id}/members")
+  public Mono<ResponseEntity<BankAccount>> updateMembers(
+      @Valid @PathVariable("account_id") String accountId,
+      @RequestBody AccountMembersDTO members) {
+    return bankAccountService.updateMembers(accountId, members)
+        .map(c -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(c))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Report of the commissions charged to the accounts of a product over a period. Reports of
+   * periods whose last day is closed for the {@link CommissionsReportCache} do not change, so
+   * clients may keep them.
+   *
+   * @param startDate   the first day of the period.
+   * @param endDate     the last day of the period.
+   * @param productName the product of the accounts.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the
+   *     {@link CommissionsReportResponse}.
+   */
   @PostMapping("/reports/commissions")
   public Mono<ResponseEntity<CommissionsReportResponse>> reportCommisionsByProduct(
       @RequestParam("startDate")
@@ -389,8 +635,13 @@ public class BankAccountController {
       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDate endDate,
       @RequestParam("productName")
       @NotNull(message = "productName cannot be null") String productName) {
+    CacheControl cacheControl = commissionsReportCache.isClosed(endDate)
+        ? CacheControl.maxAge(Duration.ofDays(1)).cachePrivate()
+        : CacheControl.noCache();
     return bankAccountService.generateReportCommissionsProduct(startDate, endDate, productName)
-        .map(c -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(c))
+        .map(c -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(cacheControl)
+            .body(c))
         .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
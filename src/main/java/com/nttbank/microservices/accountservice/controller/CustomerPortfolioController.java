@@ -0,0 +1,54 @@
+package com.nttbank.microservices.accountservice.controller;
+
+import com.nttbank.microservices.accountservice.model.response.CustomerPortfolioResponse;
+import com.nttbank.microservices.accountservice.service.CustomerPortfolioService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST Controller for the accounts seen from a customer.
+ */
+@RestController
+@RequestMapping("/customers")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Customer Portfolio Controller", description = "Accounts of a customer")
+public class CustomerPortfolioController {
+
+  private final CustomerPortfolioService customerPortfolioService;
+
+  /**
+   * Retrieves the accounts of a customer with their totals by type and status.
+   *
+   * @param customerId the ID of the customer.
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the
+   *     {@link CustomerPortfolioResponse}.
+   */
+  @Operation(summary = "Retrieve the account portfolio of a customer",
+      description = "Returns every account the customer owns or is a holder or signer of, with the "
+          + "totals by account type and status.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Portfolio found",
+          content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/{customer_id}/accounts/summary")
+  public Mono<ResponseEntity<CustomerPortfolioResponse>> findPortfolio(
+      @Valid @PathVariable("customer_id") String customerId) {
+    return customerPortfolioService.findPortfolio(customerId)
+        .map(portfolio -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .body(portfolio));
+  }
+}
@@ -0,0 +1,50 @@
+package com.nttbank.microservices.accountservice.controller;
+
+import com.nttbank.microservices.accountservice.analytics.ProductPositions;
+import com.nttbank.microservices.accountservice.model.response.PositionsReportResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST Controller for the totals of the accounts by product.
+ */
+@RestController
+@RequestMapping("/accounts/reports")
+@RequiredArgsConstructor
+@Tag(name = "Product Position Controller", description = "Totals of the accounts by product")
+public class ProductPositionController {
+
+  private final ProductPositions productPositions;
+
+  /**
+   * Retrieves the totals of the accounts by type and status.
+   *
+   * @return a {@link Mono} containing a {@link ResponseEntity} with the
+   *     {@link PositionsReportResponse}.
+   */
+  @Operation(summary = "Retrieve the positions by product",
+      description = "Returns the number of accounts, their balance and the fees of the current "
+          + "month by account type and status.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Positions found",
+          content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/positions")
+  public Mono<ResponseEntity<PositionsReportResponse>> findPositions() {
+    return productPositions.report()
+        .map(report -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(CacheControl.noCache())
+            .body(report));
+  }
+}
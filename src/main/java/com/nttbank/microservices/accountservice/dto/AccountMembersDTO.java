@@ -0,0 +1,26 @@
+package com.nttbank.microservices.accountservice.dto;
+
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a bulk change of the holders and signers of a bank account. Every customer to be added
+ * is validated against the customer service before the change is applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountMembersDTO {
+
+  private Set<String> addHolders;
+
+  private Set<String> removeHolders;
+
+  private Set<String> addSigners;
+
+  private Set<String> removeSigners;
+}
@@ -0,0 +1,58 @@
+package com.nttbank.microservices.accountservice.dto;
+
+import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionSummary;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import java.math.BigDecimal;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a partial update of a bank account. Only the non-null fields are written, and the
+ * {@code version} is the version of the account the change was based on; it is optional unless the
+ * balance or the monthly transaction summary change.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BankAccountPatchDTO {
+
+  private Long version;
+
+  @Pattern(regexp = "^(saving|checking|fixed)$",
+      message = "Account type must be 'saving', 'checking', or 'fixed'")
+  private String accountType;
+
+  private String customerId;
+
+  @Min(value = 0, message = "Balance must be greater than or equal to 0")
+  private BigDecimal balance;
+
+  @Min(value = 1, message = "Max. Monthly transactions by account cannot be  lower or equal to 0")
+  private Integer maxMonthlyTrans;
+
+  private BigDecimal maintenanceFee;
+
+  @DecimalMin(value = "0.01", message = "The transaction fee must be at least 0.01.")
+  @DecimalMax(value = "100.00", message = "The transaction fee must be less than or equal to 100.")
+  private BigDecimal transactionFee;
+
+  @Min(value = 1, message = "Allowed day of operation must be between 1 and 31")
+  @Max(value = 31, message = "Allowed day of operation must be between 1 and 31")
+  private Integer allowedDayOperation;
+
+  private BigDecimal withdrawAmountMax;
+
+  private Set<String> lstSigners;
+
+  private Set<String> lstHolders;
+
+  private MonthlyTransactionSummary monthlyTransactionSummary;
+}
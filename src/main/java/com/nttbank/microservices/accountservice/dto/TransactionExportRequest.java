@@ -0,0 +1,26 @@
+package com.nttbank.microservices.accountservice.dto;
+
+import com.nttbank.microservices.accountservice.export.TransactionExportFormat;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parameters of a transactions export. Both dates are inclusive, and {@code after} is the cursor
+ * of the last row received by an interrupted export.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionExportRequest {
+
+  private TransactionExportFormat format;
+  private LocalDate startDate;
+  private LocalDate endDate;
+  private String productName;
+  private String after;
+  private boolean gzip;
+}
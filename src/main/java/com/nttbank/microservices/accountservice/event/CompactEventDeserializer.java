@@ -0,0 +1,111 @@
+package com.nttbank.microservices.accountservice.event;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.nttbank.microservices.commonlibrary.event.GenericEvent;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Kafka deserializer reading both the {@link CompactEventFormat} and JSON. A compact record is
+ * decoded with the schema whose id it carries, so records written with an older version of a
+ * schema are still read; properties the event class no longer has are ignored and new ones are
+ * left unset. Any other payload goes to the JSON fallback, which uses the type headers.
+ *
+ * <p>The fields are decoded straight into a stream of JSON tokens that the reader of the event
+ * class binds, without building an intermediate JSON tree.
+ */
+@SuppressWarnings("rawtypes")
+public class CompactEventDeserializer
+    implements Deserializer<GenericEvent<? extends GenericEvent>> {
+
+  private final EventSchemaRegistry schemaRegistry;
+  private final JsonDeserializer<GenericEvent<? extends GenericEvent>> fallback =
+      new JsonDeserializer<>();
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+  private final Map<Integer, ObjectReader> readersBySchemaId = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the deserializer.
+   *
+   * @param schemaRegistry the registry holding the event schemas.
+   */
+  public CompactEventDeserializer(EventSchemaRegistry schemaRegistry) {
+    this.schemaRegistry = schemaRegistry;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    fallback.configure(configs, isKey);
+  }
+
+  @Override
+  public GenericEvent<? extends GenericEvent> deserialize(String topic, byte[] data) {
+    return deserialize(topic, null, data);
+  }
+
+  @Override
+  public GenericEvent<? extends GenericEvent> deserialize(String topic, Headers headers,
+      byte[] data) {
+    if (!CompactEventFormat.isCompact(data)) {
+      return fallback.deserialize(topic, headers, data);
+    }
+    try {
+      ByteBuffer in = ByteBuffer.wrap(data);
+      int schemaId = CompactEventFormat.readHeader(in);
+      EventSchema schema = schemaRegistry.findById(schemaId)
+          .orElseThrow(() -> new SerializationException("Unknown event schema " + schemaId));
+      TokenBuffer tokens = new TokenBuffer(objectMapper, false);
+      tokens.writeStartObject();
+      for (EventSchema.Field field : schema.fields()) {
+        writeToken(tokens, field, CompactEventFormat.readField(in, field.type()));
+      }
+      tokens.writeEndObject();
+      return readEvent(schema, tokens);
+    } catch (BufferUnderflowException | NegativeArraySizeException | IOException e) {
+      throw new SerializationException("Malformed compact event on topic " + topic, e);
+    }
+  }
+
+  private static void writeToken(TokenBuffer tokens, EventSchema.Field field, Object value)
+      throws IOException {
+    if (value == null) {
+      return;
+    }
+    tokens.writeFieldName(field.name());
+    switch (field.type()) {
+      case STRING -> tokens.writeString((String) value);
+      case DECIMAL -> tokens.writeNumber((BigDecimal) value);
+      case LONG -> tokens.writeNumber((Long) value);
+      case DOUBLE -> tokens.writeNumber((Double) value);
+      case BOOLEAN -> tokens.writeBoolean((Boolean) value);
+    }
+  }
+
+  private GenericEvent<? extends GenericEvent> readEvent(EventSchema schema, TokenBuffer tokens)
+      throws IOException {
+    ObjectReader reader = readersBySchemaId.computeIfAbsent(schema.id(),
+        id -> objectMapper.readerFor(
+            ClassUtils.resolveClassName(schema.type(), getClass().getClassLoader())));
+    try (JsonParser parser = tokens.asParser()) {
+      return reader.readValue(parser);
+    }
+  }
+
+  @Override
+  public void close() {
+    fallback.close();
+  }
+}
@@ -0,0 +1,164 @@
+package com.nttbank.microservices.accountservice.event;
+
+import com.nttbank.microservices.accountservice.event.EventSchema.FieldType;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary format of the Kafka events. A record starts with a zero magic byte, which never
+ * starts a JSON document, and the id of its {@link EventSchema}; then comes each field in schema
+ * order as a presence byte followed, when present, by the value. Names and type headers are not
+ * written, and numbers use variable-length zig-zag encoding. Values are read as {@link String},
+ * {@link BigDecimal}, {@link Long}, {@link Double} or {@link Boolean} according to their type.
+ */
+final class CompactEventFormat {
+
+  static final byte MAGIC = 0;
+
+  private static final byte ABSENT = 0;
+  private static final byte PRESENT = 1;
+
+  private CompactEventFormat() {
+  }
+
+  /**
+   * Buffer of a record being written. The format writes byte by byte, which the synchronized
+   * methods of {@link ByteArrayOutputStream} would make a lock operation each.
+   */
+  static final class Output extends ByteArrayOutputStream {
+
+    Output(int size) {
+      super(size);
+    }
+
+    @Override
+    public void write(int b) {
+      if (count == buf.length) {
+        buf = Arrays.copyOf(buf, buf.length * 2);
+      }
+      buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (count + len > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + len));
+      }
+      System.arraycopy(b, off, buf, count, len);
+      count += len;
+    }
+  }
+
+  /**
+   * Tells whether a payload is written in this format rather than in JSON.
+   */
+  static boolean isCompact(byte[] data) {
+    return data != null && data.length > Integer.BYTES && data[0] == MAGIC;
+  }
+
+  static void writeHeader(ByteArrayOutputStream out, int schemaId) {
+    out.write(MAGIC);
+    out.write(schemaId >>> 24);
+    out.write(schemaId >>> 16);
+    out.write(schemaId >>> 8);
+    out.write(schemaId);
+  }
+
+  static int readHeader(ByteBuffer in) {
+    in.get();
+    return in.getInt();
+  }
+
+  /**
+   * Writes a field, converting a value of another Java type to the wire type, such as the text
+   * of an enum or a decimal held as an integer.
+   */
+  static void writeField(ByteArrayOutputStream out, FieldType type, Object value) {
+    if (value == null) {
+      out.write(ABSENT);
+      return;
+    }
+    out.write(PRESENT);
+    switch (type) {
+      case STRING -> writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+      case DECIMAL -> {
+        BigDecimal decimal = value instanceof BigDecimal exact
+            ? exact
+            : new BigDecimal(value.toString());
+        writeVarLong(out, decimal.scale());
+        writeBytes(out, decimal.unscaledValue().toByteArray());
+      }
+      case LONG -> writeVarLong(out, value instanceof Number number
+          ? number.longValue()
+          : Long.parseLong(value.toString()));
+      case DOUBLE -> {
+        long bits = Double.doubleToLongBits(value instanceof Number number
+            ? number.doubleValue()
+            : Double.parseDouble(value.toString()));
+        for (int shift = 56; shift >= 0; shift -= 8) {
+          out.write((int) (bits >>> shift));
+        }
+      }
+      case BOOLEAN -> out.write((value instanceof Boolean flag
+          ? flag
+          : Boolean.parseBoolean(value.toString())) ? 1 : 0);
+    }
+  }
+
+  /**
+   * Reads a field.
+   *
+   * @return the value, or {@code null} when the field is absent.
+   */
+  static Object readField(ByteBuffer in, FieldType type) {
+    if (in.get() == ABSENT) {
+      return null;
+    }
+    return switch (type) {
+      case STRING -> new String(readBytes(in), StandardCharsets.UTF_8);
+      case DECIMAL -> {
+        int scale = (int) readVarLong(in);
+        yield new BigDecimal(new BigInteger(readBytes(in)), scale);
+      }
+      case LONG -> readVarLong(in);
+      case DOUBLE -> in.getDouble();
+      case BOOLEAN -> in.get() != 0;
+    };
+  }
+
+  private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+    writeVarLong(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static byte[] readBytes(ByteBuffer in) {
+    byte[] bytes = new byte[(int) readVarLong(in)];
+    in.get(bytes);
+    return bytes;
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      out.write((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    out.write((int) zigZag);
+  }
+
+  private static long readVarLong(ByteBuffer in) {
+    long zigZag = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.get();
+      zigZag |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return (zigZag >>> 1) ^ -(zigZag & 1);
+  }
+}
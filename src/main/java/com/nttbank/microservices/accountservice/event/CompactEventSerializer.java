@@ -0,0 +1,134 @@
+package com.nttbank.microservices.accountservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.nttbank.microservices.commonlibrary.event.GenericEvent;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Kafka serializer writing the events that have a schema in the {@link CompactEventFormat}, with
+ * the latest schema of their type. Events without a schema, and events carrying a property that
+ * their schema does not list, are written as JSON by the fallback serializer so that nothing is
+ * lost; the latter is logged once per type, since it means the schema needs a new version.
+ *
+ * <p>The properties are read with the accessors Jackson finds on the event class, resolved once
+ * per schema, so an event is written without building an intermediate JSON tree.
+ */
+@Slf4j
+@SuppressWarnings("rawtypes")
+public class CompactEventSerializer implements Serializer<GenericEvent> {
+
+  private final EventSchemaRegistry schemaRegistry;
+  private final boolean enabled;
+  private final JsonSerializer<GenericEvent> fallback = new JsonSerializer<>();
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+  private final Map<Integer, EventAccessors> accessorsBySchemaId = new ConcurrentHashMap<>();
+  private final Set<Class<?>> uncoveredTypes = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Accessors of the properties of an event class.
+   *
+   * @param fields    the accessors of the fields of a schema, in wire order; {@code null} for a
+   *                  field the class does not have.
+   * @param uncovered the accessors of the properties the schema does not list, by name.
+   */
+  private record EventAccessors(List<AnnotatedMember> fields,
+                                Map<String, AnnotatedMember> uncovered) {
+
+  }
+
+  /**
+   * Creates the serializer.
+   *
+   * @param schemaRegistry the registry holding the event schemas.
+   * @param enabled        whether the compact format is written; when not, every event is JSON.
+   */
+  public CompactEventSerializer(EventSchemaRegistry schemaRegistry, boolean enabled) {
+    this.schemaRegistry = schemaRegistry;
+    this.enabled = enabled;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    fallback.configure(configs, isKey);
+  }
+
+  @Override
+  public byte[] serialize(String topic, GenericEvent data) {
+    return serialize(topic, null, data);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Headers headers, GenericEvent data) {
+    if (data == null) {
+      return null;
+    }
+    Optional<EventSchema> schema = enabled && !uncoveredTypes.contains(data.getClass())
+        ? schemaRegistry.findLatest(data.getClass())
+        : Optional.empty();
+    if (schema.isPresent()) {
+      byte[] compact = writeCompact(schema.get(), data);
+      if (compact != null) {
+        return compact;
+      }
+    }
+    return fallback.serialize(topic, headers, data);
+  }
+
+  private byte[] writeCompact(EventSchema schema, GenericEvent data) {
+    EventAccessors accessors = accessorsBySchemaId.computeIfAbsent(schema.id(),
+        id -> accessors(schema, data.getClass()));
+    List<String> uncovered = accessors.uncovered().entrySet().stream()
+        .filter(property -> property.getValue().getValue(data) != null)
+        .map(Map.Entry::getKey)
+        .toList();
+    if (!uncovered.isEmpty()) {
+      if (uncoveredTypes.add(data.getClass())) {
+        log.warn("Schema {} of {} does not cover the properties {}, writing it as JSON",
+            schema.id(), schema.type(), uncovered);
+      }
+      return null;
+    }
+    ByteArrayOutputStream out = new CompactEventFormat.Output(128);
+    CompactEventFormat.writeHeader(out, schema.id());
+    for (int i = 0; i < schema.fields().size(); i++) {
+      AnnotatedMember accessor = accessors.fields().get(i);
+      CompactEventFormat.writeField(out, schema.fields().get(i).type(),
+          accessor == null ? null : accessor.getValue(data));
+    }
+    return out.toByteArray();
+  }
+
+  private EventAccessors accessors(EventSchema schema, Class<?> type) {
+    Map<String, AnnotatedMember> properties = new LinkedHashMap<>();
+    for (BeanPropertyDefinition property : objectMapper.getSerializationConfig()
+        .introspect(objectMapper.constructType(type)).findProperties()) {
+      AnnotatedMember accessor = property.getAccessor();
+      if (accessor != null) {
+        accessor.fixAccess(false);
+        properties.put(property.getName(), accessor);
+      }
+    }
+    List<AnnotatedMember> fields = schema.fields().stream()
+        .map(field -> properties.remove(field.name()))
+        .toList();
+    return new EventAccessors(fields, properties);
+  }
+
+  @Override
+  public void close() {
+    fallback.close();
+  }
+}
@@ -0,0 +1,37 @@
+package com.nttbank.microservices.accountservice.event;
+
+import java.util.List;
+
+/**
+ * Versioned schema of a Kafka event written in the compact binary format. The id is unique across
+ * all event types and versions and travels in every record, so a reader always decodes a record
+ * with the schema it was written with; the fields are written in the order listed here.
+ *
+ * @param id      the id of the schema, written in every record.
+ * @param type    the fully qualified name of the event class.
+ * @param version the version of the schema for its event type.
+ * @param fields  the fields of the event, in wire order.
+ */
+public record EventSchema(int id, String type, int version, List<Field> fields) {
+
+  /**
+   * Field of an event schema.
+   *
+   * @param name the name of the property in the event class.
+   * @param type the wire type of the value.
+   */
+  public record Field(String name, FieldType type) {
+
+  }
+
+  /**
+   * Wire types of the compact binary format.
+   */
+  public enum FieldType {
+    STRING,
+    DECIMAL,
+    LONG,
+    DOUBLE,
+    BOOLEAN
+  }
+}
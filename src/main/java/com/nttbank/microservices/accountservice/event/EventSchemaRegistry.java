@@ -0,0 +1,121 @@
+package com.nttbank.microservices.accountservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for a schema registry. The schemas of the compact event format are JSON files,
+ * bundled with the service under {@code event-schemas/} and optionally read from a directory
+ * shared by the services that exchange the events, where new versions can be dropped without a
+ * release. Schemas are cached by id; an unknown id read from a record triggers a new scan of the
+ * files before the record is rejected.
+ */
+@Slf4j
+@Component
+public class EventSchemaRegistry {
+
+  private static final String BUNDLED_SCHEMAS = "classpath*:event-schemas/*.json";
+  private static final String SCHEMA_FILE_SUFFIX = ".json";
+  private static final String TRUSTED_PACKAGE = "com.nttbank.microservices.";
+
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+  private final Map<Integer, EventSchema> schemasById = new ConcurrentHashMap<>();
+  private final Map<String, EventSchema> latestByType = new ConcurrentHashMap<>();
+
+  @Value("${kafka.nttbank.schema-registry.dir:}")
+  private String directory;
+
+  /**
+   * Loads the bundled schemas and the ones found in the registry directory.
+   */
+  @PostConstruct
+  public void load() {
+    refresh();
+    log.info("Loaded {} event schemas.", schemasById.size());
+  }
+
+  /**
+   * Returns the schema with the given id.
+   *
+   * @param id the id read from a record.
+   * @return the schema, or empty when no file defines it.
+   */
+  public Optional<EventSchema> findById(int id) {
+    EventSchema schema = schemasById.get(id);
+    if (schema == null) {
+      refresh();
+      schema = schemasById.get(id);
+    }
+    return Optional.ofNullable(schema);
+  }
+
+  /**
+   * Returns the latest version of the schema of an event type, the one used to write new records.
+   *
+   * @param type the event class.
+   * @return the schema, or empty when the type has no schema and is written as JSON.
+   */
+  public Optional<EventSchema> findLatest(Class<?> type) {
+    return Optional.ofNullable(latestByType.get(type.getName()));
+  }
+
+  /**
+   * Scans the bundled schemas and the registry directory again, adding the schemas not seen yet.
+   */
+  public synchronized void refresh() {
+    try {
+      for (Resource resource : new PathMatchingResourcePatternResolver()
+          .getResources(BUNDLED_SCHEMAS)) {
+        try (InputStream in = resource.getInputStream()) {
+          register(objectMapper.readValue(in, EventSchema.class), resource.getDescription());
+        }
+      }
+      if (directory != null && !directory.isBlank() && Files.isDirectory(Path.of(directory))) {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(Path.of(directory))) {
+          files = list.filter(file -> file.toString().endsWith(SCHEMA_FILE_SUFFIX))
+              .sorted(Comparator.naturalOrder())
+              .toList();
+        }
+        for (Path file : files) {
+          register(objectMapper.readValue(file.toFile(), EventSchema.class), file.toString());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the event schemas", e);
+    }
+  }
+
+  private void register(EventSchema schema, String source) {
+    if (!schema.type().startsWith(TRUSTED_PACKAGE)) {
+      throw new IllegalStateException(
+          "Event schema " + schema.id() + " in " + source + " has an untrusted type "
+              + schema.type());
+    }
+    EventSchema known = schemasById.putIfAbsent(schema.id(), schema);
+    if (known != null && !known.equals(schema)) {
+      throw new IllegalStateException(
+          "Event schema " + schema.id() + " in " + source + " conflicts with a loaded schema");
+    }
+    latestByType.merge(schema.type(), schema,
+        (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+  }
+}
@@ -0,0 +1,12 @@
+package com.nttbank.microservices.accountservice.exception;
+
+/**
+ * Raised when an account cannot be opened, because the customer reached the limit of accounts of
+ * its type or because a field the account type requires is missing.
+ */
+public class AccountOpeningException extends DomainException {
+
+  public AccountOpeningException(ErrorCode code, String message) {
+    super(code, message);
+  }
+}
@@ -0,0 +1,27 @@
+package com.nttbank.microservices.accountservice.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Raised when a request is shed before reaching the service because its client, or the service
+ * itself, is over its limits. The response tells the client when to retry.
+ */
+@Getter
+public class AdmissionRejectedException extends DomainException {
+
+  private final Duration retryAfter;
+
+  public AdmissionRejectedException(ErrorCode code, Duration retryAfter) {
+    super(code);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Returns the wait in whole seconds, as sent in the {@code Retry-After} header, rounded up so
+   * that a client retrying on time is admitted.
+   */
+  public long getRetryAfterSeconds() {
+    return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+  }
+}
@@ -0,0 +1,24 @@
+package com.nttbank.microservices.accountservice.exception;
+
+import lombok.Getter;
+
+/**
+ * Base class of the business rejections of the service, such as a withdrawal without funds or an
+ * operation on a day the account does not allow. They are expected outcomes rather than faults, so
+ * they carry an {@link ErrorCode} instead of a stack trace, which is never captured; this keeps
+ * their cost low when rejected requests make up most of the traffic.
+ */
+@Getter
+public abstract class DomainException extends RuntimeException {
+
+  private final ErrorCode code;
+
+  protected DomainException(ErrorCode code, String message) {
+    super(message, null, false, false);
+    this.code = code;
+  }
+
+  protected DomainException(ErrorCode code) {
+    this(code, code.getMessage());
+  }
+}
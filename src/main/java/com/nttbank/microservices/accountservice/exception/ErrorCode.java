@@ -0,0 +1,48 @@
+package com.nttbank.microservices.accountservice.exception;
+
+import com.nttbank.microservices.accountservice.util.Constants;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Stable codes of the business rejections raised as {@link DomainException}. The code is sent in
+ * the error response so clients can tell the rejections apart without parsing the message. Codes
+ * with a fixed message always send it; the others send the message of the exception.
+ */
+@Getter
+public enum ErrorCode {
+
+  INSUFFICIENT_FUNDS(HttpStatus.BAD_REQUEST, Constants.NO_WITHDRAW_FUNDS_AVAILABLE),
+  TRANSACTION_DAY_NOT_SET(HttpStatus.BAD_REQUEST, Constants.TRANSACTION_DAY_NOT_SET),
+  TRANSACTION_DAY_NOT_ALLOWED(HttpStatus.BAD_REQUEST, null),
+  TRANSACTION_LIMIT_EXCEEDED(HttpStatus.BAD_REQUEST, null),
+  OPERATION_NOT_ALLOWED(HttpStatus.BAD_REQUEST, null),
+  ACCOUNT_OPENING_RESTRICTED(HttpStatus.BAD_REQUEST, null),
+  ACCOUNT_FIELD_REQUIRED(HttpStatus.BAD_REQUEST, null),
+  RATE_LIMITED(HttpStatus.TOO_MANY_REQUESTS, Constants.RATE_LIMIT_EXCEEDED),
+  SERVICE_OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE, Constants.SERVICE_OVERLOADED),
+  OUTCOME_UNKNOWN(HttpStatus.GATEWAY_TIMEOUT, Constants.MOVEMENT_OUTCOME_UNKNOWN),
+  OWNER_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, Constants.ACCOUNT_OWNER_UNAVAILABLE);
+
+  private final HttpStatus status;
+  private final String message;
+
+  ErrorCode(HttpStatus status, String message) {
+    this.status = status;
+    this.message = message;
+  }
+
+  /**
+   * Returns the title sent in the {@code error} field of the response.
+   */
+  public String getError() {
+    return status == HttpStatus.BAD_REQUEST ? "Invalid request" : status.getReasonPhrase();
+  }
+
+  /**
+   * Tells whether every exception with this code carries the same message.
+   */
+  public boolean hasFixedMessage() {
+    return message != null;
+  }
+}
@@ -0,0 +1,61 @@
+package com.nttbank.microservices.accountservice.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+/**
+ * JSON bodies of the {@link DomainException} responses, encoded once per {@link ErrorCode}. Only
+ * the request path, and the message of the codes without a fixed one, are encoded per response,
+ * so no map is built and no object mapper runs for a rejected request.
+ */
+final class ErrorResponseBodies {
+
+  private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+  private static final byte[] PATH = "\",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] END = "\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final Map<ErrorCode, byte[]> heads = new EnumMap<>(ErrorCode.class);
+
+  ErrorResponseBodies() {
+    for (ErrorCode code : ErrorCode.values()) {
+      StringBuilder head = new StringBuilder("{\"error\":\"")
+          .append(ENCODER.quoteAsString(code.getError()))
+          .append("\",\"code\":\"")
+          .append(code.name())
+          .append("\",\"message\":\"");
+      if (code.hasFixedMessage()) {
+        head.append(ENCODER.quoteAsString(code.getMessage()))
+            .append(new String(PATH, StandardCharsets.UTF_8));
+      }
+      heads.put(code, head.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Writes the body of the response to a domain error.
+   *
+   * @param error   the rejection.
+   * @param path    the path of the rejected request.
+   * @param factory the factory of the response buffers.
+   * @return the body.
+   */
+  DataBuffer render(DomainException error, String path, DataBufferFactory factory) {
+    byte[] head = heads.get(error.getCode());
+    byte[] message = error.getCode().hasFixedMessage()
+        ? null
+        : ENCODER.quoteAsUTF8(String.valueOf(error.getMessage()));
+    byte[] quotedPath = ENCODER.quoteAsUTF8(path);
+    int size = head.length + quotedPath.length + END.length
+        + (message == null ? 0 : message.length + PATH.length);
+
+    DataBuffer body = factory.allocateBuffer(size).write(head);
+    if (message != null) {
+      body.write(message).write(PATH);
+    }
+    return body.write(quotedPath).write(END);
+  }
+}
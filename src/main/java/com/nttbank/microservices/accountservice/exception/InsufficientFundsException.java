@@ -0,0 +1,11 @@
+package com.nttbank.microservices.accountservice.exception;
+
+/**
+ * Raised when a movement would leave the balance of an account below zero.
+ */
+public class InsufficientFundsException extends DomainException {
+
+  public InsufficientFundsException() {
+    super(ErrorCode.INSUFFICIENT_FUNDS);
+  }
+}
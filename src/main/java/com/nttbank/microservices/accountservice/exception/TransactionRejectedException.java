@@ -0,0 +1,16 @@
+package com.nttbank.microservices.accountservice.exception;
+
+/**
+ * Raised when the rules of an account reject a movement, because of the day it is requested, the
+ * number of movements already made or the type of the account.
+ */
+public class TransactionRejectedException extends DomainException {
+
+  public TransactionRejectedException(ErrorCode code) {
+    super(code);
+  }
+
+  public TransactionRejectedException(ErrorCode code, String message) {
+    super(code, message);
+  }
+}
@@ -17,11 +17,14 @@ import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
@@ -34,12 +37,15 @@ import reactor.core.publisher.Mono;
  * A custom exception handler for handling various types of errors in a reactive Spring WebFlux
  * application. It extends the {@link AbstractErrorWebExceptionHandler} to provide custom error
  * handling logic for validation errors, illegal arguments, and other exceptions, formatting the
- * errors in a consistent response format.
+ * errors in a consistent response format. Business rejections raised as {@link DomainException}
+ * carry a stable {@link ErrorCode} and get a body encoded ahead of time for that code.
  */
 @Component
 @Order(-1)
 public class WebExceptionHandler extends AbstractErrorWebExceptionHandler {
 
+  private final ErrorResponseBodies errorResponseBodies = new ErrorResponseBodies();
+
   public WebExceptionHandler(ErrorAttributes errorAttributes, WebProperties.Resources resources,
       ApplicationContext applicationContext, ServerCodecConfigurer configure) {
     super(errorAttributes, resources, applicationContext);
@@ -59,6 +65,18 @@ public class WebExceptionHandler extends AbstractErrorWebExceptionHandler {
       return handleValidationErrors(bindException);
     }
 
+    if (error instanceof DomainException domainException) {
+      ServerResponse.BodyBuilder response = ServerResponse
+          .status(domainException.getCode().getStatus())
+          .contentType(MediaType.APPLICATION_JSON);
+      if (domainException instanceof AdmissionRejectedException rejected) {
+        response.header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()));
+      }
+      return response.body(BodyInserters.fromDataBuffers(Mono.fromSupplier(
+          () -> errorResponseBodies.render(domainException, request.path(),
+              request.exchange().getResponse().bufferFactory()))));
+    }
+
     if (error instanceof IllegalArgumentException || error instanceof IllegalStateException) {
       Map<String, Object> errorDetails = new HashMap<>();
       errorDetails.put(ERROR_KEY, "Invalid request");
@@ -79,6 +97,15 @@ public class WebExceptionHandler extends AbstractErrorWebExceptionHandler {
           .bodyValue(errorDetails);
     }
 
+    if (error instanceof OptimisticLockingFailureException) {
+      Map<String, Object> errorDetails = new HashMap<>();
+      errorDetails.put(ERROR_KEY, "Conflict");
+      errorDetails.put(MESSAGE_KEY, error.getMessage());
+      errorDetails.put(PATH_KEY, request.path());
+      return ServerResponse.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON)
+          .bodyValue(errorDetails);
+    }
+
     if (error instanceof FeignException.NotFound) {
       Map<String, Object> errorAttributes = new HashMap<>();
       errorAttributes.put(STATUS_KEY, HttpStatus.NOT_FOUND.value());
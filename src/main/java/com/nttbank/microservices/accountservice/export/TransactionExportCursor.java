@@ -0,0 +1,92 @@
+package com.nttbank.microservices.accountservice.export;
+
+import java.util.Date;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+
+/**
+ * Position of a transaction in an export, which is ordered by creation date and then by id. Its
+ * string form is written on every exported row, so an interrupted export is resumed by passing
+ * the cursor of the last row received.
+ *
+ * @param createdAt the creation date of the transaction.
+ * @param id        the id of the transaction.
+ */
+public record TransactionExportCursor(Date createdAt, BsonValue id) {
+
+  private static final String SEPARATOR = ":";
+
+  /**
+   * Reads the cursor of an exported transaction document.
+   *
+   * @param transaction the raw transaction document.
+   * @return the cursor pointing at the transaction.
+   */
+  public static TransactionExportCursor of(BsonDocument transaction) {
+    return new TransactionExportCursor(
+        new Date(transaction.getDateTime(TransactionExportFormat.CREATED_AT_FIELD).getValue()),
+        transaction.get(TransactionExportFormat.ID_FIELD));
+  }
+
+  /**
+   * Parses a cursor previously written by an export.
+   *
+   * @param value the cursor as written on the exported rows.
+   * @return the parsed cursor.
+   * @throws IllegalArgumentException if the value is not a valid cursor.
+   */
+  public static TransactionExportCursor parse(String value) {
+    int separator = value.indexOf(SEPARATOR);
+    if (separator <= 0 || separator == value.length() - 1) {
+      throw new IllegalArgumentException("Invalid export cursor " + value);
+    }
+    String id = value.substring(separator + 1);
+    try {
+      return new TransactionExportCursor(new Date(Long.parseLong(value.substring(0, separator))),
+          ObjectId.isValid(id) ? new BsonObjectId(new ObjectId(id)) : new BsonString(id));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid export cursor " + value, e);
+    }
+  }
+
+  /**
+   * Tells whether the transaction comes after this cursor in the export order. Ids are compared
+   * the way Mongo sorts them, strings before object ids.
+   *
+   * @param transaction the raw transaction document.
+   * @return {@code true} if the transaction is exported after the cursor.
+   */
+  public boolean precedes(BsonDocument transaction) {
+    long transactionCreatedAt = transaction.getDateTime(TransactionExportFormat.CREATED_AT_FIELD)
+        .getValue();
+    if (transactionCreatedAt != createdAt.getTime()) {
+      return transactionCreatedAt > createdAt.getTime();
+    }
+    BsonValue transactionId = transaction.get(TransactionExportFormat.ID_FIELD);
+    if (transactionId.isObjectId() && id.isObjectId()) {
+      return transactionId.asObjectId().getValue().compareTo(id.asObjectId().getValue()) > 0;
+    }
+    if (transactionId.isObjectId() != id.isObjectId()) {
+      return transactionId.isObjectId();
+    }
+    return idText(transactionId).compareTo(idText(id)) > 0;
+  }
+
+  /**
+   * Renders a transaction id the way it is exposed by the entity.
+   *
+   * @param id the stored id.
+   * @return the hexadecimal form of an object id, or the id itself.
+   */
+  public static String idText(BsonValue id) {
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+  }
+
+  @Override
+  public String toString() {
+    return createdAt.getTime() + SEPARATOR + idText(id);
+  }
+}
@@ -0,0 +1,159 @@
+package com.nttbank.microservices.accountservice.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.http.MediaType;
+
+/**
+ * Formats supported by the transactions export. Rows are encoded straight from the raw BSON
+ * documents read from the cursor, without mapping them to
+ * {@link com.nttbank.microservices.accountservice.model.entity.AccountTransactions}.
+ */
+public enum TransactionExportFormat {
+
+  CSV(new MediaType("text", "csv", StandardCharsets.UTF_8)) {
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+      out.write((String.join(",", COLUMNS) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRows(List<? extends BsonDocument> transactions, OutputStream out)
+        throws IOException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      for (BsonDocument transaction : transactions) {
+        for (String field : FIELDS) {
+          writeCsvValue(writer, text(transaction.get(field)));
+          writer.write(',');
+        }
+        writer.write(TransactionExportCursor.of(transaction).toString());
+        writer.write('\n');
+      }
+      writer.flush();
+    }
+  },
+
+  NDJSON(MediaType.APPLICATION_NDJSON) {
+    @Override
+    public void writeHeader(OutputStream out) {
+      // Every line is a self-describing object, there is no header.
+    }
+
+    @Override
+    public void writeRows(List<? extends BsonDocument> transactions, OutputStream out)
+        throws IOException {
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+        for (BsonDocument transaction : transactions) {
+          generator.writeStartObject();
+          for (String field : FIELDS) {
+            String value = text(transaction.get(field));
+            if (value == null) {
+              continue;
+            }
+            if (NUMERIC_FIELDS.contains(field)) {
+              generator.writeFieldName(field);
+              generator.writeNumber(value);
+            } else {
+              generator.writeStringField(field, value);
+            }
+          }
+          generator.writeStringField(CURSOR_COLUMN,
+              TransactionExportCursor.of(transaction).toString());
+          generator.writeEndObject();
+          generator.writeRaw('\n');
+        }
+      }
+    }
+  };
+
+  public static final String ID_FIELD = "_id";
+  public static final String CREATED_AT_FIELD = "createdAt";
+  public static final String CURSOR_COLUMN = "cursor";
+
+  private static final List<String> FIELDS = List.of(ID_FIELD, "accountId", "customerId",
+      "productName", "type", "amount", "balanceAfterMovement", CREATED_AT_FIELD, "description");
+  private static final List<String> NUMERIC_FIELDS = List.of("amount", "balanceAfterMovement");
+  private static final List<String> COLUMNS = List.of("id", "accountId", "customerId",
+      "productName", "type", "amount", "balanceAfterMovement", CREATED_AT_FIELD, "description",
+      CURSOR_COLUMN);
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+      .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+      .rootValueSeparator((String) null)
+      .build();
+
+  private final MediaType mediaType;
+
+  TransactionExportFormat(MediaType mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Writes what comes before the first row of a new export.
+   *
+   * @param out the stream of the export.
+   * @throws IOException if the stream cannot be written.
+   */
+  public abstract void writeHeader(OutputStream out) throws IOException;
+
+  /**
+   * Writes a chunk of transactions, each one followed by its resume cursor.
+   *
+   * @param transactions the raw transaction documents.
+   * @param out          the stream of the export.
+   * @throws IOException if the stream cannot be written.
+   */
+  public abstract void writeRows(List<? extends BsonDocument> transactions, OutputStream out)
+      throws IOException;
+
+  /**
+   * Renders a stored value the way it is exported. Decimals are stored as strings by the default
+   * converters, but decimal and numeric types are accepted too.
+   */
+  private static String text(BsonValue value) {
+    if (value == null || value.isNull()) {
+      return null;
+    }
+    return switch (value.getBsonType()) {
+      case STRING -> value.asString().getValue();
+      case OBJECT_ID -> value.asObjectId().getValue().toHexString();
+      case DATE_TIME -> Instant.ofEpochMilli(value.asDateTime().getValue()).toString();
+      case DECIMAL128 -> value.asDecimal128().getValue().bigDecimalValue().toPlainString();
+      case DOUBLE -> BigDecimal.valueOf(value.asDouble().getValue()).toPlainString();
+      case INT32 -> String.valueOf(value.asInt32().getValue());
+      case INT64 -> String.valueOf(value.asInt64().getValue());
+      default -> value.toString();
+    };
+  }
+
+  private static void writeCsvValue(Writer writer, String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    boolean quoted = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+        || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+    if (!quoted) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+}
@@ -0,0 +1,137 @@
+package com.nttbank.microservices.accountservice.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.bson.BsonDocument;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Encodes one export into {@link DataBuffer}s allocated from the response buffer factory, one
+ * buffer per chunk of rows. When compression is on, a single gzip stream spans the whole export
+ * and is sync-flushed at the end of every chunk, so each buffer can be sent as soon as it is
+ * written. The methods are synchronized because the export may be cancelled from another thread
+ * while a chunk is being encoded.
+ */
+public class TransactionExportWriter implements AutoCloseable {
+
+  private static final int GZIP_BUFFER_SIZE = 8192;
+
+  private final TransactionExportFormat format;
+  private final DataBufferFactory bufferFactory;
+  private final int chunkCapacity;
+  private final boolean gzip;
+
+  private final ChunkOutputStream target = new ChunkOutputStream();
+  private GZIPOutputStream gzipStream;
+  private boolean closed;
+
+  public TransactionExportWriter(TransactionExportFormat format, DataBufferFactory bufferFactory,
+      int chunkCapacity, boolean gzip) {
+    this.format = format;
+    this.bufferFactory = bufferFactory;
+    this.chunkCapacity = chunkCapacity;
+    this.gzip = gzip;
+  }
+
+  public synchronized DataBuffer writeHeader() {
+    return encode(format::writeHeader);
+  }
+
+  public synchronized DataBuffer writeRows(List<? extends BsonDocument> transactions) {
+    return encode(out -> format.writeRows(transactions, out));
+  }
+
+  /**
+   * Ends the export, writing the gzip trailer when compression is on.
+   *
+   * @return the last buffer of the export.
+   */
+  public synchronized DataBuffer finish() {
+    return encode(out -> {
+      if (gzipStream != null) {
+        gzipStream.finish();
+      }
+    });
+  }
+
+  /**
+   * Releases the compressor. Nothing is written anymore once the writer is closed.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (gzipStream != null) {
+      try {
+        gzipStream.close();
+      } catch (IOException e) {
+        // The target discards everything once closed, there is nothing to report.
+      }
+    }
+  }
+
+  private DataBuffer encode(ChunkEncoder encoder) {
+    if (closed) {
+      throw new IllegalStateException("The export writer is closed");
+    }
+    DataBuffer buffer = bufferFactory.allocateBuffer(chunkCapacity);
+    target.delegate = buffer.asOutputStream();
+    try {
+      OutputStream out = stream();
+      encoder.encode(out);
+      out.flush();
+      return buffer;
+    } catch (IOException e) {
+      DataBufferUtils.release(buffer);
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      DataBufferUtils.release(buffer);
+      throw e;
+    } finally {
+      target.delegate = null;
+    }
+  }
+
+  private OutputStream stream() throws IOException {
+    if (!gzip) {
+      return target;
+    }
+    if (gzipStream == null) {
+      gzipStream = new GZIPOutputStream(target, GZIP_BUFFER_SIZE, true);
+    }
+    return gzipStream;
+  }
+
+  @FunctionalInterface
+  private interface ChunkEncoder {
+
+    void encode(OutputStream out) throws IOException;
+  }
+
+  /**
+   * Output stream writing into the buffer of the chunk being encoded, and discarding anything
+   * written between chunks.
+   */
+  private static final class ChunkOutputStream extends OutputStream {
+
+    private OutputStream delegate;
+
+    @Override
+    public void write(int b) throws IOException {
+      if (delegate != null) {
+        delegate.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (delegate != null) {
+        delegate.write(b, off, len);
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.nttbank.microservices.accountservice.lease;
+
+/**
+ * Raised when a {@link MongoLease} is held by another node, or was lost while the job it guards
+ * was running.
+ */
+public class LeaseHeldException extends IllegalStateException {
+
+  public LeaseHeldException(String name) {
+    super("The lease " + name + " is held by another node.");
+  }
+}
@@ -0,0 +1,97 @@
+package com.nttbank.microservices.accountservice.lease;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Named leases kept in the {@code leases} collection, so that a job working on state shared by
+ * every node runs on one node at a time. A lease belongs to the node that took it until it
+ * expires; the holder renews it while the job runs and releases it when the job ends, and the
+ * lease of a node that died is taken over once expired.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoLease {
+
+  public static final String LEASES_COLLECTION = "leases";
+
+  private static final String ID_FIELD = "_id";
+  private static final String OWNER_FIELD = "owner";
+  private static final String EXPIRES_AT_FIELD = "expiresAt";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  /**
+   * Takes or renews a lease. The lease is only taken when it is free, expired or already held by
+   * this node; otherwise the upsert collides with the document of the holder.
+   *
+   * @param name the name of the lease.
+   * @param ttl  how long the lease is held unless renewed.
+   * @return {@code true} when this node holds the lease.
+   */
+  public Mono<Boolean> acquire(String name, Duration ttl) {
+    return Mono.defer(() -> {
+      Date now = new Date();
+      Query free = Query.query(Criteria.where(ID_FIELD).is(name)
+          .orOperator(Criteria.where(EXPIRES_AT_FIELD).lt(now),
+              Criteria.where(OWNER_FIELD).is(owner)));
+      Update take = Update.update(OWNER_FIELD, owner)
+          .set(EXPIRES_AT_FIELD, new Date(now.getTime() + ttl.toMillis()));
+      return mongoTemplate.upsert(free, take, LEASES_COLLECTION)
+          .thenReturn(true)
+          .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    });
+  }
+
+  /**
+   * Releases a lease held by this node, leaving it untouched otherwise.
+   *
+   * @param name the name of the lease.
+   * @return completes once released.
+   */
+  public Mono<Void> release(String name) {
+    return mongoTemplate.remove(Query.query(Criteria.where(ID_FIELD).is(name)
+            .and(OWNER_FIELD).is(owner)), LEASES_COLLECTION)
+        .then();
+  }
+
+  /**
+   * Runs a job while holding a lease. The lease is renewed every third of its time to live and
+   * released once the job ends, whatever the outcome.
+   *
+   * @param name the name of the lease.
+   * @param ttl  how long the lease outlives this node if it dies while running the job.
+   * @param job  the job.
+   * @return the result of the job, or a {@link LeaseHeldException} when another node holds the
+   *     lease or took it over while the job was running.
+   */
+  public <T> Mono<T> holding(String name, Duration ttl, Mono<T> job) {
+    Mono<T> lost = Flux.interval(ttl.dividedBy(3))
+        .concatMap(tick -> acquire(name, ttl))
+        .filter(renewed -> !renewed)
+        .next()
+        .then(Mono.error(() -> new LeaseHeldException(name)));
+    return Mono.usingWhen(
+        acquire(name, ttl)
+            .filter(Boolean::booleanValue)
+            .switchIfEmpty(Mono.error(() -> new LeaseHeldException(name))),
+        acquired -> Mono.firstWithSignal(job, lost),
+        acquired -> release(name)
+            .doOnError(e -> log.warn("Could not release the lease {}: {}", name, e.getMessage()))
+            .onErrorResume(e -> Mono.empty()));
+  }
+}
@@ -0,0 +1,279 @@
+package com.nttbank.microservices.accountservice.ledger;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.TransactionBucket;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionCustomRepoImpl;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TransactionLedger} grouping the movements of an account by day in
+ * {@link TransactionBucket} documents. A movement is pushed with a single upsert into the open
+ * bucket of its day, a new bucket being created once the open one holds
+ * {@code account.nttbank.ledger.bucket-capacity} movements, so the history of an account is read
+ * from a few contiguous documents and the index only grows by one entry per bucket.
+ *
+ * <p>
+ * Movements not migrated yet by {@link TransactionBucketMigration} are still read from
+ * {@code account_transactions}, before the buckets since they are older.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = TransactionLedger.STORAGE_PROPERTY, havingValue = "bucket")
+public class BucketTransactionLedger implements TransactionLedger {
+
+  public static final String BUCKETS_COLLECTION = "account_transaction_buckets";
+  public static final String ACCOUNT_ID_FIELD = "accountId";
+  public static final String DAY_FIELD = "day";
+  public static final String COUNT_FIELD = "count";
+  public static final String TOTAL_FIELD = "total";
+  public static final String MOVEMENTS_FIELD = "movements";
+
+  private static final String MOVEMENT_FIELD = "movement";
+
+  private static final Comparator<RawBsonDocument> EXPORT_ORDER = (left, right) -> {
+    if (TransactionExportCursor.of(left).precedes(right)) {
+      return -1;
+    }
+    return TransactionExportCursor.of(right).precedes(left) ? 1 : 0;
+  };
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final IAccountTransactionRepo transactionRepo;
+
+  @Value("${account.nttbank.ledger.bucket-capacity:200}")
+  private int bucketCapacity;
+
+  @Override
+  public Mono<AccountTransactions> append(AccountTransactions transaction) {
+    return Mono.defer(() -> {
+      if (transaction.getId() == null) {
+        transaction.setId(new ObjectId().toHexString());
+      }
+      if (transaction.getCreatedAt() == null) {
+        transaction.setCreatedAt(LocalDateTime.now());
+      }
+      Query openBucket = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(transaction.getAccountId())
+          .and(DAY_FIELD).is(transaction.getCreatedAt().toLocalDate())
+          .and(COUNT_FIELD).lt(bucketCapacity));
+      Update update = new Update()
+          .setOnInsert(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD,
+              transaction.getProductName())
+          .push(MOVEMENTS_FIELD, transaction)
+          .inc(COUNT_FIELD, 1)
+          .inc(TOTAL_FIELD, new Decimal128(signedAmount(transaction.getType(),
+              transaction.getAmount())));
+      return mongoTemplate.upsert(openBucket, update, TransactionBucket.class)
+          .thenReturn(transaction);
+    });
+  }
+
+  @Override
+  public Flux<AccountTransactions> findByAccountId(String accountId) {
+    return Flux.defer(() -> {
+      // A movement is in both layouts only if the migration stopped between the insert of its
+      // bucket and the delete of the document, it is then returned once.
+      Set<String> legacyIds = ConcurrentHashMap.newKeySet();
+      Query buckets = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId))
+          .with(Sort.by(DAY_FIELD, IAccountTransactionCustomRepoImpl.ID_FIELD));
+      return Flux.concat(
+          transactionRepo.findAllByAccountId(accountId)
+              .doOnNext(transaction -> legacyIds.add(transaction.getId())),
+          mongoTemplate.find(buckets, TransactionBucket.class)
+              .flatMapIterable(TransactionBucket::getMovements)
+              .filter(transaction -> !legacyIds.contains(transaction.getId())));
+    });
+  }
+
+  @Override
+  public Mono<String> findLatestTransactionId(String accountId) {
+    Query latestBucket = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId))
+        .with(Sort.by(Sort.Direction.DESC, DAY_FIELD, IAccountTransactionCustomRepoImpl.ID_FIELD))
+        .limit(1);
+    latestBucket.fields().slice(MOVEMENTS_FIELD, -1);
+    return mongoTemplate.findOne(latestBucket, TransactionBucket.class)
+        .flatMap(bucket -> Mono.justOrEmpty(Optional.ofNullable(bucket.getMovements())
+            .filter(movements -> !movements.isEmpty())
+            .map(movements -> movements.get(movements.size() - 1).getId())))
+        .switchIfEmpty(transactionRepo.findFirstByAccountIdOrderByIdDesc(accountId)
+            .map(AccountTransactions::getId));
+  }
+
+  @Override
+  public Flux<AccountTransactions> findByProductNameAndTypeAndCreatedAtBetween(
+      String productName, String type, LocalDateTime startDate, LocalDateTime endDate) {
+    Aggregation movements = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where(DAY_FIELD)
+            .gte(IAccountTransactionCustomRepoImpl.toDate(startDate.toLocalDate().atStartOfDay()))
+            .lte(IAccountTransactionCustomRepoImpl.toDate(endDate))
+            .and(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD)
+            .in(Arrays.asList(productName, null))),
+        Aggregation.unwind(MOVEMENTS_FIELD),
+        Aggregation.replaceRoot(MOVEMENTS_FIELD),
+        Aggregation.match(Criteria.where(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD)
+            .is(productName)
+            .and("type").is(type)
+            .and(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD)
+            .gte(IAccountTransactionCustomRepoImpl.toDate(startDate))
+            .lte(IAccountTransactionCustomRepoImpl.toDate(endDate))));
+    return Flux.concat(
+        transactionRepo.findByProductNameAndTypeAndCreatedAtBetween(productName, type, startDate,
+            endDate),
+        mongoTemplate.aggregate(movements, BUCKETS_COLLECTION, AccountTransactions.class));
+  }
+
+  /**
+   * Unwinds the buckets of the days of the period and sorts their movements in export order. The
+   * sort may spill to disk, the read going to a secondary when there is one. Movements not migrated
+   * yet are merged in, so the whole export keeps the order its cursor relies on.
+   */
+  @Override
+  public Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to,
+      String productName, TransactionExportCursor after, int batchSize) {
+    List<Bson> pipeline = List.of(
+        Aggregates.match(Filters.and(
+            Filters.gte(DAY_FIELD,
+                IAccountTransactionCustomRepoImpl.toDate(from.toLocalDate().atStartOfDay())),
+            Filters.lt(DAY_FIELD, IAccountTransactionCustomRepoImpl.toDate(to)),
+            productName == null
+                ? new Document()
+                : Filters.in(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD,
+                    Arrays.asList(productName, null)))),
+        Aggregates.unwind("$" + MOVEMENTS_FIELD),
+        Aggregates.replaceRoot("$" + MOVEMENTS_FIELD),
+        Aggregates.match(IAccountTransactionCustomRepoImpl.exportFilter(from, to, productName,
+            after)),
+        Aggregates.sort(Sorts.ascending(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD,
+            IAccountTransactionCustomRepoImpl.ID_FIELD)));
+    return Flux.mergeComparing(EXPORT_ORDER,
+        transactionRepo.findForExport(from, to, productName, after, batchSize),
+        mongoTemplate.getCollection(BUCKETS_COLLECTION)
+            .flatMapMany(collection -> collection
+                .withDocumentClass(RawBsonDocument.class)
+                .withReadPreference(ReadPreference.secondaryPreferred())
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .batchSize(batchSize)));
+  }
+
+  /**
+   * Reads the movements not migrated yet, then the ones of the buckets of the period. The
+   * migration keeps the migrated movements first within their day, so both parts are in creation
+   * order.
+   */
+  @Override
+  public Flux<AccountTransactions> findByAccountIdAndCreatedAtBetween(String accountId,
+      LocalDateTime from, LocalDateTime to) {
+    return Flux.defer(() -> {
+      Set<String> legacyIds = ConcurrentHashMap.newKeySet();
+      Query legacy = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+              .and(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD)
+              .gte(IAccountTransactionCustomRepoImpl.toDate(from))
+              .lt(IAccountTransactionCustomRepoImpl.toDate(to)))
+          .with(Sort.by(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD,
+              IAccountTransactionCustomRepoImpl.ID_FIELD));
+      Query buckets = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+              .and(DAY_FIELD).gte(from.toLocalDate()).lt(to))
+          .with(Sort.by(DAY_FIELD, IAccountTransactionCustomRepoImpl.ID_FIELD));
+      return Flux.concat(
+          mongoTemplate.find(legacy, AccountTransactions.class)
+              .doOnNext(transaction -> legacyIds.add(transaction.getId())),
+          mongoTemplate.find(buckets, TransactionBucket.class)
+              .flatMapIterable(TransactionBucket::getMovements)
+              .filter(transaction -> !transaction.getCreatedAt().isBefore(from)
+                  && transaction.getCreatedAt().isBefore(to)
+                  && !legacyIds.contains(transaction.getId())));
+    });
+  }
+
+  /**
+   * Reads the movements not migrated yet and, through {@code $unionWith}, the ones of the buckets
+   * of the period, in a single aggregation. A movement found in both layouts is counted once.
+   */
+  @Override
+  public Mono<StatementTotals> summarize(String accountId, LocalDateTime from, LocalDateTime to) {
+    Criteria createdAt = Criteria.where(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD)
+        .gte(IAccountTransactionCustomRepoImpl.toDate(from))
+        .lt(IAccountTransactionCustomRepoImpl.toDate(to));
+    Aggregation statement = Aggregation.newAggregation(StatementTotals.summarizeStages(List.of(
+        Aggregation.match(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+            .andOperator(createdAt)),
+        UnionWithOperation.unionWith(BUCKETS_COLLECTION).pipeline(
+            Aggregation.match(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+                .and(DAY_FIELD)
+                .gte(IAccountTransactionCustomRepoImpl.toDate(from.toLocalDate().atStartOfDay()))
+                .lt(IAccountTransactionCustomRepoImpl.toDate(to))),
+            Aggregation.unwind(MOVEMENTS_FIELD),
+            Aggregation.replaceRoot(MOVEMENTS_FIELD),
+            Aggregation.match(createdAt)),
+        context -> new Document("$group",
+            new Document(IAccountTransactionCustomRepoImpl.ID_FIELD,
+                "$" + IAccountTransactionCustomRepoImpl.ID_FIELD)
+                .append(MOVEMENT_FIELD, new Document("$first", Aggregation.ROOT))),
+        Aggregation.replaceRoot(MOVEMENT_FIELD))));
+    return mongoTemplate.aggregate(statement,
+            IAccountTransactionCustomRepoImpl.TRANSACTIONS_COLLECTION, StatementTotals.class)
+        .next();
+  }
+
+  /**
+   * Buckets are looked up by day, so the movements of the day of {@code before} are left to the
+   * legacy documents; callers pass the start of a day.
+   */
+  @Override
+  public Mono<AccountTransactions> findLastBefore(String accountId, LocalDateTime before) {
+    Query previousBucket = Query.query(Criteria.where(ACCOUNT_ID_FIELD).is(accountId)
+            .and(DAY_FIELD).lt(before.toLocalDate()))
+        .with(Sort.by(Sort.Direction.DESC, DAY_FIELD, IAccountTransactionCustomRepoImpl.ID_FIELD))
+        .limit(1);
+    previousBucket.fields().slice(MOVEMENTS_FIELD, -1);
+    return mongoTemplate.findOne(previousBucket, TransactionBucket.class)
+        .flatMap(bucket -> Mono.justOrEmpty(Optional.ofNullable(bucket.getMovements())
+            .filter(movements -> !movements.isEmpty())
+            .map(movements -> movements.get(movements.size() - 1))))
+        .switchIfEmpty(transactionRepo.findFirstByAccountIdAndCreatedAtLessThanOrderByIdDesc(
+            accountId, before));
+  }
+
+  /**
+   * Amount of a movement as it counts in the total of its bucket.
+   */
+  static BigDecimal signedAmount(TransactionType type, BigDecimal amount) {
+    BigDecimal value = Optional.ofNullable(amount).orElse(BigDecimal.ZERO);
+    return type == TransactionType.deposit ? value : value.negate();
+  }
+}
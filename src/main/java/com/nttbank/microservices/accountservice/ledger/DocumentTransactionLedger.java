@@ -0,0 +1,102 @@
+package com.nttbank.microservices.accountservice.ledger;
+
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionCustomRepoImpl;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.bson.RawBsonDocument;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TransactionLedger} keeping one document per movement in {@code account_transactions}.
+ * This is the default layout.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = TransactionLedger.STORAGE_PROPERTY, havingValue = "document",
+    matchIfMissing = true)
+public class DocumentTransactionLedger implements TransactionLedger {
+
+  private final IAccountTransactionRepo transactionRepo;
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<AccountTransactions> append(AccountTransactions transaction) {
+    return transactionRepo.save(transaction);
+  }
+
+  /**
+   * Inserts the movements with a single {@code insertMany}.
+   */
+  @Override
+  public Flux<AccountTransactions> appendAll(List<AccountTransactions> transactions) {
+    return mongoTemplate.insertAll(transactions);
+  }
+
+  @Override
+  public Flux<AccountTransactions> findByAccountId(String accountId) {
+    return transactionRepo.findAllByAccountId(accountId);
+  }
+
+  @Override
+  public Mono<String> findLatestTransactionId(String accountId) {
+    return transactionRepo.findFirstByAccountIdOrderByIdDesc(accountId)
+        .map(AccountTransactions::getId);
+  }
+
+  @Override
+  public Flux<AccountTransactions> findByProductNameAndTypeAndCreatedAtBetween(
+      String productName, String type, LocalDateTime startDate, LocalDateTime endDate) {
+    return transactionRepo.findByProductNameAndTypeAndCreatedAtBetween(productName, type,
+        startDate, endDate);
+  }
+
+  @Override
+  public Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to,
+      String productName, TransactionExportCursor after, int batchSize) {
+    return transactionRepo.findForExport(from, to, productName, after, batchSize);
+  }
+
+  @Override
+  public Flux<AccountTransactions> findByAccountIdAndCreatedAtBetween(String accountId,
+      LocalDateTime from, LocalDateTime to) {
+    Query movements = Query.query(Criteria.where(IAccountTransactionCustomRepoImpl.ACCOUNT_ID_FIELD)
+            .is(accountId)
+            .and(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD)
+            .gte(IAccountTransactionCustomRepoImpl.toDate(from))
+            .lt(IAccountTransactionCustomRepoImpl.toDate(to)))
+        .with(Sort.by(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD,
+            IAccountTransactionCustomRepoImpl.ID_FIELD));
+    return mongoTemplate.find(movements, AccountTransactions.class);
+  }
+
+  @Override
+  public Mono<StatementTotals> summarize(String accountId, LocalDateTime from, LocalDateTime to) {
+    Aggregation statement = Aggregation.newAggregation(StatementTotals.summarizeStages(List.of(
+        Aggregation.match(Criteria.where(IAccountTransactionCustomRepoImpl.ACCOUNT_ID_FIELD)
+            .is(accountId)
+            .and(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD)
+            .gte(IAccountTransactionCustomRepoImpl.toDate(from))
+            .lt(IAccountTransactionCustomRepoImpl.toDate(to))))));
+    return mongoTemplate.aggregate(statement,
+            IAccountTransactionCustomRepoImpl.TRANSACTIONS_COLLECTION, StatementTotals.class)
+        .next();
+  }
+
+  @Override
+  public Mono<AccountTransactions> findLastBefore(String accountId, LocalDateTime before) {
+    return transactionRepo.findFirstByAccountIdAndCreatedAtLessThanOrderByIdDesc(accountId,
+        before);
+  }
+}
@@ -0,0 +1,87 @@
+package com.nttbank.microservices.accountservice.ledger;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionCustomRepoImpl;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.Data;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Totals of the movements of an account over a period, as computed by
+ * {@link TransactionLedger#summarize}. The movements are not part of it: they are read separately,
+ * so a busy period never has to fit in a single document.
+ */
+@Data
+public class StatementTotals {
+
+  private Integer count;
+  private BigDecimal totalDeposits;
+  private BigDecimal totalWithdrawals;
+  private BigDecimal totalFees;
+  private AccountTransactions first;
+  private AccountTransactions last;
+
+  /**
+   * Stages reducing the movements of a period to a single {@link StatementTotals}, appended to the
+   * stages selecting the movements. Amounts are stored as strings, so they are converted before
+   * being added.
+   */
+  static List<AggregationOperation> summarizeStages(List<AggregationOperation> movements) {
+    Document group = new Document("_id", null)
+        .append("count", new Document("$sum", 1))
+        .append("totalDeposits", sumOf(TransactionType.deposit))
+        .append("totalWithdrawals", sumOf(TransactionType.withdrawal))
+        .append("totalFees", sumOf(TransactionType.fee))
+        .append("first", new Document("$first", Aggregation.ROOT))
+        .append("last", new Document("$last", Aggregation.ROOT));
+    List<AggregationOperation> stages = new ArrayList<>(movements);
+    stages.add(Aggregation.sort(Sort.by(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD,
+        IAccountTransactionCustomRepoImpl.ID_FIELD)));
+    stages.add(context -> new Document("$group", group));
+    return stages;
+  }
+
+  /**
+   * Computes the totals of movements read in creation order, for the movements that cannot be
+   * aggregated in Mongo.
+   *
+   * @return the totals, or an empty {@link Mono} when there is no movement.
+   */
+  public static Mono<StatementTotals> of(Flux<AccountTransactions> movements) {
+    return movements.reduceWith(StatementTotals::new, (totals, movement) -> {
+      BigDecimal amount = Optional.ofNullable(movement.getAmount()).orElse(BigDecimal.ZERO);
+      if (totals.getFirst() == null) {
+        totals.setFirst(movement);
+        totals.setCount(0);
+        totals.setTotalDeposits(BigDecimal.ZERO);
+        totals.setTotalWithdrawals(BigDecimal.ZERO);
+        totals.setTotalFees(BigDecimal.ZERO);
+      }
+      totals.setLast(movement);
+      totals.setCount(totals.getCount() + 1);
+      switch (movement.getType()) {
+        case deposit -> totals.setTotalDeposits(totals.getTotalDeposits().add(amount));
+        case withdrawal -> totals.setTotalWithdrawals(totals.getTotalWithdrawals().add(amount));
+        case fee -> totals.setTotalFees(totals.getTotalFees().add(amount));
+      }
+      return totals;
+    }).filter(totals -> totals.getFirst() != null);
+  }
+
+  private static Document sumOf(TransactionType type) {
+    return new Document("$sum", new Document("$cond", List.of(
+        new Document("$eq", List.of("$type", type.name())),
+        new Document("$toDecimal", "$amount"),
+        Decimal128.POSITIVE_ZERO)));
+  }
+}
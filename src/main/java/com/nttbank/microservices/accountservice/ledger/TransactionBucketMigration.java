@@ -0,0 +1,215 @@
+package com.nttbank.microservices.accountservice.ledger;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.lease.LeaseHeldException;
+import com.nttbank.microservices.accountservice.lease.MongoLease;
+import com.nttbank.microservices.accountservice.model.entity.TransactionBucket;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionCustomRepoImpl;
+import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Moves the movements kept one per document in {@code account_transactions} into
+ * {@link TransactionBucket} documents. It starts in the background once the application is up,
+ * when {@code account.nttbank.ledger.migrate} is set and the ledger is in bucket mode, while the
+ * service keeps serving reads from both layouts. The migration holds the
+ * {@code transaction-bucket-migration} {@link MongoLease}, so when several nodes have the flag
+ * only one of them migrates and the others leave it to that node.
+ *
+ * <p>
+ * The movements of an account and day are written to buckets before being deleted. A bucket
+ * created by the migration has an id made of the account, the day and its first movement, and
+ * the movements already found in a bucket of that day are not copied again, so the migration can
+ * be stopped and run again at any time. Those ids sort before the ids of the buckets opened by
+ * {@link BucketTransactionLedger}, keeping the migrated movements first within their day.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("${account.nttbank.ledger.migrate:false} and "
+    + "'${" + TransactionLedger.STORAGE_PROPERTY + ":document}' == 'bucket'")
+public class TransactionBucketMigration implements ApplicationRunner {
+
+  static final String LEASE = "transaction-bucket-migration";
+
+  private static final String MOVEMENT_ID_FIELD =
+      BucketTransactionLedger.MOVEMENTS_FIELD + "." + IAccountTransactionCustomRepoImpl.ID_FIELD;
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final IAccountTransactionRepo transactionRepo;
+  private final MongoLease mongoLease;
+
+  private Disposable migration;
+
+  @Value("${account.nttbank.ledger.bucket-capacity:200}")
+  private int bucketCapacity;
+  @Value("${account.nttbank.ledger.migrate-batch-size:1000}")
+  private int batchSize;
+  @Value("${account.nttbank.ledger.migrate-lease-ttl-ms:60000}")
+  private long leaseTtlMs;
+
+  /**
+   * Starts the migration without holding up the startup; an interrupted migration is resumed by
+   * the next run.
+   */
+  @Override
+  public void run(ApplicationArguments args) {
+    migration = mongoLease.holding(LEASE, Duration.ofMillis(leaseTtlMs), migrate())
+        .subscribe(total -> log.info("Migrated {} transactions to buckets.", total),
+            e -> {
+              if (e instanceof LeaseHeldException) {
+                log.info("The transactions are being migrated to buckets by another node.");
+              } else {
+                log.error("The migration of the transactions to buckets failed: {}",
+                    e.getMessage(), e);
+              }
+            });
+  }
+
+  @PreDestroy
+  public void stop() {
+    Optional.ofNullable(migration).ifPresent(Disposable::dispose);
+  }
+
+  /**
+   * Migrates every movement left in {@code account_transactions}, one account and day at a time.
+   * The read follows the {@code account_history_idx} index backwards, so the movements of each
+   * account come in creation order.
+   *
+   * @return the number of movements written to buckets.
+   */
+  public Mono<Long> migrate() {
+    return mongoTemplate.getCollection(IAccountTransactionCustomRepoImpl.TRANSACTIONS_COLLECTION)
+        .flatMapMany(collection -> collection
+            .withDocumentClass(RawBsonDocument.class)
+            .find()
+            .sort(Sorts.orderBy(Sorts.descending(BucketTransactionLedger.ACCOUNT_ID_FIELD),
+                Sorts.ascending(IAccountTransactionCustomRepoImpl.ID_FIELD)))
+            .batchSize(batchSize))
+        .bufferUntilChanged(this::accountDay)
+        .concatMap(this::migrateDay)
+        .reduce(0L, Long::sum);
+  }
+
+  private Mono<Long> migrateDay(List<RawBsonDocument> movements) {
+    String accountId = movements.get(0).getString(BucketTransactionLedger.ACCOUNT_ID_FIELD)
+        .getValue();
+    Date day = startOfDay(movements.get(0));
+    return bucketedIds(accountId, day)
+        .flatMap(bucketed -> {
+          List<RawBsonDocument> pending = movements.stream()
+              .filter(movement -> !bucketed.contains(id(movement)))
+              .toList();
+          return Flux.fromIterable(pending)
+              .buffer(bucketCapacity)
+              .concatMap(partition -> insertBucket(accountId, day, partition))
+              .then(transactionRepo.deleteByIds(movements.stream().map(this::id).toList()))
+              .thenReturn((long) pending.size());
+        });
+  }
+
+  private Mono<Set<BsonValue>> bucketedIds(String accountId, Date day) {
+    return mongoTemplate.getCollection(BucketTransactionLedger.BUCKETS_COLLECTION)
+        .flatMapMany(collection -> collection
+            .find(Filters.and(Filters.eq(BucketTransactionLedger.ACCOUNT_ID_FIELD, accountId),
+                Filters.eq(BucketTransactionLedger.DAY_FIELD, day)), BsonDocument.class)
+            .projection(Projections.include(MOVEMENT_ID_FIELD)))
+        .flatMapIterable(bucket -> bucket.getArray(BucketTransactionLedger.MOVEMENTS_FIELD,
+            new BsonArray()))
+        .map(movement -> movement.asDocument().get(IAccountTransactionCustomRepoImpl.ID_FIELD))
+        .collect(Collectors.toSet());
+  }
+
+  private Mono<Void> insertBucket(String accountId, Date day, List<RawBsonDocument> partition) {
+    String bucketId = String.join(":", accountId, day.toInstant().toString(),
+        TransactionExportCursor.idText(id(partition.get(0))));
+    BigDecimal total = partition.stream()
+        .map(this::signedAmount)
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    return mongoTemplate.getCollection(BucketTransactionLedger.BUCKETS_COLLECTION)
+        .flatMap(collection -> Mono.from(collection.updateOne(
+            Filters.eq(IAccountTransactionCustomRepoImpl.ID_FIELD, bucketId),
+            Updates.combine(
+                Updates.setOnInsert(BucketTransactionLedger.ACCOUNT_ID_FIELD, accountId),
+                Updates.setOnInsert(BucketTransactionLedger.DAY_FIELD, day),
+                Updates.setOnInsert(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD,
+                    partition.get(0).get(IAccountTransactionCustomRepoImpl.PRODUCT_NAME_FIELD,
+                        BsonNull.VALUE)),
+                Updates.setOnInsert(BucketTransactionLedger.COUNT_FIELD, partition.size()),
+                Updates.setOnInsert(BucketTransactionLedger.TOTAL_FIELD, new Decimal128(total)),
+                Updates.setOnInsert(BucketTransactionLedger.MOVEMENTS_FIELD,
+                    new BsonArray(List.copyOf(partition)))),
+            new UpdateOptions().upsert(true))))
+        .then();
+  }
+
+  private String accountDay(RawBsonDocument movement) {
+    return movement.getString(BucketTransactionLedger.ACCOUNT_ID_FIELD).getValue() + "|"
+        + startOfDay(movement).getTime();
+  }
+
+  private BsonValue id(BsonDocument movement) {
+    return movement.get(IAccountTransactionCustomRepoImpl.ID_FIELD);
+  }
+
+  /**
+   * Day of a movement the way Spring Data stores the {@link LocalDate} of a bucket.
+   */
+  private Date startOfDay(BsonDocument movement) {
+    LocalDate day = Instant.ofEpochMilli(movement
+            .getDateTime(IAccountTransactionCustomRepoImpl.CREATED_AT_FIELD).getValue())
+        .atZone(ZoneId.systemDefault())
+        .toLocalDate();
+    return IAccountTransactionCustomRepoImpl.toDate(day.atStartOfDay());
+  }
+
+  private BigDecimal signedAmount(BsonDocument movement) {
+    BsonValue amount = movement.get("amount");
+    BigDecimal value;
+    if (amount == null || amount.isNull()) {
+      value = BigDecimal.ZERO;
+    } else if (amount.isString()) {
+      value = new BigDecimal(amount.asString().getValue());
+    } else if (amount.isDecimal128()) {
+      value = amount.asDecimal128().getValue().bigDecimalValue();
+    } else {
+      value = BigDecimal.valueOf(amount.asNumber().doubleValue());
+    }
+    String type = movement.getString("type").getValue();
+    return BucketTransactionLedger.signedAmount(TransactionType.valueOf(type), value);
+  }
+}
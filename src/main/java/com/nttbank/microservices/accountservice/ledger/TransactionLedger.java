@@ -0,0 +1,59 @@
+package com.nttbank.microservices.accountservice.ledger;
+
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.bson.RawBsonDocument;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage of the account movements. The layout is chosen with
+ * {@code account.nttbank.ledger.storage}: {@code document} keeps one
+ * {@link AccountTransactions} document per movement, {@code bucket} groups the movements of an
+ * account by day in capped buckets. Both expose the movements the same way, so callers do not
+ * depend on the layout.
+ */
+public interface TransactionLedger {
+
+  String STORAGE_PROPERTY = "account.nttbank.ledger.storage";
+
+  Mono<AccountTransactions> append(AccountTransactions transaction);
+
+  /**
+   * Appends several movements in order, with as few writes as the layout allows.
+   *
+   * @return the movements appended, with their ids.
+   */
+  default Flux<AccountTransactions> appendAll(List<AccountTransactions> transactions) {
+    return Flux.fromIterable(transactions).concatMap(this::append);
+  }
+
+  Flux<AccountTransactions> findByAccountId(String accountId);
+
+  Mono<String> findLatestTransactionId(String accountId);
+
+  Flux<AccountTransactions> findByProductNameAndTypeAndCreatedAtBetween(String productName,
+      String type, LocalDateTime startDate, LocalDateTime endDate);
+
+  Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to, String productName,
+      TransactionExportCursor after, int batchSize);
+
+  /**
+   * Reads the movements of an account created in {@code [from, to)}, in creation order.
+   */
+  Flux<AccountTransactions> findByAccountIdAndCreatedAtBetween(String accountId,
+      LocalDateTime from, LocalDateTime to);
+
+  /**
+   * Aggregates the movements of an account created in {@code [from, to)}. Only the totals are
+   * returned; the movements themselves are read with
+   * {@link #findByAccountIdAndCreatedAtBetween}.
+   *
+   * @return the totals, or an empty {@link Mono} when there is no movement in the period.
+   */
+  Mono<StatementTotals> summarize(String accountId, LocalDateTime from, LocalDateTime to);
+
+  Mono<AccountTransactions> findLastBefore(String accountId, LocalDateTime before);
+}
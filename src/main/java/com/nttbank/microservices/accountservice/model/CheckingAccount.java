@@ -3,6 +3,8 @@ package com.nttbank.microservices.accountservice.model;
 import com.nttbank.microservices.accountservice.action.IDepositable;
 import com.nttbank.microservices.accountservice.action.IOpenable;
 import com.nttbank.microservices.accountservice.action.IWithdrawable;
+import com.nttbank.microservices.accountservice.exception.AccountOpeningException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.util.AccountUtils;
 import com.nttbank.microservices.accountservice.util.Constants;
@@ -32,13 +34,14 @@ public class CheckingAccount extends BankAccount implements IOpenable, IWithdraw
         account.getMaxMonthlyTrans(), account.getMaintenanceFee(), account.getTransactionFee(),
         account.getAllowedDayOperation(), account.getWithdrawAmountMax(), account.getLstSigners(),
         account.getLstHolders(), account.getCreatedAt(), account.getUpdatedAt(),
-        account.getMonthlyTransactionSummary(), account.getStatus());
+        account.getMonthlyTransactionSummary(), account.getStatus(), account.getVersion(),
+        account.getBalanceChanges());
   }
 
   @Override
   public void openAccount(Long numAccounts, String customerType) {
     Optional.ofNullable(this.getMaintenanceFee())
-        .orElseThrow(() -> new IllegalArgumentException(
+        .orElseThrow(() -> new AccountOpeningException(ErrorCode.ACCOUNT_FIELD_REQUIRED,
             Constants.MAINTENANCE_FEE_REQUIRED));
     if (!"business".equals(customerType)) {
       AccountUtils.defaultOpenAccountValidationMethod(numAccounts, customerType,
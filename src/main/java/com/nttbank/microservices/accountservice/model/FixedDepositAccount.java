@@ -3,6 +3,8 @@ package com.nttbank.microservices.accountservice.model;
 import com.nttbank.microservices.accountservice.action.IDepositable;
 import com.nttbank.microservices.accountservice.action.IOpenable;
 import com.nttbank.microservices.accountservice.action.IWithdrawable;
+import com.nttbank.microservices.accountservice.exception.AccountOpeningException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.util.AccountUtils;
 import com.nttbank.microservices.accountservice.util.Constants;
@@ -35,13 +37,14 @@ public class FixedDepositAccount extends BankAccount implements IOpenable, IWith
         account.getMaxMonthlyTrans(), account.getMaintenanceFee(), account.getTransactionFee(),
         account.getAllowedDayOperation(), account.getWithdrawAmountMax(), account.getLstSigners(),
         account.getLstHolders(), account.getCreatedAt(), account.getUpdatedAt(),
-        account.getMonthlyTransactionSummary(), account.getStatus());
+        account.getMonthlyTransactionSummary(), account.getStatus(), account.getVersion(),
+        account.getBalanceChanges());
   }
 
   @Override
   public void openAccount(Long numAccounts, String customerType) {
     Optional.ofNullable(this.getAllowedDayOperation())
-        .orElseThrow(() -> new IllegalArgumentException(
+        .orElseThrow(() -> new AccountOpeningException(ErrorCode.ACCOUNT_FIELD_REQUIRED,
             Constants.ALLOWED_DAY_OP_REQUIRED));
     AccountUtils.defaultOpenAccountValidationMethod(numAccounts, customerType,
         AccountUtils.bothAccountLimits, this.getAccountType());
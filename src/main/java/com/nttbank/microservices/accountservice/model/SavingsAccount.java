@@ -30,7 +30,8 @@ public class SavingsAccount extends BankAccount implements IOpenable, IWithdrawa
         account.getMaxMonthlyTrans(), account.getMaintenanceFee(), account.getTransactionFee(),
         account.getAllowedDayOperation(), account.getWithdrawAmountMax(), account.getLstSigners(),
         account.getLstHolders(), account.getCreatedAt(), account.getUpdatedAt(),
-        account.getMonthlyTransactionSummary(), account.getStatus());
+        account.getMonthlyTransactionSummary(), account.getStatus(), account.getVersion(),
+        account.getBalanceChanges());
   }
 
   @Override
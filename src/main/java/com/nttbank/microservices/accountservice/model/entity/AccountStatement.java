@@ -0,0 +1,58 @@
+package com.nttbank.microservices.accountservice.model.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Statement of an account for one month: its movements in creation order, the balance before the
+ * first and after the last one, and the totals by movement type. Statements of closed months are
+ * stored once generated, under the id returned by {@link #idOf(String, YearMonth)}, without their
+ * movements, which are read again on every request with a range scan of the ledger; see
+ * {@code AccountStatementService} for why they are not stored with the statement.
+ */
+@Data
+@Document(collection = "account_statements")
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Builder
+public class AccountStatement {
+
+  @Id
+  private String id;
+
+  private String accountId;
+
+  private String month;
+
+  private BigDecimal openingBalance;
+
+  private BigDecimal closingBalance;
+
+  private BigDecimal totalDeposits;
+
+  private BigDecimal totalWithdrawals;
+
+  private BigDecimal totalFees;
+
+  private Integer numberOfTransactions;
+
+  @Transient
+  private List<AccountTransactions> movements;
+
+  private LocalDateTime generatedAt;
+
+  public static String idOf(String accountId, YearMonth month) {
+    return accountId + ":" + month;
+  }
+}
@@ -12,10 +12,17 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "account_transactions")
+@CompoundIndexes({
+    @CompoundIndex(name = "account_history_idx", def = "{'accountId': 1, '_id': -1}"),
+    @CompoundIndex(name = "account_month_idx", def = "{'accountId': 1, 'createdAt': 1, '_id': 1}"),
+    @CompoundIndex(name = "transaction_export_idx", def = "{'createdAt': 1, '_id': 1}")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
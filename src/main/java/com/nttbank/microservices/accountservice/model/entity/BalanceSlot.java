@@ -0,0 +1,53 @@
+package com.nttbank.microservices.accountservice.model.entity;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * One share of the balance of an account whose balance is striped across several documents. The
+ * balance of the account is the sum of its slots, and {@code transactions} holds, by month
+ * ({@code yyyy-MM}), the movements counted on the slot. {@code changes} counts every write to the
+ * slot, so that their sum changes whenever the balance of the account may have.
+ */
+@Data
+@Document(collection = "account_balance_slots")
+@CompoundIndex(name = "account_slot_idx", def = "{'accountId': 1, 'slot': 1}", unique = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceSlot {
+
+  private static final String SEPARATOR = ":";
+
+  @Id
+  private String id;
+
+  private String accountId;
+
+  private Integer slot;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal balance;
+
+  private Map<String, Integer> transactions;
+
+  private Long changes;
+
+  public static String idOf(String accountId, int slot) {
+    return accountId + SEPARATOR + slot;
+  }
+
+  public static String accountIdOf(String slotId) {
+    int separator = slotId.lastIndexOf(SEPARATOR);
+    return separator < 0 ? slotId : slotId.substring(0, separator);
+  }
+}
@@ -1,5 +1,6 @@
 package com.nttbank.microservices.accountservice.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
@@ -18,6 +19,8 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -45,6 +48,7 @@ public class BankAccount {
 
   @NotNull(message = "Customer Identifier cannot be null")
   @NotEmpty(message = "Customer Identifier cannot be empty")
+  @Indexed(name = "customer_idx")
   private String customerId;
 
   @Min(value = 0, message = "Balance must be greater than or equal to 0")
@@ -67,8 +71,10 @@ public class BankAccount {
 
   private BigDecimal withdrawAmountMax;
 
+  @Indexed(name = "signers_idx")
   private Set<String> lstSigners;
 
+  @Indexed(name = "holders_idx")
   private Set<String> lstHolders;
 
   @Builder.Default
@@ -82,4 +88,15 @@ public class BankAccount {
   @Builder.Default
   private AccountStatus status = AccountStatus.active;
 
+  @Version
+  private Long version;
+
+  /**
+   * Writes to the balance slots of a striped account, which change its balance without changing
+   * its version.
+   */
+  @Transient
+  @JsonIgnore
+  private Long balanceChanges;
+
 }
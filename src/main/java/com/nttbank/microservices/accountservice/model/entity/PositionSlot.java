@@ -0,0 +1,48 @@
+package com.nttbank.microservices.accountservice.model.entity;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * One share of the totals of the accounts of one type and status. The totals are the sum of the
+ * slots of the type and status: the number of accounts, their balance and, by month
+ * ({@code yyyy-MM}), the fees charged to them.
+ */
+@Data
+@Document(collection = "account_positions")
+@CompoundIndex(name = "position_slot_idx", def = "{'accountType': 1, 'status': 1, 'slot': 1}",
+    unique = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PositionSlot {
+
+  @Id
+  private String id;
+
+  private String accountType;
+
+  private String status;
+
+  private Integer slot;
+
+  private Long count;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal balance;
+
+  private Map<String, BigDecimal> fees;
+
+  public static String idOf(String accountType, String status, int slot) {
+    return accountType + ":" + status + ":" + slot;
+  }
+}
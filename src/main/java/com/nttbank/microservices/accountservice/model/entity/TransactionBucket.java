@@ -0,0 +1,51 @@
+package com.nttbank.microservices.accountservice.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Holds the movements of an account for one day when the ledger runs in bucket mode. A day may
+ * span several buckets, since each bucket is capped; {@code count} and {@code total} are updated
+ * with every movement, {@code total} being the net amount of the bucket (deposits minus
+ * withdrawals and fees). {@code productName} is the product of the account, so the reports and
+ * exports of a product only read the buckets of that product; buckets written before it was added
+ * have none and are read by every product.
+ */
+@Data
+@Document(collection = "account_transaction_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "account_day_idx", def = "{'accountId': 1, 'day': 1, '_id': 1}"),
+    @CompoundIndex(name = "day_product_idx", def = "{'day': 1, 'productName': 1}")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionBucket {
+
+  @Id
+  private String id;
+
+  private String accountId;
+
+  private LocalDate day;
+
+  private String productName;
+
+  private Integer count;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal total;
+
+  private List<AccountTransactions> movements;
+}
@@ -0,0 +1,23 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the balance of an account at a given version, as pushed by the balance stream.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountBalanceResponse {
+
+  private String accountId;
+  private BigDecimal balance;
+  private Long version;
+  private LocalDateTime timestamp;
+}
@@ -0,0 +1,25 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight view of an account in the portfolio of a customer, with the role the customer has
+ * on it: {@code owner}, {@code holder} or {@code signer}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountSummaryResponse {
+
+  private String id;
+  private String accountType;
+  private AccountStatus status;
+  private BigDecimal balance;
+  private String role;
+}
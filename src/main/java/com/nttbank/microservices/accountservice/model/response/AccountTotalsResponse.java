@@ -0,0 +1,23 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of accounts of one type and status and the sum of their balances.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountTotalsResponse {
+
+  private String accountType;
+  private AccountStatus status;
+  private Integer count;
+  private BigDecimal balance;
+}
@@ -0,0 +1,23 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Accounts of a customer, as owner, holder or signer, with their totals by type and status.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerPortfolioResponse {
+
+  private String customerId;
+  private List<AccountSummaryResponse> accounts;
+  private List<AccountTotalsResponse> totals;
+  private LocalDateTime generatedAt;
+}
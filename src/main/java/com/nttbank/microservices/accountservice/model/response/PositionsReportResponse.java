@@ -0,0 +1,22 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of the accounts by type and status, with the fees of {@code month}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PositionsReportResponse {
+
+  private String month;
+  private List<ProductPositionResponse> positions;
+  private LocalDateTime generatedAt;
+}
@@ -0,0 +1,25 @@
+package com.nttbank.microservices.accountservice.model.response;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of the accounts of one type and status: how many there are, their balance and the fees
+ * charged to them in the current month.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPositionResponse {
+
+  private String accountType;
+  private AccountStatus status;
+  private Long count;
+  private BigDecimal balance;
+  private BigDecimal feesThisMonth;
+}
@@ -0,0 +1,54 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.service.BankAccountService;
+import java.math.BigDecimal;
+import reactor.core.publisher.Mono;
+
+/**
+ * Money movement on an account, executed by the node owning the account. The account is the one
+ * debited, or the credited one for a deposit.
+ *
+ * @param type        the movement.
+ * @param accountId   the account owning the movement.
+ * @param toAccountId the credited account of a transfer, {@code null} otherwise.
+ * @param amount      the amount moved.
+ */
+public record AccountCommand(Type type, String accountId, String toAccountId, BigDecimal amount) {
+
+  /**
+   * Movements routed to the owner of their account.
+   */
+  public enum Type {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER
+  }
+
+  public static AccountCommand deposit(String accountId, BigDecimal amount) {
+    return new AccountCommand(Type.DEPOSIT, accountId, null, amount);
+  }
+
+  public static AccountCommand withdraw(String accountId, BigDecimal amount) {
+    return new AccountCommand(Type.WITHDRAW, accountId, null, amount);
+  }
+
+  public static AccountCommand transfer(String fromAccountId, String toAccountId,
+      BigDecimal amount) {
+    return new AccountCommand(Type.TRANSFER, fromAccountId, toAccountId, amount);
+  }
+
+  /**
+   * Executes the movement on this node.
+   *
+   * @param bankAccountService the service moving the money.
+   * @return the transaction of the movement, or empty when the account does not exist.
+   */
+  public Mono<AccountTransactions> executeOn(BankAccountService bankAccountService) {
+    return switch (type) {
+      case DEPOSIT -> bankAccountService.deposit(accountId, amount);
+      case WITHDRAW -> bankAccountService.withdraw(accountId, amount);
+      case TRANSFER -> bankAccountService.transfer(accountId, toAccountId, amount);
+    };
+  }
+}
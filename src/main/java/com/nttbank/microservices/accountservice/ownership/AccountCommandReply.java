@@ -0,0 +1,17 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+
+/**
+ * Outcome of an {@link AccountCommand} executed by the owner of its account: the transaction, or
+ * the error it failed with, or neither when the account does not exist.
+ *
+ * @param transaction  the transaction of the movement.
+ * @param errorCode    the {@link com.nttbank.microservices.accountservice.exception.ErrorCode} of a
+ *                     business rejection.
+ * @param errorMessage the message of the error.
+ */
+public record AccountCommandReply(AccountTransactions transaction, String errorCode,
+                                  String errorMessage) {
+
+}
@@ -0,0 +1,35 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.service.BankAccountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Entry point of the money movements. With {@code account.nttbank.ownership.enabled} a movement
+ * goes through {@link AccountOwnership} to the node owning its account; otherwise, and on the
+ * owner itself, it runs on this node.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountCommandRouter {
+
+  private final BankAccountService bankAccountService;
+  private final ObjectProvider<AccountOwnership> accountOwnership;
+
+  /**
+   * Executes a movement on the node owning its account.
+   *
+   * @param command the movement.
+   * @return the transaction of the movement, or empty when the account does not exist.
+   */
+  public Mono<AccountTransactions> execute(AccountCommand command) {
+    AccountOwnership ownership = accountOwnership.getIfAvailable();
+    if (ownership == null) {
+      return command.executeOn(bankAccountService);
+    }
+    return ownership.route(command, () -> command.executeOn(bankAccountService));
+  }
+}
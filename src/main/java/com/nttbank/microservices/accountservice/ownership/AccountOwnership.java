@@ -0,0 +1,373 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttbank.microservices.accountservice.admission.ConcurrencyLimits;
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Ownership of the accounts among the service nodes. Accounts hash into a fixed number of
+ * partitions of the commands topic (see {@link AccountPartitions}) and the nodes share those
+ * partitions as members of one Kafka consumer group, so each partition, and every account in it,
+ * has a single owner at a time and moves to another live node when its owner leaves.
+ *
+ * <p>A node executes the commands of the accounts it owns. The command of an account owned by
+ * another node is written to the partition of the account and its reply awaited on the replies
+ * topic, which every node reads in full and keeps the replies it is waiting for.
+ *
+ * <p>Commands wait for the first assignment of the node, and are rejected when it does not come
+ * within the reply timeout. A partition being revoked stops running commands locally at once, so
+ * they are forwarded and picked up by its next owner, and the revocation waits for the commands
+ * of the partition still running here before it is handed over.
+ */
+@Slf4j
+public class AccountOwnership {
+
+  private final Settings settings;
+  private final Function<AccountCommand, Mono<AccountTransactions>> executor;
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+  private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+  private final Sinks.Empty<Void> firstAssignment = Sinks.empty();
+  private final Map<Integer, Sinks.Many<ConsumerRecord<String, AccountCommand>>> forwarded =
+      new ConcurrentHashMap<>();
+  private final AtomicIntegerArray running;
+
+  private DefaultKafkaProducerFactory<String, Object> producerFactory;
+  private KafkaTemplate<String, Object> replyTemplate;
+  private ReplyingKafkaTemplate<String, Object, AccountCommandReply> requestTemplate;
+  private ConcurrentMessageListenerContainer<String, AccountCommand> commandsContainer;
+
+  /**
+   * Settings of the ownership layer.
+   *
+   * @param bootstrapServers  the Kafka brokers.
+   * @param commandsTopic     the topic whose partitions are owned.
+   * @param repliesTopic      the topic of the replies to forwarded commands.
+   * @param groupId           the consumer group shared by the nodes.
+   * @param nodeId            the id of this node, unique among the live nodes and kept across its
+   *                          restarts, since it names the replies group of the node.
+   * @param partitions        the number of ownership partitions.
+   * @param replicationFactor the replication factor of the topics when they are created.
+   * @param consumers         the consumers executing the commands of the owned partitions.
+   * @param replyTimeout      how long a forwarded command waits for its reply.
+   */
+  public record Settings(String bootstrapServers, String commandsTopic, String repliesTopic,
+                         String groupId, String nodeId, int partitions, short replicationFactor,
+                         int consumers, Duration replyTimeout) {
+
+  }
+
+  public AccountOwnership(Settings settings,
+      Function<AccountCommand, Mono<AccountTransactions>> executor) {
+    this.settings = settings;
+    this.executor = executor;
+    this.running = new AtomicIntegerArray(settings.partitions());
+  }
+
+  /**
+   * Creates the topics when missing, joins the ownership group and starts reading the replies.
+   */
+  public void start() {
+    createTopics();
+
+    producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+        ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, settings.bootstrapServers()),
+        new StringSerializer(), new JsonSerializer<>(objectMapper).noTypeInfo());
+    replyTemplate = new KafkaTemplate<>(producerFactory);
+
+    ContainerProperties repliesProperties = new ContainerProperties(settings.repliesTopic());
+    repliesProperties.setGroupId(settings.groupId() + "-replies-" + settings.nodeId());
+    requestTemplate = new ReplyingKafkaTemplate<>(producerFactory,
+        new KafkaMessageListenerContainer<>(
+            consumerFactory(AccountCommandReply.class, "latest"), repliesProperties));
+    requestTemplate.setSharedReplyTopic(true);
+    requestTemplate.setDefaultReplyTimeout(settings.replyTimeout());
+    requestTemplate.start();
+    awaitReplies();
+
+    ContainerProperties commandsProperties = new ContainerProperties(settings.commandsTopic());
+    commandsProperties.setGroupId(settings.groupId());
+    commandsProperties.setMessageListener(
+        (MessageListener<String, AccountCommand>) this::receiveForwarded);
+    commandsProperties.setConsumerRebalanceListener(new OwnershipListener());
+    commandsContainer = new ConcurrentMessageListenerContainer<>(
+        consumerFactory(AccountCommand.class, "earliest"), commandsProperties);
+    commandsContainer.setConcurrency(settings.consumers());
+    commandsContainer.start();
+    log.info("Node {} joined the account ownership group {}.", settings.nodeId(),
+        settings.groupId());
+  }
+
+  /**
+   * Leaves the ownership group, handing the owned partitions over to the other nodes.
+   */
+  public void stop() {
+    if (commandsContainer != null) {
+      commandsContainer.stop();
+    }
+    forwarded.values().forEach(Sinks.Many::tryEmitComplete);
+    if (requestTemplate != null) {
+      requestTemplate.stop();
+    }
+    if (producerFactory != null) {
+      producerFactory.destroy();
+    }
+  }
+
+  /**
+   * Tells whether this node owns the account.
+   */
+  public boolean isOwner(String accountId) {
+    return ownedPartitions.contains(AccountPartitions.partitionOf(accountId,
+        settings.partitions()));
+  }
+
+  public Set<Integer> getOwnedPartitions() {
+    return Set.copyOf(ownedPartitions);
+  }
+
+  /**
+   * Executes a command on the node owning its account.
+   *
+   * @param command the command.
+   * @param local   the execution on this node, used when this node owns the account.
+   * @return the transaction of the movement, or an {@link OwnerUnavailableException} when this
+   *     node got no assignment within the reply timeout.
+   */
+  public Mono<AccountTransactions> route(AccountCommand command,
+      Supplier<Mono<AccountTransactions>> local) {
+    return firstAssignment.asMono()
+        .timeout(settings.replyTimeout(), Mono.error(OwnerUnavailableException::new))
+        .then(Mono.defer(() -> routeAssigned(command, local)));
+  }
+
+  /**
+   * The command is counted as running on its partition before ownership is checked, so that a
+   * revocation removing the partition in between either sees it running or makes it forwarded.
+   */
+  private Mono<AccountTransactions> routeAssigned(AccountCommand command,
+      Supplier<Mono<AccountTransactions>> local) {
+    int partition = AccountPartitions.partitionOf(command.accountId(), settings.partitions());
+    running.incrementAndGet(partition);
+    if (ownedPartitions.contains(partition)) {
+      return Mono.defer(local)
+          .doFinally(signal -> running.decrementAndGet(partition));
+    }
+    running.decrementAndGet(partition);
+    ProducerRecord<String, Object> record = new ProducerRecord<>(settings.commandsTopic(),
+        partition, command.accountId(), command);
+    return ConcurrencyLimits.releasingSlot(
+            Mono.fromFuture(() -> requestTemplate.sendAndReceive(record)))
+        .map(ConsumerRecord::value)
+        .flatMap(this::toResult)
+        .onErrorMap(KafkaReplyTimeoutException.class, e -> {
+          log.warn("The owner of account {} did not answer in time.", command.accountId());
+          return new OutcomeUnknownException();
+        });
+  }
+
+  private Mono<AccountTransactions> toResult(AccountCommandReply reply) {
+    if (reply.errorCode() != null) {
+      return Mono.error(new ForwardedCommandException(ErrorCode.valueOf(reply.errorCode()),
+          reply.errorMessage()));
+    }
+    if (reply.errorMessage() != null) {
+      return Mono.error(new IllegalStateException(reply.errorMessage()));
+    }
+    return Mono.justOrEmpty(reply.transaction());
+  }
+
+  /**
+   * Queues a command forwarded by another node. Commands of one partition are executed one after
+   * the other, off the consumer thread, so that a slow command does not hold the consumer of the
+   * partitions.
+   */
+  private void receiveForwarded(ConsumerRecord<String, AccountCommand> record) {
+    if (record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC) == null
+        || record.headers().lastHeader(KafkaHeaders.CORRELATION_ID) == null) {
+      log.warn("Dropping the account command at offset {} without reply headers.",
+          record.offset());
+      return;
+    }
+    running.incrementAndGet(record.partition());
+    forwarded.computeIfAbsent(record.partition(), partition -> {
+          Sinks.Many<ConsumerRecord<String, AccountCommand>> queue =
+              Sinks.many().unicast().onBackpressureBuffer();
+          queue.asFlux().concatMap(this::executeForwarded).subscribe();
+          return queue;
+        })
+        .emitNext(record, Sinks.EmitFailureHandler.busyLooping(settings.replyTimeout()));
+  }
+
+  /**
+   * Executes a forwarded command and sends back its reply. A command older than the reply timeout
+   * is dropped, since the node that sent it has already failed the request and the client may
+   * have retried it, and the others only get what is left of the timeout of the sender.
+   */
+  private Mono<Void> executeForwarded(ConsumerRecord<String, AccountCommand> record) {
+    return Mono.defer(() -> {
+          Duration remaining = settings.replyTimeout()
+              .minusMillis(System.currentTimeMillis() - record.timestamp());
+          if (remaining.isNegative() || remaining.isZero()) {
+            log.warn("Dropping the expired command on account {} at offset {}.", record.key(),
+                record.offset());
+            return Mono.empty();
+          }
+          return Mono.defer(() -> executor.apply(record.value()))
+              .timeout(remaining)
+              .map(transaction -> new AccountCommandReply(transaction, null, null))
+              .defaultIfEmpty(new AccountCommandReply(null, null, null))
+              .onErrorResume(DomainException.class, e -> Mono.just(
+                  new AccountCommandReply(null, e.getCode().name(), e.getMessage())))
+              .onErrorResume(e -> {
+                log.error("Forwarded command on account {} failed: {}", record.key(),
+                    e.getMessage());
+                return Mono.just(new AccountCommandReply(null, null,
+                    String.valueOf(e.getMessage())));
+              })
+              .doOnNext(reply -> reply(record, reply))
+              .then();
+        })
+        .doFinally(signal -> running.decrementAndGet(record.partition()));
+  }
+
+  private void reply(ConsumerRecord<String, AccountCommand> record, AccountCommandReply reply) {
+    Header replyTopic = record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC);
+    Header replyPartition = record.headers().lastHeader(KafkaHeaders.REPLY_PARTITION);
+    ProducerRecord<String, Object> response = new ProducerRecord<>(
+        new String(replyTopic.value(), StandardCharsets.UTF_8),
+        replyPartition == null ? null : ByteBuffer.wrap(replyPartition.value()).getInt(),
+        record.key(), reply);
+    response.headers().add(KafkaHeaders.CORRELATION_ID,
+        record.headers().lastHeader(KafkaHeaders.CORRELATION_ID).value());
+    replyTemplate.send(response);
+  }
+
+  /**
+   * Waits, at most for the reply timeout, until the commands of the revoked partitions running on
+   * this node end, so that their next owner does not run commands of the same accounts at the same
+   * time.
+   */
+  private void drain(Collection<TopicPartition> partitions) {
+    long deadline = System.nanoTime() + settings.replyTimeout().toNanos();
+    for (TopicPartition partition : partitions) {
+      while (running.get(partition.partition()) > 0) {
+        if (System.nanoTime() > deadline) {
+          log.warn("Handing over partition {} with {} commands still running.",
+              partition.partition(), running.get(partition.partition()));
+          break;
+        }
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void createTopics() {
+    KafkaAdmin admin = new KafkaAdmin(Map.of(
+        AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, settings.bootstrapServers()));
+    admin.createOrModifyTopics(
+        new NewTopic(settings.commandsTopic(), settings.partitions(),
+            settings.replicationFactor()),
+        new NewTopic(settings.repliesTopic(), settings.partitions(),
+            settings.replicationFactor()));
+    int partitions = admin.describeTopics(settings.commandsTopic())
+        .get(settings.commandsTopic()).partitions().size();
+    if (partitions != settings.partitions()) {
+      throw new IllegalStateException("The topic " + settings.commandsTopic() + " has "
+          + partitions + " partitions, the ownership layer expects " + settings.partitions());
+    }
+  }
+
+  /**
+   * Replies sent before the replies consumer has its partitions would be skipped, since the
+   * consumer starts at the end of the topic.
+   */
+  private void awaitReplies() {
+    try {
+      if (!requestTemplate.waitForAssignment(settings.replyTimeout())) {
+        log.warn("Node {} got no partition of {} in {} ms.", settings.nodeId(),
+            settings.repliesTopic(), settings.replyTimeout().toMillis());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private <T> DefaultKafkaConsumerFactory<String, T> consumerFactory(Class<T> type,
+      String offsetReset) {
+    return new DefaultKafkaConsumerFactory<>(Map.of(
+        ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, settings.bootstrapServers(),
+        ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, offsetReset),
+        new StringDeserializer(), new JsonDeserializer<>(type, objectMapper, false));
+  }
+
+  /**
+   * Keeps the set of owned partitions in step with the assignments of the group.
+   */
+  private final class OwnershipListener implements ConsumerRebalanceListener {
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      partitions.forEach(partition -> ownedPartitions.remove(partition.partition()));
+      drain(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      partitions.forEach(partition -> ownedPartitions.add(partition.partition()));
+      firstAssignment.tryEmitEmpty();
+      log.info("Node {} owns the account partitions {}.", settings.nodeId(),
+          ownedPartitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+      partitions.forEach(partition -> ownedPartitions.remove(partition.partition()));
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * Maps accounts to ownership partitions with the hash Kafka uses to place keyed records, so the
+ * partition of an account is the one its commands are written to.
+ */
+public final class AccountPartitions {
+
+  private AccountPartitions() {
+  }
+
+  public static int partitionOf(String accountId, int partitions) {
+    return Utils.toPositive(Utils.murmur2(accountId.getBytes(StandardCharsets.UTF_8)))
+        % partitions;
+  }
+}
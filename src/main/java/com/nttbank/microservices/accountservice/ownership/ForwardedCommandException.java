@@ -0,0 +1,15 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+
+/**
+ * Business rejection of an {@link AccountCommand} raised on the node owning the account and
+ * replayed on the node that forwarded the command, with the same code and message.
+ */
+public class ForwardedCommandException extends DomainException {
+
+  public ForwardedCommandException(ErrorCode code, String message) {
+    super(code, message);
+  }
+}
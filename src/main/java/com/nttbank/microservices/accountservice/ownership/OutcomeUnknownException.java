@@ -0,0 +1,16 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+
+/**
+ * Raised when the owner of the account did not answer a forwarded {@link AccountCommand} in time.
+ * The owner may still have executed it, so unlike a rejection the client must check the movements
+ * of the account before retrying.
+ */
+public class OutcomeUnknownException extends DomainException {
+
+  public OutcomeUnknownException() {
+    super(ErrorCode.OUTCOME_UNKNOWN);
+  }
+}
@@ -0,0 +1,15 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+
+/**
+ * Raised when an {@link AccountCommand} cannot be routed because this node does not know yet which
+ * node owns the account. Nothing was executed, so the client can retry it.
+ */
+public class OwnerUnavailableException extends DomainException {
+
+  public OwnerUnavailableException() {
+    super(ErrorCode.OWNER_UNAVAILABLE);
+  }
+}
@@ -0,0 +1,130 @@
+package com.nttbank.microservices.accountservice.proxy.openfeign;
+
+import com.nttbank.microservices.accountservice.admission.ConcurrencyLimits;
+import com.nttbank.microservices.accountservice.admission.OperationClass;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Wraps the calls made through {@link CloudGatewayFeign} with the tail-latency controls of the
+ * service: a per-operation deadline and circuit breaker (see
+ * {@link com.nttbank.microservices.accountservice.config.GatewayResilienceConfig}) and, for
+ * idempotent reads, a hedged second request fired once the first one runs past the observed p95
+ * latency of that operation. Calls also run under the adaptive concurrency limit of the
+ * {@link OperationClass#GATEWAY} class, so a slow gateway gets fewer calls at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GatewayCallGuard {
+
+  public static final String CUSTOMER_OPERATION = "customer";
+  public static final String CREDIT_CARD_OPERATION = "credit-card";
+
+  private static final double HEDGE_PERCENTILE = 0.95;
+
+  private final ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrencyLimits concurrencyLimits;
+
+  private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+
+  @Value("${gateway.nttbank.hedge.enabled:true}")
+  private boolean hedgeEnabled;
+  @Value("${gateway.nttbank.hedge.min-delay-ms:20}")
+  private long hedgeMinDelayMs;
+  @Value("${gateway.nttbank.hedge.max-delay-ms:500}")
+  private long hedgeMaxDelayMs;
+  @Value("${gateway.nttbank.hedge.min-samples:50}")
+  private long hedgeMinSamples;
+
+  /**
+   * Executes a gateway call under the deadline and circuit breaker registered for the operation.
+   *
+   * @param operation  the operation name, also used as circuit breaker id and metric tag.
+   * @param idempotent whether the call may be hedged with a second identical request.
+   * @param call       supplier of the actual Feign call; invoked once per attempt.
+   * @param <T>        the type emitted by the call.
+   * @return the guarded call.
+   */
+  public <T> Mono<T> guard(String operation, boolean idempotent, Supplier<Mono<T>> call) {
+    Timer latency = latencyTimer(operation);
+    Mono<T> attempt = timedAttempt(call, latency);
+    Mono<T> guarded = hedgeEnabled && idempotent
+        ? Mono.firstWithSignal(attempt, hedgedAttempt(operation, attempt, latency))
+        : attempt;
+
+    return concurrencyLimits.limit(OperationClass.GATEWAY,
+            () -> circuitBreakerFactory.create(operation).run(guarded, Mono::error))
+        .doOnError(CallNotPermittedException.class,
+            e -> {
+              log.warn("Circuit breaker open for gateway operation {}", operation);
+              counter("gateway.call.rejected", operation).increment();
+            })
+        .doOnError(TimeoutException.class,
+            e -> {
+              log.warn("Gateway operation {} exceeded its deadline", operation);
+              counter("gateway.call.timeout", operation).increment();
+            });
+  }
+
+  private <T> Mono<T> timedAttempt(Supplier<Mono<T>> call, Timer latency) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return call.get()
+          .doOnSuccess(v -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    });
+  }
+
+  private <T> Mono<T> hedgedAttempt(String operation, Mono<T> attempt, Timer latency) {
+    return Mono.defer(() -> attempt
+        .delaySubscription(hedgeDelay(latency))
+        .doOnSubscribe(s -> {
+          log.debug("Hedging gateway operation {}", operation);
+          counter("gateway.call.hedged", operation).increment();
+        }));
+  }
+
+  /**
+   * Computes the delay before the hedged request is fired. Until enough samples have been recorded
+   * the maximum delay is used so that a cold start does not double the load on the gateway.
+   */
+  private Duration hedgeDelay(Timer latency) {
+    if (latency.count() < hedgeMinSamples) {
+      return Duration.ofMillis(hedgeMaxDelayMs);
+    }
+    long p95 = Arrays.stream(latency.takeSnapshot().percentileValues())
+        .filter(v -> v.percentile() == HEDGE_PERCENTILE)
+        .mapToLong(v -> (long) v.value(TimeUnit.MILLISECONDS))
+        .findFirst()
+        .orElse(hedgeMaxDelayMs);
+    return Duration.ofMillis(Math.max(hedgeMinDelayMs, Math.min(hedgeMaxDelayMs, p95)));
+  }
+
+  private Timer latencyTimer(String operation) {
+    return latencyTimers.computeIfAbsent(operation, op -> Timer.builder("gateway.call.latency")
+        .description("Latency of successful calls made through the cloud gateway")
+        .tag("operation", op)
+        .publishPercentiles(HEDGE_PERCENTILE)
+        .register(meterRegistry));
+  }
+
+  private Counter counter(String name, String operation) {
+    return meterRegistry.counter(name, "operation", operation);
+  }
+}
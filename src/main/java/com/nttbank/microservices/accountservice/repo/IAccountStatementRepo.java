@@ -0,0 +1,11 @@
+package com.nttbank.microservices.accountservice.repo;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatement;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Repository interface for the {@link AccountStatement} of closed months.
+ */
+public interface IAccountStatementRepo extends ReactiveMongoRepository<AccountStatement, String> {
+
+}
@@ -0,0 +1,24 @@
+package com.nttbank.microservices.accountservice.repo;
+
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom repository fragment for {@link AccountTransactions} holding the bulk reads that skip the
+ * entity mapping and return the documents as stored, and the bulk delete of archived ones.
+ */
+public interface IAccountTransactionCustomRepo {
+
+  Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to, String productName,
+      TransactionExportCursor after, int batchSize);
+
+  Flux<RawBsonDocument> findArchivable(LocalDateTime before, int limit);
+
+  Mono<Long> deleteByIds(Collection<BsonValue> ids);
+}
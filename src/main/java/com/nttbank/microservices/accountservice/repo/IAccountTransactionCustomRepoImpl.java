@@ -0,0 +1,101 @@
+package com.nttbank.microservices.accountservice.repo;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.result.DeleteResult;
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of {@link IAccountTransactionCustomRepo} based on the driver collection of
+ * {@link ReactiveMongoTemplate}. Bulk reads go to a secondary when there is one, so they do not
+ * compete with the online traffic on the primary.
+ */
+@RequiredArgsConstructor
+public class IAccountTransactionCustomRepoImpl implements IAccountTransactionCustomRepo {
+
+  public static final String TRANSACTIONS_COLLECTION = "account_transactions";
+  public static final String ID_FIELD = "_id";
+  public static final String ACCOUNT_ID_FIELD = "accountId";
+  public static final String CREATED_AT_FIELD = "createdAt";
+  public static final String PRODUCT_NAME_FIELD = "productName";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  /**
+   * Reads the transactions created in {@code [from, to)} ordered by creation date and id, which is
+   * the order of the {@code transaction_export_idx} index, starting right after the given cursor.
+   */
+  @Override
+  public Flux<RawBsonDocument> findForExport(LocalDateTime from, LocalDateTime to,
+      String productName, TransactionExportCursor after, int batchSize) {
+    return mongoTemplate.getCollection(TRANSACTIONS_COLLECTION)
+        .flatMapMany(collection -> collection
+            .withDocumentClass(RawBsonDocument.class)
+            .withReadPreference(ReadPreference.secondaryPreferred())
+            .find(exportFilter(from, to, productName, after))
+            .sort(Sorts.ascending(CREATED_AT_FIELD, ID_FIELD))
+            .batchSize(batchSize));
+  }
+
+  /**
+   * Reads from the primary the oldest transactions created before the given date, in the order
+   * they are archived.
+   */
+  @Override
+  public Flux<RawBsonDocument> findArchivable(LocalDateTime before, int limit) {
+    return mongoTemplate.getCollection(TRANSACTIONS_COLLECTION)
+        .flatMapMany(collection -> collection
+            .withDocumentClass(RawBsonDocument.class)
+            .find(Filters.lt(CREATED_AT_FIELD, toDate(before)))
+            .sort(Sorts.ascending(CREATED_AT_FIELD, ID_FIELD))
+            .limit(limit));
+  }
+
+  @Override
+  public Mono<Long> deleteByIds(Collection<BsonValue> ids) {
+    return mongoTemplate.getCollection(TRANSACTIONS_COLLECTION)
+        .flatMap(collection -> Mono.from(collection.deleteMany(Filters.in(ID_FIELD, ids))))
+        .map(DeleteResult::getDeletedCount);
+  }
+
+  /**
+   * Filter of the transactions created in {@code [from, to)} coming after the given cursor, also
+   * applied to the movements kept in buckets.
+   */
+  public static Bson exportFilter(LocalDateTime from, LocalDateTime to, String productName,
+      TransactionExportCursor after) {
+    List<Bson> filters = new ArrayList<>();
+    filters.add(Filters.gte(CREATED_AT_FIELD, toDate(from)));
+    filters.add(Filters.lt(CREATED_AT_FIELD, toDate(to)));
+    Optional.ofNullable(productName)
+        .ifPresent(product -> filters.add(Filters.eq(PRODUCT_NAME_FIELD, product)));
+    Optional.ofNullable(after)
+        .ifPresent(cursor -> filters.add(Filters.or(
+            Filters.gt(CREATED_AT_FIELD, cursor.createdAt()),
+            Filters.and(Filters.eq(CREATED_AT_FIELD, cursor.createdAt()),
+                Filters.gt(ID_FIELD, cursor.id())))));
+    return Filters.and(filters);
+  }
+
+  /**
+   * Dates are stored the way Spring Data converts {@link LocalDateTime}, in the system zone.
+   */
+  public static Date toDate(LocalDateTime dateTime) {
+    return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+  }
+}
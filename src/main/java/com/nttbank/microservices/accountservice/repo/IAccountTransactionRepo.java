@@ -3,15 +3,24 @@ package com.nttbank.microservices.accountservice.repo;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /** Repository interface for performing CRUD operations on {@link AccountTransactions} entities.
- * Extends {@link ReactiveMongoRepository} to provide reactive operations on MongoDB. */
+ * Extends {@link ReactiveMongoRepository} to provide reactive operations on MongoDB, and
+ * {@link IAccountTransactionCustomRepo} for the bulk reads. */
 public interface IAccountTransactionRepo extends
-    ReactiveMongoRepository<AccountTransactions, String> {
+    ReactiveMongoRepository<AccountTransactions, String>, IAccountTransactionCustomRepo {
   Flux<AccountTransactions> findAllByAccountId(String accountId);
 
+  @Query(fields = "{ '_id': 1 }")
+  Mono<AccountTransactions> findFirstByAccountIdOrderByIdDesc(String accountId);
+
+  Mono<AccountTransactions> findFirstByAccountIdAndCreatedAtLessThanOrderByIdDesc(
+      String accountId, LocalDateTime before);
+
   Flux<AccountTransactions> findByCreatedAtBetween(LocalDate startDate, LocalDate endDate);
 
   Flux<AccountTransactions> findByProductNameAndTypeAndCreatedAtBetween(
@@ -0,0 +1,30 @@
+package com.nttbank.microservices.accountservice.repo;
+
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import java.util.Collection;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom repository fragment for {@link BankAccount} holding the partial updates that only touch
+ * some fields of the document instead of rewriting it with {@code save}. Every update increments
+ * the {@code version} of the account so it stays consistent with the optimistic locking applied by
+ * {@code save}. It also holds the delete returning the removed account.
+ */
+public interface IBankAccountCustomRepo {
+
+  Mono<BankAccount> addToSet(String accountId, String field, Collection<String> values);
+
+  Mono<BankAccount> pullAll(String accountId, String field, Collection<String> values);
+
+  Mono<BankAccount> updateMembers(String accountId, Map<String, Collection<String>> added,
+      Map<String, Collection<String>> removed);
+
+  Mono<BankAccount> setFields(String accountId, Long expectedVersion, Map<String, Object> fields);
+
+  Mono<Long> findVersionById(String accountId);
+
+  Mono<Long> initMissingVersions();
+
+  Mono<BankAccount> removeById(String accountId);
+}
@@ -0,0 +1,159 @@
+package com.nttbank.microservices.accountservice.repo;
+
+import com.mongodb.client.result.UpdateResult;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of {@link IBankAccountCustomRepo} based on {@link ReactiveMongoTemplate}. Every
+ * update of a single account is an atomic {@code findAndModify} returning the document after the
+ * update, or an empty {@link Mono} when the account does not exist.
+ */
+@RequiredArgsConstructor
+public class IBankAccountCustomRepoImpl implements IBankAccountCustomRepo {
+
+  public static final String ID_FIELD = "_id";
+  public static final String UPDATED_AT_FIELD = "updatedAt";
+  public static final String VERSION_FIELD = "version";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<BankAccount> addToSet(String accountId, String field, Collection<String> values) {
+    Update update = new Update()
+        .set(UPDATED_AT_FIELD, LocalDateTime.now());
+    update.addToSet(field).each(values.toArray());
+    return modify(accountId, update);
+  }
+
+  @Override
+  public Mono<BankAccount> pullAll(String accountId, String field, Collection<String> values) {
+    Update update = new Update()
+        .pullAll(field, values.toArray())
+        .set(UPDATED_AT_FIELD, LocalDateTime.now());
+    return modify(accountId, update);
+  }
+
+  /**
+   * Adds and removes the members of several member arrays with a single pipeline update, so that
+   * the changes are applied all together or not at all. Added members go after the current ones
+   * and a member both added and removed ends up removed.
+   *
+   * @param added   the members to add, by member array.
+   * @param removed the members to remove, by member array.
+   * @return the updated account, or an empty {@link Mono} when the account does not exist.
+   */
+  @Override
+  public Mono<BankAccount> updateMembers(String accountId, Map<String, Collection<String>> added,
+      Map<String, Collection<String>> removed) {
+    Document set = new Document(UPDATED_AT_FIELD, "$$NOW")
+        .append(VERSION_FIELD, new Document("$add",
+            List.of(new Document("$ifNull", List.of("$" + VERSION_FIELD, 0L)), 1L)));
+    Stream.concat(added.keySet().stream(), removed.keySet().stream())
+        .distinct()
+        .forEach(field -> set.append(field, members(field,
+            added.getOrDefault(field, List.of()), removed.getOrDefault(field, List.of()))));
+    return mongoTemplate.findAndModify(Query.query(Criteria.where(ID_FIELD).is(accountId)),
+        AggregationUpdate.from(List.of(context -> new Document("$set", set))),
+        FindAndModifyOptions.options().returnNew(true), BankAccount.class);
+  }
+
+  /**
+   * Expression of a member array after the update: the current members not removed, followed by
+   * the added members neither present nor removed. Member ids are passed as literals so that they
+   * are never read as field paths.
+   */
+  private static Document members(String field, Collection<String> added,
+      Collection<String> removed) {
+    Document current = new Document("$ifNull", List.of("$" + field, List.of()));
+    Document removedIds = new Document("$literal", List.copyOf(removed));
+    Document kept = new Document("$filter", new Document("input", current)
+        .append("as", "member")
+        .append("cond", new Document("$not",
+            List.of(new Document("$in", List.of("$$member", removedIds))))));
+    Document fresh = new Document("$filter",
+        new Document("input", new Document("$literal", List.copyOf(added)))
+            .append("as", "member")
+            .append("cond", new Document("$not", List.of(new Document("$in",
+                List.of("$$member", new Document("$concatArrays",
+                    List.of(current, removedIds))))))));
+    return new Document("$concatArrays", List.of(kept, fresh));
+  }
+
+  /**
+   * Applies a {@code $set} of the given fields only if the account is still at the expected
+   * version.
+   *
+   * @return the updated account, or an empty {@link Mono} when no account matches the id and
+   *     version.
+   */
+  @Override
+  public Mono<BankAccount> setFields(String accountId, Long expectedVersion,
+      Map<String, Object> fields) {
+    Update update = new Update()
+        .set(UPDATED_AT_FIELD, LocalDateTime.now());
+    fields.forEach(update::set);
+    return modify(Criteria.where(ID_FIELD).is(accountId).and(VERSION_FIELD).is(expectedVersion),
+        update);
+  }
+
+  @Override
+  public Mono<Long> findVersionById(String accountId) {
+    Query query = Query.query(Criteria.where(ID_FIELD).is(accountId));
+    query.fields().include(VERSION_FIELD);
+    return mongoTemplate.findOne(query, BankAccount.class)
+        .mapNotNull(BankAccount::getVersion);
+  }
+
+  /**
+   * Sets the initial version on the accounts stored before optimistic locking was introduced, so
+   * that {@code save} does not treat them as new documents. The accounts are first probed for one
+   * without a version, which stops at the first match, and nothing is written once every account
+   * has one.
+   *
+   * @return the number of accounts updated.
+   */
+  @Override
+  public Mono<Long> initMissingVersions() {
+    Query missing = Query.query(Criteria.where(VERSION_FIELD).exists(false));
+    return mongoTemplate.exists(missing, BankAccount.class)
+        .flatMap(found -> found
+            ? mongoTemplate.updateMulti(missing, Update.update(VERSION_FIELD, 0L),
+                BankAccount.class).map(UpdateResult::getModifiedCount)
+            : Mono.just(0L));
+  }
+
+  /**
+   * Deletes an account atomically with the read of what it was.
+   *
+   * @return the deleted account, or an empty {@link Mono} when the account does not exist.
+   */
+  @Override
+  public Mono<BankAccount> removeById(String accountId) {
+    return mongoTemplate.findAndRemove(Query.query(Criteria.where(ID_FIELD).is(accountId)),
+        BankAccount.class);
+  }
+
+  private Mono<BankAccount> modify(String accountId, Update update) {
+    return modify(Criteria.where(ID_FIELD).is(accountId), update);
+  }
+
+  private Mono<BankAccount> modify(Criteria criteria, Update update) {
+    update.inc(VERSION_FIELD, 1);
+    return mongoTemplate.findAndModify(Query.query(criteria), update,
+        FindAndModifyOptions.options().returnNew(true), BankAccount.class);
+  }
+}
@@ -8,9 +8,10 @@ import reactor.core.publisher.Mono;
  * Repository interface for performing CRUD operations on {@link BankAccount} entities. Extends
  * {@link ReactiveMongoRepository} to provide reactive operations on MongoDB. This interface also
  * includes custom query methods for retrieving bank accounts based on customer ID and account
- * type.
+ * type, and the partial updates declared in {@link IBankAccountCustomRepo}.
  */
-public interface IBankAccountRepo extends ReactiveMongoRepository<BankAccount, String> {
+public interface IBankAccountRepo extends ReactiveMongoRepository<BankAccount, String>,
+    IBankAccountCustomRepo {
 
   Mono<Long> countByCustomerIdAndAccountTypeAndStatus(String customerId, String accountType,
       String status);
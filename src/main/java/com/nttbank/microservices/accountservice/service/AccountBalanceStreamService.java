@@ -0,0 +1,133 @@
+package com.nttbank.microservices.accountservice.service;
+
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.response.AccountBalanceResponse;
+import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
+import com.nttbank.microservices.accountservice.stream.AccountBalanceFanout;
+import com.nttbank.microservices.accountservice.stream.AccountChange;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class responsible for pushing the balance of an account to its subscribers as
+ * Server-Sent Events. The current balance is sent first and then every change seen by the
+ * {@link AccountBalanceFanout}, skipping the ones older than what the client already got. A
+ * comment is sent once a stream stays idle for the heartbeat interval, so that proxies do not close
+ * it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountBalanceStreamService {
+
+  public static final String BALANCE_EVENT = "balance";
+
+  private final IBankAccountRepo accountRepo;
+  private final AccountBalanceFanout balanceFanout;
+  private final StripedBalances stripedBalances;
+
+  @Value("${account.nttbank.balance-stream.heartbeat-ms:15000}")
+  private long heartbeatMs;
+
+  /**
+   * Streams the balance of an account until the account is deleted or the client disconnects.
+   *
+   * @param accountId the id of the account.
+   * @return the balance events followed by the heartbeats.
+   */
+  public Flux<ServerSentEvent<AccountBalanceResponse>> streamBalance(String accountId) {
+    Flux<ServerSentEvent<AccountBalanceResponse>> balances = Flux.defer(() -> {
+      AtomicLong lastVersion = new AtomicLong(Long.MIN_VALUE);
+      // The live changes are subscribed before the snapshot is read so that none is missed in
+      // between; the version check drops whichever of both arrives late.
+      return Flux.merge(liveBalances(accountId), currentBalance(accountId))
+          .filter(balance -> balance.getVersion() == null
+              || lastVersion.getAndAccumulate(balance.getVersion(), Math::max)
+              < balance.getVersion())
+          .map(balance -> ServerSentEvent.builder(balance)
+              .id(String.valueOf(balance.getVersion()))
+              .event(BALANCE_EVENT)
+              .build());
+    });
+    Flux<ServerSentEvent<AccountBalanceResponse>> heartbeats = Flux.interval(
+            Duration.ofMillis(heartbeatMs))
+        .map(tick -> ServerSentEvent.<AccountBalanceResponse>builder().comment("heartbeat")
+            .build());
+    // Every balance event restarts the heartbeats, so they only fill the idle intervals.
+    return balances
+        .publish(shared -> Flux.merge(shared, shared
+            .map(event -> true)
+            .startWith(true)
+            .switchMap(event -> heartbeats)
+            .takeUntilOther(shared.ignoreElements())))
+        .doOnCancel(() -> log.debug("Balance stream of account {} closed", accountId));
+  }
+
+  private Flux<AccountBalanceResponse> liveBalances(String accountId) {
+    return balanceFanout.subscribe(accountId)
+        .takeUntil(change -> change.type() == AccountChange.Type.DELETE)
+        .concatMap(change -> toBalance(accountId, change));
+  }
+
+  /**
+   * Changes that did not write the balance are skipped, and a reset reads the balance again since
+   * the changes it hides are unknown. The balance of a striped account is not in its document, so
+   * it is read from the slots on every change, bypassing the cached sums that may not hold a
+   * movement made on another node yet.
+   */
+  private Mono<AccountBalanceResponse> toBalance(String accountId, AccountChange change) {
+    if (stripedBalances.isStriped(accountId) && change.type() != AccountChange.Type.DELETE) {
+      return exactBalance(accountId);
+    }
+    return switch (change.type()) {
+      case UPSERT -> Mono.justOrEmpty(change.balance())
+          .map(balance -> AccountBalanceResponse.builder()
+              .accountId(accountId)
+              .balance(balance)
+              .version(change.version())
+              .timestamp(LocalDateTime.now())
+              .build());
+      case BALANCE, RESET -> currentBalance(accountId);
+      case DELETE -> Mono.empty();
+    };
+  }
+
+  private Mono<AccountBalanceResponse> currentBalance(String accountId) {
+    return accountRepo.findById(accountId)
+        .flatMap(account -> stripedBalances.isStriped(accountId)
+            ? stripedBalances.withBalance(account)
+            : Mono.just(account))
+        .map(this::toBalanceResponse);
+  }
+
+  private Mono<AccountBalanceResponse> exactBalance(String accountId) {
+    return accountRepo.findById(accountId)
+        .flatMap(stripedBalances::withExactBalance)
+        .map(this::toBalanceResponse);
+  }
+
+  /**
+   * The version of a striped account is not bumped by its movements, so the writes to its slots
+   * are added to it; both only grow, and so does their sum.
+   */
+  private AccountBalanceResponse toBalanceResponse(BankAccount account) {
+    return AccountBalanceResponse.builder()
+        .accountId(account.getId())
+        .balance(account.getBalance())
+        .version(Optional.ofNullable(account.getBalanceChanges())
+            .map(changes -> account.getVersion() + changes)
+            .orElse(account.getVersion()))
+        .timestamp(account.getUpdatedAt())
+        .build();
+  }
+}
@@ -0,0 +1,179 @@
+package com.nttbank.microservices.accountservice.service;
+
+import com.nttbank.microservices.accountservice.archive.TransactionArchive;
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.ledger.StatementTotals;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
+import com.nttbank.microservices.accountservice.model.entity.AccountStatement;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import com.nttbank.microservices.accountservice.repo.IAccountStatementRepo;
+import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
+import com.nttbank.microservices.accountservice.util.Constants;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class responsible for the monthly statements of the accounts. A statement is computed
+ * with one aggregation over the movements of its month, instead of reading the whole history of
+ * the account. Statements of closed months do not change anymore, so they are stored the first
+ * time they are computed and later reads are a single lookup; the current month is always
+ * computed live.
+ *
+ * <p>
+ * Only the totals are stored; the movements are read separately every time, from the archive
+ * first and then from the ledger. The totals of a month whose movements were partly archived are
+ * computed from those same movements instead of the ledger aggregation.
+ * </p>
+ *
+ * <p>
+ * A closed month therefore costs the lookup of its statement plus a range scan over the movements
+ * of the account in that month ({@code account_month_idx} of the transactions, or
+ * {@code account_day_idx} of the buckets), and the archive index when the month was archived.
+ * The movements are not copied into per-statement chunks on purpose: the ledger already keeps them
+ * grouped by account and time, so chunks would store every movement twice, and they would have to
+ * be rewritten whenever the archive moves a month out of the ledger, for a read that happens about
+ * once a month per account.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountStatementService {
+
+  private final IAccountStatementRepo statementRepo;
+  private final IBankAccountRepo accountRepo;
+  private final TransactionLedger transactionLedger;
+  private final StripedBalances stripedBalances;
+  private final TransactionArchive transactionArchive;
+
+  /**
+   * Returns the statement of an account for a month.
+   *
+   * @param accountId the id of the account.
+   * @param month     the month of the statement, not after the current one.
+   * @return the statement, or an empty {@link Mono} when the account does not exist.
+   */
+  public Mono<AccountStatement> findStatement(String accountId, YearMonth month) {
+    return Mono.defer(() -> {
+      YearMonth currentMonth = YearMonth.now();
+      if (month.isAfter(currentMonth)) {
+        return Mono.error(new IllegalArgumentException(
+            String.format(Constants.STATEMENT_MONTH_NOT_CLOSED, month)));
+      }
+      if (month.equals(currentMonth)) {
+        return accountRepo.findById(accountId)
+            .flatMap(account -> stripedBalances.isStriped(accountId)
+                ? stripedBalances.withBalance(account)
+                : Mono.just(account))
+            .flatMap(account -> generate(account, month))
+            .flatMap(statement -> withMovements(statement, month));
+      }
+      return statementRepo.findById(AccountStatement.idOf(accountId, month))
+          .switchIfEmpty(Mono.defer(() -> accountRepo.findById(accountId)
+              .flatMap(account -> generate(account, month))
+              .flatMap(statement -> {
+                log.info("Storing the statement {}.", statement.getId());
+                return statementRepo.save(statement);
+              })))
+          .flatMap(statement -> withMovements(statement, month));
+    });
+  }
+
+  private Mono<AccountStatement> withMovements(AccountStatement statement, YearMonth month) {
+    return movements(statement.getAccountId(), month)
+        .collectList()
+        .map(movements -> {
+          statement.setMovements(movements);
+          return statement;
+        });
+  }
+
+  /**
+   * Movements of an account in a month, in creation order. The transactions of an archive member
+   * not confirmed yet may be in both tiers, so they are only taken from the archive.
+   */
+  private Flux<AccountTransactions> movements(String accountId, YearMonth month) {
+    return Flux.defer(() -> {
+      Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+      return Flux.concat(
+          transactionArchive.findByAccountIdAndMonth(accountId, month, pendingIds),
+          transactionLedger.findByAccountIdAndCreatedAtBetween(accountId,
+                  month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay())
+              .filter(transaction -> !pendingIds.contains(transaction.getId())));
+    });
+  }
+
+  private Mono<AccountStatement> generate(BankAccount account, YearMonth month) {
+    LocalDateTime from = month.atDay(1).atStartOfDay();
+    LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+    AccountStatement.AccountStatementBuilder statement = AccountStatement.builder()
+        .id(AccountStatement.idOf(account.getId(), month))
+        .accountId(account.getId())
+        .month(month.toString())
+        .generatedAt(LocalDateTime.now());
+    return transactionArchive.holds(account.getId(), month)
+        .flatMap(archived -> archived
+            ? StatementTotals.of(movements(account.getId(), month))
+            : transactionLedger.summarize(account.getId(), from, to))
+        .map(totals -> statement
+            .openingBalance(openingBalance(totals.getFirst()))
+            .closingBalance(totals.getLast().getBalanceAfterMovement())
+            .totalDeposits(totals.getTotalDeposits())
+            .totalWithdrawals(totals.getTotalWithdrawals())
+            .totalFees(totals.getTotalFees())
+            .numberOfTransactions(totals.getCount())
+            .build())
+        .switchIfEmpty(Mono.defer(() -> openingBalanceWithoutMovements(account, month, from)
+            .map(balance -> statement
+                .openingBalance(balance)
+                .closingBalance(balance)
+                .totalDeposits(BigDecimal.ZERO)
+                .totalWithdrawals(BigDecimal.ZERO)
+                .totalFees(BigDecimal.ZERO)
+                .numberOfTransactions(0)
+                .build())));
+  }
+
+  /**
+   * Balance before a movement, from the balance it left and its amount.
+   */
+  private BigDecimal openingBalance(AccountTransactions first) {
+    BigDecimal balance = Optional.ofNullable(first.getBalanceAfterMovement())
+        .orElse(BigDecimal.ZERO);
+    BigDecimal amount = Optional.ofNullable(first.getAmount()).orElse(BigDecimal.ZERO);
+    return first.getType() == TransactionType.deposit
+        ? balance.subtract(amount)
+        : balance.add(amount);
+  }
+
+  /**
+   * The balance of a month without movements is the current one for the current month, and
+   * otherwise the one left by the last movement before the month. Transactions are archived
+   * oldest first, so the archive is only read when the ledger holds nothing before the month.
+   */
+  private Mono<BigDecimal> openingBalanceWithoutMovements(BankAccount account, YearMonth month,
+      LocalDateTime from) {
+    if (month.equals(YearMonth.now())) {
+      return Mono.just(Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO));
+    }
+    return transactionLedger.findLastBefore(account.getId(), from)
+        .switchIfEmpty(Mono.defer(() -> transactionArchive.findByAccountId(account.getId(),
+                ConcurrentHashMap.newKeySet())
+            .filter(transaction -> transaction.getCreatedAt().isBefore(from))
+            .takeLast(1)
+            .next()))
+        .mapNotNull(AccountTransactions::getBalanceAfterMovement)
+        .defaultIfEmpty(BigDecimal.ZERO);
+  }
+}
@@ -1,5 +1,7 @@
 package com.nttbank.microservices.accountservice.service;
 
+import com.nttbank.microservices.accountservice.dto.AccountMembersDTO;
+import com.nttbank.microservices.accountservice.dto.BankAccountPatchDTO;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.model.response.CommissionsReportResponse;
@@ -20,10 +22,14 @@ public interface BankAccountService {
 
   Mono<BankAccount> findById(String accountId);
 
+  Mono<String> findEntityTag(String accountId);
+
   Mono<BankAccount> save(BankAccount t);
 
   Mono<BankAccount> update(BankAccount t);
 
+  Mono<BankAccount> patch(String accountId, BankAccountPatchDTO patch);
+
   Mono<Void> delete(String accountId);
 
   Mono<AccountTransactions> withdraw(String accountId, BigDecimal amount);
@@ -40,8 +46,12 @@ public interface BankAccountService {
 
   Mono<BankAccount> deleteHolder(String accountId, String holderId);
 
+  Mono<BankAccount> updateMembers(String accountId, AccountMembersDTO members);
+
   Flux<AccountTransactions> findAccountTransactions(String accountId);
 
+  Mono<String> findLatestTransactionId(String accountId);
+
   Mono<CommissionsReportResponse> generateReportCommissionsProduct(LocalDate startDate,
       LocalDate endDate, String productName);
 }
@@ -1,6 +1,8 @@
 package com.nttbank.microservices.accountservice.service;
 
+import com.nttbank.microservices.accountservice.exception.DomainException;
 import com.nttbank.microservices.accountservice.proxy.openfeign.CloudGatewayFeign;
+import com.nttbank.microservices.accountservice.proxy.openfeign.GatewayCallGuard;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -14,10 +16,12 @@ import reactor.core.publisher.Mono;
 public class CreditCardService {
 
   private final CloudGatewayFeign feignCreditCard;
+  private final GatewayCallGuard gatewayCallGuard;
 
   public Mono<Long> totalActiveCreditsCardsByCustomer(String customerId, String status) {
-    return feignCreditCard.totalActiveCreditCardsByCustomer(customerId, status)
-        .onErrorResume(e -> {
+    return gatewayCallGuard.guard(GatewayCallGuard.CREDIT_CARD_OPERATION, true,
+            () -> feignCreditCard.totalActiveCreditCardsByCustomer(customerId, status))
+        .onErrorResume(e -> !(e instanceof DomainException), e -> {
           log.error("Error retrieving credit cards info from customer: {}", e.getMessage());
           return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
               "Error retrieving credit cards info from customer :" + e.getMessage(), e));
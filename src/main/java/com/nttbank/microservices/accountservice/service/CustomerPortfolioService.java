@@ -0,0 +1,192 @@
+package com.nttbank.microservices.accountservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.response.AccountSummaryResponse;
+import com.nttbank.microservices.accountservice.model.response.AccountTotalsResponse;
+import com.nttbank.microservices.accountservice.model.response.CustomerPortfolioResponse;
+import com.nttbank.microservices.accountservice.repo.IBankAccountCustomRepoImpl;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class responsible for the portfolio of a customer: every account the customer owns or is
+ * a holder or signer of, with the totals by type and status. The accounts and the totals come from
+ * one aggregation whose {@code $or} is served by the {@code customer_idx}, {@code holders_idx} and
+ * {@code signers_idx} indexes, instead of one request per account.
+ *
+ * <p>Portfolios may be cached for {@code account.nttbank.portfolio.cache-ttl-ms}, for dashboards
+ * reloading often; the cache is disabled with the default of zero.
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerPortfolioService {
+
+  public static final String OWNER_ROLE = "owner";
+  public static final String HOLDER_ROLE = "holder";
+  public static final String SIGNER_ROLE = "signer";
+
+  private static final String CUSTOMER_ID_FIELD = "customerId";
+  private static final String HOLDERS_FIELD = "lstHolders";
+  private static final String SIGNERS_FIELD = "lstSigners";
+  private static final String ACCOUNT_TYPE_FIELD = "accountType";
+  private static final String STATUS_FIELD = "status";
+  private static final String BALANCE_FIELD = "balance";
+  private static final String CREATED_AT_FIELD = "createdAt";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final StripedBalances stripedBalances;
+
+  private AsyncCache<String, CustomerPortfolioResponse> portfolios;
+
+  @Value("${account.nttbank.portfolio.cache-ttl-ms:0}")
+  private long cacheTtlMs;
+  @Value("${account.nttbank.portfolio.cache-size:10000}")
+  private long cacheSize;
+
+  @PostConstruct
+  public void init() {
+    if (cacheTtlMs > 0) {
+      portfolios = Caffeine.newBuilder()
+          .maximumSize(cacheSize)
+          .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+          .buildAsync();
+    }
+  }
+
+  /**
+   * Returns the portfolio of a customer.
+   *
+   * @param customerId the id of the customer.
+   * @return the portfolio, with no accounts when the customer has none.
+   */
+  public Mono<CustomerPortfolioResponse> findPortfolio(String customerId) {
+    if (portfolios == null) {
+      return aggregate(customerId);
+    }
+    return Mono.fromFuture(portfolios.get(customerId,
+        (id, executor) -> aggregate(id).toFuture()), true);
+  }
+
+  private Mono<CustomerPortfolioResponse> aggregate(String customerId) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(new Criteria().orOperator(
+            Criteria.where(CUSTOMER_ID_FIELD).is(customerId),
+            Criteria.where(HOLDERS_FIELD).is(customerId),
+            Criteria.where(SIGNERS_FIELD).is(customerId))),
+        context -> new Document("$facet", new Document()
+            .append("accounts", accountStages(customerId))
+            .append("totals", totalsStages())));
+    return mongoTemplate.aggregate(aggregation, BankAccount.class,
+            CustomerPortfolioResponse.class)
+        .next()
+        .defaultIfEmpty(new CustomerPortfolioResponse())
+        .flatMap(this::withStripedBalances)
+        .map(portfolio -> {
+          portfolio.setCustomerId(customerId);
+          portfolio.setAccounts(Optional.ofNullable(portfolio.getAccounts()).orElse(List.of()));
+          portfolio.setTotals(Optional.ofNullable(portfolio.getTotals()).orElse(List.of()));
+          portfolio.setGeneratedAt(LocalDateTime.now());
+          return portfolio;
+        });
+  }
+
+  /**
+   * Stages projecting each account to its summary. The role is the strongest one the customer has
+   * on the account, owner before holder before signer.
+   */
+  private static List<Document> accountStages(String customerId) {
+    Document role = new Document("$cond", List.of(
+        new Document("$eq", List.of("$" + CUSTOMER_ID_FIELD, customerId)),
+        OWNER_ROLE,
+        new Document("$cond", List.of(
+            new Document("$in", List.of(customerId,
+                new Document("$ifNull", List.of("$" + HOLDERS_FIELD, List.of())))),
+            HOLDER_ROLE,
+            SIGNER_ROLE))));
+    return List.of(
+        new Document("$sort", new Document(CREATED_AT_FIELD, 1)
+            .append(IBankAccountCustomRepoImpl.ID_FIELD, 1)),
+        new Document("$project", new Document(ACCOUNT_TYPE_FIELD, 1)
+            .append(STATUS_FIELD, 1)
+            .append(BALANCE_FIELD, decimalBalance())
+            .append("role", role)));
+  }
+
+  /**
+   * Stages grouping the accounts by type and status. Balances are stored as strings, so they are
+   * converted before being added.
+   */
+  private static List<Document> totalsStages() {
+    return List.of(
+        new Document("$group", new Document(IBankAccountCustomRepoImpl.ID_FIELD,
+            new Document(ACCOUNT_TYPE_FIELD, "$" + ACCOUNT_TYPE_FIELD)
+                .append(STATUS_FIELD, "$" + STATUS_FIELD))
+            .append("count", new Document("$sum", 1))
+            .append(BALANCE_FIELD, new Document("$sum", decimalBalance()))),
+        new Document("$project", new Document(IBankAccountCustomRepoImpl.ID_FIELD, 0)
+            .append(ACCOUNT_TYPE_FIELD, "$_id." + ACCOUNT_TYPE_FIELD)
+            .append(STATUS_FIELD, "$_id." + STATUS_FIELD)
+            .append("count", 1)
+            .append(BALANCE_FIELD, 1)),
+        new Document("$sort", new Document(ACCOUNT_TYPE_FIELD, 1).append(STATUS_FIELD, 1)));
+  }
+
+  private static Document decimalBalance() {
+    return new Document("$toDecimal",
+        new Document("$ifNull", List.of("$" + BALANCE_FIELD, Decimal128.POSITIVE_ZERO)));
+  }
+
+  /**
+   * Replaces the balance stored on the striped accounts, which is not kept up to date, with the
+   * sum of their slots, and moves the totals of their type and status by the same difference.
+   */
+  private Mono<CustomerPortfolioResponse> withStripedBalances(
+      CustomerPortfolioResponse portfolio) {
+    List<AccountSummaryResponse> striped = Optional.ofNullable(portfolio.getAccounts())
+        .orElse(List.of()).stream()
+        .filter(account -> stripedBalances.isStriped(account.getId()))
+        .toList();
+    if (striped.isEmpty()) {
+      return Mono.just(portfolio);
+    }
+    List<AccountTotalsResponse> totals = new ArrayList<>(
+        Optional.ofNullable(portfolio.getTotals()).orElse(List.of()));
+    return Flux.fromIterable(striped)
+        .concatMap(account -> stripedBalances.balance(account.getId())
+            .doOnNext(balance -> {
+              BigDecimal stored = Optional.ofNullable(account.getBalance())
+                  .orElse(BigDecimal.ZERO);
+              totals.stream()
+                  .filter(total -> Objects.equals(total.getAccountType(),
+                      account.getAccountType())
+                      && total.getStatus() == account.getStatus())
+                  .findFirst()
+                  .ifPresent(total -> total.setBalance(
+                      total.getBalance().add(balance.subtract(stored))));
+              account.setBalance(balance);
+            }))
+        .then(Mono.fromSupplier(() -> {
+          portfolio.setTotals(totals);
+          return portfolio;
+        }));
+  }
+}
@@ -1,7 +1,9 @@
 package com.nttbank.microservices.accountservice.service;
 
+import com.nttbank.microservices.accountservice.exception.DomainException;
 import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
 import com.nttbank.microservices.accountservice.proxy.openfeign.CloudGatewayFeign;
+import com.nttbank.microservices.accountservice.proxy.openfeign.GatewayCallGuard;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -20,14 +22,16 @@ import reactor.core.publisher.Mono;
 public class CustomerService {
 
   private final CloudGatewayFeign feignCustomer;
+  private final GatewayCallGuard gatewayCallGuard;
 
   public Flux<CustomerResponse> getAllCustomers() {
     return feignCustomer.getAllCustomers();
   }
 
   public Mono<CustomerResponse> findCustomerById(String customerId) {
-    return feignCustomer.findCustomerById(customerId)
-        .onErrorResume(e -> {
+    return gatewayCallGuard.guard(GatewayCallGuard.CUSTOMER_OPERATION, true,
+            () -> feignCustomer.findCustomerById(customerId))
+        .onErrorResume(e -> !(e instanceof DomainException), e -> {
           log.error("Error retrieving customer data: {}", e.getMessage());
           return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
               "Error retrieving customer data: " + e.getMessage(), e));
@@ -0,0 +1,130 @@
+package com.nttbank.microservices.accountservice.service;
+
+import com.nttbank.microservices.accountservice.archive.TransactionArchive;
+import com.nttbank.microservices.accountservice.dto.TransactionExportRequest;
+import com.nttbank.microservices.accountservice.export.TransactionExportCursor;
+import com.nttbank.microservices.accountservice.export.TransactionExportFormat;
+import com.nttbank.microservices.accountservice.export.TransactionExportWriter;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
+import com.nttbank.microservices.accountservice.util.Constants;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.bson.RawBsonDocument;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service class responsible for the bulk export of account transactions. Rows are read from a
+ * Mongo cursor as raw documents and encoded chunk by chunk into the response buffers, pulled by
+ * the demand of the client, so an export runs in constant memory whatever its size. Archived
+ * transactions are exported first, since they are older than the ones still in Mongo. Exports run
+ * on their own threads and only a few may run at once, so they do not take resources from the
+ * online traffic.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+  private final TransactionLedger transactionLedger;
+  private final TransactionArchive transactionArchive;
+  private final MeterRegistry meterRegistry;
+
+  private final AtomicInteger activeExports = new AtomicInteger();
+
+  private Scheduler exportScheduler;
+
+  @Value("${account.nttbank.export.max-concurrent:2}")
+  private int maxConcurrentExports;
+  @Value("${account.nttbank.export.batch-size:1000}")
+  private int batchSize;
+  @Value("${account.nttbank.export.rows-per-chunk:256}")
+  private int rowsPerChunk;
+  @Value("${account.nttbank.export.chunk-capacity:65536}")
+  private int chunkCapacity;
+
+  @PostConstruct
+  public void init() {
+    exportScheduler = Schedulers.newParallel("transaction-export", maxConcurrentExports);
+    meterRegistry.gauge("account.transaction.export.active", activeExports);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    Optional.ofNullable(exportScheduler).ifPresent(Scheduler::dispose);
+  }
+
+  /**
+   * Checks the request and takes an export permit, then returns the export to stream. Invalid
+   * requests and the export limit fail the returned {@link Mono}, before any response is
+   * committed, so that they reach the client with their own status.
+   *
+   * @param request       the export parameters.
+   * @param bufferFactory the factory of the response buffers.
+   * @return the encoded export, which gives the permit back once it ends or is cancelled.
+   */
+  public Mono<Flux<DataBuffer>> export(TransactionExportRequest request,
+      DataBufferFactory bufferFactory) {
+    return Mono.defer(() -> {
+      if (request.getStartDate().isAfter(request.getEndDate())) {
+        return Mono.error(new IllegalArgumentException("Start date must be before end date."));
+      }
+      TransactionExportCursor after = Optional.ofNullable(request.getAfter())
+          .map(TransactionExportCursor::parse)
+          .orElse(null);
+      if (activeExports.incrementAndGet() > maxConcurrentExports) {
+        activeExports.decrementAndGet();
+        return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+            Constants.EXPORT_LIMIT_REACHED));
+      }
+      return Mono.just(Flux.using(
+              () -> new TransactionExportWriter(request.getFormat(), bufferFactory, chunkCapacity,
+                  request.isGzip()),
+              writer -> Flux.concat(
+                  after == null ? Mono.fromCallable(writer::writeHeader) : Mono.<DataBuffer>empty(),
+                  findTransactions(request, after)
+                      .buffer(rowsPerChunk)
+                      .publishOn(exportScheduler, 2)
+                      .map(writer::writeRows),
+                  Mono.fromCallable(writer::finish)),
+              TransactionExportWriter::close)
+          .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+          .doOnError(e -> log.error("Transactions export failed: {}", e.getMessage()))
+          .doFinally(signal -> activeExports.decrementAndGet()));
+    });
+  }
+
+  /**
+   * Reads both tiers in export order. The transactions of an archive member not confirmed yet may
+   * be in both tiers, so they are only taken from the archive.
+   */
+  private Flux<RawBsonDocument> findTransactions(TransactionExportRequest request,
+      TransactionExportCursor after) {
+    LocalDateTime from = request.getStartDate().atStartOfDay();
+    LocalDateTime to = request.getEndDate().plusDays(1).atStartOfDay();
+    Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+    return Flux.concat(
+        transactionArchive.findForExport(from, to, request.getProductName(), after, pendingIds),
+        transactionLedger.findForExport(from, to, request.getProductName(), after, batchSize)
+            .filter(transaction -> pendingIds.isEmpty() || !pendingIds.contains(
+                TransactionExportCursor.idText(
+                    transaction.get(TransactionExportFormat.ID_FIELD)))));
+  }
+}
@@ -3,7 +3,20 @@ package com.nttbank.microservices.accountservice.service.impl;
 import com.nttbank.microservices.accountservice.action.IDepositable;
 import com.nttbank.microservices.accountservice.action.IOpenable;
 import com.nttbank.microservices.accountservice.action.IWithdrawable;
+import com.nttbank.microservices.accountservice.analytics.ProductPositions;
+import com.nttbank.microservices.accountservice.archive.TransactionArchive;
+import com.nttbank.microservices.accountservice.balance.SlotTotals;
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.batch.GroupCommit;
+import com.nttbank.microservices.accountservice.cache.BankAccountNearCache;
+import com.nttbank.microservices.accountservice.cache.CommissionsReportCache;
+import com.nttbank.microservices.accountservice.dto.AccountMembersDTO;
+import com.nttbank.microservices.accountservice.dto.BankAccountPatchDTO;
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.exception.TransactionRejectedException;
 import com.nttbank.microservices.accountservice.factory.BackAccountFactory;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
 import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
@@ -11,27 +24,43 @@ import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionS
 import com.nttbank.microservices.accountservice.model.entity.TransactionType;
 import com.nttbank.microservices.accountservice.model.response.CommissionsReportResponse;
 import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
-import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
 import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
 import com.nttbank.microservices.accountservice.service.BankAccountService;
 import com.nttbank.microservices.accountservice.service.CreditCardService;
 import com.nttbank.microservices.accountservice.service.CustomerService;
 import com.nttbank.microservices.accountservice.util.AccountUtils;
 import com.nttbank.microservices.accountservice.util.Constants;
+import com.nttbank.microservices.accountservice.util.EntityTagUtils;
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.util.retry.Retry;
 
 /**
  * Implementation of {@link BankAccountService} to handle business logic for bank accounts. This
@@ -43,32 +72,104 @@ import reactor.core.publisher.Mono;
 public class BankAccountServiceImpl implements BankAccountService {
 
   private final IBankAccountRepo accountRepo;
-  private final IAccountTransactionRepo transactionRepo;
+  private final TransactionLedger transactionLedger;
   private final CustomerService customerService;
   private final CreditCardService creditCardService;
   private final TransactionalOperator transactionalOperator;
+  private final BankAccountNearCache nearCache;
+  private final TransactionArchive transactionArchive;
+  private final StripedBalances stripedBalances;
+  private final ProductPositions productPositions;
+  private final CommissionsReportCache commissionsReportCache;
+
+  private static final int MAX_CONCURRENT_CUSTOMER_LOOKUPS = 16;
+  private static final String BALANCE_FIELD = "balance";
+  private static final String SUMMARY_FIELD = "monthlyTransactionSummary";
+  private static final Set<String> VERSIONED_PATCH_FIELDS = Set.of(BALANCE_FIELD, SUMMARY_FIELD);
+
+  @Value("${account.nttbank.patch.max-retries:3}")
+  private long patchMaxRetries;
+
+  @Value("${account.nttbank.cache.consistent-movements:true}")
+  private boolean consistentMovements;
+
+  @Value("${account.nttbank.movement.max-retries:3}")
+  private long movementMaxRetries;
+
+  @Value("${account.nttbank.movement.retry-backoff-ms:20}")
+  private long movementRetryBackoffMs;
+
+  @Value("${account.nttbank.deposit-batch.enabled:false}")
+  private boolean depositBatching;
+
+  @Value("${account.nttbank.deposit-batch.window-ms:2}")
+  private long depositBatchWindowMs;
+
+  @Value("${account.nttbank.deposit-batch.max-size:64}")
+  private int depositBatchMaxSize;
+
+  @Value("${account.nttbank.deposit-batch.max-retries:3}")
+  private long depositBatchMaxRetries;
+
+  private GroupCommit<BigDecimal, AccountTransactions> depositGroupCommit;
+
+  /**
+   * Builds the group commit of the deposits, which coalesces the deposits to one account arriving
+   * within {@code account.nttbank.deposit-batch.window-ms} into a single write. Deposits are only
+   * batched once {@code account.nttbank.deposit-batch.enabled} is set.
+   */
+  @PostConstruct
+  public void init() {
+    depositGroupCommit = new GroupCommit<>(Duration.ofMillis(depositBatchWindowMs),
+        depositBatchMaxSize, this::writeDeposits);
+  }
 
   @Override
   public Mono<BankAccount> save(BankAccount account) {
     log.info("Initiating the open bank account process.");
-    return customerService.findCustomerById(account.getCustomerId())
-        .flatMap(customer -> {
-          BankAccount bankAccount = BackAccountFactory.createAccount(account.getAccountType(),
-              account);
+    return Mono.fromCallable(
+            () -> BackAccountFactory.createAccount(account.getAccountType(), account))
+        .flatMap(bankAccount -> {
           if (!(bankAccount instanceof IOpenable)) {
             log.warn(Constants.INVALID_ACCOUNT_TYPE);
             return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
                 Constants.INVALID_ACCOUNT_TYPE));
           }
-          return accountRepo.countByCustomerIdAndAccountTypeAndStatus(customer.getId(),
-                  bankAccount.getAccountType(), AccountStatus.active.name())
-              .flatMap(totalAccounts -> {
-                ((IOpenable) bankAccount).openAccount(totalAccounts, customer.getType());
-                return hasLeastOneCreditCard(bankAccount, customer.getProfile())
-                    .flatMap(b -> {
-                      return accountRepo.save(bankAccount);
-                    });
-              });
+          return validateOpening(bankAccount)
+              .flatMap(customer -> accountRepo.save(bankAccount))
+              .flatMap(saved -> productPositions.opened(saved).thenReturn(saved));
+        });
+  }
+
+  /**
+   * Validation stage of the open account process. The customer lookup, the count of active
+   * accounts of the same type and, when the account type may require it, the count of active
+   * credit cards only depend on the requested account, so they are fired concurrently and the
+   * stage fails as soon as one of them fails. The credit card result is kept as a signal and only
+   * evaluated once the customer profile confirms it is required.
+   *
+   * @param bankAccount the account to be opened.
+   * @return the customer owning the account when every rule passes.
+   */
+  private Mono<CustomerResponse> validateOpening(BankAccount bankAccount) {
+    String customerId = bankAccount.getCustomerId();
+    String accountType = bankAccount.getAccountType();
+
+    Mono<CustomerResponse> customerMono = customerService.findCustomerById(customerId);
+    Mono<Long> totalAccountsMono = accountRepo.countByCustomerIdAndAccountTypeAndStatus(
+        customerId, accountType, AccountStatus.active.name());
+    Mono<Signal<Long>> activeCreditCardsMono =
+        AccountUtils.MAY_CHECK_CUSTOMER_CREDIT_CARD.test(accountType)
+            ? creditCardService.totalActiveCreditsCardsByCustomer(customerId,
+                AccountUtils.CREDIT_CARD_STATUS_ACTIVE).materialize()
+            : Mono.just(Signal.<Long>complete());
+
+    return Mono.zip(customerMono, totalAccountsMono, activeCreditCardsMono)
+        .flatMap(validation -> {
+          CustomerResponse customer = validation.getT1();
+          ((IOpenable) bankAccount).openAccount(validation.getT2(), customer.getType());
+          return hasLeastOneCreditCard(bankAccount, customer.getProfile(), validation.getT3())
+              .thenReturn(customer);
         });
   }
 
@@ -77,14 +178,16 @@ public class BankAccountServiceImpl implements BankAccountService {
     return Mono.just(b);
   }
 
-  private Mono<BankAccount> hasLeastOneCreditCard(BankAccount bankAccount, String customerProfile) {
+  private Mono<BankAccount> hasLeastOneCreditCard(BankAccount bankAccount, String customerProfile,
+      Signal<Long> activeCreditCards) {
     if (!AccountUtils.CHECK_CUSTOMER_CREDIT_CARD
         .test(bankAccount.getAccountType(), customerProfile)) {
       return Mono.just(bankAccount);
     }
     log.info("Checking if the customer has at least one active credit card.");
-    return creditCardService.totalActiveCreditsCardsByCustomer(bankAccount.getCustomerId(),
-            AccountUtils.CREDIT_CARD_STATUS_ACTIVE)
+    return Mono.just(activeCreditCards)
+        .<Long>dematerialize()
+        .defaultIfEmpty(0L)
         .flatMap(totalActiveCredits -> {
           if (totalActiveCredits == 0) {
             log.info(Constants.NO_ACTIVE_CREDIT_CARDS);
@@ -97,33 +200,150 @@ public class BankAccountServiceImpl implements BankAccountService {
 
   @Override
   public Mono<BankAccount> update(BankAccount t) {
-    return accountRepo.save(t);
+    return evictAfter(t.getId(), accountRepo.save(t));
+  }
+
+  /**
+   * Writes only the fields present in the patch as a single {@code $set}. When the patch carries
+   * the version it was based on, the update is rejected with a conflict if the account changed
+   * since. Otherwise the current version is read with a projection and the conditional update is
+   * retried up to the configured number of times when a concurrent write wins the race.
+   *
+   * <p>The balance and the monthly transaction summary are moved by every deposit and withdrawal,
+   * so overwriting them without knowing the version would silently erase concurrent movements; a
+   * patch of those fields without a version is rejected with {@code 428 Precondition Required}.
+   */
+  @Override
+  public Mono<BankAccount> patch(String accountId, BankAccountPatchDTO patch) {
+    log.info("Initiating the patch account process.");
+    Map<String, Object> fields = changedFields(patch);
+    if (fields.isEmpty()) {
+      return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          Constants.NO_FIELDS_TO_UPDATE));
+    }
+    if (patch.getVersion() == null
+        && fields.keySet().stream().anyMatch(VERSIONED_PATCH_FIELDS::contains)) {
+      return Mono.error(new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+          Constants.ACCOUNT_VERSION_REQUIRED));
+    }
+    if (patch.getVersion() != null) {
+      return evictAfter(accountId, accountRepo.setFields(accountId, patch.getVersion(), fields)
+          .switchIfEmpty(Mono.defer(() -> accountRepo.existsById(accountId)
+              .flatMap(exists -> Boolean.TRUE.equals(exists)
+                  ? Mono.<BankAccount>error(versionConflict(accountId))
+                  : Mono.<BankAccount>empty()))));
+    }
+    return evictAfter(accountId, Mono.defer(() -> accountRepo.findVersionById(accountId)
+            .flatMap(version -> accountRepo.setFields(accountId, version, fields)
+                .switchIfEmpty(Mono.error(() -> versionConflict(accountId)))))
+        .retryWhen(Retry.max(patchMaxRetries)
+            .filter(OptimisticLockingFailureException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure())));
+  }
+
+  private static OptimisticLockingFailureException versionConflict(String accountId) {
+    return new OptimisticLockingFailureException(
+        String.format(Constants.ACCOUNT_VERSION_CONFLICT, accountId));
+  }
+
+  private static Map<String, Object> changedFields(BankAccountPatchDTO patch) {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    BiConsumer<String, Object> putIfPresent = (field, value) -> {
+      if (value != null) {
+        fields.put(field, value);
+      }
+    };
+    putIfPresent.accept("accountType", patch.getAccountType());
+    putIfPresent.accept("customerId", patch.getCustomerId());
+    putIfPresent.accept(BALANCE_FIELD, patch.getBalance());
+    putIfPresent.accept("maxMonthlyTrans", patch.getMaxMonthlyTrans());
+    putIfPresent.accept("maintenanceFee", patch.getMaintenanceFee());
+    putIfPresent.accept("transactionFee", patch.getTransactionFee());
+    putIfPresent.accept("allowedDayOperation", patch.getAllowedDayOperation());
+    putIfPresent.accept("withdrawAmountMax", patch.getWithdrawAmountMax());
+    putIfPresent.accept(Constants.SIGNERS_FIELD, patch.getLstSigners());
+    putIfPresent.accept(Constants.HOLDERS_FIELD, patch.getLstHolders());
+    putIfPresent.accept(SUMMARY_FIELD, patch.getMonthlyTransactionSummary());
+    return fields;
   }
 
   @Override
   public Flux<BankAccount> findAll() {
-    return accountRepo.findAll();
+    return accountRepo.findAll().concatMap(this::withStripedBalance);
   }
 
   @Override
   public Mono<BankAccount> findById(String accountId) {
-    return accountRepo.findById(accountId);
+    return nearCache.get(accountId, accountRepo::findById).flatMap(this::withStripedBalance);
+  }
+
+  /**
+   * Sets the balance of a striped account from its slots; other accounts are returned as read.
+   */
+  private Mono<BankAccount> withStripedBalance(BankAccount account) {
+    return stripedBalances.isStriped(account.getId())
+        ? stripedBalances.withBalance(account)
+        : Mono.just(account);
+  }
+
+  /**
+   * Reads an account either through the near cache or, for strongly consistent paths, straight
+   * from the database.
+   */
+  private Mono<BankAccount> findAccount(String accountId, boolean consistent) {
+    return consistent ? accountRepo.findById(accountId) : nearCache.get(accountId,
+        accountRepo::findById);
+  }
+
+  /**
+   * Evicts the account from the near cache once a write on it completes, fails or is cancelled,
+   * so the next read on this node sees the write without waiting for the change stream. Writes
+   * made in a transaction are wrapped as a whole, so the entry is only evicted after the commit
+   * and a read on this node in the meantime cannot cache the document as it was before it.
+   */
+  private <T> Mono<T> evictAfter(String accountId, Mono<T> write) {
+    return write.doFinally(signal -> nearCache.evict(accountId));
+  }
+
+  /**
+   * Builds the entity tag of an account without reading the whole document. The tag of a striped
+   * account also holds the cached count of writes to its slots, so that it changes with every
+   * movement as the one built from {@link #findById(String)} does.
+   */
+  @Override
+  public Mono<String> findEntityTag(String accountId) {
+    return accountRepo.findVersionById(accountId)
+        .flatMap(version -> (stripedBalances.isStriped(accountId)
+            ? stripedBalances.changes(accountId)
+            : Mono.<Long>empty())
+            .map(changes -> EntityTagUtils.toAccountTag(version, changes))
+            .defaultIfEmpty(EntityTagUtils.toAccountTag(version, null)));
   }
 
   @Override
   public Mono<Void> delete(String accountId) {
-    return accountRepo.deleteById(accountId);
+    return evictAfter(accountId, accountRepo.removeById(accountId)
+        .flatMap(this::withStripedBalance)
+        .flatMap(productPositions::closed));
   }
 
 
   @Override
   public Mono<AccountTransactions> withdraw(String accountId, BigDecimal amount) {
     log.info("Initiating the withdraw process.");
-    return accountRepo.findById(accountId)
+    Mono<AccountTransactions> withdrawal = Mono.defer(
+            () -> findAccount(accountId, consistentMovements))
+        .flatMap(b -> stripedBalances.isStriped(accountId)
+            ? stripedBalances.withExactBalance(b)
+            : Mono.just(b))
         .flatMap(b -> Mono.just(BackAccountFactory.createAccount(b.getAccountType(), b)))
         .flatMap(b -> {
           if (b instanceof IWithdrawable) {
             ((IWithdrawable) b).withdraw(amount);
+            if (stripedBalances.isStriped(accountId)) {
+              return moveOnSlots(b, amount.setScale(2, RoundingMode.HALF_UP),
+                  TransactionType.withdrawal);
+            }
             return addOneTransaction(b)
                 .flatMap(bankAccount -> {
                   return saveTransaction(bankAccount, amount.setScale(2, RoundingMode.HALF_UP),
@@ -139,22 +359,32 @@ public class BankAccountServiceImpl implements BankAccountService {
                       });
                 });
           }
-          return Mono.error(
-              new IllegalStateException("You cannot withdraw from this account: " + b.getId()));
+          return Mono.error(new TransactionRejectedException(ErrorCode.OPERATION_NOT_ALLOWED,
+              "You cannot withdraw from this account: " + b.getId()));
         })
-        .as(transactionalOperator::transactional)
-        .onErrorResume(e -> {
-          return Mono.error(new IllegalStateException(e.getMessage(), e));
-        });
+        .as(transactionalOperator::transactional);
+    return productPositions.tracked(evictAfter(accountId, withdrawal)
+            .retryWhen(movementRetry()))
+        .onErrorMap(BankAccountServiceImpl::isUnexpected,
+            e -> new IllegalStateException(e.getMessage(), e));
   }
 
   public Mono<AccountTransactions> deposit(String accountId, BigDecimal amount) {
     log.info("Initiating the deposit process.");
-    return accountRepo.findById(accountId)
+    if (depositBatching && !stripedBalances.isStriped(accountId)) {
+      return depositGroupCommit.submit(accountId, amount)
+          .onErrorMap(BankAccountServiceImpl::isUnexpected,
+              e -> new IllegalStateException(e.getMessage(), e));
+    }
+    return productPositions.tracked(Mono.defer(() -> findAccount(accountId, consistentMovements))
         .flatMap(b -> Mono.just(BackAccountFactory.createAccount(b.getAccountType(), b)))
         .flatMap(b -> {
           if (b instanceof IDepositable) {
             ((IDepositable) b).deposit(amount);
+            if (stripedBalances.isStriped(accountId)) {
+              return moveOnSlots(b, amount.setScale(2, RoundingMode.HALF_UP),
+                  TransactionType.deposit);
+            }
             return addOneTransaction(b)
                 .flatMap(bankAccount -> {
                   return saveTransaction(bankAccount, amount.setScale(2, RoundingMode.HALF_UP),
@@ -164,58 +394,169 @@ public class BankAccountServiceImpl implements BankAccountService {
                             amount.setScale(2, RoundingMode.HALF_UP))
                             .flatMap(transaction -> {
                               transactionOne.setBalanceAfterMovement(bankAccount.getBalance());
-                              return accountRepo.save(bankAccount).thenReturn(transaction);
+                              return evictAfter(bankAccount.getId(),
+                                  accountRepo.save(bankAccount)).thenReturn(transaction);
                             })
                             .thenReturn(transactionOne);
                       });
                 });
           }
-          return Mono.error(
-              new IllegalStateException("You cannot deposit to this account: " + b.getId()));
+          return Mono.error(new TransactionRejectedException(ErrorCode.OPERATION_NOT_ALLOWED,
+              "You cannot deposit to this account: " + b.getId()));
         })
-        .onErrorResume(e -> {
-          return Mono.error(new IllegalStateException(e.getMessage(), e));
-        });
+        .as(transactionalOperator::transactional)
+        .retryWhen(movementRetry()))
+        .onErrorMap(BankAccountServiceImpl::isUnexpected,
+            e -> new IllegalStateException(e.getMessage(), e));
   }
 
 
+  /**
+   * Writes a batch of deposits to one account. The account is read once and every deposit is
+   * applied to it in arrival order as a single deposit would be, counted in the monthly summary
+   * and charged the fee over the monthly limit; then the account is saved once and the movements
+   * are appended together. A deposit the account rejects fails alone, and the batch is retried
+   * from the read when a concurrent write changed the account.
+   */
+  private Mono<List<Signal<AccountTransactions>>> writeDeposits(String accountId,
+      List<BigDecimal> amounts) {
+    return productPositions.tracked(Mono.defer(() -> evictAfter(accountId,
+            accountRepo.findById(accountId)
+                .map(b -> BackAccountFactory.createAccount(b.getAccountType(), b))
+                .flatMap(b -> b instanceof IDepositable depositable
+                    ? applyDeposits(b, depositable, amounts)
+                    : rejectDeposits(b, amounts.size()))
+                .as(transactionalOperator::transactional))))
+        .retryWhen(Retry.max(depositBatchMaxRetries)
+            .filter(OptimisticLockingFailureException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+        .defaultIfEmpty(Collections.nCopies(amounts.size(),
+            Signal.<AccountTransactions>complete()));
+  }
+
+  private static Mono<List<Signal<AccountTransactions>>> rejectDeposits(BankAccount account,
+      int count) {
+    return Mono.just(Collections.nCopies(count, Signal.<AccountTransactions>error(
+        new TransactionRejectedException(ErrorCode.OPERATION_NOT_ALLOWED,
+            "You cannot deposit to this account: " + account.getId()))));
+  }
+
+  private Mono<List<Signal<AccountTransactions>>> applyDeposits(BankAccount account,
+      IDepositable depositable, List<BigDecimal> amounts) {
+    List<Signal<AccountTransactions>> results = new ArrayList<>(amounts.size());
+    List<AccountTransactions> movements = new ArrayList<>();
+    Map<AccountTransactions, BigDecimal> balancesAfterFee = new IdentityHashMap<>();
+    for (BigDecimal amount : amounts) {
+      try {
+        depositable.deposit(amount);
+      } catch (DomainException e) {
+        results.add(Signal.error(e));
+        continue;
+      }
+      account.setMonthlyTransactionSummary(
+          countTransaction(account.getMonthlyTransactionSummary()));
+      BigDecimal scaled = amount.setScale(2, RoundingMode.HALF_UP);
+      AccountTransactions deposit = newTransaction(account, scaled, TransactionType.deposit);
+      movements.add(deposit);
+      BigDecimal fee = transactionFee(account, scaled);
+      if (account.getMonthlyTransactionSummary().getNumberOfTransactions()
+          >= account.getMaxMonthlyTrans() && fee.signum() != 0) {
+        account.setBalance(account.getBalance().subtract(fee).setScale(2, RoundingMode.HALF_UP));
+        movements.add(newTransaction(account, fee, TransactionType.fee));
+      }
+      balancesAfterFee.put(deposit, account.getBalance());
+      results.add(Signal.next(deposit));
+    }
+    if (movements.isEmpty()) {
+      return Mono.just(results);
+    }
+    return accountRepo.save(account.toBuilder().build())
+        .thenMany(transactionLedger.appendAll(movements))
+        .then(productPositions.moved(account, movements))
+        .then(Mono.fromCallable(() -> {
+          balancesAfterFee.forEach(AccountTransactions::setBalanceAfterMovement);
+          return results;
+        }));
+  }
+
   private Mono<BankAccount> addOneTransaction(BankAccount account) {
+    return Mono.just(account)
+        .map(b -> b.toBuilder()
+            .monthlyTransactionSummary(countTransaction(b.getMonthlyTransactionSummary()))
+            .build());
+  }
+
+  /**
+   * Monthly summary after one more movement, starting a new one when the month changed.
+   */
+  private static MonthlyTransactionSummary countTransaction(MonthlyTransactionSummary current) {
     LocalDateTime now = LocalDateTime.now();
     int currentMonth = now.getMonthValue();
     int currentYear = now.getYear();
+    return Optional.ofNullable(current)
+        .filter(summary ->
+            summary.getMonth() == currentMonth && summary.getYear() == currentYear)
+        .map(summary -> summary.toBuilder()
+            .numberOfTransactions(summary.getNumberOfTransactions() + 1)
+            .build())
+        .orElseGet(() -> MonthlyTransactionSummary.builder()
+            .month(currentMonth)
+            .year(currentYear)
+            .numberOfTransactions(1)
+            .build());
+  }
 
-    return Mono.just(account)
-        .map(b -> {
-          MonthlyTransactionSummary updatedSummary = Optional.ofNullable(
-                  b.getMonthlyTransactionSummary())
-              .filter(summary ->
-                  summary.getMonth() == currentMonth && summary.getYear() == currentYear)
-              .map(summary -> summary.toBuilder()
-                  .numberOfTransactions(summary.getNumberOfTransactions() + 1)
-                  .build())
-              .orElseGet(() -> MonthlyTransactionSummary.builder()
-                  .month(currentMonth)
-                  .year(currentYear)
-                  .numberOfTransactions(1)
-                  .build());
-          return b.toBuilder()
-              .monthlyTransactionSummary(updatedSummary)
-              .build();
+  /**
+   * Movement on a striped account. The slots count the movement along with the balance, and the
+   * fee is charged when their count of the month reaches {@code maxMonthlyTrans}, as for the other
+   * accounts.
+   */
+  private Mono<AccountTransactions> moveOnSlots(BankAccount account, BigDecimal amount,
+      TransactionType type) {
+    Mono<SlotTotals> movement = type == TransactionType.deposit
+        ? stripedBalances.credit(account.getId(), amount)
+        : stripedBalances.debit(account.getId(), amount, true);
+    return movement.flatMap(totals -> {
+      account.setBalance(totals.balance());
+      return saveTransaction(account, amount, type)
+          .flatMap(transaction -> chargeSlotFee(account, amount, totals)
+              .doOnNext(transaction::setBalanceAfterMovement)
+              .thenReturn(transaction));
+    });
+  }
+
+  private Mono<BigDecimal> chargeSlotFee(BankAccount account, BigDecimal amount,
+      SlotTotals totals) {
+    BigDecimal fee = transactionFee(account, amount);
+    if (totals.transactions() < account.getMaxMonthlyTrans() || fee.signum() == 0) {
+      return Mono.just(totals.balance());
+    }
+    return stripedBalances.debit(account.getId(), fee, false)
+        .flatMap(afterFee -> {
+          account.setBalance(afterFee.balance());
+          return saveTransaction(account, fee, TransactionType.fee)
+              .thenReturn(afterFee.balance());
         });
   }
 
+  /**
+   * Fee of a movement over the monthly limit, the {@code transactionFee} percentage of its amount.
+   */
+  private static BigDecimal transactionFee(BankAccount account, BigDecimal amount) {
+    BigDecimal transactionFee = Optional.ofNullable(account.getTransactionFee())
+        .map(fee -> fee.divide(BigDecimal.valueOf(100), 2,
+            RoundingMode.HALF_UP))
+        .orElse(BigDecimal.ZERO);
+    return amount.multiply(transactionFee).setScale(2, RoundingMode.HALF_UP);
+  }
+
   private Mono<BankAccount> checkAndHandleMaxTransactions(BankAccount account, BigDecimal amount) {
 
     return Mono.defer(() -> {
       MonthlyTransactionSummary summary = account.getMonthlyTransactionSummary();
       int maxTransactions = account.getMaxMonthlyTrans();
-      BigDecimal transactionFee = Optional.ofNullable(account.getTransactionFee())
-          .map(fee -> fee.divide(BigDecimal.valueOf(100), 2,
-              RoundingMode.HALF_UP))
-          .orElse(BigDecimal.ZERO);
       if (summary != null && summary.getNumberOfTransactions() >= maxTransactions) {
-        BigDecimal totalAmountWithFee = amount.multiply(transactionFee)
-            .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal totalAmountWithFee = transactionFee(account, amount);
         if (totalAmountWithFee.compareTo(BigDecimal.ZERO) == 0) {
           return Mono.just(account);
         }
@@ -234,7 +575,14 @@ public class BankAccountServiceImpl implements BankAccountService {
   private Mono<AccountTransactions> saveTransaction(BankAccount account, BigDecimal amount,
       TransactionType type) {
     log.info("Saving the {} transaction.", type);
-    return transactionRepo.save(AccountTransactions.builder()
+    return transactionLedger.append(newTransaction(account, amount, type))
+        .flatMap(transaction -> productPositions.moved(account, List.of(transaction))
+            .thenReturn(transaction));
+  }
+
+  private static AccountTransactions newTransaction(BankAccount account, BigDecimal amount,
+      TransactionType type) {
+    return AccountTransactions.builder()
         .customerId(account.getCustomerId())
         .accountId(account.getId())
         .productName(account.getAccountType())
@@ -242,8 +590,7 @@ public class BankAccountServiceImpl implements BankAccountService {
         .amount(amount)
         .type(type)
         .createdAt(LocalDateTime.now())
-        .build()
-    );
+        .build();
   }
 
   @Override
@@ -253,63 +600,121 @@ public class BankAccountServiceImpl implements BankAccountService {
     return withdraw(fromAccountId, amount)
         .flatMap(withdrawVoucher -> deposit(toAccountId, amount)
             .thenReturn(withdrawVoucher))
-        .onErrorResume(
-            e -> Mono.error(
-                new IllegalStateException(e.getMessage(), e)));
+        .onErrorMap(BankAccountServiceImpl::isUnexpected,
+            e -> new IllegalStateException(e.getMessage(), e));
+  }
+
+  /**
+   * Retries a movement from the read of the account when a concurrent write changed its version
+   * in between. The movement runs in a transaction, so a failed attempt leaves nothing behind; once
+   * the retries are exhausted the conflict is reported as is and answered with 409.
+   */
+  private Retry movementRetry() {
+    return Retry.backoff(movementMaxRetries, Duration.ofMillis(movementRetryBackoffMs))
+        .filter(OptimisticLockingFailureException.class::isInstance)
+        .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+  }
+
+  /**
+   * Errors of a movement other than the business ones and the version conflicts, which are mapped
+   * to their own statuses.
+   */
+  private static boolean isUnexpected(Throwable error) {
+    return !(error instanceof DomainException
+        || error instanceof OptimisticLockingFailureException);
   }
 
   @Override
   public Mono<BankAccount> saveSigner(String accountId, String signerId) {
     log.info("Initiating the save signer process.");
-    return accountRepo.findById(accountId)
-        .flatMap(account -> customerService.findCustomerById(signerId)
-            .flatMap(customer -> {
-              AccountUtils.addElementToSet(account, signerId, BankAccount::getLstSigners,
-                  BankAccount::setLstSigners);
-              return accountRepo.save(account);
-            }));
+    return customerService.findCustomerById(signerId)
+        .flatMap(customer -> evictAfter(accountId,
+            accountRepo.addToSet(accountId, Constants.SIGNERS_FIELD, Set.of(signerId))));
   }
 
   @Override
   public Mono<BankAccount> deleteSigner(String accountId, String signerId) {
     log.info("Deleting the signer from the account.");
-    return accountRepo.findById(accountId)
-        .flatMap(account -> customerService.findCustomerById(signerId)
-            .flatMap(customer -> {
-              AccountUtils.removeElementToSet(account, signerId, BankAccount::getLstSigners,
-                  BankAccount::setLstSigners);
-              return accountRepo.save(account);
-            }));
+    return customerService.findCustomerById(signerId)
+        .flatMap(customer -> evictAfter(accountId,
+            accountRepo.pullAll(accountId, Constants.SIGNERS_FIELD, Set.of(signerId))));
   }
 
   @Override
   public Mono<BankAccount> saveHolder(String accountId, String holderId) {
     log.info("Initiating the save holder process.");
-    return accountRepo.findById(accountId)
-        .flatMap(account -> customerService.findCustomerById(holderId)
-            .flatMap(customer -> {
-              AccountUtils.addElementToSet(account, holderId, BankAccount::getLstHolders,
-                  BankAccount::setLstHolders);
-              return accountRepo.save(account);
-            }));
+    return customerService.findCustomerById(holderId)
+        .flatMap(customer -> evictAfter(accountId,
+            accountRepo.addToSet(accountId, Constants.HOLDERS_FIELD, Set.of(holderId))));
   }
 
   @Override
   public Mono<BankAccount> deleteHolder(String accountId, String holderId) {
     log.info("Deleting the holder from the account.");
-    return accountRepo.findById(accountId)
-        .flatMap(account -> customerService.findCustomerById(holderId)
-            .flatMap(customer -> {
-              AccountUtils.removeElementToSet(account, holderId, BankAccount::getLstHolders,
-                  BankAccount::setLstHolders);
-              return accountRepo.save(account);
-            }));
+    return customerService.findCustomerById(holderId)
+        .flatMap(customer -> evictAfter(accountId,
+            accountRepo.pullAll(accountId, Constants.HOLDERS_FIELD, Set.of(holderId))));
   }
 
+  /**
+   * Adds and removes many holders and signers in one call. The customers to be added are validated
+   * concurrently, then every addition and removal is applied with a single atomic update of the
+   * holder and signer arrays, so the changes are never half applied and concurrent edits of the
+   * same account cannot lose entries.
+   */
+  @Override
+  public Mono<BankAccount> updateMembers(String accountId, AccountMembersDTO members) {
+    log.info("Initiating the bulk update of holders and signers.");
+    Set<String> addHolders = Optional.ofNullable(members.getAddHolders()).orElse(Set.of());
+    Set<String> addSigners = Optional.ofNullable(members.getAddSigners()).orElse(Set.of());
+    Set<String> removeHolders = Optional.ofNullable(members.getRemoveHolders()).orElse(Set.of());
+    Set<String> removeSigners = Optional.ofNullable(members.getRemoveSigners()).orElse(Set.of());
+
+    Mono<Void> validation = Flux.concat(Flux.fromIterable(addHolders),
+            Flux.fromIterable(addSigners))
+        .distinct()
+        .flatMap(customerService::findCustomerById, MAX_CONCURRENT_CUSTOMER_LOOKUPS)
+        .then();
 
+    Map<String, Collection<String>> added = new HashMap<>();
+    Map<String, Collection<String>> removed = new HashMap<>();
+    putIfNotEmpty(added, Constants.HOLDERS_FIELD, addHolders);
+    putIfNotEmpty(added, Constants.SIGNERS_FIELD, addSigners);
+    putIfNotEmpty(removed, Constants.HOLDERS_FIELD, removeHolders);
+    putIfNotEmpty(removed, Constants.SIGNERS_FIELD, removeSigners);
+
+    return evictAfter(accountId, validation
+        .then(Mono.defer(() -> added.isEmpty() && removed.isEmpty()
+            ? accountRepo.findById(accountId)
+            : accountRepo.updateMembers(accountId, added, removed))));
+  }
+
+  private static void putIfNotEmpty(Map<String, Collection<String>> changes, String field,
+      Set<String> members) {
+    if (!members.isEmpty()) {
+      changes.put(field, members);
+    }
+  }
+
+  /**
+   * Reads the archived transactions of the account followed by the ones still in Mongo. The
+   * transactions of an archive member not confirmed yet may be in both tiers, so they are only
+   * taken from the archive.
+   */
   @Override
   public Flux<AccountTransactions> findAccountTransactions(String accountId) {
-    return transactionRepo.findAllByAccountId(accountId);
+    return Flux.defer(() -> {
+      Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+      return Flux.concat(
+          transactionArchive.findByAccountId(accountId, pendingIds),
+          transactionLedger.findByAccountId(accountId)
+              .filter(transaction -> !pendingIds.contains(transaction.getId())));
+    });
+  }
+
+  @Override
+  public Mono<String> findLatestTransactionId(String accountId) {
+    return transactionLedger.findLatestTransactionId(accountId);
   }
 
   @Override
@@ -318,21 +723,8 @@ public class BankAccountServiceImpl implements BankAccountService {
     if (startDate.isAfter(endDate)) {
       throw new IllegalArgumentException("Start date must be before end date.");
     }
-    LocalDateTime startDateTime = startDate.atStartOfDay();
-    LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-    return transactionRepo.findByProductNameAndTypeAndCreatedAtBetween(productName,
-            TransactionType.fee.name(),
-            startDateTime, endDateTime)
-        .map(c -> AccountTransactions.builder()
-            .accountId(c.getAccountId())
-            .productName(c.getProductName())
-            .type(c.getType())
-            .createdAt(c.getCreatedAt())
-            .amount(c.getAmount())
-            .balanceAfterMovement(c.getBalanceAfterMovement())
-            .build())
-        .collect(Collectors.toList())
+
+    return commissionsReportCache.findFees(productName, startDate, endDate)
         .flatMap(lstTransactions -> {
           return Mono.just(
               CommissionsReportResponse.builder()
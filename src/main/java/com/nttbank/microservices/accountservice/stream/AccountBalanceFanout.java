@@ -0,0 +1,107 @@
+package com.nttbank.microservices.accountservice.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Fans out the {@link AccountChangeStream} to the subscribers of each account. Changes are routed
+ * by account id to a topic that only exists while the account has subscribers, so the cost of a
+ * change does not depend on the number of accounts being watched. Every subscriber gets its own
+ * bounded buffer; when a client reads slower than its account changes the oldest pending changes
+ * are dropped, so it always catches up on the latest balance instead of stalling the others.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountBalanceFanout {
+
+  private final AccountChangeStream accountChangeStream;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+  private Counter dropped;
+  private Disposable dispatcher;
+
+  @Value("${account.nttbank.balance-stream.buffer-size:16}")
+  private int bufferSize;
+
+  /**
+   * Starts routing the account changes once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    meterRegistry.gaugeMapSize("account.balance.stream.accounts", Tags.empty(), topics);
+    dropped = meterRegistry.counter("account.balance.stream.dropped");
+    dispatcher = accountChangeStream.changes().subscribe(this::dispatch);
+  }
+
+  @PreDestroy
+  public void stop() {
+    Optional.ofNullable(dispatcher).ifPresent(Disposable::dispose);
+  }
+
+  /**
+   * Subscribes to the changes of one account. A {@link AccountChange.Type#RESET} is delivered to
+   * every subscriber, since it may hide a change of any account.
+   *
+   * @param accountId the id of the account.
+   * @return the changes of the account seen from the subscription on.
+   */
+  public Flux<AccountChange> subscribe(String accountId) {
+    return Flux.defer(() -> {
+      // Subscriber counts are only changed inside compute, so a topic is never removed while a
+      // new subscriber is joining it.
+      Topic topic = topics.compute(accountId, (id, current) ->
+          Optional.ofNullable(current).orElseGet(Topic::new).retain());
+      return topic.sink.asFlux()
+          .onBackpressureBuffer(bufferSize, change -> onDropped(),
+              BufferOverflowStrategy.DROP_OLDEST)
+          .doFinally(signal -> topics.computeIfPresent(accountId,
+              (id, current) -> current.release() ? null : current));
+    });
+  }
+
+  private void dispatch(AccountChange change) {
+    if (change.type() == AccountChange.Type.RESET) {
+      topics.values().forEach(topic -> topic.sink.tryEmitNext(change));
+    } else {
+      Optional.ofNullable(topics.get(change.accountId()))
+          .ifPresent(topic -> topic.sink.tryEmitNext(change));
+    }
+  }
+
+  private void onDropped() {
+    Optional.ofNullable(dropped).ifPresent(Counter::increment);
+  }
+
+  private static final class Topic {
+
+    private final Sinks.Many<AccountChange> sink = Sinks.many().multicast().directBestEffort();
+    private int subscribers;
+
+    private Topic retain() {
+      subscribers++;
+      return this;
+    }
+
+    private boolean release() {
+      return --subscribers == 0;
+    }
+  }
+}
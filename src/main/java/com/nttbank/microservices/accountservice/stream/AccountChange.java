@@ -0,0 +1,31 @@
+package com.nttbank.microservices.accountservice.stream;
+
+import java.math.BigDecimal;
+
+/**
+ * A change on the {@code accounts} collection as published by {@link AccountChangeStream}. The
+ * balance and version are only set when the change carried them; a {@link Type#BALANCE} means that
+ * a balance slot of a striped account was written while its document was not, and a
+ * {@link Type#RESET} that changes may have been missed and every derived state must be dropped.
+ *
+ * @param type      the kind of change.
+ * @param accountId the id of the changed account, {@code null} for a reset.
+ * @param balance   the balance after the change, if it was written.
+ * @param version   the version after the change, if it was written.
+ */
+public record AccountChange(Type type, String accountId, BigDecimal balance, Long version) {
+
+  /**
+   * Kind of change received from the change stream.
+   */
+  public enum Type {
+    UPSERT,
+    DELETE,
+    BALANCE,
+    RESET
+  }
+
+  public static AccountChange reset() {
+    return new AccountChange(Type.RESET, null, null, null);
+  }
+}
@@ -0,0 +1,211 @@
+package com.nttbank.microservices.accountservice.stream;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.model.entity.BalanceSlot;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+/**
+ * Single change stream subscription on the {@code accounts} collection shared by every component
+ * of the node that derives state from the accounts (near cache, balance streaming). The balance
+ * slots of striped accounts are watched as well and published as
+ * {@link AccountChange.Type#BALANCE}, since their movements never write the account. Each stream
+ * resumes from its last seen resume token after a disconnect; when a token is no longer in the
+ * oplog a {@link AccountChange.Type#RESET} is published, since the missed changes can no longer be
+ * known.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountChangeStream {
+
+  public static final String ACCOUNTS_COLLECTION = "accounts";
+
+  private static final String ID_FIELD = "_id";
+  private static final String BALANCE_FIELD = "balance";
+  private static final String VERSION_FIELD = "version";
+
+  /**
+   * Server error codes telling that a change stream cannot be resumed from the given token.
+   */
+  private static final Set<Integer> NON_RESUMABLE_ERRORS = Set.of(280, 286);
+
+  private static final Set<OperationType> RESET_OPERATIONS = Set.of(OperationType.DROP,
+      OperationType.DROP_DATABASE, OperationType.RENAME, OperationType.INVALIDATE);
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, AtomicReference<BsonValue>> resumeTokens = Map.of(
+      ACCOUNTS_COLLECTION, new AtomicReference<>(),
+      StripedBalances.SLOTS_COLLECTION, new AtomicReference<>());
+  private final Sinks.Many<AccountChange> changes = Sinks.many().multicast().directBestEffort();
+
+  private Disposable subscription;
+
+  @Value("${account.nttbank.change-stream.enabled:true}")
+  private boolean enabled;
+
+  /**
+   * Opens the change stream once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      log.info("The accounts change stream is disabled.");
+      return;
+    }
+    subscription = Flux.defer(() -> Flux.merge(watch(ACCOUNTS_COLLECTION),
+            watch(StripedBalances.SLOTS_COLLECTION)))
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+            .maxBackoff(Duration.ofSeconds(30))
+            .transientErrors(true)
+            .doBeforeRetry(signal -> onStreamError(signal.failure())))
+        .subscribe(this::onEvent);
+    log.info("Listening for changes on the {} and {} collections.", ACCOUNTS_COLLECTION,
+        StripedBalances.SLOTS_COLLECTION);
+  }
+
+  @PreDestroy
+  public void stop() {
+    Optional.ofNullable(subscription).ifPresent(Disposable::dispose);
+  }
+
+  /**
+   * Hot flux of the account changes. A subscriber that does not keep up only misses elements
+   * itself and never slows the stream down for the others.
+   *
+   * @return the account changes seen from now on.
+   */
+  public Flux<AccountChange> changes() {
+    return changes.asFlux();
+  }
+
+  private Flux<ChangeStreamEvent<Document>> watch(String collection) {
+    AtomicReference<BsonValue> resumeToken = resumeTokens.get(collection);
+    ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder();
+    Optional.ofNullable(resumeToken.get()).ifPresent(options::resumeAfter);
+    return mongoTemplate.changeStream(collection, options.build(), Document.class)
+        .doOnNext(event -> Optional.ofNullable(event.getResumeToken()).ifPresent(resumeToken::set));
+  }
+
+  private void onEvent(ChangeStreamEvent<Document> event) {
+    Optional.ofNullable(event.getRaw())
+        .map(raw -> StripedBalances.SLOTS_COLLECTION.equals(event.getCollectionName())
+            ? toBalanceChange(raw)
+            : toAccountChange(raw))
+        .ifPresent(changes::tryEmitNext);
+  }
+
+  private AccountChange toBalanceChange(ChangeStreamDocument<Document> raw) {
+    String slotId = Optional.ofNullable(raw.getDocumentKey())
+        .map(key -> key.get(ID_FIELD))
+        .filter(BsonValue::isString)
+        .map(id -> id.asString().getValue())
+        .orElse(null);
+    if (RESET_OPERATIONS.contains(raw.getOperationType()) || slotId == null) {
+      return AccountChange.reset();
+    }
+    return new AccountChange(AccountChange.Type.BALANCE, BalanceSlot.accountIdOf(slotId), null,
+        null);
+  }
+
+  private AccountChange toAccountChange(ChangeStreamDocument<Document> raw) {
+    OperationType operation = raw.getOperationType();
+    String accountId = Optional.ofNullable(raw.getDocumentKey())
+        .map(key -> toAccountId(key.get(ID_FIELD)))
+        .orElse(null);
+    if (RESET_OPERATIONS.contains(operation) || accountId == null) {
+      return AccountChange.reset();
+    }
+    if (operation == OperationType.DELETE) {
+      return new AccountChange(AccountChange.Type.DELETE, accountId, null, null);
+    }
+    Document fullDocument = raw.getFullDocument();
+    if (fullDocument != null) {
+      return new AccountChange(AccountChange.Type.UPSERT, accountId,
+          toBigDecimal(fullDocument.get(BALANCE_FIELD)),
+          Optional.ofNullable(fullDocument.get(VERSION_FIELD, Number.class))
+              .map(Number::longValue).orElse(null));
+    }
+    BsonDocument updatedFields = Optional.ofNullable(raw.getUpdateDescription())
+        .map(UpdateDescription::getUpdatedFields)
+        .orElseGet(BsonDocument::new);
+    return new AccountChange(AccountChange.Type.UPSERT, accountId,
+        toBigDecimal(updatedFields.get(BALANCE_FIELD)),
+        Optional.ofNullable(updatedFields.get(VERSION_FIELD))
+            .filter(BsonValue::isNumber)
+            .map(v -> v.asNumber().longValue()).orElse(null));
+  }
+
+  private static String toAccountId(BsonValue id) {
+    if (id != null && id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    }
+    return id != null && id.isString() ? id.asString().getValue() : null;
+  }
+
+  /**
+   * Balances are stored as strings by the default converters, but decimal and numeric values are
+   * accepted too.
+   */
+  private static BigDecimal toBigDecimal(Object value) {
+    if (value instanceof BsonValue bson) {
+      if (bson.isDecimal128()) {
+        return bson.asDecimal128().getValue().bigDecimalValue();
+      }
+      if (bson.isString()) {
+        return new BigDecimal(bson.asString().getValue());
+      }
+      return bson.isNumber() ? BigDecimal.valueOf(bson.asNumber().doubleValue()) : null;
+    }
+    if (value instanceof Decimal128 decimal) {
+      return decimal.bigDecimalValue();
+    }
+    if (value instanceof String text) {
+      return new BigDecimal(text);
+    }
+    return value instanceof Number number ? BigDecimal.valueOf(number.doubleValue()) : null;
+  }
+
+  private void onStreamError(Throwable error) {
+    Throwable cause = NestedExceptionUtils.getMostSpecificCause(error);
+    if (cause instanceof MongoCommandException commandException
+        && NON_RESUMABLE_ERRORS.contains(commandException.getErrorCode())) {
+      log.warn("The accounts change stream cannot be resumed, starting over.");
+      resumeTokens.values().forEach(token -> token.set(null));
+      changes.tryEmitNext(AccountChange.reset());
+    } else {
+      log.warn("The accounts change stream failed, resuming: {}", error.getMessage());
+    }
+    meterRegistry.counter("account.change.stream.restarts").increment();
+  }
+}
@@ -1,5 +1,9 @@
 package com.nttbank.microservices.accountservice.util;
 
+import com.nttbank.microservices.accountservice.exception.AccountOpeningException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.exception.InsufficientFundsException;
+import com.nttbank.microservices.accountservice.exception.TransactionRejectedException;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionSummary;
 import java.math.BigDecimal;
@@ -13,6 +17,7 @@ import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class AccountUtils {
@@ -34,6 +39,14 @@ public class AccountUtils {
       CHECK_CUSTOMER_CREDIT_CARD = (accountType, profile) ->
       ACCOUNT_PROFILE_MAP.getOrDefault(accountType + ":" + profile, false);
 
+  /**
+   * Tells whether some customer profile triggers the credit card validation for the account type,
+   * so the lookup can be started before the customer profile is known.
+   **/
+  public static final Predicate<String> MAY_CHECK_CUSTOMER_CREDIT_CARD = accountType ->
+      ACCOUNT_PROFILE_MAP.entrySet().stream()
+          .anyMatch(e -> e.getValue() && e.getKey().startsWith(accountType + ":"));
+
   private static final IntPredicate isTheSameDay = dayToTest ->
       LocalDate.now().getDayOfMonth() == dayToTest;
 
@@ -42,7 +55,7 @@ public class AccountUtils {
 
     LocalDate today = LocalDate.now();
     Integer dayToValidate = Optional.ofNullable(dayToTest).orElseThrow(() ->
-        new IllegalArgumentException(Constants.TRANSACTION_DAY_NOT_SET));
+        new TransactionRejectedException(ErrorCode.TRANSACTION_DAY_NOT_SET));
 
     MonthlyTransactionSummary dbSummary = Optional.ofNullable(summary)
         .orElse(MonthlyTransactionSummary.builder()
@@ -58,12 +71,12 @@ public class AccountUtils {
     ).allMatch(Boolean::booleanValue);
 
     if (!isTheSameDay.test(dayToValidate)) {
-      throw new IllegalArgumentException(
+      throw new TransactionRejectedException(ErrorCode.TRANSACTION_DAY_NOT_ALLOWED,
           String.format(Constants.TRANSACTION_DAY_NOT_TODAY, dayToValidate));
     }
 
     if (isMaxTransactionsExceeded) {
-      throw new IllegalArgumentException(
+      throw new TransactionRejectedException(ErrorCode.TRANSACTION_LIMIT_EXCEEDED,
           String.format(Constants.MAX_TRANSACTION_LIMIT_EXCEEDED_ERROR, dayToValidate, accountId));
     }
 
@@ -79,7 +92,7 @@ public class AccountUtils {
       Map<String, Long> accountLimits, String accountType) {
     Optional.ofNullable(accountLimits.get(customerType))
         .filter(limit -> numAccounts < limit)
-        .orElseThrow(() -> new IllegalArgumentException(
+        .orElseThrow(() -> new AccountOpeningException(ErrorCode.ACCOUNT_OPENING_RESTRICTED,
             String.format(Constants.OPENING_ACCOUNT_RESTRICTION, accountType)));
   }
 
@@ -89,7 +102,7 @@ public class AccountUtils {
     actualBalance = actualBalance.subtract(amount).setScale(2, RoundingMode.HALF_UP);
 
     if (actualBalance.compareTo(BigDecimal.ZERO) < 0) {
-      throw new IllegalArgumentException(Constants.NO_WITHDRAW_FUNDS_AVAILABLE);
+      throw new InsufficientFundsException();
     }
     return actualBalance;
   }
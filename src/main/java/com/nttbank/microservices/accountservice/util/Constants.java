@@ -36,6 +36,27 @@ public class Constants {
   public static final String ALLOWED_DAY_OP_REQUIRED =
       "Allowed day for operations must be set for this account type";
   public static final String OPERATION_NOT_ALLOWED = "Operation not allowed";
+  public static final String NO_FIELDS_TO_UPDATE = "At least one field must be provided to update";
+  public static final String INVALID_ENTITY_TAG = "Invalid entity tag %s";
+  public static final String ACCOUNT_VERSION_CONFLICT =
+      "The account %s was modified by another operation, reload it and try again";
+  public static final String ACCOUNT_VERSION_REQUIRED =
+      "The balance and the monthly transaction summary can only be changed with the version of "
+          + "the account, sent in If-Match or in the body";
+  public static final String EXPORT_LIMIT_REACHED =
+      "Too many exports are running, try again later";
+  public static final String STATEMENT_MONTH_NOT_CLOSED =
+      "The statement of %s is not available yet";
+  public static final String RATE_LIMIT_EXCEEDED =
+      "Too many requests for this account or customer, try again later";
+  public static final String SERVICE_OVERLOADED =
+      "The service is busy, try again later";
+  public static final String MOVEMENT_OUTCOME_UNKNOWN =
+      "The movement may have been applied, check the account movements before retrying it";
+  public static final String ACCOUNT_OWNER_UNAVAILABLE =
+      "The movement was not applied while the service is rebalancing, try again later";
+  public static final String HOLDERS_FIELD = "lstHolders";
+  public static final String SIGNERS_FIELD = "lstSigners";
   public static final Long ONE = 1L;
   public static final Long ZERO = 0L;
 
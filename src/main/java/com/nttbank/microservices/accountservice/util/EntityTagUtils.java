@@ -0,0 +1,83 @@
+package com.nttbank.microservices.accountservice.util;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Helpers to build and compare the strong entity tags used for conditional requests. Account tags
+ * are derived from the document version, followed for striped accounts by the count of writes to
+ * their balance slots, and transaction history tags from the id of the newest transaction.
+ */
+public class EntityTagUtils {
+
+  private EntityTagUtils() {
+  }
+
+  private static final String WILDCARD = "*";
+  private static final String WEAK_PREFIX = "W/";
+  private static final String BALANCE_CHANGES_SEPARATOR = ".";
+
+  public static String toEntityTag(Object value) {
+    return "\"" + value + "\"";
+  }
+
+  /**
+   * Builds the tag of an account.
+   *
+   * @param version        the version of the account document.
+   * @param balanceChanges the writes to the balance slots of a striped account, {@code null} for
+   *                       other accounts.
+   * @return the tag, which changes whenever the balance does.
+   */
+  public static String toAccountTag(Long version, Long balanceChanges) {
+    return toEntityTag(balanceChanges == null
+        ? String.valueOf(version)
+        : version + BALANCE_CHANGES_SEPARATOR + balanceChanges);
+  }
+
+  /**
+   * Checks an {@code If-None-Match} header against the current tag. As required for
+   * {@code If-None-Match}, the comparison is weak, so a {@code W/} prefix sent by a proxy still
+   * matches.
+   *
+   * @param ifNoneMatch the raw header value, possibly holding several comma separated tags.
+   * @param currentTag  the tag of the current representation.
+   * @return {@code true} when the client already holds the current representation.
+   */
+  public static boolean matches(String ifNoneMatch, String currentTag) {
+    return Optional.ofNullable(ifNoneMatch)
+        .map(header -> Arrays.stream(header.split(","))
+            .map(String::trim)
+            .map(EntityTagUtils::stripWeakPrefix)
+            .anyMatch(tag -> WILDCARD.equals(tag) || tag.equals(currentTag)))
+        .orElse(false);
+  }
+
+  /**
+   * Reads the account version sent back in an {@code If-Match} header. The balance changes of a
+   * striped account tag are ignored, since they are not part of the document version.
+   *
+   * @param ifMatch the raw header value.
+   * @return the version, or {@code null} for a missing header or the {@code *} wildcard.
+   * @throws IllegalArgumentException if the tag does not hold a version.
+   */
+  public static Long parseVersion(String ifMatch) {
+    if (ifMatch == null || WILDCARD.equals(ifMatch.trim())) {
+      return null;
+    }
+    String tag = stripWeakPrefix(ifMatch.trim()).replace("\"", "");
+    int separator = tag.indexOf(BALANCE_CHANGES_SEPARATOR);
+    if (separator >= 0) {
+      tag = tag.substring(0, separator);
+    }
+    try {
+      return Long.valueOf(tag);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format(Constants.INVALID_ENTITY_TAG, ifMatch));
+    }
+  }
+
+  private static String stripWeakPrefix(String tag) {
+    return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+  }
+}
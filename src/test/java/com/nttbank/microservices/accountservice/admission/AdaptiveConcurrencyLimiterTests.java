@@ -0,0 +1,185 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class AdaptiveConcurrencyLimiterTests {
+
+  private static final Duration MAX_WAIT = Duration.ofMillis(50);
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final AtomicLong clock = new AtomicLong();
+  private VirtualTimeScheduler timer;
+
+  @BeforeEach
+  void setUp() {
+    timer = VirtualTimeScheduler.create();
+  }
+
+  @Test
+  void run_ShouldHandTheSlotOverToTheQueuedOperation() {
+    AdaptiveConcurrencyLimiter limiter = limiter(1, 10);
+    Sinks.Empty<Void> first = Sinks.empty();
+    AtomicBoolean secondStarted = new AtomicBoolean();
+
+    Disposable running = limiter.run(first::asMono).subscribe();
+    StepVerifier.create(limiter.run(() -> {
+          secondStarted.set(true);
+          return Mono.just("second");
+        }))
+        .then(() -> {
+          assertThat(secondStarted).isFalse();
+          assertThat(limiter.getQueued()).isEqualTo(1);
+          first.tryEmitEmpty();
+        })
+        .expectNext("second")
+        .verifyComplete();
+
+    assertThat(secondStarted).isTrue();
+    assertThat(limiter.getQueued()).isZero();
+    assertThat(limiter.getInFlight()).isZero();
+    running.dispose();
+  }
+
+  @Test
+  void run_ShouldReleaseTheQueueWhenTheWaitingCallerCancels() {
+    AdaptiveConcurrencyLimiter limiter = limiter(1, 10);
+    Sinks.Empty<Void> first = Sinks.empty();
+    AtomicBoolean secondStarted = new AtomicBoolean();
+
+    limiter.run(first::asMono).subscribe();
+    Disposable waiting = limiter.run(() -> {
+      secondStarted.set(true);
+      return Mono.just("second");
+    }).subscribe();
+    waiting.dispose();
+
+    assertThat(limiter.getQueued()).isZero();
+    first.tryEmitEmpty();
+    assertThat(secondStarted).isFalse();
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void run_ShouldRejectTheQueuedOperationAfterTheMaximumWait() {
+    AdaptiveConcurrencyLimiter limiter = limiter(1, 10);
+    limiter.run(Sinks.empty()::asMono).subscribe();
+
+    StepVerifier.create(limiter.run(() -> Mono.just("second")))
+        .then(() -> timer.advanceTimeBy(MAX_WAIT.minusMillis(1)))
+        .expectNoEvent(Duration.ZERO)
+        .then(() -> timer.advanceTimeBy(Duration.ofMillis(1)))
+        .expectError(Rejected.class)
+        .verify(Duration.ofSeconds(1));
+
+    assertThat(limiter.getQueued()).isZero();
+    assertThat(limiter.getInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  void run_ShouldRejectAtOnceWhenTheQueueIsFull() {
+    AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+    limiter.run(Sinks.empty()::asMono).subscribe();
+    limiter.run(Sinks.empty()::asMono).subscribe();
+
+    StepVerifier.create(limiter.run(() -> Mono.just("third")))
+        .expectError(Rejected.class)
+        .verify(Duration.ofSeconds(1));
+
+    assertThat(limiter.getQueued()).isEqualTo(1);
+  }
+
+  @Test
+  void run_ShouldGrowTheLimitWhileTheLatencyStaysLow() {
+    AdaptiveConcurrencyLimiter limiter = limiter(10, 10);
+
+    completeTogether(limiter, 10, FAST);
+
+    assertThat(limiter.getLimit()).isGreaterThan(10);
+  }
+
+  @Test
+  void run_ShouldShrinkTheLimitOnceTheLatencyRises() {
+    AdaptiveConcurrencyLimiter limiter = limiter(10, 10);
+    completeTogether(limiter, 1, FAST);
+
+    for (int i = 0; i < 3; i++) {
+      completeTogether(limiter, 1, SLOW);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(7);
+  }
+
+  @Test
+  void run_ShouldCutTheLimitOnTimeouts() {
+    AdaptiveConcurrencyLimiter limiter = limiter(10, 10);
+
+    StepVerifier.create(limiter.run(() -> Mono.error(new TimeoutException())))
+        .expectError(TimeoutException.class)
+        .verify();
+
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void releasingSlot_ShouldAdmitTheNextOperationWhileTheWorkRuns() {
+    AdaptiveConcurrencyLimiter limiter = limiter(1, 10);
+    Sinks.Empty<Void> gateway = Sinks.empty();
+
+    Disposable running = limiter.run(
+        () -> AdaptiveConcurrencyLimiter.releasingSlot(gateway.asMono())).subscribe();
+    assertThat(limiter.getInFlight()).isZero();
+
+    StepVerifier.create(limiter.run(() -> Mono.just("second")))
+        .expectNext("second")
+        .verifyComplete();
+
+    gateway.tryEmitEmpty();
+    assertThat(limiter.getInFlight()).isZero();
+    running.dispose();
+  }
+
+  /**
+   * Starts the operations at the same time and ends them one after the other, each one having
+   * taken the given latency.
+   */
+  private void completeTogether(AdaptiveConcurrencyLimiter limiter, int operations,
+      long latencyNanos) {
+    List<Sinks.Empty<Void>> sinks = new ArrayList<>();
+    long start = clock.get();
+    for (int i = 0; i < operations; i++) {
+      Sinks.Empty<Void> sink = Sinks.empty();
+      sinks.add(sink);
+      limiter.run(sink::asMono).subscribe();
+    }
+    clock.set(start + latencyNanos);
+    sinks.forEach(Sinks.Empty::tryEmitEmpty);
+  }
+
+  private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue) {
+    AdaptiveConcurrencyLimiter.Settings settings = new AdaptiveConcurrencyLimiter.Settings(
+        initialLimit, 1, 100, maxQueue, MAX_WAIT, 1000);
+    Supplier<Throwable> rejection = Rejected::new;
+    return new AdaptiveConcurrencyLimiter(settings, rejection, clock::get, timer);
+  }
+
+  private static final class Rejected extends RuntimeException {
+
+  }
+}
@@ -0,0 +1,53 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitFilterTests {
+
+  @Mock
+  private ConcurrencyLimits concurrencyLimits;
+
+  private final WebFilterChain chain = exchange -> Mono.empty();
+
+  private ConcurrencyLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    filter = new ConcurrencyLimitFilter(concurrencyLimits);
+    when(concurrencyLimits.limit(any(), any()))
+        .thenAnswer(invocation -> Mono.defer(invocation.getArgument(1)));
+  }
+
+  @Test
+  void filter_ShouldClassifyReportsAsReads() {
+    StepVerifier.create(filter.filter(MockServerWebExchange.from(
+            MockServerHttpRequest.post("/accounts/reports/commissions").build()), chain))
+        .verifyComplete();
+
+    verify(concurrencyLimits).limit(eq(OperationClass.MONGO_READ), any());
+  }
+
+  @Test
+  void filter_ShouldClassifyMovementsAsWrites() {
+    StepVerifier.create(filter.filter(MockServerWebExchange.from(
+            MockServerHttpRequest.post("/accounts/12345/withdraw").build()), chain))
+        .verifyComplete();
+
+    verify(concurrencyLimits).limit(eq(OperationClass.MONGO_WRITE), any());
+  }
+}
@@ -0,0 +1,129 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.exception.WebExceptionHandler;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
+import com.nttbank.microservices.accountservice.service.BankAccountService;
+import com.nttbank.microservices.accountservice.service.CustomerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class MovementRateLimitFilterTests {
+
+  private static final String ACCOUNT_ID = "12345";
+  private static final String CUSTOMER_ID = "customer123";
+
+  @Mock
+  private BankAccountService bankAccountService;
+
+  @Mock
+  private CustomerService customerService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private MovementRateLimitFilter filter;
+
+  WebTestClient client;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    filter = new MovementRateLimitFilter(bankAccountService, customerService, meterRegistry);
+    ReflectionTestUtils.setField(filter, "enabled", true);
+    ReflectionTestUtils.setField(filter, "maxBuckets", 1000L);
+    ReflectionTestUtils.setField(filter, "idleBucketTtlMs", 600000L);
+    ReflectionTestUtils.setField(filter, "tierTtlMs", 900000L);
+    ReflectionTestUtils.setField(filter, "accountRate", 0.5);
+    ReflectionTestUtils.setField(filter, "accountBurst", 2);
+    ReflectionTestUtils.setField(filter, "personalRate", 100d);
+    ReflectionTestUtils.setField(filter, "personalBurst", 100);
+    ReflectionTestUtils.setField(filter, "businessRate", 100d);
+    ReflectionTestUtils.setField(filter, "businessBurst", 100);
+    ReflectionTestUtils.setField(filter, "vipRate", 100d);
+    ReflectionTestUtils.setField(filter, "vipBurst", 100);
+    ReflectionTestUtils.setField(filter, "pymeRate", 100d);
+    ReflectionTestUtils.setField(filter, "pymeBurst", 100);
+    filter.init();
+
+    StaticApplicationContext applicationContext = new StaticApplicationContext();
+    applicationContext.refresh();
+    WebExceptionHandler exceptionHandler = new WebExceptionHandler(new DefaultErrorAttributes(),
+        new WebProperties.Resources(), applicationContext, ServerCodecConfigurer.create());
+    exceptionHandler.afterPropertiesSet();
+
+    client = WebTestClient.bindToRouterFunction(RouterFunctions
+            .route(RequestPredicates.POST("/accounts/{account_id}/withdraw"),
+                request -> ServerResponse.ok().build())
+            .andRoute(RequestPredicates.POST("/accounts/{account_id}/deposit"),
+                request -> ServerResponse.ok().build()))
+        .handlerStrategies(HandlerStrategies.builder()
+            .webFilter(filter)
+            .exceptionHandler(exceptionHandler)
+            .build())
+        .build();
+  }
+
+  @Test
+  void filter_ShouldRejectWithRetryAfterOnceTheAccountBucketIsEmpty() {
+    when(bankAccountService.findById(ACCOUNT_ID)).thenReturn(Mono.just(BankAccount.builder()
+        .id(ACCOUNT_ID)
+        .customerId(CUSTOMER_ID)
+        .build()));
+    when(customerService.findCustomerById(CUSTOMER_ID)).thenReturn(Mono.just(
+        CustomerResponse.builder().id(CUSTOMER_ID).type("personal").build()));
+
+    for (int i = 0; i < 2; i++) {
+      withdraw().expectStatus().isOk();
+    }
+    withdraw()
+        .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+        .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2")
+        .expectBody()
+        .jsonPath("$.code").isEqualTo("RATE_LIMITED");
+
+    assertThat(meterRegistry.counter(
+        "account.rate-limit.rejected", "scope", "account", "tier", "account").count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void filter_ShouldNotLimitDeposits() {
+    for (int i = 0; i < 5; i++) {
+      client.post()
+          .uri("/accounts/{account_id}/deposit", ACCOUNT_ID)
+          .exchange()
+          .expectStatus().isOk();
+    }
+
+    verify(bankAccountService, never()).findById(anyString());
+  }
+
+  private WebTestClient.ResponseSpec withdraw() {
+    return client.post()
+        .uri("/accounts/{account_id}/withdraw", ACCOUNT_ID)
+        .exchange();
+  }
+}
@@ -0,0 +1,65 @@
+package com.nttbank.microservices.accountservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTests {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long START = 1_000 * SECOND;
+
+  @Test
+  void tryAcquire_ShouldAdmitAFullBurstAtOnce() {
+    TokenBucket bucket = new TokenBucket(new RateLimit(2, 5), START);
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(bucket.tryAcquire(START)).isZero();
+    }
+    assertThat(bucket.tryAcquire(START)).isPositive();
+  }
+
+  @Test
+  void tryAcquire_ShouldReturnTheWaitUntilTheNextToken() {
+    TokenBucket bucket = new TokenBucket(new RateLimit(2, 1), START);
+
+    assertThat(bucket.tryAcquire(START)).isZero();
+    assertThat(bucket.tryAcquire(START)).isEqualTo(SECOND / 2);
+    assertThat(bucket.tryAcquire(START + SECOND / 4)).isEqualTo(SECOND / 4);
+  }
+
+  @Test
+  void tryAcquire_ShouldRefillAtTheConfiguredRate() {
+    TokenBucket bucket = new TokenBucket(new RateLimit(10, 2), START);
+    bucket.tryAcquire(START);
+    bucket.tryAcquire(START);
+
+    assertThat(bucket.tryAcquire(START + SECOND / 20)).isEqualTo(SECOND / 20);
+    assertThat(bucket.tryAcquire(START + SECOND / 10)).isZero();
+    assertThat(bucket.tryAcquire(START + SECOND / 10)).isEqualTo(SECOND / 10);
+  }
+
+  @Test
+  void tryAcquire_ShouldNotRefillBeyondTheBurst() {
+    TokenBucket bucket = new TokenBucket(new RateLimit(10, 3), START);
+    bucket.tryAcquire(START);
+
+    long later = START + 60 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      assertThat(bucket.tryAcquire(later)).isZero();
+    }
+    assertThat(bucket.tryAcquire(later)).isEqualTo(SECOND / 10);
+  }
+
+  @Test
+  void tryAcquire_ShouldNotTakeATokenWhenRejecting() {
+    TokenBucket bucket = new TokenBucket(new RateLimit(1, 1), START);
+    bucket.tryAcquire(START);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(bucket.tryAcquire(START)).isEqualTo(SECOND);
+    }
+    assertThat(bucket.tryAcquire(START + SECOND)).isZero();
+  }
+}
@@ -0,0 +1,120 @@
+package com.nttbank.microservices.accountservice.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.result.UpdateResult;
+import com.nttbank.microservices.accountservice.lease.MongoLease;
+import com.nttbank.microservices.accountservice.model.entity.BalanceSlot;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.util.EntityTagUtils;
+import java.math.BigDecimal;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class StripedBalancesTests {
+
+  private static final String ACCOUNT_ID = "12345";
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @Mock
+  private MongoLease mongoLease;
+
+  private StripedBalances stripedBalances;
+
+  @BeforeEach
+  void setUp() {
+    stripedBalances = new StripedBalances(mongoTemplate, transactionalOperator, mongoLease);
+    ReflectionTestUtils.setField(stripedBalances, "stripedAccounts", Set.of(ACCOUNT_ID));
+    ReflectionTestUtils.setField(stripedBalances, "slots", 4);
+    ReflectionTestUtils.setField(stripedBalances, "cacheTtlMs", 60000L);
+    stripedBalances.init();
+  }
+
+  @Test
+  void credit_ShouldChangeTheEntityTagOfTheAccount() {
+    BankAccount account = BankAccount.builder().id(ACCOUNT_ID).version(7L).build();
+    when(mongoTemplate.aggregate(any(Aggregation.class), eq(StripedBalances.SLOTS_COLLECTION),
+        eq(Document.class)))
+        .thenReturn(Flux.just(sums("1000.00", 3L)), Flux.just(sums("1100.00", 4L)));
+    when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class),
+        eq(BalanceSlot.class)))
+        .thenReturn(Mono.just(UpdateResult.acknowledged(0, 1L, null)));
+
+    StepVerifier.create(stripedBalances.withBalance(account))
+        .assertNext(before -> assertThat(
+            EntityTagUtils.toAccountTag(before.getVersion(), before.getBalanceChanges()))
+            .isEqualTo("\"7.3\""))
+        .verifyComplete();
+
+    StepVerifier.create(stripedBalances.credit(ACCOUNT_ID, new BigDecimal("100.00")))
+        .assertNext(totals -> assertThat(totals.changes()).isEqualTo(4L))
+        .verifyComplete();
+
+    StepVerifier.create(stripedBalances.withBalance(account))
+        .assertNext(after -> {
+          assertThat(after.getBalance()).isEqualByComparingTo("1100.00");
+          assertThat(EntityTagUtils.toAccountTag(after.getVersion(), after.getBalanceChanges()))
+              .isEqualTo("\"7.4\"");
+        })
+        .verifyComplete();
+
+    ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+    verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(BalanceSlot.class));
+    assertThat(update.getValue().getUpdateObject().get("$inc", Document.class)
+        .get(StripedBalances.CHANGES_FIELD)).isEqualTo(1);
+  }
+
+  @Test
+  void run_ShouldTreatSlotsInsertedByAnotherNodeAsStriped() {
+    when(mongoLease.holding(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(2));
+    when(transactionalOperator.transactional(any(Mono.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(mongoTemplate.exists(any(Query.class), eq(BalanceSlot.class)))
+        .thenReturn(Mono.just(false));
+    when(mongoTemplate.findById(ACCOUNT_ID, BankAccount.class))
+        .thenReturn(Mono.just(BankAccount.builder().id(ACCOUNT_ID).build()));
+    when(mongoTemplate.insertAll(anyCollection()))
+        .thenReturn(Flux.error(new DuplicateKeyException("E11000 duplicate key")));
+    when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class),
+        eq(BankAccount.class)))
+        .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    assertThatCode(() -> stripedBalances.run(null)).doesNotThrowAnyException();
+  }
+
+  private static Document sums(String balance, long changes) {
+    return new Document(StripedBalances.BALANCE_FIELD, new Decimal128(new BigDecimal(balance)))
+        .append(StripedBalances.TRANSACTIONS_FIELD, 1)
+        .append(StripedBalances.CHANGES_FIELD, changes);
+  }
+}
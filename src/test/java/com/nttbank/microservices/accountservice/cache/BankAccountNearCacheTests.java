@@ -0,0 +1,72 @@
+package com.nttbank.microservices.accountservice.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.stream.AccountChange;
+import com.nttbank.microservices.accountservice.stream.AccountChangeStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class BankAccountNearCacheTests {
+
+  private static final String ACCOUNT_ID = "12345";
+
+  @Mock
+  private AccountChangeStream accountChangeStream;
+
+  private final Sinks.Many<AccountChange> changes = Sinks.many().multicast().directBestEffort();
+
+  private BankAccountNearCache nearCache;
+
+  @BeforeEach
+  void setUp() {
+    when(accountChangeStream.changes()).thenReturn(changes.asFlux());
+    nearCache = new BankAccountNearCache(accountChangeStream, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(nearCache, "enabled", true);
+    ReflectionTestUtils.setField(nearCache, "maxSize", 100L);
+    ReflectionTestUtils.setField(nearCache, "ttlMs", 60000L);
+    nearCache.start();
+  }
+
+  @Test
+  void get_ShouldNotCacheALoadStartedBeforeAReset() {
+    Sinks.One<BankAccount> staleRead = Sinks.one();
+    AtomicInteger loads = new AtomicInteger();
+
+    StepVerifier.create(nearCache.get(ACCOUNT_ID, id -> {
+          loads.incrementAndGet();
+          return staleRead.asMono();
+        }))
+        .then(() -> {
+          changes.tryEmitNext(AccountChange.reset());
+          staleRead.tryEmitValue(account("100.00"));
+        })
+        .expectNextCount(1)
+        .verifyComplete();
+
+    StepVerifier.create(nearCache.get(ACCOUNT_ID, id -> {
+          loads.incrementAndGet();
+          return Mono.just(account("200.00"));
+        }))
+        .assertNext(account -> assertThat(account.getBalance()).isEqualByComparingTo("200.00"))
+        .verifyComplete();
+    assertThat(loads).hasValue(2);
+  }
+
+  private static BankAccount account(String balance) {
+    return BankAccount.builder().id(ACCOUNT_ID).balance(new BigDecimal(balance)).build();
+  }
+}
@@ -0,0 +1,101 @@
+package com.nttbank.microservices.accountservice.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class CommissionsReportCacheTests {
+
+  private static final String PRODUCT = "saving";
+
+  @Mock
+  private TransactionLedger transactionLedger;
+
+  private CommissionsReportCache commissionsReportCache;
+
+  @BeforeEach
+  void setUp() {
+    commissionsReportCache = new CommissionsReportCache(transactionLedger,
+        new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(commissionsReportCache, "maxFees", 1000L);
+    ReflectionTestUtils.setField(commissionsReportCache, "ttlMs", 60000L);
+    ReflectionTestUtils.setField(commissionsReportCache, "closingDelayMs", 0L);
+    commissionsReportCache.init();
+  }
+
+  @Test
+  void findFees_ShouldReadClosedDaysOnceAndTheOpenDayOnEveryRequest() {
+    LocalDate today = LocalDate.now();
+    LocalDate start = today.minusDays(2);
+    when(transactionLedger.findByProductNameAndTypeAndCreatedAtBetween(eq(PRODUCT),
+        eq(TransactionType.fee.name()), any(LocalDateTime.class), any(LocalDateTime.class)))
+        .thenAnswer(invocation -> {
+          LocalDateTime from = invocation.getArgument(2);
+          return from.toLocalDate().equals(today)
+              ? Flux.just(fee("acc2", today.atTime(9, 0)))
+              : Flux.just(fee("acc1", start.atTime(10, 0)), fee("acc1", start.atTime(11, 0)));
+        });
+
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(commissionsReportCache.findFees(PRODUCT, start, today))
+          .expectNextMatches(fees -> fees.size() == 3
+              && fees.get(0).getCreatedAt().toLocalDate().equals(start)
+              && fees.get(2).getAccountId().equals("acc2"))
+          .verifyComplete();
+    }
+
+    verify(transactionLedger, times(1)).findByProductNameAndTypeAndCreatedAtBetween(PRODUCT,
+        TransactionType.fee.name(), start.atStartOfDay(),
+        today.minusDays(1).atTime(LocalTime.MAX));
+    verify(transactionLedger, times(2)).findByProductNameAndTypeAndCreatedAtBetween(PRODUCT,
+        TransactionType.fee.name(), today.atStartOfDay(), today.atTime(LocalTime.MAX));
+  }
+
+  @Test
+  void isClosed_ShouldKeepYesterdayOpenUntilTheClosingDelayHasPassed() {
+    LocalDate yesterday = LocalDate.now().minusDays(1);
+    long sinceMidnightMs = Duration.between(LocalDate.now().atStartOfDay(), LocalDateTime.now())
+        .toMillis();
+
+    ReflectionTestUtils.setField(commissionsReportCache, "closingDelayMs",
+        sinceMidnightMs + 60000L);
+    assertThat(commissionsReportCache.isClosed(yesterday)).isFalse();
+    assertThat(commissionsReportCache.isClosed(yesterday.minusDays(1))).isTrue();
+
+    ReflectionTestUtils.setField(commissionsReportCache, "closingDelayMs", 0L);
+    assertThat(commissionsReportCache.isClosed(yesterday)).isTrue();
+    assertThat(commissionsReportCache.isClosed(LocalDate.now())).isFalse();
+  }
+
+  private static AccountTransactions fee(String accountId, LocalDateTime createdAt) {
+    return AccountTransactions.builder()
+        .accountId(accountId)
+        .productName(PRODUCT)
+        .type(TransactionType.fee)
+        .amount(new BigDecimal("1.50"))
+        .createdAt(createdAt)
+        .build();
+  }
+}
@@ -0,0 +1,112 @@
+package com.nttbank.microservices.accountservice.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.nttbank.microservices.accountservice.config.WebCodecsConfig;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import com.nttbank.microservices.accountservice.model.entity.TransactionType;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares the cost of writing and reading a page of movements with the default JSON mapper, the
+ * tuned JSON mapper of {@link WebCodecsConfig} and its Smile counterpart. Only executed with the
+ * {@code benchmark} Maven profile; the JMH results are written to
+ * {@code target/benchmark/codecs.json}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonCodecBenchmark {
+
+  private static final String RESULT = "target/benchmark/codecs.json";
+  private static final TypeReference<List<AccountTransactions>> MOVEMENTS =
+      new TypeReference<>() {
+      };
+
+  @Param({"default-json", "tuned-json", "tuned-smile"})
+  public String codec;
+
+  private ObjectMapper mapper;
+  private List<AccountTransactions> movements;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws Exception {
+    mapper = switch (codec) {
+      case "default-json" -> Jackson2ObjectMapperBuilder.json().build();
+      case "tuned-json" -> tuned().build();
+      case "tuned-smile" -> tuned().factory(new SmileFactory()).build();
+      default -> throw new IllegalArgumentException("Unknown codec " + codec);
+    };
+    LocalDateTime now = LocalDateTime.now();
+    movements = IntStream.range(0, 100)
+        .mapToObj(i -> AccountTransactions.builder()
+            .id(String.format("%024x", i))
+            .customerId("customer-" + i % 10)
+            .accountId("account-" + i % 10)
+            .productName("saving")
+            .type(TransactionType.values()[i % TransactionType.values().length])
+            .amount(new BigDecimal("125.50"))
+            .balanceAfterMovement(BigDecimal.valueOf(100_000 + i, 2))
+            .createdAt(now.minusMinutes(i))
+            .description("Movement " + i)
+            .build())
+        .toList();
+    encoded = mapper.writeValueAsBytes(movements);
+  }
+
+  @Benchmark
+  public byte[] write() throws Exception {
+    return mapper.writeValueAsBytes(movements);
+  }
+
+  @Benchmark
+  public List<AccountTransactions> read() throws Exception {
+    return mapper.readValue(encoded, MOVEMENTS);
+  }
+
+  @Test
+  void runBenchmark() throws Exception {
+    Files.createDirectories(Path.of(RESULT).getParent());
+    new Runner(new OptionsBuilder()
+        .include(JacksonCodecBenchmark.class.getName())
+        .forks(1)
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .resultFormat(ResultFormatType.JSON)
+        .result(RESULT)
+        .build())
+        .run();
+  }
+
+  private static Jackson2ObjectMapperBuilder tuned() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+        .modulesToInstall(new JavaTimeModule(), new BlackbirdModule());
+    new WebCodecsConfig().hotTypesCustomizer().customize(builder);
+    return builder;
+  }
+}
@@ -4,17 +4,33 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
+import com.nttbank.microservices.accountservice.cache.CommissionsReportCache;
+import com.nttbank.microservices.accountservice.dto.AccountMembersDTO;
 import com.nttbank.microservices.accountservice.dto.BankAccountDTO;
+import com.nttbank.microservices.accountservice.dto.BankAccountPatchDTO;
+import com.nttbank.microservices.accountservice.dto.TransactionExportRequest;
+import com.nttbank.microservices.accountservice.export.TransactionExportFormat;
 import com.nttbank.microservices.accountservice.mapper.BankAccountMapper;
+import com.nttbank.microservices.accountservice.model.entity.AccountStatement;
 import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionSummary;
+import com.nttbank.microservices.accountservice.model.response.AccountBalanceResponse;
 import com.nttbank.microservices.accountservice.model.response.CommissionsReportResponse;
+import com.nttbank.microservices.accountservice.ownership.AccountCommand;
+import com.nttbank.microservices.accountservice.ownership.AccountCommandRouter;
+import com.nttbank.microservices.accountservice.service.AccountBalanceStreamService;
+import com.nttbank.microservices.accountservice.service.AccountStatementService;
 import com.nttbank.microservices.accountservice.service.BankAccountService;
+import com.nttbank.microservices.accountservice.service.TransactionExportService;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,11 +39,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
 @RequiredArgsConstructor
@@ -39,6 +64,21 @@ class BankAccountControllerTests {
   @Mock
   private BankAccountMapper bankAccountMapper;
 
+  @Mock
+  private AccountBalanceStreamService accountBalanceStreamService;
+
+  @Mock
+  private TransactionExportService transactionExportService;
+
+  @Mock
+  private AccountStatementService accountStatementService;
+
+  @Mock
+  private AccountCommandRouter accountCommandRouter;
+
+  @Mock
+  private CommissionsReportCache commissionsReportCache;
+
   WebTestClient client;
 
   private static final String BASE_URL = "/accounts";
@@ -50,7 +90,9 @@ class BankAccountControllerTests {
   @BeforeEach
   void setUp() {
     client = WebTestClient.bindToController(
-            new BankAccountController(bankAccountService, bankAccountMapper))
+            new BankAccountController(bankAccountService, bankAccountMapper,
+                accountBalanceStreamService, accountStatementService, transactionExportService,
+                accountCommandRouter, commissionsReportCache))
         .build();
     bankAccount = BankAccount.builder()
         .id("1234")
@@ -114,6 +156,143 @@ class BankAccountControllerTests {
 
   }
 
+  @Test
+  void findById_ShouldReturnNotModifiedWhenVersionMatches() {
+    String accountId = "1234";
+    when(bankAccountService.findEntityTag(accountId)).thenReturn(Mono.just("\"7\""));
+
+    client.get()
+        .uri(BASE_URL + "/{account_id}", accountId)
+        .header(HttpHeaders.IF_NONE_MATCH, "\"7\"")
+        .exchange()
+        .expectStatus().isNotModified()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7\"")
+        .expectBody().isEmpty();
+
+    Mockito.verify(bankAccountService, Mockito.never()).findById(accountId);
+  }
+
+  @Test
+  void findById_ShouldReturnTheStripedAccountWhenItsSlotsChanged() {
+    String accountId = "1234";
+    BankAccount account = BankAccount.builder()
+        .id(accountId)
+        .balance(new BigDecimal("1100.00"))
+        .version(7L)
+        .balanceChanges(4L)
+        .build();
+    when(bankAccountService.findEntityTag(accountId)).thenReturn(Mono.just("\"7.4\""));
+    when(bankAccountService.findById(accountId)).thenReturn(Mono.just(account));
+
+    client.get()
+        .uri(BASE_URL + "/{account_id}", accountId)
+        .header(HttpHeaders.IF_NONE_MATCH, "\"7.3\"")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7.4\"")
+        .expectBody()
+        .jsonPath("$.balance").isEqualTo(1100.00)
+        .jsonPath("$.version").isEqualTo(7)
+        .jsonPath("$.balanceChanges").doesNotExist();
+  }
+
+  @Test
+  void findMovements_ShouldReturnNotModifiedWhenNoNewMovements() {
+    String accountId = "1234";
+    when(bankAccountService.findAccountTransactions(accountId)).thenReturn(Flux.empty());
+    when(bankAccountService.findLatestTransactionId(accountId)).thenReturn(Mono.just("trans2"));
+
+    client.get()
+        .uri(BASE_URL + "/{account_id}/transactions", accountId)
+        .header(HttpHeaders.IF_NONE_MATCH, "\"trans2\"")
+        .exchange()
+        .expectStatus().isNotModified();
+  }
+
+  @Test
+  void streamBalance_ShouldPushBalanceEvents() {
+    String accountId = "1234";
+    AccountBalanceResponse balance = AccountBalanceResponse.builder()
+        .accountId(accountId)
+        .balance(new BigDecimal("1000.00"))
+        .version(3L)
+        .build();
+    when(bankAccountService.findById(accountId)).thenReturn(Mono.just(bankAccount));
+    when(accountBalanceStreamService.streamBalance(accountId))
+        .thenReturn(Flux.just(ServerSentEvent.builder(balance).id("3").event("balance").build()));
+
+    Flux<ServerSentEvent<AccountBalanceResponse>> events = client.get()
+        .uri(BASE_URL + "/{account_id}/balance/stream", accountId)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+        .returnResult(new ParameterizedTypeReference<ServerSentEvent<AccountBalanceResponse>>() {
+        })
+        .getResponseBody();
+
+    StepVerifier.create(events)
+        .expectNextMatches(event -> "balance".equals(event.event())
+            && "3".equals(event.id())
+            && new BigDecimal("1000.00").compareTo(event.data().getBalance()) == 0)
+        .verifyComplete();
+  }
+
+  @Test
+  void streamBalance_ShouldReturnNotFoundWhenAccountDoesNotExist() {
+    when(bankAccountService.findById("9999")).thenReturn(Mono.empty());
+
+    client.get()
+        .uri(BASE_URL + "/{account_id}/balance/stream", "9999")
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void exportTransactions_ShouldStreamCsvRows() {
+    String csv = "id,accountId,amount,cursor\ntrans1,1234,100.00,1700000000000:trans1\n";
+    DataBuffer buffer = DefaultDataBufferFactory.sharedInstance
+        .wrap(csv.getBytes(StandardCharsets.UTF_8));
+    when(transactionExportService.export(any(TransactionExportRequest.class), any()))
+        .thenReturn(Mono.just(Flux.just(buffer)));
+
+    client.get()
+        .uri(uriBuilder -> uriBuilder.path(BASE_URL + "/transactions/export")
+            .queryParam("startDate", "2024-01-01")
+            .queryParam("endDate", "2024-01-31")
+            .queryParam("format", "csv")
+            .build())
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(TransactionExportFormat.CSV.getMediaType())
+        .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+        .expectBody(String.class).isEqualTo(csv);
+
+    Mockito.verify(transactionExportService).export(
+        Mockito.argThat(request -> request.getFormat() == TransactionExportFormat.CSV
+            && LocalDate.of(2024, 1, 31).equals(request.getEndDate())
+            && !request.isGzip()),
+        any());
+  }
+
+  @Test
+  void exportTransactions_ShouldAnswerTooManyRequestsBeforeStartingTheStream() {
+    when(transactionExportService.export(any(TransactionExportRequest.class), any()))
+        .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+            "Too many exports")));
+
+    client.get()
+        .uri(uriBuilder -> uriBuilder.path(BASE_URL + "/transactions/export")
+            .queryParam("startDate", "2024-01-01")
+            .queryParam("endDate", "2024-01-31")
+            .build())
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+        .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+  }
+
   @Test
   void save_ShouldCreateNewBankAccount() {
 
@@ -197,6 +376,29 @@ class BankAccountControllerTests {
 
   }
 
+  @Test
+  void patch_ShouldUpdateOnlyProvidedFields() {
+    String accountId = "1234";
+    BankAccountPatchDTO patchDTO = BankAccountPatchDTO.builder()
+        .version(3L)
+        .withdrawAmountMax(new BigDecimal("800.00"))
+        .build();
+    when(bankAccountService.patch(eq(accountId), any(BankAccountPatchDTO.class)))
+        .thenReturn(Mono.just(bankAccount));
+
+    client.patch()
+        .uri(BASE_URL + "/{account_id}", accountId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(patchDTO)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(accountId);
+
+    Mockito.verify(bankAccountService, Mockito.times(1)).patch(eq(accountId), eq(patchDTO));
+    Mockito.verify(bankAccountService, Mockito.never()).findById(accountId);
+  }
+
   @Test
   void findMovements_ShouldReturnAccountTransactions() {
     // Arrange
@@ -208,6 +410,8 @@ class BankAccountControllerTests {
 
     Mockito.when(bankAccountService.findAccountTransactions(accountId))
         .thenReturn(Flux.just(transaction1, transaction2));
+    Mockito.when(bankAccountService.findLatestTransactionId(accountId))
+        .thenReturn(Mono.just("trans2"));
 
     client.get()
         .uri(BASE_URL + "/{account_id}/transactions", accountId)
@@ -215,6 +419,7 @@ class BankAccountControllerTests {
         .exchange()
         .expectStatus().isOk()
         .expectHeader().contentType(MediaType.APPLICATION_JSON)
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"trans2\"")
         .expectBodyList(AccountTransactions.class)
         .hasSize(2)
         .contains(transaction1, transaction2);
@@ -244,6 +449,59 @@ class BankAccountControllerTests {
     Mockito.verify(bankAccountService, Mockito.times(1)).deleteSigner(accountId, signerId);
   }
 
+  @Test
+  void updateMembers_ShouldApplyBulkHoldersAndSigners() {
+    String accountId = "1234";
+    AccountMembersDTO members = AccountMembersDTO.builder()
+        .addHolders(Set.of("holder3"))
+        .removeSigners(Set.of("signer1"))
+        .build();
+
+    when(bankAccountService.updateMembers(eq(accountId), any(AccountMembersDTO.class)))
+        .thenReturn(Mono.just(bankAccount));
+
+    client.patch()
+        .uri(BASE_URL + "/{account_id}/members", accountId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(members)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(MediaType.APPLICATION_JSON)
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(accountId);
+
+    Mockito.verify(bankAccountService, Mockito.times(1))
+        .updateMembers(eq(accountId), eq(members));
+  }
+
+  @Test
+  void findStatement_ShouldReturnStatementOfClosedMonth() {
+    YearMonth month = YearMonth.of(2024, 1);
+    AccountStatement statement = AccountStatement.builder()
+        .id(AccountStatement.idOf("1234", month))
+        .accountId("1234")
+        .month(month.toString())
+        .openingBalance(new BigDecimal("900.00"))
+        .closingBalance(new BigDecimal("1000.00"))
+        .totalDeposits(new BigDecimal("100.00"))
+        .totalWithdrawals(BigDecimal.ZERO)
+        .totalFees(BigDecimal.ZERO)
+        .numberOfTransactions(1)
+        .movements(List.of())
+        .build();
+    when(accountStatementService.findStatement("1234", month)).thenReturn(Mono.just(statement));
+
+    client.get()
+        .uri(BASE_URL + ACCOUNT_ID_PATH + "/statements/{month}", "1234", "2024-01")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+        .expectBody()
+        .jsonPath("$.month").isEqualTo("2024-01")
+        .jsonPath("$.openingBalance").isEqualTo(900.00)
+        .jsonPath("$.closingBalance").isEqualTo(1000.00);
+  }
+
   @Test
   void reportCommisionsByProduct_ShouldReturnCommissionsReport() {
     LocalDate startDate = LocalDate.of(2023, 1, 1);
@@ -255,6 +513,7 @@ class BankAccountControllerTests {
     when(bankAccountService.generateReportCommissionsProduct(eq(startDate), eq(endDate),
         eq(productName)))
         .thenReturn(Mono.just(reportResponse));
+    when(commissionsReportCache.isClosed(endDate)).thenReturn(true);
 
     client.post()
         .uri(uriBuilder -> uriBuilder.path(BASE_URL + "/reports/commissions")
@@ -266,6 +525,7 @@ class BankAccountControllerTests {
         .exchange()
         .expectStatus().isOk()
         .expectHeader().contentType(MediaType.APPLICATION_JSON)
+        .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
         .expectBody()
         .jsonPath("$.productName").isEqualTo(productName);
 
@@ -273,4 +533,51 @@ class BankAccountControllerTests {
         .generateReportCommissionsProduct(eq(startDate), eq(endDate), eq(productName));
   }
 
+  @Test
+  void reportCommisionsByProduct_ShouldNotLetClientsKeepAReportEndingOnAnOpenDay() {
+    LocalDate startDate = LocalDate.now().minusDays(7);
+    LocalDate endDate = LocalDate.now().minusDays(1);
+    String productName = "Savings";
+    CommissionsReportResponse reportResponse = new CommissionsReportResponse();
+    reportResponse.setProductName(productName);
+
+    when(bankAccountService.generateReportCommissionsProduct(eq(startDate), eq(endDate),
+        eq(productName)))
+        .thenReturn(Mono.just(reportResponse));
+    when(commissionsReportCache.isClosed(endDate)).thenReturn(false);
+
+    client.post()
+        .uri(uriBuilder -> uriBuilder.path(BASE_URL + "/reports/commissions")
+            .queryParam("startDate", startDate)
+            .queryParam("endDate", endDate)
+            .queryParam("productName", productName)
+            .build())
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().cacheControl(CacheControl.noCache());
+  }
+
+  @Test
+  void transfer_ShouldRouteTheCommandToTheOwnerOfTheDebitedAccount() {
+    AccountTransactions transaction = AccountTransactions.builder()
+        .id("tx-1")
+        .accountId("1234")
+        .amount(new BigDecimal("100"))
+        .build();
+
+    when(accountCommandRouter.execute(
+        AccountCommand.transfer("1234", "5678", new BigDecimal("100"))))
+        .thenReturn(Mono.just(transaction));
+
+    client.post()
+        .uri(BASE_URL + "/{from_account_id}/{to_account_id}/transfer?amount=100", "1234", "5678")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.id").isEqualTo("tx-1");
+
+    Mockito.verifyNoInteractions(bankAccountService);
+  }
+
 }
@@ -0,0 +1,69 @@
+package com.nttbank.microservices.accountservice.controller;
+
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import com.nttbank.microservices.accountservice.model.response.AccountSummaryResponse;
+import com.nttbank.microservices.accountservice.model.response.AccountTotalsResponse;
+import com.nttbank.microservices.accountservice.model.response.CustomerPortfolioResponse;
+import com.nttbank.microservices.accountservice.service.CustomerPortfolioService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerPortfolioControllerTests {
+
+  @Mock
+  private CustomerPortfolioService customerPortfolioService;
+
+  WebTestClient client;
+
+  @BeforeEach
+  void setUp() {
+    client = WebTestClient.bindToController(
+            new CustomerPortfolioController(customerPortfolioService))
+        .build();
+  }
+
+  @Test
+  void findPortfolio_ShouldReturnAccountsAndTotalsOfCustomer() {
+    CustomerPortfolioResponse portfolio = CustomerPortfolioResponse.builder()
+        .customerId("customer123")
+        .accounts(List.of(
+            AccountSummaryResponse.builder().id("acc1").accountType("saving")
+                .status(AccountStatus.active).balance(new BigDecimal("150.00"))
+                .role(CustomerPortfolioService.OWNER_ROLE).build(),
+            AccountSummaryResponse.builder().id("acc2").accountType("checking")
+                .status(AccountStatus.active).balance(new BigDecimal("40.00"))
+                .role(CustomerPortfolioService.SIGNER_ROLE).build()))
+        .totals(List.of(
+            AccountTotalsResponse.builder().accountType("checking")
+                .status(AccountStatus.active).count(1).balance(new BigDecimal("40.00")).build(),
+            AccountTotalsResponse.builder().accountType("saving")
+                .status(AccountStatus.active).count(1).balance(new BigDecimal("150.00")).build()))
+        .generatedAt(LocalDateTime.now())
+        .build();
+    when(customerPortfolioService.findPortfolio("customer123")).thenReturn(Mono.just(portfolio));
+
+    client.get()
+        .uri("/customers/{customer_id}/accounts/summary", "customer123")
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.customerId").isEqualTo("customer123")
+        .jsonPath("$.accounts.length()").isEqualTo(2)
+        .jsonPath("$.accounts[1].role").isEqualTo("signer")
+        .jsonPath("$.totals[1].accountType").isEqualTo("saving")
+        .jsonPath("$.totals[1].count").isEqualTo(1);
+  }
+}
@@ -0,0 +1,63 @@
+package com.nttbank.microservices.accountservice.controller;
+
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.analytics.ProductPositions;
+import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
+import com.nttbank.microservices.accountservice.model.response.PositionsReportResponse;
+import com.nttbank.microservices.accountservice.model.response.ProductPositionResponse;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ProductPositionControllerTests {
+
+  @Mock
+  private ProductPositions productPositions;
+
+  WebTestClient client;
+
+  @BeforeEach
+  void setUp() {
+    client = WebTestClient.bindToController(new ProductPositionController(productPositions))
+        .build();
+  }
+
+  @Test
+  void findPositions_ShouldReturnTotalsByTypeAndStatus() {
+    PositionsReportResponse report = PositionsReportResponse.builder()
+        .month("2024-01")
+        .positions(List.of(ProductPositionResponse.builder()
+            .accountType("saving")
+            .status(AccountStatus.active)
+            .count(3L)
+            .balance(new BigDecimal("4500.00"))
+            .feesThisMonth(new BigDecimal("12.50"))
+            .build()))
+        .generatedAt(LocalDateTime.now())
+        .build();
+    when(productPositions.report()).thenReturn(Mono.just(report));
+
+    client.get()
+        .uri("/accounts/reports/positions")
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().cacheControl(CacheControl.noCache())
+        .expectBody()
+        .jsonPath("$.month").isEqualTo("2024-01")
+        .jsonPath("$.positions[0].accountType").isEqualTo("saving")
+        .jsonPath("$.positions[0].count").isEqualTo(3)
+        .jsonPath("$.positions[0].feesThisMonth").isEqualTo(12.50);
+  }
+}
@@ -0,0 +1,102 @@
+package com.nttbank.microservices.accountservice.event;
+
+import com.nttbank.microservices.commonlibrary.event.GenericEvent;
+import com.nttbank.microservices.commonlibrary.event.WalletTransactionEvent;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the cost of writing and reading one Kafka event with the compact codec and with the
+ * JSON one it falls back to. Each operation handles a single record on one thread, so the average
+ * time is the CPU spent per record. Only executed with the {@code benchmark} Maven profile; the
+ * JMH results are written to {@code target/benchmark/event-codecs.json}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings("rawtypes")
+public class CompactEventCodecBenchmark {
+
+  private static final String RESULT = "target/benchmark/event-codecs.json";
+  private static final String TOPIC = "account-service-management-v1";
+
+  @Param({"json", "compact"})
+  public String codec;
+
+  private CompactEventSerializer serializer;
+  private CompactEventDeserializer deserializer;
+  private GenericEvent event;
+  private RecordHeaders headers;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    EventSchemaRegistry registry = new EventSchemaRegistry();
+    ReflectionTestUtils.setField(registry, "directory", "");
+    registry.load();
+    serializer = new CompactEventSerializer(registry, "compact".equals(codec));
+    deserializer = new CompactEventDeserializer(registry);
+    deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES,
+        "com.nttbank.microservices.*"), false);
+    event = JacksonUtils.enhancedObjectMapper().convertValue(Map.of(
+        "transactionId", "6f1c2a9e-4b7d-4f0e-9a51-2d8c3e7b1f60",
+        "senderAccountId", "65f1a2b3c4d5e6f708192a3b",
+        "senderPhoneNumber", "999888777",
+        "receiverAccountId", "65f1a2b3c4d5e6f708192a3c",
+        "receiverPhoneNumber", "999111222",
+        "senderBalanceUpdated", new BigDecimal("1849.25"),
+        "amount", new BigDecimal("150.75"),
+        "status", "completed",
+        "description", "Yanki transfer"), WalletTransactionEvent.class);
+    headers = new RecordHeaders();
+    encoded = serializer.serialize(TOPIC, headers, event);
+  }
+
+  @Benchmark
+  public byte[] write() {
+    return serializer.serialize(TOPIC, new RecordHeaders(), event);
+  }
+
+  /**
+   * The JSON deserializer removes the type headers it reads, so each record gets its own copy.
+   */
+  @Benchmark
+  public GenericEvent read() {
+    return deserializer.deserialize(TOPIC, new RecordHeaders(headers.toArray()), encoded);
+  }
+
+  @Test
+  void runBenchmark() throws Exception {
+    Files.createDirectories(Path.of(RESULT).getParent());
+    new Runner(new OptionsBuilder()
+        .include(CompactEventCodecBenchmark.class.getName())
+        .forks(1)
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .resultFormat(ResultFormatType.JSON)
+        .result(RESULT)
+        .build())
+        .run();
+  }
+}
@@ -0,0 +1,84 @@
+package com.nttbank.microservices.accountservice.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nttbank.microservices.accountservice.event.EventSchema.FieldType;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class CompactEventFormatTests {
+
+  @Test
+  void writeField_ShouldRoundTripEveryFieldType() {
+    assertThat(roundTrip(FieldType.STRING, "a\u00f1il \u20ac")).isEqualTo("a\u00f1il \u20ac");
+    assertThat(roundTrip(FieldType.DECIMAL, new BigDecimal("1234.50")))
+        .isEqualTo(new BigDecimal("1234.50"));
+    assertThat(roundTrip(FieldType.LONG, 9_876_543_210L)).isEqualTo(9_876_543_210L);
+    assertThat(roundTrip(FieldType.DOUBLE, 0.125d)).isEqualTo(0.125d);
+    assertThat(roundTrip(FieldType.BOOLEAN, true)).isEqualTo(true);
+    assertThat(roundTrip(FieldType.BOOLEAN, false)).isEqualTo(false);
+  }
+
+  @Test
+  void writeField_ShouldRoundTripNegativeNumbers() {
+    assertThat(roundTrip(FieldType.LONG, -1L)).isEqualTo(-1L);
+    assertThat(roundTrip(FieldType.LONG, Long.MIN_VALUE)).isEqualTo(Long.MIN_VALUE);
+    assertThat(roundTrip(FieldType.LONG, Long.MAX_VALUE)).isEqualTo(Long.MAX_VALUE);
+    assertThat(roundTrip(FieldType.DECIMAL, new BigDecimal("-0.01")))
+        .isEqualTo(new BigDecimal("-0.01"));
+    assertThat(roundTrip(FieldType.DOUBLE, -273.15d)).isEqualTo(-273.15d);
+  }
+
+  @Test
+  void writeField_ShouldKeepTheScaleOfLargeDecimals() {
+    BigDecimal tiny = new BigDecimal("-1.000000000000000000000000000000000000000000000001");
+    BigDecimal huge = new BigDecimal("123456789012345678901234567890.123456789");
+    BigDecimal negativeScale = new BigDecimal("7E+40");
+
+    assertThat((BigDecimal) roundTrip(FieldType.DECIMAL, tiny))
+        .isEqualTo(tiny)
+        .extracting(BigDecimal::scale).isEqualTo(48);
+    assertThat(roundTrip(FieldType.DECIMAL, huge)).isEqualTo(huge);
+    assertThat((BigDecimal) roundTrip(FieldType.DECIMAL, negativeScale))
+        .isEqualTo(negativeScale)
+        .extracting(BigDecimal::scale).isEqualTo(-40);
+  }
+
+  @Test
+  void writeField_ShouldConvertValuesOfOtherJavaTypes() {
+    assertThat(roundTrip(FieldType.DECIMAL, "-15.250")).isEqualTo(new BigDecimal("-15.250"));
+    assertThat(roundTrip(FieldType.DECIMAL, 42)).isEqualTo(new BigDecimal("42"));
+    assertThat(roundTrip(FieldType.LONG, 7)).isEqualTo(7L);
+    assertThat(roundTrip(FieldType.STRING, FieldType.LONG)).isEqualTo("LONG");
+  }
+
+  @Test
+  void writeField_ShouldRoundTripAbsentFields() {
+    for (FieldType type : FieldType.values()) {
+      assertThat(roundTrip(type, null)).isNull();
+    }
+  }
+
+  @Test
+  void writeHeader_ShouldMarkThePayloadAsCompact() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEventFormat.writeHeader(out, 70_000);
+    CompactEventFormat.writeField(out, FieldType.BOOLEAN, true);
+    byte[] data = out.toByteArray();
+
+    assertThat(CompactEventFormat.isCompact(data)).isTrue();
+    assertThat(CompactEventFormat.isCompact("{\"a\":1}".getBytes())).isFalse();
+    assertThat(CompactEventFormat.readHeader(ByteBuffer.wrap(data))).isEqualTo(70_000);
+  }
+
+  private static Object roundTrip(FieldType type, Object value) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEventFormat.writeField(out, type, value);
+    ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+    Object read = CompactEventFormat.readField(in, type);
+    assertThat(in.hasRemaining()).isFalse();
+    return read;
+  }
+}
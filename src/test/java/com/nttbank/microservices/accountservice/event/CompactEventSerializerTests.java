@@ -0,0 +1,185 @@
+package com.nttbank.microservices.accountservice.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttbank.microservices.commonlibrary.event.CreateBankAccountEvent;
+import com.nttbank.microservices.commonlibrary.event.CreateWalletEvent;
+import com.nttbank.microservices.commonlibrary.event.GenericEvent;
+import com.nttbank.microservices.commonlibrary.event.WalletTransactionEvent;
+import com.nttbank.microservices.commonlibrary.event.WalletTransferEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("rawtypes")
+class CompactEventSerializerTests {
+
+  private static final String TOPIC = "account-service-management-v1";
+
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+  @TempDir
+  Path schemaDirectory;
+
+  private EventSchemaRegistry schemaRegistry;
+
+  @BeforeEach
+  void setUp() {
+    schemaRegistry = registry(schemaDirectory);
+  }
+
+  @Test
+  void serialize_ShouldRoundTripAnEventOfEveryBundledSchema() {
+    List<GenericEvent> events = List.of(
+        event(CreateBankAccountEvent.class, Map.of("username", "jdoe",
+            "email", "jdoe@mail.com", "phoneNumber", "999888777", "imei", "356938035643809")),
+        event(WalletTransferEvent.class, Map.of("transactionId", "tx-1",
+            "senderAccountId", "acc1", "senderPhoneNumber", "999888777",
+            "receiverAccountId", "acc2", "receiverPhoneNumber", "999111222",
+            "amount", new BigDecimal("150.70"))),
+        event(CreateWalletEvent.class, Map.of("accountId", "acc1", "documentId", "12345678",
+            "email", "jdoe@mail.com", "phoneNumber", "999888777", "imei", "356938035643809",
+            "status", "active")),
+        event(WalletTransactionEvent.class, Map.of("transactionId", "tx-1",
+            "senderAccountId", "acc1", "senderPhoneNumber", "999888777",
+            "receiverAccountId", "acc2", "receiverPhoneNumber", "999111222",
+            "senderBalanceUpdated", new BigDecimal("-20.125"),
+            "amount", new BigDecimal("150.75"), "status", "completed",
+            "description", "Yanki transfer")));
+
+    for (GenericEvent event : events) {
+      byte[] data = serializer().serialize(TOPIC, event);
+
+      assertThat(CompactEventFormat.isCompact(data)).as(event.getClass().getName()).isTrue();
+      assertThat(deserializer().deserialize(TOPIC, data))
+          .usingRecursiveComparison()
+          .isEqualTo(event);
+    }
+  }
+
+  @Test
+  void serialize_ShouldRoundTripNullFields() {
+    WalletTransactionEvent event = event(WalletTransactionEvent.class,
+        Map.of("transactionId", "tx-2", "status", "error"));
+
+    byte[] data = serializer().serialize(TOPIC, event);
+
+    assertThat(CompactEventFormat.isCompact(data)).isTrue();
+    WalletTransactionEvent read = (WalletTransactionEvent) deserializer().deserialize(TOPIC, data);
+    assertThat(read).usingRecursiveComparison().isEqualTo(event);
+    assertThat(read.getAmount()).isNull();
+    assertThat(read.getDescription()).isNull();
+  }
+
+  @Test
+  void deserialize_ShouldRejectAnUnknownSchemaId() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEventFormat.writeHeader(out, 999);
+    out.write(0);
+
+    assertThat(schemaRegistry.findById(999)).isEmpty();
+    assertThatThrownBy(() -> deserializer().deserialize(TOPIC, out.toByteArray()))
+        .isInstanceOf(SerializationException.class)
+        .hasMessageContaining("999");
+  }
+
+  @Test
+  void serialize_ShouldFallBackToJsonForPropertiesTheSchemaDoesNotCover() throws IOException {
+    writeSchema("wallet-transaction-event-v2.json", """
+        {
+          "id": 100,
+          "type": "com.nttbank.microservices.commonlibrary.event.WalletTransactionEvent",
+          "version": 2,
+          "fields": [
+            {"name": "transactionId", "type": "STRING"},
+            {"name": "amount", "type": "DECIMAL"},
+            {"name": "status", "type": "STRING"}
+          ]
+        }
+        """);
+    EventSchemaRegistry registry = registry(schemaDirectory);
+    WalletTransactionEvent covered = event(WalletTransactionEvent.class,
+        Map.of("transactionId", "tx-3", "amount", new BigDecimal("-1.5"), "status", "completed"));
+    WalletTransactionEvent uncovered = event(WalletTransactionEvent.class,
+        Map.of("transactionId", "tx-4", "status", "error", "description", "Insufficient funds"));
+
+    CompactEventSerializer serializer = new CompactEventSerializer(registry, true);
+    byte[] compact = serializer.serialize(TOPIC, covered);
+    RecordHeaders headers = new RecordHeaders();
+    byte[] json = serializer.serialize(TOPIC, headers, uncovered);
+
+    assertThat(CompactEventFormat.readHeader(ByteBuffer.wrap(compact))).isEqualTo(100);
+    assertThat(CompactEventFormat.isCompact(json)).isFalse();
+    assertThat(new String(json)).contains("\"description\":\"Insufficient funds\"");
+    CompactEventDeserializer deserializer = new CompactEventDeserializer(registry);
+    deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES,
+        "com.nttbank.microservices.*"), false);
+    assertThat(deserializer.deserialize(TOPIC, compact))
+        .usingRecursiveComparison().isEqualTo(covered);
+    assertThat(deserializer.deserialize(TOPIC, headers, json))
+        .usingRecursiveComparison().isEqualTo(uncovered);
+  }
+
+  @Test
+  void deserialize_ShouldReadRecordsWrittenWithAnOlderSchemaVersion() throws IOException {
+    WalletTransactionEvent event = event(WalletTransactionEvent.class,
+        Map.of("transactionId", "tx-5", "amount", new BigDecimal("10.00"),
+            "description", "Written with version 1"));
+    byte[] data = serializer().serialize(TOPIC, event);
+    writeSchema("wallet-transaction-event-v2.json", """
+        {
+          "id": 100,
+          "type": "com.nttbank.microservices.commonlibrary.event.WalletTransactionEvent",
+          "version": 2,
+          "fields": [
+            {"name": "transactionId", "type": "STRING"}
+          ]
+        }
+        """);
+
+    EventSchemaRegistry upgraded = registry(schemaDirectory);
+
+    assertThat(upgraded.findLatest(WalletTransactionEvent.class))
+        .get().extracting(EventSchema::version).isEqualTo(2);
+    assertThat(new CompactEventDeserializer(upgraded).deserialize(TOPIC, data))
+        .usingRecursiveComparison().isEqualTo(event);
+  }
+
+  private CompactEventSerializer serializer() {
+    return new CompactEventSerializer(schemaRegistry, true);
+  }
+
+  private CompactEventDeserializer deserializer() {
+    return new CompactEventDeserializer(schemaRegistry);
+  }
+
+  private <T> T event(Class<T> type, Map<String, Object> properties) {
+    return objectMapper.convertValue(properties, type);
+  }
+
+  private void writeSchema(String name, String schema) throws IOException {
+    Files.writeString(schemaDirectory.resolve(name), schema);
+  }
+
+  private static EventSchemaRegistry registry(Path directory) {
+    EventSchemaRegistry registry = new EventSchemaRegistry();
+    ReflectionTestUtils.setField(registry, "directory", directory.toString());
+    registry.load();
+    return registry;
+  }
+}
@@ -0,0 +1,71 @@
+package com.nttbank.microservices.accountservice.lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class MongoLeaseTests {
+
+  private static final String LEASE = "job";
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  private MongoLease mongoLease;
+
+  @BeforeEach
+  void setUp() {
+    mongoLease = new MongoLease(mongoTemplate);
+  }
+
+  @Test
+  void holding_ShouldRunTheJobAndReleaseTheLease() {
+    when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class),
+        eq(MongoLease.LEASES_COLLECTION)))
+        .thenReturn(Mono.just(UpdateResult.acknowledged(0, 1L, null)));
+    when(mongoTemplate.remove(any(Query.class), eq(MongoLease.LEASES_COLLECTION)))
+        .thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+
+    StepVerifier.create(mongoLease.holding(LEASE, Duration.ofSeconds(30), Mono.just(42L)))
+        .expectNext(42L)
+        .verifyComplete();
+
+    verify(mongoTemplate).remove(any(Query.class), eq(MongoLease.LEASES_COLLECTION));
+  }
+
+  @Test
+  void holding_ShouldFailFastWhenAnotherNodeHoldsTheLease() {
+    AtomicBoolean ran = new AtomicBoolean();
+    when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class),
+        eq(MongoLease.LEASES_COLLECTION)))
+        .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+    StepVerifier.create(mongoLease.holding(LEASE, Duration.ofSeconds(30),
+            Mono.fromRunnable(() -> ran.set(true))))
+        .expectError(LeaseHeldException.class)
+        .verify();
+
+    assertThat(ran).isFalse();
+    verify(mongoTemplate, never()).remove(any(Query.class), eq(MongoLease.LEASES_COLLECTION));
+  }
+}
@@ -0,0 +1,163 @@
+package com.nttbank.microservices.accountservice.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nttbank.microservices.accountservice.dto.BankAccountDTO;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Drives the whole service at a fixed arrival rate and writes the throughput and latency
+ * percentiles of every operation to a JSON report. The service runs against an embedded Mongo
+ * replica set, an embedded Kafka broker and a local {@link GatewayStub}, so the numbers only
+ * depend on the code and the machine. The run is parameterized by {@link LoadProfile} and only
+ * executed with the {@code load-test} Maven profile.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.cloud.config.enabled=false",
+    "eureka.client.enabled=false",
+    "de.flapdoodle.mongodb.embedded.version=7.0.14",
+    "de.flapdoodle.mongodb.embedded.storage.repl-set-name=rs0",
+    "logging.level.com.nttbank=WARN"
+})
+class AccountServiceLoadTest {
+
+  private static final LoadProfile PROFILE = LoadProfile.fromSystemProperties();
+  private static final GatewayStub GATEWAY = new GatewayStub(PROFILE.gatewayMs());
+  private static final EmbeddedKafkaKraftBroker KAFKA = startKafka();
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+  private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+  @LocalServerPort
+  private int port;
+
+  private final AtomicLong customers = new AtomicLong();
+
+  @DynamicPropertySource
+  static void infrastructure(DynamicPropertyRegistry registry) {
+    String[] broker = KAFKA.getBrokersAsString().split(",")[0].split(":");
+    registry.add("kafka.nttbank.server", () -> broker[0]);
+    registry.add("kafka.nttbank.port", () -> broker[1]);
+    registry.add("spring.cloud.discovery.client.simple.instances.cloud-gateway[0].uri",
+        GATEWAY::uri);
+  }
+
+  @AfterAll
+  static void stopInfrastructure() {
+    GATEWAY.close();
+    KAFKA.destroy();
+  }
+
+  @Test
+  void driveConfiguredMix() throws Exception {
+    WebClient client = WebClient.create("http://localhost:" + port);
+    List<String> accounts = Flux.range(0, PROFILE.accounts())
+        .flatMap(i -> openAccount(client, INITIAL_BALANCE), 16)
+        .collectList()
+        .block(Duration.ofMinutes(5));
+    assertThat(accounts).hasSize(PROFILE.accounts()).hasSizeGreaterThan(1);
+
+    log.warn("Warming up for {}.", PROFILE.warmup());
+    drive(client, accounts, PROFILE.warmup(), new LoadReport());
+
+    log.warn("Recording {} requests per second for {}.", PROFILE.rate(), PROFILE.duration());
+    LoadReport report = new LoadReport();
+    Instant startedAt = Instant.now();
+    long elapsed = drive(client, accounts, PROFILE.duration(), report);
+    report.write(PROFILE, startedAt, elapsed);
+    log.warn("Load test report written to {}.", PROFILE.output());
+
+    assertThat(report.count()).isPositive();
+  }
+
+  /**
+   * Starts one request every {@code 1 / rate} seconds for the given duration, whatever the
+   * response times, and waits for the last one to finish.
+   *
+   * @return the elapsed time in nanoseconds.
+   */
+  private long drive(WebClient client, List<String> accounts, Duration duration,
+      LoadReport report) {
+    SplittableRandom random = new SplittableRandom(PROFILE.seed());
+    long periodNanos = Duration.ofSeconds(1).toNanos() / PROFILE.rate();
+    long start = System.nanoTime();
+    Flux.interval(Duration.ZERO, Duration.ofNanos(periodNanos), Schedulers.parallel())
+        .take(duration.toNanos() / periodNanos)
+        .onBackpressureDrop(tick -> report.drop())
+        .flatMap(tick -> {
+          long intendedStart = start + tick * periodNanos;
+          LoadOperation operation = PROFILE.pick(random);
+          int index = random.nextInt(accounts.size());
+          String account = accounts.get(index);
+          String other = accounts.get((index + 1 + random.nextInt(accounts.size() - 1))
+              % accounts.size());
+          return call(client, operation, account, other)
+              .onErrorReturn(false)
+              .doOnNext(success -> report.record(operation, System.nanoTime() - intendedStart,
+                  success));
+        }, PROFILE.maxInFlight())
+        .blockLast(duration.plusMinutes(5));
+    return System.nanoTime() - start;
+  }
+
+  private Mono<Boolean> call(WebClient client, LoadOperation operation, String account,
+      String other) {
+    return switch (operation) {
+      case OPEN -> openAccount(client, BigDecimal.ZERO).thenReturn(true);
+      case DEPOSIT -> exchange(client.post()
+          .uri("/accounts/{id}/deposit?amount={amount}", account, AMOUNT));
+      case WITHDRAW -> exchange(client.post()
+          .uri("/accounts/{id}/withdraw?amount={amount}", account, AMOUNT));
+      case TRANSFER -> exchange(client.post()
+          .uri("/accounts/{from}/{to}/transfer?amount={amount}", account, other, AMOUNT));
+      case HISTORY -> exchange(client.get().uri("/accounts/{id}/transactions", account));
+    };
+  }
+
+  private Mono<Boolean> exchange(WebClient.RequestHeadersSpec<?> request) {
+    return request.exchangeToMono(response -> response.releaseBody()
+        .thenReturn(response.statusCode().is2xxSuccessful()));
+  }
+
+  private Mono<String> openAccount(WebClient client, BigDecimal balance) {
+    BankAccountDTO account = BankAccountDTO.builder()
+        .accountType("saving")
+        .customerId("load-test-" + customers.incrementAndGet())
+        .balance(balance)
+        .maxMonthlyTrans(Integer.MAX_VALUE)
+        .transactionFee(new BigDecimal("0.01"))
+        .build();
+    return client.post()
+        .uri("/accounts")
+        .bodyValue(account)
+        .retrieve()
+        .bodyToMono(BankAccount.class)
+        .map(BankAccount::getId);
+  }
+
+  private static EmbeddedKafkaKraftBroker startKafka() {
+    EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 1, "nttbank");
+    broker.afterPropertiesSet();
+    return broker;
+  }
+}
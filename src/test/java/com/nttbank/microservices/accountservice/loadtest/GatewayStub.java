@@ -0,0 +1,61 @@
+package com.nttbank.microservices.accountservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import java.time.Duration;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Local stand-in for the cloud gateway behind
+ * {@link com.nttbank.microservices.accountservice.proxy.openfeign.CloudGatewayFeign}. Every
+ * customer exists as a personal customer with one active credit card, so any account can be
+ * opened, and each answer can be delayed to mimic the latency of the real gateway.
+ */
+class GatewayStub implements AutoCloseable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final DisposableServer server;
+
+  GatewayStub(long latencyMs) {
+    server = HttpServer.create()
+        .host("127.0.0.1")
+        .port(0)
+        .route(routes -> routes
+            .get("/api/customer-service/customers/{customer_id}", (request, response) -> response
+                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .sendString(Mono.fromCallable(() -> customer(request.param("customer_id")))
+                    .delayElement(Duration.ofMillis(latencyMs))))
+            .get("/api/customer-service/customers", (request, response) -> response
+                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .sendString(Mono.just("[]")))
+            .get("/api/creditcard-service/creditcards/{customer_id}/count",
+                (request, response) -> response
+                    .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                    .sendString(Mono.just("1")
+                        .delayElement(Duration.ofMillis(latencyMs)))))
+        .bindNow();
+  }
+
+  String uri() {
+    return "http://127.0.0.1:" + server.port();
+  }
+
+  @Override
+  public void close() {
+    server.disposeNow();
+  }
+
+  private static String customer(String customerId) throws Exception {
+    return MAPPER.writeValueAsString(CustomerResponse.builder()
+        .id(customerId)
+        .type("personal")
+        .profile("standard")
+        .name("Load test " + customerId)
+        .build());
+  }
+}
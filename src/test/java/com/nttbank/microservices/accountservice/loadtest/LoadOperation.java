@@ -0,0 +1,12 @@
+package com.nttbank.microservices.accountservice.loadtest;
+
+/**
+ * Operations driven by the load test, each one mapped to an endpoint of the service.
+ */
+enum LoadOperation {
+  OPEN,
+  DEPOSIT,
+  WITHDRAW,
+  TRANSFER,
+  HISTORY
+}
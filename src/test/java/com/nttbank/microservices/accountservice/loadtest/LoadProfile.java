@@ -0,0 +1,71 @@
+package com.nttbank.microservices.accountservice.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Parameters of a load-test run, read from {@code loadtest.*} system properties so that a run can
+ * be repeated with the same arrival rate, mix and seed, e.g.
+ * {@code mvn test -Pload-test -Dloadtest.rate=500 -Dloadtest.mix=deposit:60,history:40}.
+ *
+ * @param rate        requests started per second, whatever the response times.
+ * @param warmup      duration of the unrecorded warm-up phase.
+ * @param duration    duration of the recorded phase.
+ * @param maxInFlight requests allowed in flight; arrivals beyond it are counted as dropped.
+ * @param accounts    accounts opened before the run and used by the movement operations.
+ * @param gatewayMs   latency added by the gateway stub to every answer.
+ * @param seed        seed of the operation and account picks.
+ * @param mix         weight of every operation.
+ * @param output      path of the JSON report.
+ */
+record LoadProfile(int rate, Duration warmup, Duration duration, int maxInFlight, int accounts,
+    long gatewayMs, long seed, Map<LoadOperation, Integer> mix, String output) {
+
+  private static final String DEFAULT_MIX = "open:5,deposit:35,withdraw:30,transfer:10,history:20";
+
+  static LoadProfile fromSystemProperties() {
+    return new LoadProfile(
+        Integer.getInteger("loadtest.rate", 200),
+        Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 15L)),
+        Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60L)),
+        Integer.getInteger("loadtest.max-in-flight", 512),
+        Integer.getInteger("loadtest.accounts", 200),
+        Long.getLong("loadtest.gateway-latency-ms", 5L),
+        Long.getLong("loadtest.seed", 42L),
+        parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+        System.getProperty("loadtest.output", "target/load-test/report.json"));
+  }
+
+  /**
+   * Picks the next operation according to the weights of the mix.
+   */
+  LoadOperation pick(SplittableRandom random) {
+    int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+    int point = random.nextInt(total);
+    for (Map.Entry<LoadOperation, Integer> entry : mix.entrySet()) {
+      point -= entry.getValue();
+      if (point < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("Empty load mix");
+  }
+
+  private static Map<LoadOperation, Integer> parseMix(String mix) {
+    Map<LoadOperation, Integer> weights = Arrays.stream(mix.split(","))
+        .map(entry -> entry.trim().split(":"))
+        .collect(Collectors.toMap(
+            entry -> LoadOperation.valueOf(entry[0].trim().toUpperCase()),
+            entry -> Integer.parseInt(entry[1].trim()),
+            Integer::sum,
+            LinkedHashMap::new));
+    if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+      throw new IllegalArgumentException("The load mix needs a positive weight: " + mix);
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,101 @@
+package com.nttbank.microservices.accountservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and outcomes of the recorded phase of a load-test run. Latencies are measured from
+ * the time a request was due to start, not from the time it was sent, so a stalled service shows
+ * up in the percentiles instead of only lowering the request rate.
+ */
+class LoadReport {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+  private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+  private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+  private final LongAdder dropped = new LongAdder();
+
+  LoadReport() {
+    for (LoadOperation operation : LoadOperation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  void record(LoadOperation operation, long latencyNanos, boolean success) {
+    latencies.get(operation).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    if (!success) {
+      errors.get(operation).increment();
+    }
+  }
+
+  void drop() {
+    dropped.increment();
+  }
+
+  long count() {
+    return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+  }
+
+  /**
+   * Writes the report as JSON, one entry per operation with its throughput, error count and
+   * latency percentiles in milliseconds.
+   */
+  void write(LoadProfile profile, Instant startedAt, long elapsedNanos) throws IOException {
+    double seconds = elapsedNanos / 1e9;
+    Map<String, Object> operations = new LinkedHashMap<>();
+    latencies.forEach((operation, histogram) -> {
+      if (histogram.getTotalCount() == 0) {
+        return;
+      }
+      Map<String, Object> latency = new LinkedHashMap<>();
+      for (double percentile : PERCENTILES) {
+        latency.put("p" + String.valueOf(percentile).replace(".0", ""),
+            millis(histogram.getValueAtPercentile(percentile)));
+      }
+      latency.put("max", millis(histogram.getMaxValue()));
+      latency.put("mean", histogram.getMean() / 1e6);
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("count", histogram.getTotalCount());
+      entry.put("errors", errors.get(operation).sum());
+      entry.put("throughput", histogram.getTotalCount() / seconds);
+      entry.put("latencyMs", latency);
+      operations.put(operation.name().toLowerCase(), entry);
+    });
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("startedAt", startedAt.toString());
+    report.put("javaVersion", System.getProperty("java.version"));
+    report.put("profile", profile);
+    report.put("elapsedSeconds", seconds);
+    report.put("requests", count());
+    report.put("throughput", count() / seconds);
+    report.put("dropped", dropped.sum());
+    report.put("operations", operations);
+
+    Path output = Path.of(profile.output());
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(output.toFile(), report);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
@@ -0,0 +1,210 @@
+package com.nttbank.microservices.accountservice.ownership;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.exception.InsufficientFundsException;
+import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Two nodes sharing the ownership group on an embedded Kafka broker.
+ */
+class AccountOwnershipTests {
+
+  private static final int PARTITIONS = 8;
+  private static final BigDecimal BALANCE = new BigDecimal("1000.00");
+
+  private EmbeddedKafkaKraftBroker kafka;
+  private final List<AccountOwnership> nodes = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    kafka = new EmbeddedKafkaKraftBroker(1, 1);
+    kafka.afterPropertiesSet();
+  }
+
+  @AfterEach
+  void tearDown() {
+    nodes.forEach(AccountOwnership::stop);
+    kafka.destroy();
+  }
+
+  @Test
+  void testPartitionsAreSplitAmongTheNodes() {
+    AccountOwnership first = startNode("node-1");
+    AccountOwnership second = startNode("node-2");
+
+    awaitBalancedOwnership(first, second);
+
+    Set<Integer> all = new HashSet<>(first.getOwnedPartitions());
+    all.addAll(second.getOwnedPartitions());
+    assertEquals(PARTITIONS, all.size());
+    assertTrue(first.getOwnedPartitions().stream()
+        .noneMatch(second.getOwnedPartitions()::contains));
+  }
+
+  @Test
+  void testCommandIsForwardedToTheOwnerOfTheAccount() {
+    AccountOwnership first = startNode("node-1");
+    AccountOwnership second = startNode("node-2");
+    awaitBalancedOwnership(first, second);
+    String accountId = accountOwnedBy(second, first);
+
+    StepVerifier.create(first.route(AccountCommand.deposit(accountId, new BigDecimal("100.00")),
+            () -> Mono.error(new AssertionError("Executed on a node not owning the account"))))
+        .assertNext(transaction -> {
+          assertEquals(accountId, transaction.getAccountId());
+          assertEquals(new BigDecimal("1100.00"), transaction.getBalanceAfterMovement());
+          assertEquals("node-2", transaction.getDescription());
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void testRejectionOnTheOwnerIsReplayedWithItsCode() {
+    AccountOwnership first = startNode("node-1");
+    AccountOwnership second = startNode("node-2");
+    awaitBalancedOwnership(first, second);
+    String accountId = accountOwnedBy(second, first);
+
+    StepVerifier.create(first.route(AccountCommand.withdraw(accountId, new BigDecimal("5000.00")),
+            () -> Mono.error(new AssertionError("Executed on a node not owning the account"))))
+        .expectErrorMatches(e -> e instanceof ForwardedCommandException forwarded
+            && forwarded.getCode() == ErrorCode.INSUFFICIENT_FUNDS)
+        .verify();
+  }
+
+  @Test
+  void testCommandOnAnOwnedAccountRunsLocally() {
+    AccountOwnership first = startNode("node-1");
+    AccountOwnership second = startNode("node-2");
+    awaitBalancedOwnership(first, second);
+    String accountId = accountOwnedBy(first, second);
+    AccountTransactions local = AccountTransactions.builder().accountId(accountId).build();
+
+    StepVerifier.create(first.route(AccountCommand.deposit(accountId, BigDecimal.TEN),
+            () -> Mono.just(local)))
+        .expectNext(local)
+        .verifyComplete();
+  }
+
+  @Test
+  void testCommandIsRejectedUntilTheNodeHasAnAssignment() {
+    AccountOwnership node = new AccountOwnership(settings("node-1", 2, Duration.ofMillis(200)),
+        command -> Mono.error(new AssertionError("Executed before the node had an assignment")));
+
+    StepVerifier.create(node.route(AccountCommand.deposit("account-1", BigDecimal.TEN),
+            () -> Mono.error(new AssertionError("Executed before the node had an assignment"))))
+        .expectError(OwnerUnavailableException.class)
+        .verify();
+  }
+
+  @Test
+  void testSlowForwardedCommandDoesNotHoldTheOtherPartitions() {
+    AccountOwnership first = startNode("node-1", 1, Duration.ZERO);
+    AccountOwnership second = startNode("node-2", 1, Duration.ofSeconds(3));
+    awaitBalancedOwnership(first, second);
+    String slow = accountOwnedBy(second, first);
+    String fast = IntStream.range(0, 1000)
+        .mapToObj(i -> "account-" + i)
+        .filter(accountId -> second.isOwner(accountId) && !first.isOwner(accountId)
+            && AccountPartitions.partitionOf(accountId, PARTITIONS)
+            != AccountPartitions.partitionOf(slow, PARTITIONS))
+        .findFirst()
+        .orElseThrow();
+    Mono<AccountTransactions> notLocal =
+        Mono.error(new AssertionError("Executed on a node not owning the account"));
+
+    first.route(AccountCommand.withdraw(slow, BigDecimal.ONE), () -> notLocal).subscribe();
+
+    StepVerifier.create(first.route(AccountCommand.deposit(fast, BigDecimal.ONE), () -> notLocal))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(2));
+  }
+
+  /**
+   * Starts a node whose accounts all hold {@link #BALANCE}; its transactions carry the id of the
+   * node in their description.
+   */
+  private AccountOwnership startNode(String nodeId) {
+    return startNode(nodeId, 2, Duration.ZERO);
+  }
+
+  /**
+   * Starts a node whose withdrawals take the given time.
+   */
+  private AccountOwnership startNode(String nodeId, int consumers, Duration withdrawTime) {
+    AccountOwnership node = new AccountOwnership(settings(nodeId, consumers,
+        Duration.ofSeconds(10)),
+        command -> {
+          if (command.type() == AccountCommand.Type.WITHDRAW && !withdrawTime.isZero()) {
+            return Mono.delay(withdrawTime).then(Mono.empty());
+          }
+          BigDecimal balance = command.type() == AccountCommand.Type.DEPOSIT
+              ? BALANCE.add(command.amount())
+              : BALANCE.subtract(command.amount());
+          if (balance.signum() < 0) {
+            return Mono.error(new InsufficientFundsException());
+          }
+          return Mono.just(AccountTransactions.builder()
+              .accountId(command.accountId())
+              .amount(command.amount())
+              .balanceAfterMovement(balance)
+              .description(nodeId)
+              .build());
+        });
+    node.start();
+    nodes.add(node);
+    return node;
+  }
+
+  private AccountOwnership.Settings settings(String nodeId, int consumers,
+      Duration replyTimeout) {
+    return new AccountOwnership.Settings(kafka.getBrokersAsString(), "account-commands",
+        "account-command-replies", "account-ownership-tests", nodeId, PARTITIONS, (short) 1,
+        consumers, replyTimeout);
+  }
+
+  /**
+   * Waits until every consumer of both nodes has joined the group, when each node owns half of
+   * the partitions.
+   */
+  private static void awaitBalancedOwnership(AccountOwnership first, AccountOwnership second) {
+    Predicate<AccountOwnership> balanced =
+        node -> node.getOwnedPartitions().size() == PARTITIONS / 2;
+    long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+    while (!(balanced.test(first) && balanced.test(second))) {
+      assertTrue(System.nanoTime() < deadline, "The partitions were not split in time");
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static String accountOwnedBy(AccountOwnership owner, AccountOwnership other) {
+    return IntStream.range(0, 1000)
+        .mapToObj(i -> "account-" + i)
+        .filter(accountId -> owner.isOwner(accountId) && !other.isOwner(accountId))
+        .findFirst()
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,134 @@
+package com.nttbank.microservices.accountservice.proxy.openfeign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.admission.ConcurrencyLimits;
+import com.nttbank.microservices.accountservice.admission.OperationClass;
+import com.nttbank.microservices.accountservice.config.GatewayResilienceConfig;
+import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigurationProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class GatewayCallGuardTests {
+
+  private static final String CUSTOMER_ID = "customer123";
+
+  @Mock
+  private CloudGatewayFeign cloudGatewayFeign;
+
+  @Mock
+  private ConcurrencyLimits concurrencyLimits;
+
+  private SimpleMeterRegistry meterRegistry;
+  private GatewayCallGuard gatewayCallGuard;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    ReactiveResilience4JCircuitBreakerFactory circuitBreakerFactory =
+        new ReactiveResilience4JCircuitBreakerFactory(CircuitBreakerRegistry.ofDefaults(),
+            TimeLimiterRegistry.ofDefaults(), new Resilience4JConfigurationProperties());
+    resilienceConfig().gatewayCircuitBreakerCustomizer().customize(circuitBreakerFactory);
+
+    gatewayCallGuard = new GatewayCallGuard(circuitBreakerFactory, meterRegistry,
+        concurrencyLimits);
+    ReflectionTestUtils.setField(gatewayCallGuard, "hedgeEnabled", true);
+    ReflectionTestUtils.setField(gatewayCallGuard, "hedgeMinDelayMs", 20L);
+    ReflectionTestUtils.setField(gatewayCallGuard, "hedgeMaxDelayMs", 500L);
+    ReflectionTestUtils.setField(gatewayCallGuard, "hedgeMinSamples", 50L);
+
+    when(concurrencyLimits.limit(eq(OperationClass.GATEWAY), any()))
+        .thenAnswer(invocation -> Mono.defer(invocation.getArgument(1)));
+  }
+
+  @Test
+  void guard_ShouldHedgeAfterTheP95LatencyAndReturnTheFirstResult() {
+    Timer latency = Timer.builder("gateway.call.latency")
+        .tag("operation", GatewayCallGuard.CUSTOMER_OPERATION)
+        .publishPercentiles(0.95)
+        .register(meterRegistry);
+    IntStream.range(0, 100).forEach(i -> latency.record(Duration.ofMillis(100)));
+
+    CustomerResponse slow = CustomerResponse.builder().id(CUSTOMER_ID).name("slow").build();
+    CustomerResponse fast = CustomerResponse.builder().id(CUSTOMER_ID).name("fast").build();
+    AtomicInteger calls = new AtomicInteger();
+    when(cloudGatewayFeign.findCustomerById(CUSTOMER_ID)).thenAnswer(invocation ->
+        calls.incrementAndGet() == 1
+            ? Mono.delay(Duration.ofMillis(400)).thenReturn(slow)
+            : Mono.delay(Duration.ofMillis(10)).thenReturn(fast));
+
+    StepVerifier.withVirtualTime(() -> gatewayCallGuard.guard(
+            GatewayCallGuard.CUSTOMER_OPERATION, true,
+            () -> cloudGatewayFeign.findCustomerById(CUSTOMER_ID)))
+        .expectSubscription()
+        .thenAwait(Duration.ofMillis(80))
+        .then(() -> verify(cloudGatewayFeign, times(1)).findCustomerById(CUSTOMER_ID))
+        .thenAwait(Duration.ofMillis(40))
+        .then(() -> verify(cloudGatewayFeign, times(2)).findCustomerById(CUSTOMER_ID))
+        .thenAwait(Duration.ofMillis(20))
+        .expectNext(fast)
+        .verifyComplete();
+
+    assertThat(meterRegistry.counter("gateway.call.hedged",
+        "operation", GatewayCallGuard.CUSTOMER_OPERATION).count()).isEqualTo(1);
+  }
+
+  @Test
+  void guard_ShouldShortCircuitWhileTheBreakerIsOpen() {
+    when(cloudGatewayFeign.findCustomerById(CUSTOMER_ID))
+        .thenAnswer(invocation -> Mono.error(new IllegalStateException("gateway down")));
+
+    for (int i = 0; i < 4; i++) {
+      StepVerifier.create(gatewayCallGuard.guard(GatewayCallGuard.CUSTOMER_OPERATION, false,
+              () -> cloudGatewayFeign.findCustomerById(CUSTOMER_ID)))
+          .expectError(IllegalStateException.class)
+          .verify();
+    }
+
+    StepVerifier.create(gatewayCallGuard.guard(GatewayCallGuard.CUSTOMER_OPERATION, false,
+            () -> cloudGatewayFeign.findCustomerById(CUSTOMER_ID)))
+        .expectError(CallNotPermittedException.class)
+        .verify();
+
+    verify(cloudGatewayFeign, times(4)).findCustomerById(CUSTOMER_ID);
+    assertThat(meterRegistry.counter("gateway.call.rejected",
+        "operation", GatewayCallGuard.CUSTOMER_OPERATION).count()).isEqualTo(1);
+  }
+
+  private static GatewayResilienceConfig resilienceConfig() {
+    GatewayResilienceConfig config = new GatewayResilienceConfig();
+    ReflectionTestUtils.setField(config, "customerTimeoutMs", 1500L);
+    ReflectionTestUtils.setField(config, "creditCardTimeoutMs", 1500L);
+    ReflectionTestUtils.setField(config, "defaultTimeoutMs", 2000L);
+    ReflectionTestUtils.setField(config, "failureRateThreshold", 50f);
+    ReflectionTestUtils.setField(config, "slowCallThresholdMs", 1000L);
+    ReflectionTestUtils.setField(config, "slowCallRateThreshold", 80f);
+    ReflectionTestUtils.setField(config, "slidingWindowSize", 4);
+    ReflectionTestUtils.setField(config, "minimumNumberOfCalls", 4);
+    ReflectionTestUtils.setField(config, "waitInOpenStateMs", 10000L);
+    ReflectionTestUtils.setField(config, "permittedCallsInHalfOpenState", 1);
+    return config;
+  }
+}
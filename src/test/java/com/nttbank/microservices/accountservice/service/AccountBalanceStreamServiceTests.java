@@ -0,0 +1,70 @@
+package com.nttbank.microservices.accountservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.model.entity.BankAccount;
+import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
+import com.nttbank.microservices.accountservice.stream.AccountBalanceFanout;
+import com.nttbank.microservices.accountservice.stream.AccountChange;
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceStreamServiceTests {
+
+  private static final String ACCOUNT_ID = "12345";
+
+  @Mock
+  private IBankAccountRepo accountRepo;
+
+  @Mock
+  private AccountBalanceFanout balanceFanout;
+
+  @Mock
+  private StripedBalances stripedBalances;
+
+  private AccountBalanceStreamService streamService;
+
+  @BeforeEach
+  void setUp() {
+    streamService = new AccountBalanceStreamService(accountRepo, balanceFanout, stripedBalances);
+    ReflectionTestUtils.setField(streamService, "heartbeatMs", 15000L);
+  }
+
+  @Test
+  void streamBalance_ShouldOnlySendHeartbeatsAfterAnIdleInterval() {
+    when(accountRepo.findById(ACCOUNT_ID)).thenReturn(Mono.just(BankAccount.builder()
+        .id(ACCOUNT_ID)
+        .balance(new BigDecimal("1000.00"))
+        .version(1L)
+        .build()));
+
+    StepVerifier.withVirtualTime(() -> {
+          when(balanceFanout.subscribe(ACCOUNT_ID)).thenReturn(Flux.just(
+                  new AccountChange(AccountChange.Type.UPSERT, ACCOUNT_ID,
+                      new BigDecimal("1100.00"), 2L))
+              .delaySubscription(Duration.ofSeconds(10))
+              .concatWith(Flux.never()));
+          return streamService.streamBalance(ACCOUNT_ID);
+        })
+        .assertNext(event -> assertThat(event.id()).isEqualTo("1"))
+        .expectNoEvent(Duration.ofSeconds(10))
+        .assertNext(event -> assertThat(event.id()).isEqualTo("2"))
+        .expectNoEvent(Duration.ofSeconds(14))
+        .thenAwait(Duration.ofSeconds(1))
+        .assertNext(event -> assertThat(event.comment()).isEqualTo("heartbeat"))
+        .thenCancel()
+        .verify();
+  }
+}
@@ -2,26 +2,56 @@ package com.nttbank.microservices.accountservice.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nttbank.microservices.accountservice.analytics.ProductPositions;
+import com.nttbank.microservices.accountservice.archive.TransactionArchive;
+import com.nttbank.microservices.accountservice.balance.SlotTotals;
+import com.nttbank.microservices.accountservice.balance.StripedBalances;
+import com.nttbank.microservices.accountservice.cache.BankAccountNearCache;
+import com.nttbank.microservices.accountservice.cache.CommissionsReportCache;
+import com.nttbank.microservices.accountservice.dto.AccountMembersDTO;
+import com.nttbank.microservices.accountservice.dto.BankAccountPatchDTO;
+import com.nttbank.microservices.accountservice.exception.DomainException;
+import com.nttbank.microservices.accountservice.exception.ErrorCode;
+import com.nttbank.microservices.accountservice.exception.InsufficientFundsException;
+import com.nttbank.microservices.accountservice.ledger.TransactionLedger;
 import com.nttbank.microservices.accountservice.model.entity.AccountStatus;
 import com.nttbank.microservices.accountservice.model.entity.AccountTransactions;
 import com.nttbank.microservices.accountservice.model.entity.BankAccount;
 import com.nttbank.microservices.accountservice.model.entity.MonthlyTransactionSummary;
 import com.nttbank.microservices.accountservice.model.entity.TransactionType;
 import com.nttbank.microservices.accountservice.model.response.CustomerResponse;
-import com.nttbank.microservices.accountservice.repo.IAccountTransactionRepo;
 import com.nttbank.microservices.accountservice.repo.IBankAccountRepo;
 import com.nttbank.microservices.accountservice.service.impl.BankAccountServiceImpl;
+import com.nttbank.microservices.accountservice.util.Constants;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -32,7 +62,7 @@ class BankAccountServiceTests {
   private IBankAccountRepo accountRepo;
 
   @Mock
-  private IAccountTransactionRepo transactionRepo;
+  private TransactionLedger transactionLedger;
 
   @Mock
   private CustomerService customerService;
@@ -43,6 +73,21 @@ class BankAccountServiceTests {
   @Mock
   private TransactionalOperator transactionalOperator;
 
+  @Mock
+  private BankAccountNearCache nearCache;
+
+  @Mock
+  private TransactionArchive transactionArchive;
+
+  @Mock
+  private StripedBalances stripedBalances;
+
+  @Mock
+  private ProductPositions productPositions;
+
+  @Mock
+  private CommissionsReportCache commissionsReportCache;
+
   @InjectMocks
   private BankAccountServiceImpl bankAccountService;
 
@@ -103,6 +148,10 @@ class BankAccountServiceTests {
         .dateOfBirth("1990-01-01")
         .build();
     MockitoAnnotations.openMocks(this);
+    when(productPositions.tracked(any())).thenAnswer(i -> i.getArgument(0));
+    when(productPositions.opened(any(BankAccount.class))).thenReturn(Mono.empty());
+    when(productPositions.closed(any(BankAccount.class))).thenReturn(Mono.empty());
+    when(productPositions.moved(any(BankAccount.class), any())).thenReturn(Mono.empty());
   }
 
   @Test
@@ -111,6 +160,8 @@ class BankAccountServiceTests {
     when(
         accountRepo.countByCustomerIdAndAccountTypeAndStatus(anyString(), anyString(), anyString()))
         .thenReturn(Mono.just(0L));
+    when(creditCardService.totalActiveCreditsCardsByCustomer(anyString(), anyString()))
+        .thenReturn(Mono.just(0L));
     when(accountRepo.save(any(BankAccount.class))).thenReturn(Mono.just(bankAccount));
 
     StepVerifier.create(bankAccountService.save(bankAccount))
@@ -123,6 +174,44 @@ class BankAccountServiceTests {
         .verifyComplete();
   }
 
+  @Test
+  void testSaveRequiresCreditCardForVipSavings() {
+    customer.setProfile("vip");
+    when(customerService.findCustomerById(anyString())).thenReturn(Mono.just(customer));
+    when(
+        accountRepo.countByCustomerIdAndAccountTypeAndStatus(anyString(), anyString(), anyString()))
+        .thenReturn(Mono.just(0L));
+    when(creditCardService.totalActiveCreditsCardsByCustomer(anyString(), anyString()))
+        .thenReturn(Mono.just(0L));
+
+    StepVerifier.create(bankAccountService.save(bankAccount))
+        .expectError(ResponseStatusException.class)
+        .verify();
+
+    verify(accountRepo, never()).save(any(BankAccount.class));
+  }
+
+  @Test
+  void testSaveRunsValidationLookupsConcurrently() {
+    Duration remoteLatency = Duration.ofMillis(100);
+    when(customerService.findCustomerById(anyString()))
+        .thenAnswer(i -> Mono.just(customer).delayElement(remoteLatency));
+    when(
+        accountRepo.countByCustomerIdAndAccountTypeAndStatus(anyString(), anyString(), anyString()))
+        .thenAnswer(i -> Mono.just(0L).delayElement(remoteLatency));
+    when(creditCardService.totalActiveCreditsCardsByCustomer(anyString(), anyString()))
+        .thenAnswer(i -> Mono.just(1L).delayElement(remoteLatency));
+    when(accountRepo.save(any(BankAccount.class))).thenReturn(Mono.just(bankAccount));
+
+    // The three lookups overlap, so the account is opened after one remote wait, not three.
+    StepVerifier.withVirtualTime(() -> bankAccountService.save(bankAccount))
+        .expectSubscription()
+        .expectNoEvent(remoteLatency.minusMillis(1))
+        .thenAwait(Duration.ofMillis(1))
+        .expectNext(bankAccount)
+        .verifyComplete();
+  }
+
   @Test
   void testFindAll() {
     BankAccount account = new BankAccount();
@@ -137,10 +226,258 @@ class BankAccountServiceTests {
   void testFindById() {
     BankAccount account = new BankAccount();
     when(accountRepo.findById(anyString())).thenReturn(Mono.just(account));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
 
     StepVerifier.create(bankAccountService.findById("accountId"))
         .expectNext(account)
         .verifyComplete();
   }
 
+  @Test
+  void testSaveHolderAddsToSetAtomically() {
+    when(customerService.findCustomerById("holder3")).thenReturn(Mono.just(customer));
+    when(accountRepo.addToSet("12345", Constants.HOLDERS_FIELD, Set.of("holder3")))
+        .thenReturn(Mono.just(bankAccount));
+
+    StepVerifier.create(bankAccountService.saveHolder("12345", "holder3"))
+        .expectNext(bankAccount)
+        .verifyComplete();
+
+    verify(accountRepo, never()).save(any(BankAccount.class));
+  }
+
+  @Test
+  void testUpdateMembersAppliesEveryChangeInOneUpdate() {
+    AccountMembersDTO members = AccountMembersDTO.builder()
+        .addHolders(Set.of("holder3"))
+        .removeHolders(Set.of("holder1"))
+        .removeSigners(Set.of("signer1"))
+        .build();
+    when(customerService.findCustomerById("holder3")).thenReturn(Mono.just(customer));
+    when(accountRepo.updateMembers("12345",
+        Map.of(Constants.HOLDERS_FIELD, Set.of("holder3")),
+        Map.of(Constants.HOLDERS_FIELD, Set.of("holder1"),
+            Constants.SIGNERS_FIELD, Set.of("signer1"))))
+        .thenReturn(Mono.just(bankAccount));
+
+    StepVerifier.create(bankAccountService.updateMembers("12345", members))
+        .expectNext(bankAccount)
+        .verifyComplete();
+
+    verify(accountRepo, never()).addToSet(anyString(), anyString(), anySet());
+    verify(accountRepo, never()).pullAll(anyString(), anyString(), anySet());
+  }
+
+  @Test
+  void testPatchOfBalanceWithoutVersionRequiresPrecondition() {
+    BankAccountPatchDTO patch = BankAccountPatchDTO.builder()
+        .balance(new BigDecimal("10.00"))
+        .build();
+
+    StepVerifier.create(bankAccountService.patch("12345", patch))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException ex
+            && ex.getStatusCode() == HttpStatus.PRECONDITION_REQUIRED)
+        .verify();
+
+    verify(accountRepo, never()).findVersionById(anyString());
+    verify(accountRepo, never()).setFields(anyString(), any(), anyMap());
+  }
+
+  @Test
+  void testPatchWithStaleVersionReturnsConflict() {
+    BankAccountPatchDTO patch = BankAccountPatchDTO.builder()
+        .version(1L)
+        .balance(new BigDecimal("10.00"))
+        .build();
+    when(accountRepo.setFields(eq("12345"), eq(1L), anyMap())).thenReturn(Mono.empty());
+    when(accountRepo.existsById("12345")).thenReturn(Mono.just(true));
+
+    StepVerifier.create(bankAccountService.patch("12345", patch))
+        .expectError(OptimisticLockingFailureException.class)
+        .verify();
+  }
+
+  @Test
+  void testFindAccountTransactionsReadsArchiveBeforeMongo() {
+    AccountTransactions archived = AccountTransactions.builder().id("tx00001")
+        .accountId("12345").type(TransactionType.deposit).amount(new BigDecimal("10.00")).build();
+    AccountTransactions pendingDelete = AccountTransactions.builder().id("tx00002")
+        .accountId("12345").type(TransactionType.deposit).amount(new BigDecimal("20.00")).build();
+    AccountTransactions recent = AccountTransactions.builder().id("tx00003")
+        .accountId("12345").type(TransactionType.withdrawal).amount(new BigDecimal("5.00")).build();
+    when(transactionArchive.findByAccountId(eq("12345"), anySet())).thenAnswer(invocation -> {
+      Set<String> pendingIds = invocation.getArgument(1);
+      return Flux.just(archived, pendingDelete)
+          .doOnNext(t -> {
+            if (t == pendingDelete) {
+              pendingIds.add(t.getId());
+            }
+          });
+    });
+    when(transactionLedger.findByAccountId("12345"))
+        .thenReturn(Flux.just(pendingDelete, recent));
+
+    StepVerifier.create(bankAccountService.findAccountTransactions("12345"))
+        .expectNext(archived, pendingDelete, recent)
+        .verifyComplete();
+  }
+
+  @Test
+  void testWithdrawWithoutFundsIsRejectedWithCode() {
+    when(accountRepo.findById("12345")).thenReturn(Mono.just(bankAccount));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+
+    StepVerifier.create(bankAccountService.withdraw("12345", new BigDecimal("5000.00")))
+        .expectErrorSatisfies(error -> {
+          assertThat(error).isInstanceOf(InsufficientFundsException.class);
+          assertThat(((DomainException) error).getCode()).isEqualTo(ErrorCode.INSUFFICIENT_FUNDS);
+          assertThat(error.getStackTrace()).isEmpty();
+        })
+        .verify();
+
+    verify(transactionLedger, never()).append(any(AccountTransactions.class));
+  }
+
+  @Test
+  void testWithdrawRecordsTheMovementOnTheProductPositions() {
+    when(accountRepo.findById("12345")).thenReturn(Mono.just(bankAccount));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+    when(transactionLedger.append(any(AccountTransactions.class)))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+    when(accountRepo.save(any(BankAccount.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+
+    StepVerifier.create(bankAccountService.withdraw("12345", new BigDecimal("100.00")))
+        .assertNext(transaction ->
+            assertThat(transaction.getType()).isEqualTo(TransactionType.withdrawal))
+        .verifyComplete();
+
+    verify(productPositions).tracked(any());
+    verify(productPositions).moved(argThat(account -> "saving".equals(account.getAccountType())),
+        argThat(movements -> movements.size() == 1 && movements.iterator().next().getType()
+            == TransactionType.withdrawal));
+  }
+
+  @Test
+  void testWithdrawIsRetriedFromTheReadAfterAVersionConflict() {
+    ReflectionTestUtils.setField(bankAccountService, "movementMaxRetries", 3L);
+    ReflectionTestUtils.setField(bankAccountService, "movementRetryBackoffMs", 1L);
+    when(accountRepo.findById("12345"))
+        .thenAnswer(i -> Mono.fromSupplier(() -> bankAccount.toBuilder().build()));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+    when(transactionLedger.append(any(AccountTransactions.class)))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+    when(accountRepo.save(any(BankAccount.class)))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("version changed")))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+
+    StepVerifier.create(bankAccountService.withdraw("12345", new BigDecimal("100.00")))
+        .assertNext(transaction ->
+            assertThat(transaction.getBalanceAfterMovement()).isEqualByComparingTo("900.00"))
+        .verifyComplete();
+
+    verify(accountRepo, times(2)).save(any(BankAccount.class));
+  }
+
+  @Test
+  void testDepositReportsTheVersionConflictOnceRetriesAreExhausted() {
+    ReflectionTestUtils.setField(bankAccountService, "movementMaxRetries", 2L);
+    ReflectionTestUtils.setField(bankAccountService, "movementRetryBackoffMs", 1L);
+    when(accountRepo.findById("12345"))
+        .thenAnswer(i -> Mono.fromSupplier(() -> bankAccount.toBuilder().build()));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+    when(transactionLedger.append(any(AccountTransactions.class)))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+    when(accountRepo.save(any(BankAccount.class)))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("version changed")));
+
+    StepVerifier.create(bankAccountService.deposit("12345", new BigDecimal("100.00")))
+        .expectError(OptimisticLockingFailureException.class)
+        .verify();
+
+    verify(accountRepo, times(3)).save(any(BankAccount.class));
+  }
+
+  @Test
+  void testWithdrawEvictsTheNearCacheAfterTheCommit() {
+    List<String> events = new ArrayList<>();
+    when(accountRepo.findById("12345")).thenReturn(Mono.just(bankAccount));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(
+        i -> i.<Mono<?>>getArgument(0).doOnSuccess(v -> events.add("commit")));
+    doAnswer(i -> events.add("evict")).when(nearCache).evict("12345");
+    when(transactionLedger.append(any(AccountTransactions.class)))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+    when(accountRepo.save(any(BankAccount.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+
+    StepVerifier.create(bankAccountService.withdraw("12345", new BigDecimal("100.00")))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    assertThat(events).containsExactly("commit", "evict");
+  }
+
+  @Test
+  void testDepositOnStripedAccountChargesFeeFromSlots() {
+    when(accountRepo.findById("12345")).thenReturn(Mono.just(bankAccount));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+    when(nearCache.get(anyString(), any())).thenAnswer(
+        i -> i.<Function<String, Mono<BankAccount>>>getArgument(1).apply(i.getArgument(0)));
+    when(stripedBalances.isStriped("12345")).thenReturn(true);
+    when(stripedBalances.credit("12345", new BigDecimal("100.00")))
+        .thenReturn(Mono.just(new SlotTotals(new BigDecimal("1100.00"), 10, 1L)));
+    when(stripedBalances.debit("12345", new BigDecimal("1.00"), false))
+        .thenReturn(Mono.just(new SlotTotals(new BigDecimal("1099.00"), 10, 2L)));
+    when(transactionLedger.append(any(AccountTransactions.class)))
+        .thenAnswer(i -> Mono.just(i.getArgument(0)));
+
+    StepVerifier.create(bankAccountService.deposit("12345", new BigDecimal("100.00")))
+        .assertNext(transaction -> {
+          assertThat(transaction.getType()).isEqualTo(TransactionType.deposit);
+          assertThat(transaction.getBalanceAfterMovement()).isEqualByComparingTo("1099.00");
+        })
+        .verifyComplete();
+
+    verify(transactionLedger).append(argThat(
+        transaction -> transaction.getType() == TransactionType.fee));
+    verify(accountRepo, never()).save(any(BankAccount.class));
+  }
+
+  @Test
+  void testDepositsToOneAccountWithinTheWindowAreWrittenTogether() {
+    ReflectionTestUtils.setField(bankAccountService, "depositBatching", true);
+    ReflectionTestUtils.setField(bankAccountService, "depositBatchWindowMs", 50L);
+    ReflectionTestUtils.setField(bankAccountService, "depositBatchMaxSize", 64);
+    bankAccountService.init();
+    when(accountRepo.findById("12345")).thenReturn(Mono.just(bankAccount));
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(i -> i.getArgument(0));
+    when(accountRepo.save(any(BankAccount.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+    when(transactionLedger.appendAll(anyList()))
+        .thenAnswer(i -> Flux.fromIterable(i.<List<AccountTransactions>>getArgument(0)));
+
+    StepVerifier.create(Mono.zip(
+            bankAccountService.deposit("12345", new BigDecimal("100.00")),
+            bankAccountService.deposit("12345", new BigDecimal("200.00"))))
+        .assertNext(deposits -> {
+          assertThat(deposits.getT1().getBalanceAfterMovement()).isEqualByComparingTo("1100.00");
+          assertThat(deposits.getT2().getBalanceAfterMovement()).isEqualByComparingTo("1300.00");
+        })
+        .verifyComplete();
+
+    verify(accountRepo).save(argThat(account -> account.getBalance().compareTo(
+        new BigDecimal("1300.00")) == 0
+        && account.getMonthlyTransactionSummary().getNumberOfTransactions() == 2));
+    verify(transactionLedger).appendAll(argThat(movements -> movements.size() == 2));
+    verify(transactionLedger, never()).append(any(AccountTransactions.class));
+  }
+
 }